@@ -0,0 +1,111 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.Leave;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.LeaveRepository;
+import com.civiltech.civildesk_backend.service.AbsentAttendanceService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * markAbsentForDate: the per-employee loop it replaced (lookup, leave check and save per employee)
+ * against the set-based version, on the same data. 20% of employees have already punched and 5% are
+ * on approved leave.
+ */
+class AbsentMarkingTimedRun extends PostgresTimedRunSupport {
+
+    // A Monday; holidays are not seeded
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private AbsentAttendanceService absentAttendanceService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 50_000})
+    void loopVersusSetBased(int employees) {
+        truncate("attendance", "leaves", "employees", "users");
+        seedEmployees(employees);
+        jdbcTemplate.update("INSERT INTO leaves (id, employee_id, leave_type, start_date, end_date, is_half_day, " +
+                "contact_number, reason, status, deleted, created_at, updated_at) " +
+                "SELECT id, id, 'CASUAL_LEAVE', ?, ?, (id % 2 = 0), '9000000000', 'bench', 'APPROVED', false, now(), now() " +
+                "FROM employees WHERE id % 20 = 0", DATE, DATE);
+        jdbcTemplate.update("INSERT INTO attendance (id, employee_id, date, status, recognition_method, deleted, " +
+                "created_at, updated_at) SELECT id, id, ?, 'PRESENT', 'GPS_BASED', false, now(), now() " +
+                "FROM employees WHERE id % 5 = 1", DATE);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int loopCount = timedResult("per-employee loop, " + employees + " employees",
+                () -> transaction.execute(status -> markAbsentOneByOne(DATE)));
+        int loopRows = countAutoRows();
+
+        jdbcTemplate.update("DELETE FROM attendance WHERE recognition_method IN ('AUTO_ABSENT', 'AUTO_LEAVE')");
+        int bulkCount = timedResult("set-based markAbsentForDate, " + employees + " employees",
+                () -> absentAttendanceService.markAbsentForDate(DATE));
+
+        assertEquals(loopCount, bulkCount);
+        assertEquals(loopRows, countAutoRows());
+    }
+
+    private int countAutoRows() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE date = ? AND " +
+                "recognition_method IN ('AUTO_ABSENT', 'AUTO_LEAVE')", Integer.class, DATE);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * The job as it was before the set-based version
+     */
+    private int markAbsentOneByOne(LocalDate date) {
+        int absentCount = 0;
+        for (Employee employee : employeeRepository.findByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE)) {
+            if (attendanceRepository.findByEmployeeAndDate(employee, date).isPresent()) {
+                continue;
+            }
+            List<Leave> leaves = leaveRepository.findLeavesByEmployeeAndDateRange(employee.getId(), date, date);
+            Leave leave = leaves.stream()
+                    .filter(l -> l.getStatus() == Leave.LeaveStatus.APPROVED && !l.getDeleted())
+                    .findFirst()
+                    .orElse(null);
+
+            Attendance attendance = new Attendance();
+            attendance.setEmployee(employee);
+            attendance.setDate(date);
+            attendance.setDeleted(false);
+            if (leave != null) {
+                attendance.setStatus(leave.getIsHalfDay() ? Attendance.AttendanceStatus.HALF_DAY : Attendance.AttendanceStatus.ON_LEAVE);
+                attendance.setRecognitionMethod("AUTO_LEAVE");
+                attendance.setNotes("On leave: " + leave.getLeaveType().getDisplayName());
+            } else {
+                attendance.setStatus(Attendance.AttendanceStatus.ABSENT);
+                attendance.setRecognitionMethod("AUTO_ABSENT");
+                attendance.setNotes("Automatically marked as absent - no attendance recorded");
+                absentCount++;
+            }
+            attendanceRepository.save(attendance);
+        }
+        return absentCount;
+    }
+}
@@ -0,0 +1,190 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.cache.CompactRedisSerializer;
+import com.civiltech.civildesk_backend.dto.AttendanceResponse;
+import com.civiltech.civildesk_backend.dto.DashboardStatsResponse;
+import com.civiltech.civildesk_backend.dto.EmployeeResponse;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis cache value encoding: the JSON serializer with default typing (class names in every entry)
+ * against CompactRedisSerializer, for the values stored in the employees, attendance and dashboard
+ * caches. Serializers are configured as in RedisConfig. Entry sizes are printed once per trial as
+ * "[cache-entry-bytes]" lines; the benchmarks measure serialize and deserialize latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheSerializerBenchmark {
+
+    // Same default as app.cache.compression-threshold-bytes
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    @Param({"employee", "employees", "attendance", "dashboard"})
+    private String payload;
+
+    @Param({"json", "compact"})
+    private String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(jsonObjectMapper());
+        redisSerializer = "json".equals(serializer)
+                ? jsonSerializer
+                : new CompactRedisSerializer(jsonSerializer, COMPRESSION_THRESHOLD);
+
+        switch (payload) {
+            case "employee" -> value = employee(1);
+            case "employees" -> value = employees(200);
+            case "attendance" -> value = attendance(500);
+            default -> value = dashboard();
+        }
+        encoded = redisSerializer.serialize(value);
+        System.out.printf("[cache-entry-bytes] %s/%s: %d bytes%n", payload, serializer, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(encoded);
+    }
+
+    /**
+     * RedisConfig.createObjectMapper
+     */
+    private static ObjectMapper jsonObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+
+    private static EmployeeResponse employee(long id) {
+        EmployeeResponse employee = new EmployeeResponse();
+        employee.setId(id);
+        employee.setEmployeeId("EMP" + (1000 + id));
+        employee.setUserId(id);
+        employee.setFirstName("Employee" + id);
+        employee.setLastName("Surname");
+        employee.setDateOfBirth(LocalDate.of(1990, 1, 1).plusDays(id));
+        employee.setGender(Employee.Gender.MALE);
+        employee.setEmail("employee" + id + "@civildesk.test");
+        employee.setPhoneNumber("98" + (10_000_000 + id));
+        employee.setAddressLine1(id + " Site Road");
+        employee.setCity("Pune");
+        employee.setState("Maharashtra");
+        employee.setPincode("411001");
+        employee.setCountry("India");
+        employee.setDepartment(id % 2 == 0 ? "Construction" : "Engineering");
+        employee.setDesignation("Site Engineer");
+        employee.setJoiningDate(LocalDate.of(2022, 4, 1));
+        employee.setEmploymentType(Employee.EmploymentType.FULL_TIME);
+        employee.setEmploymentStatus(Employee.EmploymentStatus.ACTIVE);
+        employee.setBasicSalary(30000.0);
+        employee.setHouseRentAllowance(12000.0);
+        employee.setConveyance(1600.0);
+        employee.setOvertimeRate(150.0);
+        employee.setEpfEmployee(12.0);
+        employee.setEpfEmployer(12.0);
+        employee.setEsic(0.75);
+        employee.setProfessionalTax(200.0);
+        employee.setBankName("State Bank of India");
+        employee.setBankAccountNumber("3000" + (100_000 + id));
+        employee.setIfscCode("SBIN0000123");
+        employee.setIsActive(true);
+        employee.setAttendanceMethod(Employee.AttendanceMethod.GPS_BASED);
+        employee.setCreatedAt(LocalDateTime.of(2022, 4, 1, 9, 0));
+        employee.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return employee;
+    }
+
+    private static List<EmployeeResponse> employees(int count) {
+        List<EmployeeResponse> employees = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            employees.add(employee(i));
+        }
+        return employees;
+    }
+
+    private static List<AttendanceResponse> attendance(int count) {
+        List<AttendanceResponse> rows = new ArrayList<>(count);
+        LocalDate date = LocalDate.of(2026, 2, 16);
+        for (int i = 1; i <= count; i++) {
+            AttendanceResponse row = new AttendanceResponse();
+            row.setId((long) i);
+            row.setEmployeeId("EMP" + (1000 + i));
+            row.setEmployeeName("Employee" + i + " Surname");
+            row.setDate(date);
+            row.setCheckInTime(date.atTime(9, i % 30));
+            row.setLunchOutTime(date.atTime(13, 0));
+            row.setLunchInTime(date.atTime(13, 45));
+            row.setCheckOutTime(date.atTime(18, i % 45));
+            row.setStatus("PRESENT");
+            row.setRecognitionMethod("GPS_BASED");
+            row.setWorkingHours(8.0);
+            row.setOvertimeHours((i % 3) * 0.5);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static DashboardStatsResponse dashboard() {
+        List<DashboardStatsResponse.DepartmentCount> departments = new ArrayList<>();
+        for (String department : List.of("Construction", "Engineering", "Finance", "HR", "Procurement", "Safety")) {
+            departments.add(new DashboardStatsResponse.DepartmentCount(department, 40L));
+        }
+        List<DashboardStatsResponse.DailyAttendance> week = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            week.add(new DashboardStatsResponse.DailyAttendance(LocalDate.of(2026, 2, 10 + i).toString(), 210L, 20L, 10L));
+        }
+        List<DashboardStatsResponse.ActivityItem> activities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            activities.add(new DashboardStatsResponse.ActivityItem("EMPLOYEE_ADDED",
+                    "New employee Employee" + i + " joined Construction", LocalDate.of(2026, 2, 1 + i).toString()));
+        }
+        return new DashboardStatsResponse(
+                new DashboardStatsResponse.EmployeeStats(240L, 230L, 10L, 5L, 200L, 10L, 25L, 5L),
+                new DashboardStatsResponse.DepartmentStats(departments, (long) departments.size()),
+                new DashboardStatsResponse.AttendanceStats(210L, 20L, 10L, 91.5, week),
+                new DashboardStatsResponse.RecentActivity(activities));
+    }
+}
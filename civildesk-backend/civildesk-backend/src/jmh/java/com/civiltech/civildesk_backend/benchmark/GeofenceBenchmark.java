@@ -0,0 +1,143 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.model.Site;
+import com.civiltech.civildesk_backend.service.GeofenceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-punch geofence check: parsing the site's geofence on every check (as GeofenceService did before
+ * geofences were compiled) against the cached compiled geofence.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeofenceBenchmark {
+
+    private static final double EARTH_RADIUS_METERS = 6371000;
+
+    @Param({"RADIUS", "POLYGON"})
+    private Site.GeofenceType geofenceType;
+
+    // Vertices of the polygon geofence
+    @Param({"8", "64"})
+    private int vertices;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GeofenceService geofenceService;
+    private Site site;
+
+    private double insideLatitude;
+    private double insideLongitude;
+    private double farLatitude;
+    private double farLongitude;
+
+    @Setup
+    public void setUp() {
+        geofenceService = new GeofenceService();
+        site = new Site();
+        site.setId(1L);
+        site.setLatitude(19.0760);
+        site.setLongitude(72.8777);
+        site.setGeofenceType(geofenceType);
+        site.setGeofenceRadiusMeters(150);
+        site.setGeofencePolygon(polygonJson(site.getLatitude(), site.getLongitude(), 0.0015, vertices));
+
+        insideLatitude = site.getLatitude() + 0.0003;
+        insideLongitude = site.getLongitude() - 0.0002;
+        farLatitude = site.getLatitude() + 0.5;
+        farLongitude = site.getLongitude() + 0.5;
+    }
+
+    @Benchmark
+    public boolean parsedPerCheckInside() {
+        return legacyIsInsideGeofence(site, insideLatitude, insideLongitude);
+    }
+
+    @Benchmark
+    public boolean compiledInside() {
+        return geofenceService.isInsideGeofence(site, insideLatitude, insideLongitude);
+    }
+
+    @Benchmark
+    public boolean parsedPerCheckFarAway() {
+        return legacyIsInsideGeofence(site, farLatitude, farLongitude);
+    }
+
+    @Benchmark
+    public boolean compiledFarAway() {
+        return geofenceService.isInsideGeofence(site, farLatitude, farLongitude);
+    }
+
+    /**
+     * The check as it was before compiled geofences: polygon JSON parsed on every call
+     */
+    @SuppressWarnings("unchecked")
+    private boolean legacyIsInsideGeofence(Site site, double latitude, double longitude) {
+        if (site.getGeofenceType() != Site.GeofenceType.POLYGON) {
+            return haversine(site.getLatitude(), site.getLongitude(), latitude, longitude) <= site.getGeofenceRadiusMeters();
+        }
+        try {
+            List<List<Double>> polygon = objectMapper.readValue(site.getGeofencePolygon(), List.class);
+            if (polygon.size() < 3) {
+                return false;
+            }
+            int n = polygon.size();
+            boolean inside = false;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double xi = polygon.get(i).get(0);
+                double yi = polygon.get(i).get(1);
+                double xj = polygon.get(j).get(0);
+                double yj = polygon.get(j).get(1);
+                if (((yi > longitude) != (yj > longitude)) &&
+                    (latitude < (xj - xi) * (longitude - yi) / (yj - yi) + xi)) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Regular polygon around the center, in the [[lat,lon],...] format stored on Site
+     */
+    private static String polygonJson(double latitude, double longitude, double radiusDegrees, int n) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(latitude + radiusDegrees * Math.sin(angle))
+                .append(',').append(longitude + radiusDegrees * Math.cos(angle)).append(']');
+        }
+        return json.append(']').toString();
+    }
+}
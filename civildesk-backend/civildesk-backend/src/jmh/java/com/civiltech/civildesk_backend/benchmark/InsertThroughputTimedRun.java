@@ -0,0 +1,102 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.GpsAttendanceLog;
+import com.civiltech.civildesk_backend.model.Notification;
+import com.civiltech.civildesk_backend.model.SalarySlip;
+import com.civiltech.civildesk_backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+/**
+ * Insert throughput of the four high-volume entities with pooled sequence ids and JDBC batching (current)
+ * against one INSERT per row, which is what IDENTITY ids forced before (reproduced here with a JDBC batch
+ * size of 1, since the id strategy cannot be switched at runtime).
+ */
+class InsertThroughputTimedRun extends PostgresTimedRunSupport {
+
+    private static final int EMPLOYEES = 1_000;
+    private static final int ROWS = 20_000;
+    private static final int FLUSH_EVERY = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void insertThroughput() {
+        truncate("attendance", "gps_attendance_logs", "notifications", "salary_slips", "employees", "users");
+        seedEmployees(EMPLOYEES);
+
+        for (boolean batched : new boolean[] {false, true}) {
+            int offset = batched ? 1 : 0;
+            insert("Attendance", batched, i -> {
+                Attendance attendance = new Attendance();
+                attendance.setEmployee(employee(i));
+                attendance.setDate(LocalDate.of(2020, 1, 1).plusDays(offset * 1000L + i / EMPLOYEES));
+                attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
+                attendance.setRecognitionMethod("GPS_BASED");
+                return attendance;
+            });
+            insert("GpsAttendanceLog", batched, i -> {
+                GpsAttendanceLog log = new GpsAttendanceLog();
+                log.setEmployee(employee(i));
+                log.setPunchType(GpsAttendanceLog.PunchType.CHECK_IN);
+                log.setPunchTime(LocalDateTime.of(2020, 1, 1, 9, 0).plusMinutes(i));
+                log.setLatitude(19.0760);
+                log.setLongitude(72.8777);
+                return log;
+            });
+            insert("Notification", batched, i -> {
+                Notification notification = new Notification();
+                notification.setUser(entityManager.getReference(User.class, SEED_ID_OFFSET + 1 + i % EMPLOYEES));
+                notification.setTitle("Benchmark");
+                notification.setBody("Insert throughput");
+                notification.setType("BROADCAST");
+                return notification;
+            });
+            insert("SalarySlip", batched, i -> {
+                SalarySlip slip = new SalarySlip();
+                slip.setEmployee(employee(i));
+                slip.setYear(2000 + offset * 50 + i / (EMPLOYEES * 12));
+                slip.setMonth(i / EMPLOYEES % 12 + 1);
+                return slip;
+            });
+        }
+    }
+
+    private void insert(String entity, boolean batched, IntFunction<Object> rowFactory) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long millis = timed(String.format("%-16s %,d rows, %s", entity, ROWS,
+                batched ? "sequence ids, JDBC batches of 50" : "one INSERT per row"), () ->
+                transaction.executeWithoutResult(status -> {
+                    Session session = entityManager.unwrap(Session.class);
+                    session.setJdbcBatchSize(batched ? null : 1);
+                    for (int i = 0; i < ROWS; i++) {
+                        entityManager.persist(rowFactory.apply(i));
+                        if ((i + 1) % FLUSH_EVERY == 0) {
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    }
+                }));
+        System.out.printf("[timed-run] %-60s %8d rows/s%n", entity + (batched ? " batched" : " unbatched"),
+                ROWS * 1000L / Math.max(1, millis));
+    }
+
+    private Employee employee(int i) {
+        return entityManager.getReference(Employee.class, SEED_ID_OFFSET + 1 + i % EMPLOYEES);
+    }
+}
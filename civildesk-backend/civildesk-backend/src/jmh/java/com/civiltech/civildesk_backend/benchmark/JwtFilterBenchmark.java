@@ -0,0 +1,126 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.model.User;
+import com.civiltech.civildesk_backend.repository.UserRepository;
+import com.civiltech.civildesk_backend.security.CustomUserDetailsService;
+import com.civiltech.civildesk_backend.security.JwtAuthenticationFilter;
+import com.civiltech.civildesk_backend.security.JwtTokenProvider;
+import com.civiltech.civildesk_backend.security.UserDetailsCache;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JwtAuthenticationFilter for an authenticated request: the old filter (four
+ * token parses plus a user lookup on every request) against the current one (one parse, cached
+ * UserDetails). The user lookup is a stub here, so the database round trip the old filter also
+ * paid on every request is not included; the gap in production is larger than measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String EMAIL = "bench.user@civildesk.test";
+
+    private JwtTokenProvider tokenProvider;
+    private CustomUserDetailsService userDetailsService;
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secret", "benchmarkSecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong");
+        ReflectionTestUtils.setField(tokenProvider, "expiration", 86_400_000L);
+
+        User user = new User();
+        user.setId(42L);
+        user.setEmail(EMAIL);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZa");
+        user.setFirstName("Bench");
+        user.setLastName("User");
+        user.setRole(User.Role.EMPLOYEE);
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByEmailAndDeletedFalse(EMAIL)).thenReturn(Optional.of(user));
+
+        UserDetailsCache userDetailsCache = new UserDetailsCache();
+        ReflectionTestUtils.setField(userDetailsCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(userDetailsCache, "maxSize", 10_000);
+
+        userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", userDetailsCache);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+
+        authorization = "Bearer " + tokenProvider.generateToken(userDetailsService.loadUserByUsername(EMAIL));
+    }
+
+    @Benchmark
+    public Object legacyFilter() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = authenticatedRequest();
+        legacyDoFilterInternal(request);
+        chain.doFilter(request, new MockHttpServletResponse());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object currentFilter() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = authenticatedRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private MockHttpServletRequest authenticatedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/attendance/today");
+        request.addHeader("Authorization", authorization);
+        return request;
+    }
+
+    /**
+     * JwtAuthenticationFilter.doFilterInternal as it was before the claims were parsed once and
+     * UserDetails were cached
+     */
+    private void legacyDoFilterInternal(MockHttpServletRequest request) {
+        String jwt = request.getHeader("Authorization").substring(7);
+        if (!tokenProvider.isTokenExpired(jwt)) {
+            String username = tokenProvider.getUsernameFromToken(jwt);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+            if (tokenProvider.validateToken(jwt, userDetails)) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.dto.SalaryCalculationRequest;
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.SalarySlip;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.SalarySlipRepository;
+import com.civiltech.civildesk_backend.service.PayrollRunService;
+import com.civiltech.civildesk_backend.service.SalaryCalculationService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Month-end payroll for the whole company: the sequential per-employee loop that
+ * generateBulkSalarySlipsAsync used to run (lookup, load every attendance row, sum in Java, save)
+ * against PayrollRunService (two aggregate queries, parallel compute, batched insert).
+ * Every employee has a full month of attendance rows.
+ */
+class PayrollRunTimedRun extends PostgresTimedRunSupport {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 2);
+
+    @Autowired
+    private PayrollRunService payrollRunService;
+
+    @Autowired
+    private SalaryCalculationService calculationService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private SalarySlipRepository salarySlipRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 5_000})
+    void sequentialLoopVersusPayrollRun(int employees) {
+        truncate("salary_slips", "attendance", "employees", "users");
+        seedEmployees(employees);
+        jdbcTemplate.update("INSERT INTO attendance (id, employee_id, date, status, recognition_method, working_hours, " +
+                "overtime_hours, deleted, created_at, updated_at) " +
+                "SELECT row_number() OVER () + ?, e.id, d::date, 'PRESENT', 'GPS_BASED', 8.0, (e.id % 3)::float, false, " +
+                "now(), now() FROM employees e CROSS JOIN generate_series(?::date, ?::date, interval '1 day') d " +
+                "WHERE extract(isodow FROM d) <> 7", SEED_ID_OFFSET, PERIOD.atDay(1), PERIOD.atEndOfMonth());
+
+        List<SalaryCalculationRequest> requests = new ArrayList<>(employees);
+        for (int i = 1; i <= employees; i++) {
+            SalaryCalculationRequest request = new SalaryCalculationRequest();
+            request.setEmployeeId("BENCH" + i);
+            request.setYear(PERIOD.getYear());
+            request.setMonth(PERIOD.getMonthValue());
+            requests.add(request);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int sequential = timedResult("sequential per-employee loop, " + employees + " employees",
+                () -> transaction.execute(status -> runSequentially(requests)));
+        truncate("salary_slips");
+
+        PayrollRunService.PayrollRunResult result = timedResult("PayrollRunService.run, " + employees + " employees",
+                () -> payrollRunService.run(requests, null));
+
+        assertTrue(result.getFailures().isEmpty(), () -> "Failures: " + result.getFailures());
+        assertEquals(sequential, result.getSalarySlips().size());
+    }
+
+    /**
+     * Bulk slip generation as it was before the payroll-run engine
+     */
+    private int runSequentially(List<SalaryCalculationRequest> requests) {
+        int saved = 0;
+        for (SalaryCalculationRequest request : requests) {
+            Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(request.getEmployeeId()).orElseThrow();
+            double workingHours = 0;
+            double overtimeHours = 0;
+            for (Attendance attendance : attendanceRepository.findByEmployeeIdAndDateBetween(
+                    employee.getId(), PERIOD.atDay(1), PERIOD.atEndOfMonth())) {
+                workingHours += attendance.getWorkingHours() != null ? attendance.getWorkingHours() : 0;
+                overtimeHours += attendance.getOvertimeHours() != null ? attendance.getOvertimeHours() : 0;
+            }
+            SalarySlip slip = calculationService.buildSalarySlip(employee, request, workingHours, overtimeHours, null);
+            salarySlipRepository.save(slip);
+            if (++saved % 50 == 0) {
+                salarySlipRepository.flush();
+            }
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,98 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Base for timed runs against a real PostgreSQL (Testcontainers). Run with {@code mvn -Pbenchmark test};
+ * skipped when Docker is not available. The schema is created by Hibernate, and seed data is written with
+ * plain SQL using ids from {@link #SEED_ID_OFFSET} up, clear of the ids the sequences hand out.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.org.springframework.jdbc=INFO",
+        "logging.level.com.zaxxer.hikari=INFO",
+        "app.redis.enabled=false",
+        "app.email.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+abstract class PostgresTimedRunSupport {
+
+    protected static final long SEED_ID_OFFSET = 10_000_000L;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * Empty the given tables (and everything referencing them)
+     */
+    protected void truncate(String... tables) {
+        jdbcTemplate.execute("TRUNCATE " + String.join(", ", tables) + " CASCADE");
+    }
+
+    /**
+     * Insert active employees (with users and salary structure) with ids SEED_ID_OFFSET + 1 .. + count
+     */
+    protected void seedEmployees(int count) {
+        jdbcTemplate.update("INSERT INTO users (id, email, password, first_name, last_name, role, is_active, " +
+                "email_verified, deleted, created_at, updated_at) " +
+                "SELECT ? + g, 'bench' || g || '@example.com', 'x', 'Bench', 'User', 'EMPLOYEE', true, true, false, " +
+                "now(), now() FROM generate_series(1, ?) g", SEED_ID_OFFSET, count);
+        jdbcTemplate.update("INSERT INTO employees (id, employee_id, user_id, first_name, last_name, email, phone_number, " +
+                "aadhar_number, pan_number, employment_status, attendance_method, basic_salary, house_rent_allowance, " +
+                "conveyance, overtime_rate, epf_employee, epf_employer, esic, professional_tax, is_active, deleted, " +
+                "created_at, updated_at) " +
+                "SELECT ? + g, 'BENCH' || g, ? + g, 'Bench', 'Employee', 'bench' || g || '@example.com', '9000000000', " +
+                "lpad(g::text, 12, '0'), 'P' || lpad(g::text, 9, '0'), 'ACTIVE', 'GPS_BASED', 30000, 12000, 1600, 150, " +
+                "12, 12, 0.75, 200, true, false, now(), now() FROM generate_series(1, ?) g",
+                SEED_ID_OFFSET, SEED_ID_OFFSET, count);
+    }
+
+    /**
+     * Run the action once and print its wall time
+     *
+     * @return Elapsed milliseconds
+     */
+    protected static long timed(String label, Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[timed-run] %-60s %8d ms%n", label, elapsedMillis);
+        return elapsedMillis;
+    }
+
+    /**
+     * Run the action once and print its wall time and result
+     */
+    protected static <T> T timedResult(String label, Supplier<T> action) {
+        long start = System.nanoTime();
+        T result = action.get();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[timed-run] %-60s %8d ms  (%s)%n", label, elapsedMillis, result);
+        return result;
+    }
+
+    /**
+     * Latency percentile (0-100) of the given samples, in the samples' unit
+     */
+    protected static long percentile(long[] samples, double percentile) {
+        long[] sorted = Arrays.copyOf(samples, samples.length);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,148 @@
+package com.civiltech.civildesk_backend.benchmark;
+
+import com.civiltech.civildesk_backend.dto.GpsAttendanceRequest;
+import com.civiltech.civildesk_backend.model.GpsAttendanceLog;
+import com.civiltech.civildesk_backend.service.GpsAttendanceService;
+import com.civiltech.civildesk_backend.service.PunchIngestionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Morning punch storm: 5,000 employees check in at once, through the write-behind queue
+ * (PunchIngestionService) and through the synchronous path (GpsAttendanceService.markGpsAttendance).
+ * Prints throughput in punches per minute and p50/p99 acknowledge latency, and for the queue the time
+ * the writer takes to drain it. The target is 5,000 punches per minute.
+ *
+ * Also checks that a punch acknowledged by the queue while another node stored the same punch type is
+ * still written (counted as a conflict), not dead-lettered.
+ */
+class PunchIngestionTimedRun extends PostgresTimedRunSupport {
+
+    private static final int EMPLOYEES = 5_000;
+    private static final int THREADS = 50;
+    private static final int CROSS_NODE_PUNCHES = 10;
+    private static final long TARGET_PER_MINUTE = 5_000;
+    private static final long SITE_ID = SEED_ID_OFFSET + 1;
+    private static final double SITE_LATITUDE = 18.5204;
+    private static final double SITE_LONGITUDE = 73.8567;
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private GpsAttendanceService gpsAttendanceService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void ingestionProperties(DynamicPropertyRegistry registry) throws Exception {
+        registry.add("app.attendance.ingestion.write-behind.enabled", () -> "true");
+        // A fresh journal, so nothing from an earlier run is replayed
+        String journalDir = Files.createTempDirectory("punch-journal").toString();
+        registry.add("app.attendance.ingestion.journal-dir", () -> journalDir);
+        // The writer is driven by the run (flush), not by the schedule
+        registry.add("app.attendance.ingestion.flush-interval-ms", () -> "3600000");
+    }
+
+    @Test
+    void punchStorm() throws Exception {
+        truncate("attendance", "gps_attendance_logs", "sites", "employees", "users");
+        seedEmployees(2 * EMPLOYEES);
+        jdbcTemplate.update("INSERT INTO sites (id, site_code, site_name, latitude, longitude, geofence_type, " +
+                "geofence_radius_meters, is_active, deleted, created_at, updated_at) " +
+                "VALUES (?, 'BENCH', 'Bench Site', ?, ?, 'RADIUS', 200, true, false, now(), now())",
+                SITE_ID, SITE_LATITUDE, SITE_LONGITUDE);
+
+        // Write-behind: employees 1 .. EMPLOYEES
+        long perMinute = storm("write-behind", 1, punchIngestionService::submit);
+        assertTrue(perMinute >= TARGET_PER_MINUTE, "write-behind throughput " + perMinute + " punches/min");
+
+        // Another node stores a check-in of employees whose check-in is still queued here
+        for (int i = 1; i <= CROSS_NODE_PUNCHES; i++) {
+            gpsAttendanceService.markGpsAttendance(checkIn(i));
+        }
+        double deadLettersBefore = meterRegistry.get("attendance.punch.ingest.dead.letters").counter().count();
+        double conflictsBefore = meterRegistry.get("attendance.punch.persist.conflicts").counter().count();
+
+        timed(String.format("write-behind drain %,d punches", EMPLOYEES), punchIngestionService::flush);
+        assertEquals(EMPLOYEES + CROSS_NODE_PUNCHES, logCount());
+        assertEquals(deadLettersBefore, meterRegistry.get("attendance.punch.ingest.dead.letters").counter().count());
+        assertEquals(conflictsBefore + CROSS_NODE_PUNCHES,
+                meterRegistry.get("attendance.punch.persist.conflicts").counter().count());
+
+        // Synchronous: employees EMPLOYEES + 1 .. 2 * EMPLOYEES
+        storm("synchronous", EMPLOYEES + 1, gpsAttendanceService::markGpsAttendance);
+        assertEquals(2 * EMPLOYEES + CROSS_NODE_PUNCHES, logCount());
+    }
+
+    /**
+     * Check in EMPLOYEES employees from THREADS threads, print throughput and acknowledge latency
+     *
+     * @return Punches per minute
+     */
+    private long storm(String label, int firstEmployee, Consumer<GpsAttendanceRequest> punch) throws Exception {
+        long[] latencyMicros = new long[EMPLOYEES];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long millis;
+        try {
+            List<Future<?>> results = new ArrayList<>(EMPLOYEES);
+            long start = System.nanoTime();
+            for (int i = 0; i < EMPLOYEES; i++) {
+                int index = i;
+                results.add(executor.submit(() -> {
+                    GpsAttendanceRequest request = checkIn(firstEmployee + index);
+                    long punchStart = System.nanoTime();
+                    punch.accept(request);
+                    latencyMicros[index] = (System.nanoTime() - punchStart) / 1_000;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            executor.shutdown();
+        }
+
+        long perMinute = EMPLOYEES * 60_000L / millis;
+        System.out.printf("[timed-run] %-60s %8d ms%n", String.format("%s %,d check-ins, %d threads", label, EMPLOYEES, THREADS), millis);
+        System.out.printf("[timed-run] %-60s %8d punches/min%n", label + " throughput", perMinute);
+        System.out.printf("[timed-run] %-60s %8d us / %d us%n", label + " acknowledge p50 / p99",
+                percentile(latencyMicros, 50), percentile(latencyMicros, 99));
+        return perMinute;
+    }
+
+    private static GpsAttendanceRequest checkIn(int employee) {
+        GpsAttendanceRequest request = new GpsAttendanceRequest();
+        request.setEmployeeId("BENCH" + employee);
+        request.setPunchType(GpsAttendanceLog.PunchType.CHECK_IN);
+        request.setLatitude(SITE_LATITUDE);
+        request.setLongitude(SITE_LONGITUDE);
+        request.setSiteId(SITE_ID);
+        request.setNetworkStatus("ONLINE");
+        request.setLocationTimestamp(LocalDateTime.now(ZoneOffset.UTC));
+        return request;
+    }
+
+    private int logCount() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM gps_attendance_logs", Integer.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,194 @@
+package com.civiltech.civildesk_backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Targeted cache invalidation for the list/detail caches.
+ *
+ * Cached entries follow a key convention that doubles as their tags:
+ * - entity:    the entity id itself (e.g. leaves::42)
+ * - owner:     a per-user list, prefix + user id (e.g. leaves::my-leaves:7)
+ * - aggregate: admin lists shared by everyone (e.g. leaves::all-leaves, leaves::leaves-status:PENDING)
+ *
+ * A write names the tags it touches and only those keys are evicted, instead of clearing the whole
+ * cache with allEntries = true. Keys are evicted immediately and again after commit, so a reader that
+ * reloaded the old rows before commit does not keep them.
+ */
+@Component
+public class CacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+
+    /**
+     * Start an invalidation against one cache
+     */
+    public Invalidation invalidate(String cacheName) {
+        return new Invalidation(cacheName);
+    }
+
+    private void evictNow(String cacheName, List<Object> keys, List<String> scopes, boolean record) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            try {
+                cache.evict(keys.get(i));
+                if (record) {
+                    Counter counter = counter(cacheName, scopes.get(i));
+                    if (counter != null) {
+                        counter.increment();
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Entries still expire by TTL; a cache outage must not fail the write
+                logger.warn("Failed to evict key {} from cache {}: {}", keys.get(i), cacheName, e.getMessage());
+            }
+        }
+    }
+
+    // Compare with cache.tier.requests / cache.gets hit ratios to see the effect of narrower evictions
+    @Nullable
+    private Counter counter(String cacheName, String scope) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        synchronized (counters) {
+            return counters.computeIfAbsent(cacheName + "|" + scope, k -> Counter.builder("cache.invalidations")
+                    .description("Cache keys evicted by writes, by key scope")
+                    .tag("cache", cacheName)
+                    .tag("scope", scope)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Collects the keys touched by one write
+     */
+    public class Invalidation {
+
+        private final String cacheName;
+        private final List<Object> keys = new ArrayList<>();
+        private final List<String> scopes = new ArrayList<>();
+
+        private Invalidation(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        /**
+         * Evict the entry cached under the entity id (key = "#id")
+         */
+        public Invalidation entity(Object id) {
+            return add(id, "entity");
+        }
+
+        /**
+         * Evict a per-user list, e.g. owner("my-leaves:", userId)
+         */
+        public Invalidation owner(String prefix, Long userId) {
+            if (userId == null) {
+                return this;
+            }
+            return add(prefix + userId, "owner");
+        }
+
+        /**
+         * Evict a per-user list for every given user
+         */
+        public Invalidation owners(String prefix, Collection<Long> userIds) {
+            if (userIds != null) {
+                userIds.forEach(userId -> owner(prefix, userId));
+            }
+            return this;
+        }
+
+        /**
+         * Evict a per-user list for every value of a filter, e.g. owners("my-tasks-status:", userIds, TaskStatus.values())
+         * evicts my-tasks-status:{userId}:{status}
+         */
+        public Invalidation owners(String prefix, Collection<Long> userIds, Object[] values) {
+            if (userIds != null) {
+                for (Long userId : userIds) {
+                    if (userId == null) {
+                        continue;
+                    }
+                    for (Object value : values) {
+                        add(prefix + userId + ":" + value, "owner");
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Evict a shared list, e.g. aggregate("all-leaves")
+         */
+        public Invalidation aggregate(String key) {
+            return add(key, "aggregate");
+        }
+
+        /**
+         * Evict a shared list for every value of a filter, e.g. aggregate("leaves-status:", LeaveStatus.values())
+         */
+        public Invalidation aggregate(String prefix, Object[] values) {
+            for (Object value : values) {
+                add(prefix + value, "aggregate");
+            }
+            return this;
+        }
+
+        /**
+         * Evict the collected keys now and once more after the surrounding transaction commits
+         */
+        public void evict() {
+            List<Object> keysToEvict = new ArrayList<>(keys);
+            List<String> keyScopes = new ArrayList<>(scopes);
+            evictNow(cacheName, keysToEvict, keyScopes, true);
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictNow(cacheName, keysToEvict, keyScopes, false);
+                    }
+                });
+            }
+        }
+
+        private Invalidation add(Object key, String scope) {
+            Object nonNullKey = Objects.requireNonNull(key, "Cache key cannot be null");
+            if (!keys.contains(nonNullKey)) {
+                keys.add(nonNullKey);
+                scopes.add(scope);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.civiltech.civildesk_backend.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache time-to-live and size settings shared by the Redis tier and the in-process caches.
+ */
+public final class CacheSettings {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+    private static final Map<String, Duration> TTLS = new LinkedHashMap<>();
+
+    // Maximum entries for in-process caches; caches not listed use the configured default
+    private static final Map<String, Long> MAX_SIZES = new LinkedHashMap<>();
+
+    static {
+        // Single employee cache: 30 minutes TTL
+        TTLS.put("employee", Duration.ofMinutes(30));
+        // Sites cache: 1 hour TTL (rarely changes)
+        TTLS.put("sites", Duration.ofHours(1));
+        // Single site cache: 1 hour TTL
+        TTLS.put("site", Duration.ofHours(1));
+        // Holidays cache: 24 hours TTL (very rarely changes)
+        TTLS.put("holidays", Duration.ofHours(24));
+        // Dashboard stats cache: 5 minutes TTL (frequently updated)
+        TTLS.put("dashboard", Duration.ofMinutes(5));
+        // Attendance cache: 10 minutes TTL
+        TTLS.put("attendance", Duration.ofMinutes(10));
+        // Tasks cache: 15 minutes TTL
+        TTLS.put("tasks", Duration.ofMinutes(15));
+        // Leave types cache: 1 hour TTL
+        TTLS.put("leaveTypes", Duration.ofHours(1));
+
+        // Few distinct keys (lists, stats per role)
+        MAX_SIZES.put("dashboard", 500L);
+        MAX_SIZES.put("holidays", 100L);
+        MAX_SIZES.put("leaveTypes", 100L);
+        MAX_SIZES.put("sites", 100L);
+        // One entry per entity
+        MAX_SIZES.put("employee", 5000L);
+        MAX_SIZES.put("site", 2000L);
+    }
+
+    private CacheSettings() {
+    }
+
+    /**
+     * TTL for a cache, or DEFAULT_TTL for caches without explicit configuration
+     */
+    public static Duration ttlFor(String cacheName) {
+        return TTLS.getOrDefault(cacheName, DEFAULT_TTL);
+    }
+
+    /**
+     * Maximum in-process entries for a cache, or the given default
+     */
+    public static long maxSizeFor(String cacheName, long defaultMaxSize) {
+        return MAX_SIZES.getOrDefault(cacheName, defaultMaxSize);
+    }
+
+    /**
+     * Caches with an explicit TTL
+     */
+    public static Map<String, Duration> configuredTtls() {
+        return TTLS;
+    }
+}
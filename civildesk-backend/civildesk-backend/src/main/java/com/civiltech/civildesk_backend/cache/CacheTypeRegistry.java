@@ -0,0 +1,66 @@
+package com.civiltech.civildesk_backend.cache;
+
+import com.civiltech.civildesk_backend.dto.AttendanceAnalyticsResponse;
+import com.civiltech.civildesk_backend.dto.AttendanceResponse;
+import com.civiltech.civildesk_backend.dto.BroadcastMessageResponse;
+import com.civiltech.civildesk_backend.dto.DashboardStatsResponse;
+import com.civiltech.civildesk_backend.dto.EmployeeDashboardStatsResponse;
+import com.civiltech.civildesk_backend.dto.EmployeeResponse;
+import com.civiltech.civildesk_backend.dto.ExpenseResponse;
+import com.civiltech.civildesk_backend.dto.GpsAttendanceResponse;
+import com.civiltech.civildesk_backend.dto.HolidayResponse;
+import com.civiltech.civildesk_backend.dto.LeaveResponse;
+import com.civiltech.civildesk_backend.dto.SiteResponse;
+import com.civiltech.civildesk_backend.dto.TaskResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stable numeric IDs for the DTO types stored in the cache, used by CompactRedisSerializer
+ * instead of writing fully-qualified class names into every entry.
+ *
+ * IDs are persisted in Redis: only append new types, never renumber or reuse an ID.
+ */
+public final class CacheTypeRegistry {
+
+    private static final Map<Integer, Class<?>> TYPES_BY_ID = new HashMap<>();
+    private static final Map<Class<?>, Integer> IDS_BY_TYPE = new HashMap<>();
+
+    static {
+        register(1, EmployeeResponse.class);
+        register(2, SiteResponse.class);
+        register(3, HolidayResponse.class);
+        register(4, DashboardStatsResponse.class);
+        register(5, EmployeeDashboardStatsResponse.class);
+        register(6, LeaveResponse.class);
+        register(7, TaskResponse.class);
+        register(8, ExpenseResponse.class);
+        register(9, BroadcastMessageResponse.class);
+        register(10, AttendanceResponse.class);
+        register(11, GpsAttendanceResponse.class);
+        register(12, AttendanceAnalyticsResponse.class);
+    }
+
+    private CacheTypeRegistry() {
+    }
+
+    private static void register(int id, Class<?> type) {
+        TYPES_BY_ID.put(id, type);
+        IDS_BY_TYPE.put(type, id);
+    }
+
+    /**
+     * ID of a registered type, or null if the type is not registered
+     */
+    public static Integer idOf(Class<?> type) {
+        return IDS_BY_TYPE.get(type);
+    }
+
+    /**
+     * Type for an ID, or null if unknown (e.g. written by a newer version)
+     */
+    public static Class<?> typeOf(int id) {
+        return TYPES_BY_ID.get(id);
+    }
+}
@@ -0,0 +1,213 @@
+package com.civiltech.civildesk_backend.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary serializer for Redis cache values.
+ *
+ * Layout: {@code [MAGIC][flags][kind][type][body]}
+ * <ul>
+ *   <li>kind - single value or list</li>
+ *   <li>type - CacheTypeRegistry ID (2 bytes) for our DTOs; unregistered types fall back to the class name</li>
+ *   <li>body - Smile (binary JSON) without per-object type information, deflated above a size threshold</li>
+ * </ul>
+ *
+ * Strings, numbers and booleans are written with the fallback (JSON) serializer so that plain Redis
+ * operations such as INCR keep working on values written through RedisTemplate. Anything that does
+ * not start with MAGIC is read with the fallback serializer, which also covers entries written
+ * before this format was introduced.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // 0xC1 never starts valid UTF-8/JSON, so it cannot collide with fallback-encoded values
+    private static final byte MAGIC = (byte) 0xC1;
+
+    private static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final byte KIND_SINGLE = 0;
+    private static final byte KIND_LIST = 1;
+
+    private static final int TYPE_NONE = 0;        // Empty list: no element type
+    private static final int TYPE_BY_NAME = 0xFFFF; // Unregistered type: class name follows
+
+    private final ObjectMapper smileMapper;
+    private final RedisSerializer<Object> fallbackSerializer;
+    private final int compressionThreshold;
+
+    /**
+     * @param fallbackSerializer Serializer for scalar values and for reading non-compact entries
+     * @param compressionThreshold Body size in bytes above which the body is deflated
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> fallbackSerializer, int compressionThreshold) {
+        this.fallbackSerializer = fallbackSerializer;
+        this.compressionThreshold = compressionThreshold;
+        this.smileMapper = SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                // Tolerate fields removed from a DTO while old entries are still cached
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+            return fallbackSerializer.serialize(value);
+        }
+
+        try {
+            byte kind;
+            Class<?> type;
+            Object body = value;
+            if (value instanceof Collection) {
+                kind = KIND_LIST;
+                type = elementType((Collection<?>) value);
+                if (type == null && !((Collection<?>) value).isEmpty()) {
+                    // Mixed or null-only elements: no single element type to write
+                    return fallbackSerializer.serialize(value);
+                }
+                if (!(value instanceof List)) {
+                    body = new ArrayList<>((Collection<?>) value);
+                }
+            } else {
+                kind = KIND_SINGLE;
+                type = value.getClass();
+            }
+
+            byte[] payload = smileMapper.writeValueAsBytes(body);
+            boolean compress = payload.length > compressionThreshold;
+            if (compress) {
+                payload = deflate(payload);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC);
+            out.writeByte(compress ? FLAG_COMPRESSED : 0);
+            out.writeByte(kind);
+            writeType(out, type);
+            out.write(payload);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallbackSerializer.deserialize(bytes);
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.readByte(); // MAGIC
+            byte flags = in.readByte();
+            byte kind = in.readByte();
+            Class<?> type = readType(in);
+
+            InputStream body = in;
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                body = new InflaterInputStream(in);
+            }
+
+            if (kind == KIND_LIST) {
+                if (type == null) {
+                    return new ArrayList<>();
+                }
+                JavaType listType = smileMapper.getTypeFactory().constructCollectionType(ArrayList.class, type);
+                return smileMapper.readValue(body, listType);
+            }
+            return smileMapper.readValue(body, type);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Common element class of a collection, or null if empty, mixed or only nulls
+     */
+    @Nullable
+    private static Class<?> elementType(Collection<?> values) {
+        Class<?> type = null;
+        for (Object element : values) {
+            if (element == null) {
+                continue;
+            }
+            if (type == null) {
+                type = element.getClass();
+            } else if (type != element.getClass()) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    private static void writeType(DataOutputStream out, @Nullable Class<?> type) throws IOException {
+        if (type == null) {
+            out.writeShort(TYPE_NONE);
+            return;
+        }
+        Integer id = CacheTypeRegistry.idOf(type);
+        if (id != null) {
+            out.writeShort(id);
+        } else {
+            out.writeShort(TYPE_BY_NAME);
+            out.writeUTF(type.getName());
+        }
+    }
+
+    @Nullable
+    private static Class<?> readType(DataInputStream in) throws IOException, ClassNotFoundException {
+        int id = in.readUnsignedShort();
+        if (id == TYPE_NONE) {
+            return null;
+        }
+        if (id == TYPE_BY_NAME) {
+            return Class.forName(in.readUTF(), false, CompactRedisSerializer.class.getClassLoader());
+        }
+        Class<?> type = CacheTypeRegistry.typeOf(id);
+        if (type == null) {
+            throw new IOException("Unknown cache type id " + id);
+        }
+        return type;
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(data);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+}
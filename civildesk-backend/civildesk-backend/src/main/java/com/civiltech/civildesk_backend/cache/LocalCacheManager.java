@@ -0,0 +1,45 @@
+package com.civiltech.civildesk_backend.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Objects;
+
+/**
+ * In-memory cache manager used when Redis is disabled (single-node deployments).
+ *
+ * Each cache is a Caffeine cache (W-TinyLFU eviction) bounded by a per-cache maximum size and
+ * expiring entries after the same TTL the Redis tier uses (see CacheSettings).
+ * Caches are created on first use, so every name used in @Cacheable/@CacheEvict
+ * (leaves, expenses, broadcasts, ...) works without registration. Hit/miss/eviction
+ * statistics are recorded and exported to Micrometer (cache.gets, cache.evictions, cache.size).
+ */
+public class LocalCacheManager extends CaffeineCacheManager {
+
+    private final long defaultMaxSize;
+    @Nullable
+    private final MeterRegistry meterRegistry;
+
+    public LocalCacheManager(long defaultMaxSize, @Nullable MeterRegistry meterRegistry) {
+        this.defaultMaxSize = defaultMaxSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @NonNull
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(@NonNull String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumSize(CacheSettings.maxSizeFor(name, defaultMaxSize))
+                .expireAfterWrite(Objects.requireNonNull(CacheSettings.ttlFor(name)))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,75 @@
+package com.civiltech.civildesk_backend.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Short-lived Redis lock that lets one node recompute a missing cache entry
+ * while the other nodes wait for the result instead of querying the database too.
+ */
+public class RedisCacheLoadLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheLoadLock.class);
+
+    private static final String KEY_PREFIX = "cache-lock:";
+
+    // Delete the lock only if it is still ours (it may have expired and been taken by another node)
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * Token returned when Redis is unreachable: the caller proceeds as if it held the lock
+     */
+    static final String UNLOCKED = "";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+
+    public RedisCacheLoadLock(StringRedisTemplate redisTemplate, Duration lockTtl) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+    }
+
+    /**
+     * Try to take the load lock for a cache key.
+     *
+     * @return Lock token, UNLOCKED if Redis is unavailable, or null if another node holds the lock
+     */
+    @Nullable
+    public String tryLock(String cacheName, String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(lockKey(cacheName, key), token, Objects.requireNonNull(lockTtl));
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            logger.debug("Cache load lock unavailable for {}::{}: {}", cacheName, key, e.getMessage());
+            return UNLOCKED;
+        }
+    }
+
+    public void unlock(String cacheName, String key, String token) {
+        if (UNLOCKED.equals(token)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lockKey(cacheName, key)), token);
+        } catch (Exception e) {
+            // Lock expires on its own
+            logger.debug("Failed to release cache load lock for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private static String lockKey(String cacheName, String key) {
+        return KEY_PREFIX + cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,427 @@
+package com.civiltech.civildesk_backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache with a bounded in-process tier (L1) in front of a shared Redis tier (L2).
+ *
+ * Reads try L1, then L2 (populating L1 on an L2 hit). Writes and evictions go to both tiers and
+ * are published to the other nodes, which drop the key from their L1 so that an @CacheEvict
+ * on one node is visible cluster-wide. L1 entries also expire on their own after a short TTL,
+ * which bounds staleness if an invalidation message is lost.
+ *
+ * get(key, loader) - used by @Cacheable(sync = true) - loads each missing key once (single-flight):
+ * concurrent callers on this node wait for the same load, and a short Redis lock makes callers on
+ * other nodes wait briefly (lock-wait-ms) for the value to appear in Redis before recomputing it
+ * themselves, so a slow load elsewhere never parks many request threads for long. With refresh-ahead
+ * enabled, the first caller that reads an entry close to its expiry recomputes it while everyone
+ * else keeps getting the current value, so hot keys never expire under load.
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    // Poll interval while another node holds the load lock
+    private static final long REMOTE_POLL_INTERVAL_MS = 50;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> localCache;
+    private final Cache remoteCache;
+    private final TwoLevelCacheManager manager;
+    private final long ttlMillis;
+
+    // Loads in progress on this node, per key
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Keys being refreshed ahead of expiry on this node
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter loads;
+    private final Counter sharedLoads;
+    private final Counter refreshes;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> localCache,
+                         Cache remoteCache,
+                         TwoLevelCacheManager manager,
+                         @Nullable MeterRegistry meterRegistry) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.manager = manager;
+        this.ttlMillis = CacheSettings.ttlFor(name).toMillis();
+
+        if (meterRegistry != null) {
+            this.l1Hits = tierCounter(meterRegistry, "l1", "hit");
+            this.l1Misses = tierCounter(meterRegistry, "l1", "miss");
+            this.l2Hits = tierCounter(meterRegistry, "l2", "hit");
+            this.l2Misses = tierCounter(meterRegistry, "l2", "miss");
+            tierHitRatio(meterRegistry, "l1", l1Hits, l1Misses);
+            tierHitRatio(meterRegistry, "l2", l2Hits, l2Misses);
+            this.loads = loadCounter(meterRegistry, "loaded");
+            this.sharedLoads = loadCounter(meterRegistry, "shared");
+            this.refreshes = loadCounter(meterRegistry, "refreshed");
+        } else {
+            this.l1Hits = null;
+            this.l1Misses = null;
+            this.l2Hits = null;
+            this.l2Misses = null;
+            this.loads = null;
+            this.sharedLoads = null;
+            this.refreshes = null;
+        }
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(@NonNull Object key) {
+        LocalEntry entry = lookup(key, toLocalKey(key));
+        return entry != null ? new SimpleValueWrapper(entry.value) : null;
+    }
+
+    /**
+     * Look up L1, then L2; an L2 hit is copied into L1
+     */
+    @Nullable
+    private LocalEntry lookup(Object key, String localKey) {
+        LocalEntry entry = localCache.getIfPresent(localKey);
+        if (entry != null) {
+            increment(l1Hits);
+            return entry;
+        }
+        increment(l1Misses);
+
+        ValueWrapper wrapper = remoteCache.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            increment(l2Hits);
+            entry = new LocalEntry(wrapper.get(), manager.remoteExpiresAt(remoteCache, name, localKey));
+            localCache.put(localKey, entry);
+            return entry;
+        }
+        increment(l2Misses);
+        return null;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+        LocalEntry entry = lookup(key, localKey);
+        if (entry != null) {
+            if (manager.isRefreshAhead() && entry.isDueForRefresh(ttlMillis, manager.getRefreshAheadRatio())) {
+                refreshAhead(key, localKey, valueLoader);
+            }
+            return (T) entry.value;
+        }
+        return (T) loadSingleFlight(key, localKey, valueLoader);
+    }
+
+    /**
+     * Load a missing key once per node; concurrent callers share the result
+     */
+    private Object loadSingleFlight(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, load);
+        if (existing != null) {
+            increment(sharedLoads);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                // Rethrow what the loading caller got (already a ValueRetrievalException for loader failures)
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object value = loadWithRemoteLock(key, localKey, valueLoader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, load);
+        }
+    }
+
+    /**
+     * Load under the Redis load lock. If another node holds it, wait for its value to appear
+     * in Redis; load locally only if it does not show up in time.
+     */
+    private Object loadWithRemoteLock(Object key, String localKey, Callable<?> valueLoader) {
+        RedisCacheLoadLock lock = manager.getLoadLock();
+        String token = lock.tryLock(name, localKey);
+        if (token == null) {
+            LocalEntry entry = waitForRemoteValue(key, localKey);
+            if (entry != null) {
+                increment(sharedLoads);
+                return entry.value;
+            }
+            return load(key, valueLoader);
+        }
+
+        try {
+            // Another node may have finished loading between our miss and taking the lock
+            ValueWrapper wrapper = remoteCache.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                localCache.put(localKey, new LocalEntry(wrapper.get(), manager.remoteExpiresAt(remoteCache, name, localKey)));
+                return wrapper.get();
+            }
+            return load(key, valueLoader);
+        } finally {
+            lock.unlock(name, localKey, token);
+        }
+    }
+
+    // Only the node's loading caller waits here; other callers on this node wait on its future
+    @Nullable
+    private LocalEntry waitForRemoteValue(Object key, String localKey) {
+        long deadline = System.currentTimeMillis() + manager.getLockWaitMillis();
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(Math.min(REMOTE_POLL_INTERVAL_MS, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ValueWrapper wrapper = remoteCache.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                LocalEntry entry = new LocalEntry(wrapper.get(), manager.remoteExpiresAt(remoteCache, name, localKey));
+                localCache.put(localKey, entry);
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recompute an entry that is close to expiry. Runs on the calling thread (it needs the caller's
+     * transaction and security context); only one caller per key on this node and across nodes does it.
+     */
+    private void refreshAhead(Object key, String localKey, Callable<?> valueLoader) {
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            RedisCacheLoadLock lock = manager.getLoadLock();
+            String token = lock.tryLock(name, localKey);
+            if (token == null) {
+                return; // Another node is refreshing
+            }
+            try {
+                load(key, valueLoader);
+                increment(refreshes);
+            } finally {
+                lock.unlock(name, localKey, token);
+            }
+        } catch (Exception e) {
+            // The current value is still valid; the next caller may try again
+            logger.warn("Refresh-ahead failed for key '{}' in cache '{}': {}", localKey, name, e.getMessage());
+        } finally {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        increment(loads);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        remoteCache.put(key, value);
+        String localKey = toLocalKey(key);
+        if (value != null) {
+            localCache.put(localKey, new LocalEntry(value, System.currentTimeMillis() + ttlMillis));
+        } else {
+            localCache.invalidate(localKey);
+        }
+        manager.publishEvict(name, localKey);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        String localKey = toLocalKey(key);
+        Object current = existing != null ? existing.get() : value;
+        if (current != null) {
+            long expiresAt = existing != null ? 0 : System.currentTimeMillis() + ttlMillis;
+            localCache.put(localKey, new LocalEntry(current, expiresAt));
+        }
+        if (existing == null) {
+            manager.publishEvict(name, localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        // Local tier first so a failing Redis call cannot leave a stale L1 entry behind
+        String localKey = toLocalKey(key);
+        localCache.invalidate(localKey);
+        remoteCache.evict(key);
+        manager.publishEvict(name, localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(@NonNull Object key) {
+        String localKey = toLocalKey(key);
+        localCache.invalidate(localKey);
+        boolean evicted = remoteCache.evictIfPresent(key);
+        manager.publishEvict(name, localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        localCache.invalidateAll();
+        remoteCache.clear();
+        manager.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        localCache.invalidateAll();
+        boolean invalidated = remoteCache.invalidate();
+        manager.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Drop a key from this node's L1 only (invalidation message from another node)
+     */
+    void evictLocal(String localKey) {
+        localCache.invalidate(localKey);
+    }
+
+    /**
+     * Drop all keys from this node's L1 only (invalidation message from another node)
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * L1 keys are the string form of the cache key, the same form Redis uses,
+     * so invalidation messages can carry them between nodes.
+     */
+    static String toLocalKey(Object key) {
+        return key instanceof String ? (String) key : String.valueOf(key);
+    }
+
+    private Counter tierCounter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void tierHitRatio(MeterRegistry registry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("cache.tier.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0.0 : hits.count() / total;
+                })
+                .description("Hit ratio per cache tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    private Counter loadCounter(MeterRegistry registry, String result) {
+        return Counter.builder("cache.loads")
+                .description("Cache loads: loaded (recomputed), shared (waited for another caller), refreshed (ahead of expiry)")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void increment(@Nullable Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * L1 value with the time its Redis copy expires (0 if unknown)
+     */
+    static final class LocalEntry {
+        final Object value;
+        final long expiresAt;
+
+        LocalEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * True once the given fraction of the TTL has elapsed
+         */
+        boolean isDueForRefresh(long ttlMillis, double refreshAheadRatio) {
+            if (expiresAt <= 0) {
+                return false;
+            }
+            long refreshAt = expiresAt - (long) (ttlMillis * (1.0 - refreshAheadRatio));
+            return System.currentTimeMillis() >= refreshAt;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.civiltech.civildesk_backend.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheManager that wraps every Redis cache in a TwoLevelCache and keeps the in-process tier
+ * coherent across nodes through Redis pub/sub.
+ *
+ * Message format: {@code <nodeId>|E|<cacheName>|<key>} for an eviction,
+ * {@code <nodeId>|C|<cacheName>|} for a clear. Messages from this node are ignored.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final char OP_EVICT = 'E';
+    private static final char OP_CLEAR = 'C';
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationChannel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    @Nullable
+    private final MeterRegistry meterRegistry;
+
+    private RedisCacheLoadLock loadLock;
+    private long lockWaitMillis = 200;
+    private boolean refreshAhead = false;
+    private double refreshAheadRatio = 0.8;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param remoteCacheManager Redis cache manager (L2)
+     * @param connectionFactory Redis connection used to publish invalidations
+     * @param invalidationChannel Pub/sub channel shared by all nodes
+     * @param localMaxSize Default maximum number of entries per cache in L1
+     * @param localTtl Maximum L1 lifetime; the effective TTL is never longer than the cache's Redis TTL
+     * @param meterRegistry Registry for per-tier hit/miss metrics (optional)
+     */
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                RedisConnectionFactory connectionFactory,
+                                String invalidationChannel,
+                                long localMaxSize,
+                                Duration localTtl,
+                                @Nullable MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.invalidationChannel = invalidationChannel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.meterRegistry = meterRegistry;
+        this.loadLock = new RedisCacheLoadLock(redisTemplate, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Single-flight settings
+     *
+     * @param lockTtl Maximum time a node may hold the load lock for one key
+     * @param lockWaitMillis How long a caller waits for another node's load before loading itself
+     */
+    public void setLoadLockTimeouts(Duration lockTtl, long lockWaitMillis) {
+        this.loadLock = new RedisCacheLoadLock(redisTemplate, lockTtl);
+        this.lockWaitMillis = lockWaitMillis;
+    }
+
+    /**
+     * Refresh-ahead: recompute entries read after the given fraction of their TTL has elapsed
+     * (only for @Cacheable(sync = true) methods, which pass their loader to the cache)
+     */
+    public void setRefreshAhead(boolean refreshAhead, double refreshAheadRatio) {
+        this.refreshAhead = refreshAhead;
+        this.refreshAheadRatio = refreshAheadRatio;
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(@NonNull String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, remoteCache));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableCollection(remoteCacheManager.getCacheNames());
+    }
+
+    public String getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    RedisCacheLoadLock getLoadLock() {
+        return loadLock;
+    }
+
+    long getLockWaitMillis() {
+        return lockWaitMillis;
+    }
+
+    boolean isRefreshAhead() {
+        return refreshAhead;
+    }
+
+    double getRefreshAheadRatio() {
+        return refreshAheadRatio;
+    }
+
+    /**
+     * Expiry time (epoch millis) of a key in Redis, or 0 if unknown.
+     * Only looked up when refresh-ahead is enabled, to avoid an extra round trip per L2 hit.
+     */
+    long remoteExpiresAt(Cache remoteCache, String cacheName, String localKey) {
+        if (!refreshAhead || !(remoteCache instanceof RedisCache)) {
+            return 0;
+        }
+        try {
+            String redisKey = ((RedisCache) remoteCache).getCacheConfiguration().getKeyPrefixFor(cacheName) + localKey;
+            Long ttlMillis = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+            return ttlMillis != null && ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private TwoLevelCache createCache(String name, Cache remoteCache) {
+        Duration ttl = CacheSettings.ttlFor(name);
+        if (localTtl.compareTo(ttl) < 0) {
+            ttl = localTtl;
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.LocalEntry> localCache = Caffeine.newBuilder()
+                .maximumSize(CacheSettings.maxSizeFor(name, localMaxSize))
+                .expireAfterWrite(Objects.requireNonNull(ttl))
+                .build();
+        return new TwoLevelCache(name, localCache, remoteCache, this, meterRegistry);
+    }
+
+    /**
+     * Tell the other nodes to drop a key from their L1
+     */
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + "|" + OP_EVICT + "|" + cacheName + "|" + key);
+    }
+
+    /**
+     * Tell the other nodes to clear a cache's L1
+     */
+    public void publishClear(String cacheName) {
+        publish(nodeId + "|" + OP_CLEAR + "|" + cacheName + "|");
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(invalidationChannel, message);
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 TTL
+            logger.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0]) || parts[1].isEmpty()) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return; // Nothing cached locally for this cache yet
+        }
+        if (parts[1].charAt(0) == OP_CLEAR) {
+            cache.clearLocal();
+        } else if (parts[1].charAt(0) == OP_EVICT) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
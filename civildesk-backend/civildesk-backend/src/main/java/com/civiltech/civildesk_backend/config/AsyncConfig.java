@@ -80,6 +80,37 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
     
+    /**
+     * Notification stream executor (writes to open SSE connections off the request threads)
+     */
+    @Bean(name = "notificationStreamExecutor")
+    public Executor notificationStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("sse-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Push executor (notification outbox dispatch; keeps FCM latency off request threads and transactions)
+     */
+    @Bean(name = "pushExecutor")
+    public Executor pushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("push-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+    
     @Override
     public Executor getAsyncExecutor() {
         return taskExecutor();
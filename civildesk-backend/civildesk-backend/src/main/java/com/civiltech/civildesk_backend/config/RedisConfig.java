@@ -1,11 +1,22 @@
 package com.civiltech.civildesk_backend.config;
 
+import com.civiltech.civildesk_backend.cache.CacheSettings;
+import com.civiltech.civildesk_backend.cache.CompactRedisSerializer;
+import com.civiltech.civildesk_backend.cache.LocalCacheManager;
+import com.civiltech.civildesk_backend.cache.TwoLevelCacheManager;
+import com.civiltech.civildesk_backend.security.UserDetailsCache;
+import com.civiltech.civildesk_backend.service.AttendanceEventPublisher;
+import com.civiltech.civildesk_backend.service.NotificationStreamService;
+import com.civiltech.civildesk_backend.service.SiteSpatialIndexService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,7 +25,6 @@ import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
-import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.context.annotation.Bean;
@@ -26,12 +36,14 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -60,6 +72,39 @@ public class RedisConfig implements CachingConfigurer {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
     
+    @Value("${app.cache.l1.enabled:true}")
+    private boolean localCacheEnabled;
+    
+    @Value("${app.cache.l1.max-size:1000}")
+    private long localCacheMaxSize;
+    
+    @Value("${app.cache.l1.ttl-seconds:60}")
+    private long localCacheTtlSeconds;
+    
+    @Value("${app.cache.local.max-size:1000}")
+    private long inMemoryCacheMaxSize;
+    
+    @Value("${app.cache.serializer:compact}")
+    private String cacheSerializer;
+    
+    @Value("${app.cache.compression-threshold-bytes:1024}")
+    private int cacheCompressionThreshold;
+    
+    @Value("${app.cache.single-flight.lock-ttl-ms:10000}")
+    private long loadLockTtlMillis;
+    
+    @Value("${app.cache.single-flight.lock-wait-ms:200}")
+    private long loadLockWaitMillis;
+    
+    @Value("${app.cache.refresh-ahead.enabled:false}")
+    private boolean refreshAheadEnabled;
+    
+    @Value("${app.cache.refresh-ahead.ratio:0.8}")
+    private double refreshAheadRatio;
+    
+    @Value("${app.cache.invalidation-channel:civildesk:cache:invalidate}")
+    private String cacheInvalidationChannel;
+    
     /**
      * Redis connection factory - only created if Redis is enabled
      * Does not validate connection at startup to allow graceful fallback
@@ -101,6 +146,22 @@ public class RedisConfig implements CachingConfigurer {
         return mapper;
     }
 
+    /**
+     * Value serializer for the cache manager and RedisTemplate (app.cache.serializer):
+     * "compact" - binary format with registered DTO type IDs, compressed above a size threshold (default)
+     * "json"    - Jackson JSON with default typing (class names in every entry)
+     */
+    @NonNull
+    private RedisSerializer<Object> createValueSerializer() {
+        // Create serializer with proper ObjectMapper for Java 8 time types
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(createObjectMapper());
+        if ("json".equalsIgnoreCase(cacheSerializer)) {
+            return jsonSerializer;
+        }
+        // JSON stays the fallback for scalar values and entries written before the compact format
+        return new CompactRedisSerializer(jsonSerializer, cacheCompressionThreshold);
+    }
+
     /**
      * Redis template - only created if Redis is enabled
      */
@@ -110,8 +171,7 @@ public class RedisConfig implements CachingConfigurer {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
-        // Create serializer with proper ObjectMapper for Java 8 time types
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(createObjectMapper());
+        RedisSerializer<Object> serializer = createValueSerializer();
         
         template.setDefaultSerializer(serializer);
         template.setKeySerializer(new StringRedisSerializer());
@@ -123,55 +183,83 @@ public class RedisConfig implements CachingConfigurer {
     }
     
     /**
-     * Redis cache manager - only created if Redis connection factory is available
+     * Redis cache manager - only created if Redis connection factory is available.
+     * When app.cache.l1.enabled is true, every Redis cache gets a bounded in-process tier in front of it
+     * (see TwoLevelCacheManager).
      */
     @Bean(name = "redisCacheManager")
     @Primary
     @ConditionalOnBean(RedisConnectionFactory.class)
-    public CacheManager redisCacheManager(@NonNull RedisConnectionFactory connectionFactory) {
+    public CacheManager redisCacheManager(@NonNull RedisConnectionFactory connectionFactory,
+                                          ObjectProvider<MeterRegistry> meterRegistry) {
         logger.info("Using Redis cache manager");
         
-        // Create serializer with proper ObjectMapper for Java 8 time types
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(createObjectMapper());
+        RedisSerializer<Object> serializer = createValueSerializer();
         
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Objects.requireNonNull(Duration.ofMinutes(30)))
+            .entryTtl(Objects.requireNonNull(CacheSettings.DEFAULT_TTL))
             .serializeKeysWith(RedisSerializationContext.SerializationPair
                 .fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(RedisSerializationContext.SerializationPair
                 .fromSerializer(serializer))
             .disableCachingNullValues();
         
-        return RedisCacheManager.builder(connectionFactory)
-            .cacheDefaults(defaultConfig)
-            // Employee cache: 30 minutes TTL
-            .withCacheConfiguration("employees", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofMinutes(30))))
-            // Single employee cache: 30 minutes TTL
-            .withCacheConfiguration("employee", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofMinutes(30))))
-            // Sites cache: 1 hour TTL (rarely changes)
-            .withCacheConfiguration("sites", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofHours(1))))
-            // Single site cache: 1 hour TTL
-            .withCacheConfiguration("site", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofHours(1))))
-            // Holidays cache: 24 hours TTL (very rarely changes)
-            .withCacheConfiguration("holidays", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofHours(24))))
-            // Dashboard stats cache: 5 minutes TTL (frequently updated)
-            .withCacheConfiguration("dashboard", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofMinutes(5))))
-            // Attendance cache: 10 minutes TTL
-            .withCacheConfiguration("attendance", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofMinutes(10))))
-            // Tasks cache: 15 minutes TTL
-            .withCacheConfiguration("tasks", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofMinutes(15))))
-            // Leave types cache: 1 hour TTL
-            .withCacheConfiguration("leaveTypes", 
-                defaultConfig.entryTtl(Objects.requireNonNull(Duration.ofHours(1))))
-            .build();
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+            .cacheDefaults(defaultConfig);
+        // Per-cache TTLs (employees, sites, holidays, dashboard, ...)
+        CacheSettings.configuredTtls().forEach((cacheName, ttl) ->
+            builder.withCacheConfiguration(cacheName, defaultConfig.entryTtl(Objects.requireNonNull(ttl))));
+        RedisCacheManager redisCacheManager = builder.build();
+        
+        if (!localCacheEnabled) {
+            return redisCacheManager;
+        }
+        
+        // Not a bean itself, so initialize the configured caches here
+        redisCacheManager.initializeCaches();
+        logger.info("In-process L1 cache enabled (max {} entries per cache, TTL {}s)", localCacheMaxSize, localCacheTtlSeconds);
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(
+            redisCacheManager,
+            connectionFactory,
+            cacheInvalidationChannel,
+            localCacheMaxSize,
+            Duration.ofSeconds(localCacheTtlSeconds),
+            meterRegistry.getIfAvailable());
+        twoLevelCacheManager.setLoadLockTimeouts(Duration.ofMillis(loadLockTtlMillis), loadLockWaitMillis);
+        twoLevelCacheManager.setRefreshAhead(refreshAheadEnabled, refreshAheadRatio);
+        return twoLevelCacheManager;
+    }
+    
+    /**
+     * The one pub/sub listener container: a single Redis subscription connection and dispatch executor
+     * for every cross-node channel (L1 invalidation, punch events, notification stream, site index
+     * changes, UserDetails eviction)
+     */
+    @Bean
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            @NonNull RedisConnectionFactory connectionFactory,
+            @Qualifier("redisCacheManager") CacheManager cacheManager,
+            AttendanceEventPublisher attendanceEventPublisher,
+            NotificationStreamService notificationStreamService,
+            SiteSpatialIndexService siteSpatialIndexService,
+            UserDetailsCache userDetailsCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            TwoLevelCacheManager twoLevelCacheManager = (TwoLevelCacheManager) cacheManager;
+            container.addMessageListener(twoLevelCacheManager,
+                new ChannelTopic(twoLevelCacheManager.getInvalidationChannel()));
+        }
+        container.addMessageListener(attendanceEventPublisher,
+            new ChannelTopic(attendanceEventPublisher.getEventChannel()));
+        container.addMessageListener(notificationStreamService,
+            new ChannelTopic(notificationStreamService.getEventChannel()));
+        container.addMessageListener(siteSpatialIndexService,
+            new ChannelTopic(siteSpatialIndexService.getChangeChannel()));
+        container.addMessageListener(userDetailsCache,
+            new ChannelTopic(userDetailsCache.getEvictionChannel()));
+        return container;
     }
     
     /**
@@ -180,29 +268,17 @@ public class RedisConfig implements CachingConfigurer {
     @Bean(name = "cacheManager")
     @Primary
     @ConditionalOnProperty(name = "app.redis.enabled", havingValue = "false", matchIfMissing = false)
-    public CacheManager simpleCacheManagerFallback() {
-        return createSimpleCacheManager();
+    public CacheManager simpleCacheManagerFallback(ObjectProvider<MeterRegistry> meterRegistry) {
+        return createLocalCacheManager(meterRegistry.getIfAvailable());
     }
     
     /**
-     * Helper method to create simple cache manager
+     * Helper method to create the bounded, TTL-aware in-memory cache manager
      */
-    private CacheManager createSimpleCacheManager() {
+    private CacheManager createLocalCacheManager(MeterRegistry meterRegistry) {
         logger.info("Using in-memory cache (Redis is not available or disabled)");
-        SimpleCacheManager cacheManager = new SimpleCacheManager();
-        cacheManager.setCaches(Objects.requireNonNull(Arrays.asList(
-            new org.springframework.cache.concurrent.ConcurrentMapCache("employees"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("employee"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("sites"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("site"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("holidays"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("dashboard"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("attendance"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("tasks"),
-            new org.springframework.cache.concurrent.ConcurrentMapCache("leaveTypes")
-        )));
-        cacheManager.afterPropertiesSet();
-        return cacheManager;
+        // No fixed cache names: CaffeineCacheManager stays in dynamic mode and creates caches on demand
+        return new LocalCacheManager(inMemoryCacheMaxSize, meterRegistry);
     }
     
     /**
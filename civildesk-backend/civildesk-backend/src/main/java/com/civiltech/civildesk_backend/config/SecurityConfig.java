@@ -2,6 +2,8 @@ package com.civiltech.civildesk_backend.config;
 
 import com.civiltech.civildesk_backend.security.CustomUserDetailsService;
 import com.civiltech.civildesk_backend.security.JwtAuthenticationFilter;
+import com.civiltech.civildesk_backend.service.IdempotencyService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -45,10 +47,14 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE streams) were authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/api/health").permitAll()
                         .requestMatchers("/uploads/**").permitAll()
+                        // STOMP handshake; the CONNECT frame carries the JWT (see WebSocketConfig)
+                        .requestMatchers("/ws/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -87,6 +93,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Lets web clients tell a replayed idempotent response from a fresh one
+        configuration.setExposedHeaders(Arrays.asList(IdempotencyService.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,23 @@
+package com.civiltech.civildesk_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+/**
+ * Business time zone for "today" and "this month".
+ *
+ * Servers may run in UTC while sites work on IST, so dates must not come from the JVM default zone:
+ * services take LocalDate.now(businessClock) instead of LocalDate.now().
+ */
+@Configuration
+public class TimeConfig {
+
+    @Bean
+    public Clock businessClock(@Value("${app.business.time-zone:Asia/Kolkata}") String timeZone) {
+        return Clock.system(ZoneId.of(timeZone));
+    }
+}
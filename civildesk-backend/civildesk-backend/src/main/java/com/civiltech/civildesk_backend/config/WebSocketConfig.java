@@ -0,0 +1,144 @@
+package com.civiltech.civildesk_backend.config;
+
+import com.civiltech.civildesk_backend.security.CustomUserDetailsService;
+import com.civiltech.civildesk_backend.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.security.Principal;
+
+/**
+ * STOMP over WebSocket for live attendance updates.
+ *
+ * The HTTP handshake on /ws is open (browsers cannot set headers on it); the client authenticates on
+ * the STOMP CONNECT frame with the same "Authorization: Bearer <jwt>" header as the REST API.
+ * Live attendance topics are limited to admins and HR managers.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private static final String APPLICATION_DESTINATION_PREFIX = "/app";
+
+    private static final String ATTENDANCE_TOPIC_PREFIX = "/topic/attendance";
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Value("${app.cors.allowed-origins}")
+    private String allowedOrigins;
+
+    @Override
+    public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws")
+                .setAllowedOriginPatterns(allowedOrigins.split(","));
+    }
+
+    @Override
+    public void configureMessageBroker(@NonNull MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes(APPLICATION_DESTINATION_PREFIX);
+    }
+
+    @Override
+    public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                return checkInboundFrame(message);
+            }
+        });
+    }
+
+    /**
+     * Authenticate CONNECT and authorize every later client frame.
+     * Clients may only SEND to application destinations (/app); a SEND straight to a broker topic
+     * would be relayed to every subscriber as if the server had published it. SUBSCRIBE takes literal
+     * destinations only (no pattern characters).
+     */
+    Message<?> checkInboundFrame(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (StompCommand.CONNECT.equals(command) || StompCommand.STOMP.equals(command)) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+            return message;
+        }
+        if (StompCommand.DISCONNECT.equals(command)) {
+            // Also sent by the server itself when the session closes
+            return message;
+        }
+        if (!(accessor.getUser() instanceof Authentication)) {
+            throw new MessageDeliveryException("Not authenticated");
+        }
+
+        String destination = accessor.getDestination();
+        if (StompCommand.SEND.equals(command)) {
+            if (destination == null || !destination.startsWith(APPLICATION_DESTINATION_PREFIX + "/")) {
+                throw new MessageDeliveryException("Not allowed to send to " + destination);
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(command)) {
+            // The simple broker matches subscriptions as Ant patterns, so /topic/** would receive
+            // /topic/attendance without passing the prefix check below
+            if (destination == null || destination.contains("*") || destination.contains("?")
+                    || destination.contains("{")) {
+                throw new MessageDeliveryException("Not allowed to subscribe to " + destination);
+            }
+            if (destination.startsWith(ATTENDANCE_TOPIC_PREFIX) && !canViewLiveAttendance(accessor.getUser())) {
+                throw new MessageDeliveryException("Not allowed to subscribe to " + destination);
+            }
+        }
+        return message;
+    }
+
+    private Authentication authenticate(String bearerToken) {
+        if (bearerToken == null || !bearerToken.startsWith("Bearer ")) {
+            throw new MessageDeliveryException("Missing bearer token");
+        }
+        try {
+            Claims claims = tokenProvider.parseClaims(bearerToken.substring(7));
+            UserDetails userDetails = userDetailsService.loadUserByUsernameCached(claims.getSubject());
+            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        } catch (Exception e) {
+            logger.debug("Rejected STOMP connect: {}", e.getMessage());
+            throw new MessageDeliveryException("Invalid token");
+        }
+    }
+
+    private boolean canViewLiveAttendance(Principal user) {
+        if (!(user instanceof Authentication)) {
+            return false;
+        }
+        return ((Authentication) user).getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN")
+                        || authority.getAuthority().equals("ROLE_HR_MANAGER"));
+    }
+}
@@ -5,10 +5,13 @@ import com.civiltech.civildesk_backend.dto.AttendanceRequest;
 import com.civiltech.civildesk_backend.dto.AttendanceResponse;
 import com.civiltech.civildesk_backend.dto.AttendanceAnalyticsResponse;
 import com.civiltech.civildesk_backend.dto.FaceRecognitionResponse;
+import com.civiltech.civildesk_backend.dto.PunchEventResponse;
 import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.service.AbsentAttendanceService;
+import com.civiltech.civildesk_backend.service.AttendanceProjector;
 import com.civiltech.civildesk_backend.service.AttendanceService;
 import com.civiltech.civildesk_backend.service.FaceRecognitionService;
+import com.civiltech.civildesk_backend.service.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,9 +24,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/attendance")
@@ -39,12 +46,31 @@ public class AttendanceController {
     @Autowired
     private AbsentAttendanceService absentAttendanceService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    @Autowired
+    private Clock businessClock;
+
     @PostMapping("/mark")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<AttendanceResponse>> markAttendance(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestParam(value = "image", required = false) MultipartFile imageFile,
             @RequestParam(value = "employee_id", required = false) String employeeId,
             @RequestParam(value = "attendance_type", required = false) String attendanceType) {
+        // Retries with the same key get the first response (no second face recognition call or punch)
+        return idempotencyService.execute("attendance-mark", idempotencyKey,
+                Arrays.asList(employeeId, attendanceType, imageFile != null ? imageFile.getSize() : null),
+                AttendanceResponse.class,
+                () -> doMarkAttendance(imageFile, employeeId, attendanceType));
+    }
+
+    private ResponseEntity<ApiResponse<AttendanceResponse>> doMarkAttendance(
+            MultipartFile imageFile, String employeeId, String attendanceType) {
         try {
             AttendanceRequest request = new AttendanceRequest();
             
@@ -151,10 +177,10 @@ public class AttendanceController {
             @RequestParam(defaultValue = "DESC") String sortDir) {
         try {
             if (startDate == null) {
-                startDate = LocalDate.now().minusMonths(1);
+                startDate = LocalDate.now(businessClock).minusMonths(1);
             }
             if (endDate == null) {
-                endDate = LocalDate.now();
+                endDate = LocalDate.now(businessClock);
             }
             
             // Use pagination if page/size are provided (non-zero page or size != default)
@@ -189,7 +215,7 @@ public class AttendanceController {
             @RequestParam(defaultValue = "ASC") String sortDir) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             // Always use pagination when page and size are provided
@@ -211,7 +237,7 @@ public class AttendanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             Map<String, Long> summary = attendanceService.getDailyAttendanceSummary(date);
@@ -227,7 +253,14 @@ public class AttendanceController {
     @PostMapping("/my-attendance/mark")
     @PreAuthorize("hasRole('EMPLOYEE')")
     public ResponseEntity<ApiResponse<AttendanceResponse>> markMyAttendance(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody AttendanceRequest request) {
+        return idempotencyService.execute("attendance-my-mark", idempotencyKey,
+                Arrays.asList(request.getAttendanceType()), AttendanceResponse.class,
+                () -> doMarkMyAttendance(request));
+    }
+
+    private ResponseEntity<ApiResponse<AttendanceResponse>> doMarkMyAttendance(AttendanceRequest request) {
         try {
             // Get employee ID from authenticated user
             Long userId = com.civiltech.civildesk_backend.security.SecurityUtils.getCurrentUserId();
@@ -282,10 +315,10 @@ public class AttendanceController {
             
             // Otherwise, get attendance for date range
             if (startDate == null) {
-                startDate = LocalDate.now().minusMonths(1);
+                startDate = LocalDate.now(businessClock).minusMonths(1);
             }
             if (endDate == null) {
-                endDate = LocalDate.now();
+                endDate = LocalDate.now(businessClock);
             }
             
             List<AttendanceResponse> responses = attendanceService.getEmployeeAttendance(
@@ -452,7 +485,7 @@ public class AttendanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             if (date == null) {
-                date = LocalDate.now().minusDays(1); // Default to yesterday
+                date = LocalDate.now(businessClock).minusDays(1); // Default to yesterday
             }
 
             int count = absentAttendanceService.markAbsentForDate(date);
@@ -464,5 +497,49 @@ public class AttendanceController {
                     .body(ApiResponse.error("Error triggering absent marking: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
         }
     }
-}
 
+    /**
+     * Punch events (punches and corrections) behind an employee's attendance for a date, oldest first.
+     * Only accessible by ADMIN or HR_MANAGER.
+     */
+    @GetMapping("/punch-events")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
+    public ResponseEntity<ApiResponse<List<PunchEventResponse>>> getPunchEvents(
+            @RequestParam("employee_id") String employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            Long employeeRecordId = attendanceService.getEmployeeRecordId(employeeId);
+            List<PunchEventResponse> events = attendanceProjector.getEvents(employeeRecordId, date).stream()
+                    .map(PunchEventResponse::fromEntity)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(ApiResponse.success("Punch events retrieved successfully", events));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Error retrieving punch events: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+
+    /**
+     * Rebuild attendance punch times and hours from the punch events, e.g. after a change to the
+     * calculation rules. Only accessible by ADMIN.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildAttendance(
+            @RequestParam("start_date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("end_date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        if (endDate.isBefore(startDate) || ChronoUnit.DAYS.between(startDate, endDate) >= 366) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("end_date must be on or after start_date and at most a year later"));
+        }
+        try {
+            int count = attendanceProjector.rebuild(startDate, endDate);
+            return ResponseEntity.ok(
+                    ApiResponse.success("Attendance rebuilt from punch events",
+                            Map.of("start_date", startDate.toString(), "end_date", endDate.toString(), "rebuilt_count", count)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Error rebuilding attendance: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.civiltech.civildesk_backend.controller;
 import com.civiltech.civildesk_backend.dto.ApiResponse;
 import com.civiltech.civildesk_backend.dto.GpsAttendanceRequest;
 import com.civiltech.civildesk_backend.dto.GpsAttendanceResponse;
+import com.civiltech.civildesk_backend.dto.GpsPunchSyncResult;
 import com.civiltech.civildesk_backend.service.GpsAttendanceService;
+import com.civiltech.civildesk_backend.service.IdempotencyService;
+import com.civiltech.civildesk_backend.service.PunchIngestionService;
 import com.civiltech.civildesk_backend.service.SiteService;
 import com.civiltech.civildesk_backend.dto.SiteResponse;
 import jakarta.validation.Valid;
@@ -17,12 +20,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/gps-attendance")
@@ -35,15 +41,36 @@ public class GpsAttendanceController {
     @Autowired
     private SiteService siteService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private Clock businessClock;
+
     /**
      * Mark GPS-based attendance punch
      */
     @PostMapping("/mark")
     @PreAuthorize("hasRole('EMPLOYEE')")
     public ResponseEntity<ApiResponse<GpsAttendanceResponse>> markAttendance(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody GpsAttendanceRequest request) {
+        // Retries with the same key get the first response instead of punching again
+        return idempotencyService.execute("gps-attendance-mark", idempotencyKey,
+                Arrays.asList(request.getEmployeeId(), request.getPunchType(), request.getSiteId()),
+                GpsAttendanceResponse.class,
+                () -> doMarkAttendance(request));
+    }
+
+    private ResponseEntity<ApiResponse<GpsAttendanceResponse>> doMarkAttendance(GpsAttendanceRequest request) {
         try {
-            GpsAttendanceResponse response = gpsAttendanceService.markGpsAttendance(request);
+            // Write-behind mode acknowledges once the punch is journaled; it is saved shortly after
+            GpsAttendanceResponse response = punchIngestionService.isEnabled()
+                    ? punchIngestionService.submit(request)
+                    : gpsAttendanceService.markGpsAttendance(request);
             
             String message;
             switch (request.getPunchType()) {
@@ -75,11 +102,19 @@ public class GpsAttendanceController {
      */
     @PostMapping("/sync")
     @PreAuthorize("hasRole('EMPLOYEE')")
-    public ResponseEntity<ApiResponse<List<GpsAttendanceResponse>>> syncOfflineAttendance(
+    public ResponseEntity<ApiResponse<List<GpsPunchSyncResult>>> syncOfflineAttendance(
             @Valid @RequestBody List<GpsAttendanceRequest> requests) {
         try {
-            List<GpsAttendanceResponse> responses = gpsAttendanceService.syncOfflineAttendance(requests);
-            return ResponseEntity.ok(ApiResponse.success("Offline attendance synced successfully", responses));
+            // One result per punch, in request order; rejected punches do not fail the upload
+            List<GpsPunchSyncResult> results = gpsAttendanceService.syncOfflineAttendance(requests);
+            Map<GpsPunchSyncResult.Status, Long> counts = results.stream()
+                    .collect(Collectors.groupingBy(GpsPunchSyncResult::getStatus, Collectors.counting()));
+            String message = String.format("Offline attendance synced: %d synced, %d duplicate, %d rejected, %d failed",
+                    counts.getOrDefault(GpsPunchSyncResult.Status.SYNCED, 0L),
+                    counts.getOrDefault(GpsPunchSyncResult.Status.DUPLICATE, 0L),
+                    counts.getOrDefault(GpsPunchSyncResult.Status.REJECTED, 0L),
+                    counts.getOrDefault(GpsPunchSyncResult.Status.FAILED, 0L));
+            return ResponseEntity.ok(ApiResponse.success(message, results));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("Failed to sync: " + e.getMessage()));
@@ -96,7 +131,7 @@ public class GpsAttendanceController {
             @RequestParam(required = false) String employeeId) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             // Get employee ID from token if not provided
@@ -106,7 +141,11 @@ public class GpsAttendanceController {
                         .body(ApiResponse.error("Employee ID is required"));
             }
             
-            List<GpsAttendanceResponse> responses = gpsAttendanceService.getEmployeeAttendanceForDate(employeeId, date);
+            // Includes punches acknowledged but not yet saved (write-behind mode)
+            String employeeCode = employeeId;
+            LocalDate day = date;
+            List<GpsAttendanceResponse> responses = punchIngestionService.withQueuedPunches(employeeCode, day,
+                    () -> gpsAttendanceService.getEmployeeAttendanceForDate(employeeCode, day));
             return ResponseEntity.ok(ApiResponse.success("Attendance retrieved successfully", responses));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -142,7 +181,7 @@ public class GpsAttendanceController {
             @RequestParam(required = false) String employeeId) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             List<GpsAttendanceResponse> responses = gpsAttendanceService.getAllAttendanceForDate(date, employeeId);
@@ -188,7 +227,7 @@ public class GpsAttendanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             List<GpsAttendanceResponse> responses = gpsAttendanceService.getSiteAttendanceForDate(siteId, date);
@@ -209,7 +248,7 @@ public class GpsAttendanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             List<GpsAttendanceResponse> responses = gpsAttendanceService.getEmployeeAttendanceForDate(employeeId, date);
@@ -220,6 +259,32 @@ public class GpsAttendanceController {
         }
     }
 
+    /**
+     * Offline punches stored away from their device time (older than the allowed age)
+     */
+    @GetMapping("/review")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
+    public ResponseEntity<ApiResponse<Page<GpsAttendanceResponse>>> getPunchesPendingReview(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        Page<GpsAttendanceResponse> responses = gpsAttendanceService.getPunchesPendingReview(pageable);
+        return ResponseEntity.ok(ApiResponse.success("Punches pending review retrieved successfully", responses));
+    }
+
+    /**
+     * Accept or reject the device time of an offline punch
+     */
+    @PostMapping("/{logId}/review")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
+    public ResponseEntity<ApiResponse<GpsAttendanceResponse>> reviewOfflinePunch(
+            @PathVariable Long logId,
+            @RequestParam boolean acceptDeviceTime) {
+        GpsAttendanceResponse response = gpsAttendanceService.reviewOfflinePunch(logId, acceptDeviceTime);
+        return ResponseEntity.ok(ApiResponse.success(
+                acceptDeviceTime ? "Device time accepted" : "Device time rejected", response));
+    }
+
     /**
      * Get attendance summary
      */
@@ -229,7 +294,7 @@ public class GpsAttendanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             if (date == null) {
-                date = LocalDate.now();
+                date = LocalDate.now(businessClock);
             }
             
             List<Object[]> punchCounts = gpsAttendanceService.getAttendanceSummaryForDate(date);
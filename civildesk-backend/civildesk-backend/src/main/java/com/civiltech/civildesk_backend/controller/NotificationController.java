@@ -3,24 +3,27 @@ package com.civiltech.civildesk_backend.controller;
 import com.civiltech.civildesk_backend.dto.ApiResponse;
 import com.civiltech.civildesk_backend.dto.FcmTokenRequest;
 import com.civiltech.civildesk_backend.dto.NotificationResponse;
-import com.civiltech.civildesk_backend.model.Notification;
 import com.civiltech.civildesk_backend.security.SecurityUtils;
 import com.civiltech.civildesk_backend.service.NotificationService;
+import com.civiltech.civildesk_backend.service.NotificationStreamService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -30,6 +33,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
     /**
      * Register or update FCM token
      */
@@ -61,12 +67,15 @@ public class NotificationController {
     }
 
     /**
-     * Get paginated notifications
+     * Get paginated notifications. For the next page, pass the createdAt and id of the last
+     * notification received as beforeCreatedAt and beforeId (keyset paging).
      */
     @GetMapping
     public ResponseEntity<ApiResponse<Page<NotificationResponse>>> getNotifications(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId) {
         Long userId = SecurityUtils.getCurrentUserId();
         if (userId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -74,12 +83,27 @@ public class NotificationController {
         }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Notification> notifications = notificationService.getUserNotifications(userId, pageable);
-        Page<NotificationResponse> response = notifications.map(this::convertToResponse);
+        Page<NotificationResponse> response = notificationService.getUserNotifications(
+                userId, pageable, beforeCreatedAt, beforeId);
 
         return ResponseEntity.ok(ApiResponse.success("Notifications retrieved successfully", response));
     }
 
+    /**
+     * Live stream of new notifications and unread-count changes (Server-Sent Events).
+     * Reconnecting clients send Last-Event-ID to receive what they missed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok(notificationStreamService.connect(userId, lastEventId));
+    }
+
     /**
      * Get unread notifications
      */
@@ -91,10 +115,7 @@ public class NotificationController {
                     .body(ApiResponse.error("User not authenticated", HttpStatus.UNAUTHORIZED.value()));
         }
 
-        List<Notification> notifications = notificationService.getUnreadNotifications(userId);
-        List<NotificationResponse> response = notifications.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        List<NotificationResponse> response = notificationService.getUnreadNotifications(userId);
 
         return ResponseEntity.ok(ApiResponse.success("Unread notifications retrieved successfully", response));
     }
@@ -129,8 +150,7 @@ public class NotificationController {
         }
 
         try {
-            Notification notification = notificationService.markAsRead(notificationId, userId);
-            NotificationResponse response = convertToResponse(notification);
+            NotificationResponse response = notificationService.markAsRead(notificationId, userId);
             return ResponseEntity.ok(ApiResponse.success("Notification marked as read", response));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -172,21 +192,5 @@ public class NotificationController {
                     .body(ApiResponse.error("Notification not found or access denied", HttpStatus.NOT_FOUND.value()));
         }
     }
-
-    /**
-     * Helper method to convert Notification entity to NotificationResponse
-     */
-    private NotificationResponse convertToResponse(Notification notification) {
-        return new NotificationResponse(
-                notification.getId(),
-                notification.getTitle(),
-                notification.getBody(),
-                notification.getType(),
-                notification.getData(),
-                notification.getIsRead(),
-                notification.getCreatedAt(),
-                notification.getReadAt()
-        );
-    }
 }
 
@@ -1,10 +1,14 @@
 package com.civiltech.civildesk_backend.controller;
 
 import com.civiltech.civildesk_backend.dto.ApiResponse;
+import com.civiltech.civildesk_backend.dto.PayrollJobResponse;
 import com.civiltech.civildesk_backend.dto.SalaryCalculationRequest;
 import com.civiltech.civildesk_backend.dto.SalaryCalculationResponse;
 import com.civiltech.civildesk_backend.dto.SalarySlipResponse;
+import com.civiltech.civildesk_backend.exception.BadRequestException;
 import com.civiltech.civildesk_backend.model.SalarySlip;
+import com.civiltech.civildesk_backend.security.SecurityUtils;
+import com.civiltech.civildesk_backend.service.PayrollJobService;
 import com.civiltech.civildesk_backend.service.SalaryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,10 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/salary")
@@ -26,6 +27,9 @@ public class SalaryController {
     @Autowired
     private SalaryService salaryService;
 
+    @Autowired
+    private PayrollJobService payrollJobService;
+
     @PostMapping("/calculate")
     @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
     public ResponseEntity<ApiResponse<SalaryCalculationResponse>> calculateAndGenerateSlip(
@@ -37,15 +41,15 @@ public class SalaryController {
 
     /**
      * Generate salary slips in bulk for multiple employees.
-     * This endpoint processes salary calculations asynchronously and returns immediately.
-     * Use the status endpoint to check progress if needed.
+     * Creates a persistent payroll job that is processed in checkpointed chunks in the background
+     * and returns immediately. Poll GET /api/salary/bulk-generate/{jobId} for progress.
      * 
      * @param requests List of salary calculation requests
-     * @return Response with job status and count of requests submitted
+     * @return Response with the created job
      */
     @PostMapping("/bulk-generate")
     @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> bulkGenerateSalarySlips(
+    public ResponseEntity<ApiResponse<PayrollJobResponse>> bulkGenerateSalarySlips(
             @Valid @RequestBody List<SalaryCalculationRequest> requests) {
         try {
             if (requests == null || requests.isEmpty()) {
@@ -58,19 +62,16 @@ public class SalaryController {
                         .body(ApiResponse.error("Maximum 1000 salary slips can be generated in one batch"));
             }
 
-            // Start async processing (fire-and-forget)
-            @SuppressWarnings("unused")
-            CompletableFuture<List<com.civiltech.civildesk_backend.model.SalarySlip>> future = 
-                salaryService.generateBulkSalarySlipsAsync(requests);
+            // Resolve the current user here - the security context is not available on the worker thread
+            Long currentUserId = SecurityUtils.getCurrentUserId();
 
-            // Return immediately with job information
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "PROCESSING");
-            response.put("total_requests", requests.size());
-            response.put("message", "Bulk salary slip generation started. Processing will continue in background.");
+            PayrollJobResponse job = payrollJobService.submit(requests, currentUserId);
 
             return ResponseEntity.accepted()
-                    .body(ApiResponse.success("Bulk salary slip generation started", response));
+                    .body(ApiResponse.success("Bulk salary slip generation started", job));
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("Error starting bulk salary slip generation: " + e.getMessage(), 
@@ -78,6 +79,29 @@ public class SalaryController {
         }
     }
 
+    /**
+     * Get progress of a bulk salary slip generation job
+     */
+    @GetMapping("/bulk-generate/{jobId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
+    public ResponseEntity<ApiResponse<PayrollJobResponse>> getBulkGenerationJob(@PathVariable Long jobId) {
+        PayrollJobResponse response = payrollJobService.getJob(jobId);
+        return ResponseEntity.ok(ApiResponse.success("Payroll job retrieved successfully", response));
+    }
+
+    /**
+     * Re-run only the failed requests of a job that completed with errors.
+     * Starts a new job; poll GET /api/salary/bulk-generate/{jobId} with the returned ID.
+     */
+    @PostMapping("/bulk-generate/{jobId}/retry")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR_MANAGER')")
+    public ResponseEntity<ApiResponse<PayrollJobResponse>> retryBulkGenerationJob(@PathVariable Long jobId) {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        PayrollJobResponse response = payrollJobService.retryFailures(jobId, currentUserId);
+        return ResponseEntity.accepted()
+                .body(ApiResponse.success("Retry of failed salary slips started", response));
+    }
+
     @GetMapping("/slip/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<SalarySlipResponse>> getSalarySlipById(@PathVariable Long id) {
@@ -111,7 +135,7 @@ public class SalaryController {
             @RequestParam(required = false) String status) {
         try {
             // Get employee ID from authenticated user
-            Long userId = com.civiltech.civildesk_backend.security.SecurityUtils.getCurrentUserId();
+            Long userId = SecurityUtils.getCurrentUserId();
             
             // Find employee by user ID
             com.civiltech.civildesk_backend.model.Employee employee = 
@@ -107,6 +107,16 @@ public class SiteController {
         return ResponseEntity.ok(ApiResponse.success("Nearby sites retrieved successfully", sites));
     }
 
+    @GetMapping("/nearest")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<List<SiteResponse>>> findNearestSites(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "5") int limit) {
+        List<SiteResponse> sites = siteService.findNearestSites(latitude, longitude, limit);
+        return ResponseEntity.ok(ApiResponse.success("Nearest sites retrieved successfully", sites));
+    }
+
     // ==================== Site Assignment ====================
 
     @PostMapping("/assignments")
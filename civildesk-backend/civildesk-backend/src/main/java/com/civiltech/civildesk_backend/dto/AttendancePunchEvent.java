@@ -0,0 +1,69 @@
+package com.civiltech.civildesk_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Small delta pushed to live dashboards when a punch commits.
+ * Clients load the attendance snapshot once and apply these on top of it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendancePunchEvent {
+
+    public static final String SOURCE_GPS = "GPS";
+    public static final String SOURCE_FACE = "FACE";
+
+    private String source;
+    private Long attendanceId;
+    private Long punchLogId;
+    private String employeeId;
+    private String employeeName;
+    private LocalDate date;
+
+    private String punchType;
+    private LocalDateTime punchTime;
+    private String status;
+
+    private Long siteId;
+    private String siteName;
+    private Double latitude;
+    private Double longitude;
+    private Boolean isInsideGeofence;
+
+    public static AttendancePunchEvent fromGpsPunch(GpsAttendanceResponse punch) {
+        AttendancePunchEvent event = new AttendancePunchEvent();
+        event.setSource(SOURCE_GPS);
+        event.setAttendanceId(punch.getAttendanceId());
+        event.setPunchLogId(punch.getId());
+        event.setEmployeeId(punch.getEmployeeId());
+        event.setEmployeeName(punch.getEmployeeName());
+        event.setDate(punch.getPunchTime() != null ? punch.getPunchTime().toLocalDate() : null);
+        event.setPunchType(punch.getPunchType());
+        event.setPunchTime(punch.getPunchTime());
+        event.setSiteId(punch.getSiteId());
+        event.setSiteName(punch.getSiteName());
+        event.setLatitude(punch.getLatitude());
+        event.setLongitude(punch.getLongitude());
+        event.setIsInsideGeofence(punch.getIsInsideGeofence());
+        return event;
+    }
+
+    public static AttendancePunchEvent fromFacePunch(AttendanceResponse attendance, String punchType, LocalDateTime punchTime) {
+        AttendancePunchEvent event = new AttendancePunchEvent();
+        event.setSource(SOURCE_FACE);
+        event.setAttendanceId(attendance.getId());
+        event.setEmployeeId(attendance.getEmployeeId());
+        event.setEmployeeName(attendance.getEmployeeName());
+        event.setDate(attendance.getDate());
+        event.setPunchType(punchType);
+        event.setPunchTime(punchTime);
+        event.setStatus(attendance.getStatus());
+        return event;
+    }
+}
@@ -3,6 +3,7 @@ package com.civiltech.civildesk_backend.dto;
 import com.civiltech.civildesk_backend.model.GpsAttendanceLog;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -45,6 +46,10 @@ public class GpsAttendanceRequest {
     // For offline attendance - original timestamp from device
     private LocalDateTime offlineTimestamp;
 
+    // For offline attendance - id generated by the device when the punch was queued (dedupes re-uploads)
+    @Size(max = 64, message = "Client punch ID must be at most 64 characters")
+    private String clientPunchId;
+
     // Timestamp when location was captured (to validate location freshness)
     private LocalDateTime locationTimestamp;
 
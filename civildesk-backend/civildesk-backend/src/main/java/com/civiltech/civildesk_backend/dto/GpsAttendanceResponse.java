@@ -38,6 +38,9 @@ public class GpsAttendanceResponse {
 
     private String networkStatus;
     private String syncStatus;
+    private String clientPunchId;
+    private LocalDateTime offlineTimestamp;
+    private Boolean requiresReview;
 
     private LocalDateTime createdAt;
 
@@ -71,6 +74,9 @@ public class GpsAttendanceResponse {
         }
         response.setNetworkStatus(log.getNetworkStatus() != null ? log.getNetworkStatus().name() : null);
         response.setSyncStatus(log.getSyncStatus() != null ? log.getSyncStatus().name() : null);
+        response.setClientPunchId(log.getClientPunchId());
+        response.setOfflineTimestamp(log.getOfflineTimestamp());
+        response.setRequiresReview(log.getRequiresReview());
         response.setCreatedAt(log.getCreatedAt());
         return response;
     }
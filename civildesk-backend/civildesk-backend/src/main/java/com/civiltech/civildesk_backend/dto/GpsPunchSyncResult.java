@@ -0,0 +1,44 @@
+package com.civiltech.civildesk_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one punch in an offline sync upload, in the order the punches were sent
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GpsPunchSyncResult {
+
+    private int index;
+    private String clientPunchId;
+    private Status status;
+    private String message;
+    // The stored punch (for DUPLICATE, the one stored by the earlier upload)
+    private GpsAttendanceResponse punch;
+
+    public enum Status {
+        SYNCED,     // Stored now
+        DUPLICATE,  // Already stored by an earlier upload (or repeated in this one); safe to drop from the queue
+        REJECTED,   // Failed validation; retrying will not help
+        FAILED      // Could not be stored (database error); retry later
+    }
+
+    public static GpsPunchSyncResult synced(int index, GpsAttendanceResponse punch) {
+        return new GpsPunchSyncResult(index, punch.getClientPunchId(), Status.SYNCED, null, punch);
+    }
+
+    public static GpsPunchSyncResult duplicate(int index, String clientPunchId, GpsAttendanceResponse punch) {
+        return new GpsPunchSyncResult(index, clientPunchId, Status.DUPLICATE, "Punch already synced", punch);
+    }
+
+    public static GpsPunchSyncResult rejected(int index, String clientPunchId, String message) {
+        return new GpsPunchSyncResult(index, clientPunchId, Status.REJECTED, message, null);
+    }
+
+    public static GpsPunchSyncResult failed(int index, String clientPunchId, String message) {
+        return new GpsPunchSyncResult(index, clientPunchId, Status.FAILED, message, null);
+    }
+}
@@ -0,0 +1,62 @@
+package com.civiltech.civildesk_backend.dto;
+
+import com.civiltech.civildesk_backend.model.GpsAttendanceLog;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A GPS punch accepted by the write-behind ingestion queue: validated, journaled and acknowledged,
+ * waiting to be written to gps_attendance_logs / attendance. Stored as JSON in the punch journal.
+ */
+@Data
+@NoArgsConstructor
+public class IngestedPunch {
+
+    // Position in the punch journal; punches are written in this order
+    private long sequence;
+
+    // Primary key of the employee (request.employeeId is the employee code)
+    private Long employeeRecordId;
+    private String employeeName;
+
+    private Long siteId;
+    private String siteName;
+    private String siteCode;
+    private Double distanceFromSite;
+
+    private LocalDateTime punchTime;   // Business timezone (IST)
+    private LocalDateTime acceptedAt;  // UTC, becomes the log's server timestamp
+
+    // Always carries a clientPunchId, so a punch replayed from the journal is not written twice
+    private GpsAttendanceRequest request;
+
+    /**
+     * The punch as returned to the employee before it is written (no id yet, sync status PENDING)
+     */
+    public GpsAttendanceResponse toResponse() {
+        GpsAttendanceResponse response = new GpsAttendanceResponse();
+        response.setEmployeeId(request.getEmployeeId());
+        response.setEmployeeName(employeeName);
+        response.setPunchType(request.getPunchType() != null ? request.getPunchType().name() : null);
+        response.setPunchTime(punchTime);
+        response.setServerTimestamp(acceptedAt);
+        response.setLatitude(request.getLatitude());
+        response.setLongitude(request.getLongitude());
+        response.setAccuracyMeters(request.getAccuracyMeters());
+        response.setDeviceId(request.getDeviceId());
+        response.setDeviceName(request.getDeviceName());
+        response.setIsMockLocation(request.getIsMockLocation());
+        response.setIsInsideGeofence(true);
+        response.setDistanceFromSite(distanceFromSite);
+        response.setSiteId(siteId);
+        response.setSiteName(siteName);
+        response.setSiteCode(siteCode);
+        response.setNetworkStatus(request.getNetworkStatus() != null ? request.getNetworkStatus()
+                : GpsAttendanceLog.NetworkStatus.ONLINE.name());
+        response.setSyncStatus(GpsAttendanceLog.SyncStatus.PENDING.name());
+        response.setClientPunchId(request.getClientPunchId());
+        return response;
+    }
+}
@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.dto;
 
+import com.civiltech.civildesk_backend.model.Notification;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,5 +20,18 @@ public class NotificationResponse {
     private Boolean isRead;
     private LocalDateTime createdAt;
     private LocalDateTime readAt;
+
+    public static NotificationResponse fromEntity(Notification notification) {
+        return new NotificationResponse(
+                notification.getId(),
+                notification.getTitle(),
+                notification.getBody(),
+                notification.getType(),
+                notification.getData(),
+                notification.getIsRead(),
+                notification.getCreatedAt(),
+                notification.getReadAt()
+        );
+    }
 }
 
@@ -0,0 +1,36 @@
+package com.civiltech.civildesk_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollJobResponse {
+    private Long jobId;
+    private String status;
+    private String period;
+    private Integer totalCount;
+    private Integer processedCount;
+    private Integer successCount;
+    private Integer failedCount;
+    private Double progressPercent;
+    private List<EmployeeError> errors;
+    private String lastError;
+    private Long retryOfJobId;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EmployeeError {
+        private String employeeId;
+        private String message;
+    }
+}
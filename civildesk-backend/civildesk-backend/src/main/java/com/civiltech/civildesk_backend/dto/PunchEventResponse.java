@@ -0,0 +1,37 @@
+package com.civiltech.civildesk_backend.dto;
+
+import com.civiltech.civildesk_backend.model.PunchEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchEventResponse {
+
+    private Long id;
+    private LocalDate date;
+    private String punchType;
+    private LocalDateTime punchTime;
+    private String source;
+    private String kind;
+    private String recordedBy;
+    private LocalDateTime recordedAt;
+
+    public static PunchEventResponse fromEntity(PunchEvent event) {
+        PunchEventResponse response = new PunchEventResponse();
+        response.setId(event.getId());
+        response.setDate(event.getDate());
+        response.setPunchType(event.getPunchType().name());
+        response.setPunchTime(event.getPunchTime());
+        response.setSource(event.getSource().name());
+        response.setKind(event.getKind().name());
+        response.setRecordedBy(event.getRecordedBy());
+        response.setRecordedAt(event.getCreatedAt());
+        return response;
+    }
+}
@@ -45,6 +45,9 @@ public class SiteResponse {
     // Count of assigned employees
     private Integer assignedEmployeeCount;
 
+    // Distance from the queried point (only set by nearby/nearest site lookups)
+    private Double distanceMeters;
+
     public static SiteResponse fromEntity(Site site) {
         SiteResponse response = new SiteResponse();
         response.setId(site.getId());
@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.model;
 
+import com.civiltech.civildesk_backend.service.AttendanceCounterListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 @Table(name = "attendance", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"employee_id", "date"})
 })
+@EntityListeners(AttendanceCounterListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
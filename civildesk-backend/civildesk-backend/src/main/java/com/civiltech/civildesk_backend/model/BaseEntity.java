@@ -11,8 +11,11 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 public abstract class BaseEntity {
     
+    // Pooled sequence per entity (entity name in snake_case + _seq, e.g. gps_attendance_log_seq;
+    // allocation size 50) so that Hibernate can batch inserts; IDENTITY would force one INSERT per row.
+    // Sequences are created by db/migration/add_id_sequences.sql.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @CreationTimestamp
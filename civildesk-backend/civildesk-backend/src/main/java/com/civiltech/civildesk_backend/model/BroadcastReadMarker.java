@@ -0,0 +1,50 @@
+package com.civiltech.civildesk_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's read state for fan-out-on-read broadcasts: one row per user instead of one
+ * notification row per (user, broadcast).
+ */
+@Entity
+@Table(name = "broadcast_read_markers", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_broadcast_read_marker_user", columnNames = "user_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastReadMarker extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Watermark: broadcasts created at or before this are read
+    @Column(name = "read_through")
+    private LocalDateTime readThrough;
+
+    // Broadcasts newer than the watermark that were read individually (cleared when the watermark moves)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "read_ids", columnDefinition = "jsonb", nullable = false)
+    private List<Long> readIds = new ArrayList<>();
+
+    // Hidden watermark: broadcasts created at or before this are out of the feed (set when the
+    // hidden ids outgrow their cap, so the oldest hides are folded in instead of dropped)
+    @Column(name = "hidden_through")
+    private LocalDateTime hiddenThrough;
+
+    // Broadcasts newer than the hidden watermark that the user removed from their feed
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "hidden_ids", columnDefinition = "jsonb", nullable = false)
+    private List<Long> hiddenIds = new ArrayList<>();
+}
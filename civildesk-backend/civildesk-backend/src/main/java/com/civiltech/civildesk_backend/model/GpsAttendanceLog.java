@@ -96,12 +96,21 @@ public class GpsAttendanceLog extends BaseEntity {
     @Column(name = "sync_status", length = 20)
     private SyncStatus syncStatus = SyncStatus.SYNCED;
 
+    // Device's claimed punch time (UTC) of an offline punch; punch_time is this time clamped to the allowed age
     @Column(name = "offline_timestamp")
     private LocalDateTime offlineTimestamp;
 
+    // Offline punch stored away from its device time (clamped); an admin accepts or rejects the device time
+    @Column(name = "requires_review", nullable = false)
+    private Boolean requiresReview = false;
+
     @Column(name = "synced_at")
     private LocalDateTime syncedAt;
 
+    // Device-generated id of an offline punch; dedupes repeated sync uploads
+    @Column(name = "client_punch_id", length = 64)
+    private String clientPunchId;
+
     // Enums
     public enum PunchType {
         CHECK_IN, LUNCH_OUT, LUNCH_IN, CHECK_OUT
@@ -0,0 +1,76 @@
+package com.civiltech.civildesk_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pending push delivery, written in the same transaction as the notification it belongs to.
+ * Sent asynchronously by NotificationOutboxService so request latency never depends on FCM.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+    @Index(name = "idx_notification_outbox_due", columnList = "status,next_attempt_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "recipient_type", nullable = false, length = 30)
+    private RecipientType recipientType;
+
+    // Recipient for USER rows; the FCM token is resolved at send time
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    // Data-only FCM payload (title, body, type, ...)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", columnDefinition = "jsonb", nullable = false)
+    private Map<String, String> payload = new HashMap<>();
+
+    // ACTIVE_EMPLOYEES rows only: tokens still to deliver after a partly failed multicast;
+    // null until then, so the first attempt resolves the current recipients
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "pending_tokens", columnDefinition = "jsonb")
+    private List<String> pendingTokens;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Next retry; while SENDING, the claim lease expiry after which another dispatcher may take the row
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum RecipientType {
+        USER, ACTIVE_EMPLOYEES
+    }
+
+    public enum OutboxStatus {
+        PENDING, SENDING, SENT, SKIPPED, FAILED
+    }
+}
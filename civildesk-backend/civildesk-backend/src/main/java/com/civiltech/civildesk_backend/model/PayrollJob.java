@@ -0,0 +1,86 @@
+package com.civiltech.civildesk_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent bulk payroll run.
+ * Requests are processed in chunks; each chunk commits its salary slips together with
+ * the job checkpoint (nextIndex), so an interrupted job resumes from the last committed chunk.
+ */
+@Entity
+@Table(name = "payroll_jobs", indexes = {
+    @Index(name = "idx_payroll_job_status", columnList = "status")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollJob extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 30)
+    private PayrollJobStatus status = PayrollJobStatus.PENDING;
+
+    // Pay period covered by the job, e.g. "2025-03"
+    @Column(name = "period", length = 7)
+    private String period;
+
+    @Column(name = "total_count", nullable = false)
+    private Integer totalCount = 0;
+
+    @Column(name = "processed_count", nullable = false)
+    private Integer processedCount = 0;
+
+    @Column(name = "success_count", nullable = false)
+    private Integer successCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    // Checkpoint: index of the next request to process
+    @Column(name = "next_index", nullable = false)
+    private Integer nextIndex = 0;
+
+    // Salary calculation requests as JSON array
+    @Column(name = "request_payload", nullable = false, columnDefinition = "TEXT")
+    private String requestPayload;
+
+    // Per-employee errors as JSON array of {employeeId, message}
+    @Column(name = "errors", columnDefinition = "TEXT")
+    private String errors;
+
+    // Indexes into requestPayload of the requests that failed, as JSON array; re-run by a retry job
+    @Column(name = "failed_indexes", columnDefinition = "TEXT")
+    private String failedIndexes;
+
+    // Last job- or chunk-level failure (e.g. database error while committing a chunk)
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "generated_by_user_id")
+    private Long generatedByUserId;
+
+    // Job whose failed requests this job re-runs
+    @Column(name = "retry_of_job_id")
+    private Long retryOfJobId;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Updated on every committed chunk; a running job with an old heartbeat is considered abandoned
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    public enum PayrollJobStatus {
+        PENDING, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED
+    }
+}
@@ -0,0 +1,116 @@
+package com.civiltech.civildesk_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One punch or punch correction, append-only. The punch times and hours of an Attendance row are
+ * derived from the day's events by AttendanceProjector; the events are the audit trail and can be
+ * replayed to rebuild attendance.
+ */
+@Entity
+@Table(name = "punch_events", indexes = {
+    @Index(name = "idx_punch_events_employee_date", columnList = "employee_id, date"),
+    @Index(name = "idx_punch_events_date", columnList = "date")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchEvent extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    // Attendance day the punch belongs to
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "punch_type", nullable = false, length = 20)
+    private PunchType punchType;
+
+    @Column(name = "punch_time", nullable = false)
+    private LocalDateTime punchTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 20)
+    private Source source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 20)
+    private Kind kind;
+
+    // Username of the user who recorded it (null for background jobs)
+    @Column(name = "recorded_by")
+    private String recordedBy;
+
+    public enum PunchType {
+        CHECK_IN, LUNCH_OUT, LUNCH_IN, CHECK_OUT;
+
+        /**
+         * Face / manual attendance type (PUNCH_IN, LUNCH_OUT, LUNCH_IN, PUNCH_OUT), null if unknown
+         */
+        public static PunchType fromAttendanceType(String attendanceType) {
+            switch (attendanceType.toUpperCase()) {
+                case "PUNCH_IN":
+                    return CHECK_IN;
+                case "LUNCH_OUT":
+                    return LUNCH_OUT;
+                case "LUNCH_IN":
+                    return LUNCH_IN;
+                case "PUNCH_OUT":
+                    return CHECK_OUT;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Admin punch type (CHECK_IN, LUNCH_OUT, LUNCH_IN, CHECK_OUT)
+         */
+        public static PunchType parse(String punchType) {
+            try {
+                return valueOf(punchType.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid punch type: " + punchType);
+            }
+        }
+    }
+
+    public enum Source {
+        FACE, GPS, ADMIN, HOLIDAY;
+
+        /**
+         * Source matching an Attendance recognition method
+         */
+        public static Source fromRecognitionMethod(String recognitionMethod) {
+            if (recognitionMethod == null) {
+                return FACE;
+            }
+            switch (recognitionMethod.toUpperCase()) {
+                case "GPS_BASED":
+                    return GPS;
+                case "HOLIDAY":
+                    return HOLIDAY;
+                case "MANUAL":
+                case "MANUAL_ADMIN":
+                    return ADMIN;
+                default:
+                    return FACE;
+            }
+        }
+    }
+
+    public enum Kind {
+        PUNCH,      // Live punch: a repeated check-in keeps the first; a lunch-out without check-in also checks in
+        CORRECTION  // Sets the punch time exactly as given
+    }
+}
@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.model;
 
+import com.civiltech.civildesk_backend.security.UserCacheInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
 @Table(name = "users", uniqueConstraints = {
     @UniqueConstraint(columnNames = "email")
 })
+@EntityListeners(UserCacheInvalidationListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
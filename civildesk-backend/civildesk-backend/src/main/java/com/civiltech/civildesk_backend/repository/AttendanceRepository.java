@@ -2,15 +2,19 @@ package com.civiltech.civildesk_backend.repository;
 
 import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.model.Employee;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -73,6 +77,69 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
      */
     @Query("SELECT a FROM Attendance a WHERE a.employee.id IN :employeeIds AND a.date = :date AND a.deleted = false")
     List<Attendance> findByEmployeeIdsAndDate(@Param("employeeIds") List<Long> employeeIds, @Param("date") LocalDate date);
+
+    // Punch event replay - rows of the day being rebuilt, locked in employee order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Attendance a WHERE a.date = :date AND a.employee.id IN :employeeIds AND a.deleted = false " +
+           "ORDER BY a.employee.id")
+    List<Attendance> findByDateAndEmployeeIdsForUpdate(@Param("date") LocalDate date,
+                                                       @Param("employeeIds") Collection<Long> employeeIds);
+
+    // Punch path (AttendancePunchGuard) - the day's row, locked until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Attendance a WHERE a.employee.id = :employeeId AND a.date = :date")
+    Optional<Attendance> findByEmployeeIdAndDateForUpdate(@Param("employeeId") Long employeeId,
+                                                          @Param("date") LocalDate date);
+
+    /**
+     * Create the day's row for a punch without racing on the (employee_id, date) unique constraint.
+     * On conflict the no-op update only takes the row lock; punch times are applied through the entity.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attendance (id, employee_id, date, status, recognition_method, deleted, created_at, updated_at) " +
+           "VALUES (nextval('attendance_seq'), :employeeId, :date, :status, :recognitionMethod, false, " +
+           "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+           "ON CONFLICT (employee_id, date) DO UPDATE SET updated_at = attendance.updated_at", nativeQuery = true)
+    int upsertForPunch(@Param("employeeId") Long employeeId,
+                       @Param("date") LocalDate date,
+                       @Param("status") String status,
+                       @Param("recognitionMethod") String recognitionMethod);
+
+    /**
+     * Create the day's row for each of the employees that does not have one yet.
+     * A row inserted concurrently (e.g. by a punch) is skipped instead of failing the whole batch.
+     * Must run inside a read-write transaction; the rows bypass entity listeners (live counters).
+     *
+     * Deliberately not @Modifying: Spring Data only allows int/void results there, and the ids come
+     * from INSERT ... RETURNING, which PostgreSQL answers with a result set like a SELECT.
+     *
+     * @return Employee IDs whose row was inserted
+     */
+    @Query(value = "INSERT INTO attendance (id, employee_id, date, status, recognition_method, notes, deleted, created_at, updated_at) " +
+           "SELECT nextval('attendance_seq'), e.id, :date, :status, :recognitionMethod, :notes, false, " +
+           "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM employees e WHERE e.id IN :employeeIds " +
+           "ON CONFLICT (employee_id, date) DO NOTHING RETURNING employee_id", nativeQuery = true)
+    List<Long> insertMissingForDate(@Param("employeeIds") Collection<Long> employeeIds,
+                             @Param("date") LocalDate date,
+                             @Param("status") String status,
+                             @Param("recognitionMethod") String recognitionMethod,
+                             @Param("notes") String notes);
+    
+    /**
+     * Sum working and overtime hours per employee for a date range in a single grouped query.
+     * Used by salary calculation instead of loading every attendance row.
+     * 
+     * @param employeeIds Employee database IDs
+     * @param startDate Start of the period (inclusive)
+     * @param endDate End of the period (inclusive)
+     * @return Rows of [employeeId (Long), totalWorkingHours (Double), totalOvertimeHours (Double)]
+     */
+    @Query("SELECT a.employee.id, COALESCE(SUM(a.workingHours), 0.0), COALESCE(SUM(a.overtimeHours), 0.0) " +
+           "FROM Attendance a WHERE a.employee.id IN :employeeIds AND a.date BETWEEN :startDate AND :endDate " +
+           "GROUP BY a.employee.id")
+    List<Object[]> sumHoursByEmployeeIdsAndDateBetween(@Param("employeeIds") List<Long> employeeIds,
+                                                       @Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate);
     
     // Count attendance by status for a specific date
     @Query("SELECT COUNT(a) FROM Attendance a WHERE a.date = :date AND a.status = 'PRESENT' AND a.deleted = false")
@@ -83,5 +150,18 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     
     @Query("SELECT COUNT(DISTINCT a.employee.id) FROM Attendance a WHERE a.date = :date AND a.deleted = false")
     Long countEmployeesWithAttendanceByDate(@Param("date") LocalDate date);
+
+    @Query("SELECT a.employee.id, a.status FROM Attendance a WHERE a.date = :date AND a.deleted = false")
+    List<Object[]> findEmployeeStatusesByDate(@Param("date") LocalDate date);
+
+    /**
+     * Attendance row counts per (date, status) for a date range in a single grouped query.
+     * Used by the admin dashboard for today's counts, the weekly series and the monthly percentage.
+     */
+    @Query("SELECT a.date, a.status, COUNT(a) FROM Attendance a " +
+           "WHERE a.date BETWEEN :startDate AND :endDate AND a.deleted = false " +
+           "GROUP BY a.date, a.status")
+    List<Object[]> countByDateAndStatusBetween(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
 }
 
@@ -5,8 +5,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,5 +34,33 @@ public interface BroadcastMessageRepository extends JpaRepository<BroadcastMessa
     
     // Find by active status
     List<BroadcastMessage> findByIsActiveAndDeletedFalseOrderByCreatedAtDesc(Boolean isActive);
+    
+    // Fan-out-on-read feed: active broadcasts created after a point in time, newest first
+    // (ties in feed order: feed ids are -id, so the lower broadcast id comes first)
+    // excludedIds must not be empty (callers pass a sentinel)
+    @Query("SELECT b FROM BroadcastMessage b WHERE b.deleted = false AND b.isActive = true " +
+           "AND b.createdAt > :after AND b.id NOT IN :excludedIds ORDER BY b.createdAt DESC, b.id ASC")
+    List<BroadcastMessage> findFeedBroadcasts(@Param("after") LocalDateTime after,
+                                              @Param("excludedIds") Collection<Long> excludedIds,
+                                              Pageable pageable);
+    
+    // Keyset page of the feed: broadcasts that come after (beforeCreatedAt, minId) in feed order
+    @Query("SELECT b FROM BroadcastMessage b WHERE b.deleted = false AND b.isActive = true " +
+           "AND b.createdAt > :after AND b.id NOT IN :excludedIds " +
+           "AND (b.createdAt < :beforeCreatedAt OR (b.createdAt = :beforeCreatedAt AND b.id > :minId)) " +
+           "ORDER BY b.createdAt DESC, b.id ASC")
+    List<BroadcastMessage> findFeedBroadcastsBefore(@Param("after") LocalDateTime after,
+                                                    @Param("excludedIds") Collection<Long> excludedIds,
+                                                    @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                                    @Param("minId") Long minId,
+                                                    Pageable pageable);
+    
+    @Query("SELECT COUNT(b) FROM BroadcastMessage b WHERE b.deleted = false AND b.isActive = true " +
+           "AND b.createdAt > :after AND b.id NOT IN :excludedIds")
+    long countFeedBroadcasts(@Param("after") LocalDateTime after,
+                             @Param("excludedIds") Collection<Long> excludedIds);
+    
+    // Which of the given broadcasts are still active (read-marker pruning)
+    @Query("SELECT b.id FROM BroadcastMessage b WHERE b.id IN :ids AND b.deleted = false AND b.isActive = true")
+    List<Long> findActiveIds(@Param("ids") Collection<Long> ids);
 }
-
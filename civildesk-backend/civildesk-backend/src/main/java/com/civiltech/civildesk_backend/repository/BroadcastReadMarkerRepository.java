@@ -0,0 +1,33 @@
+package com.civiltech.civildesk_backend.repository;
+
+import com.civiltech.civildesk_backend.model.BroadcastReadMarker;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BroadcastReadMarkerRepository extends JpaRepository<BroadcastReadMarker, Long> {
+
+    Optional<BroadcastReadMarker> findByUserId(Long userId);
+
+    // Read-state changes - the user's marker, locked until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM BroadcastReadMarker m WHERE m.userId = :userId")
+    Optional<BroadcastReadMarker> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Create the user's marker without racing on the unique user_id (concurrent first mark-reads)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO broadcast_read_markers (id, user_id, read_ids, hidden_ids, deleted, created_at, updated_at) " +
+           "VALUES (nextval('broadcast_read_marker_seq'), :userId, CAST('[]' AS jsonb), CAST('[]' AS jsonb), false, " +
+           "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+           "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfMissing(@Param("userId") Long userId);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -104,6 +105,21 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     @Query("SELECT COUNT(e) FROM Employee e " +
            "WHERE e.deleted = false AND e.createdAt >= :startDate")
     long countNewEmployeesSince(@Param("startDate") java.time.LocalDateTime startDate);
+
+    /**
+     * All admin dashboard employee counts in one scan using conditional aggregates.
+     * Single row: total (all rows), active, inactive, full-time, part-time, contract, intern, new since startDate
+     */
+    @Query(value = "SELECT COUNT(*), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_status = 'ACTIVE'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_status = 'INACTIVE'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_type = 'FULL_TIME'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_type = 'PART_TIME'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_type = 'CONTRACT'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND employment_type = 'INTERN'), " +
+           "COUNT(*) FILTER (WHERE deleted = false AND created_at >= :startDate) " +
+           "FROM employees", nativeQuery = true)
+    List<Object[]> getDashboardEmployeeCounts(@Param("startDate") java.time.LocalDateTime startDate);
     
     /**
      * Batch query to find employees by their employee IDs (string IDs).
@@ -114,6 +130,50 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
      */
     @Query("SELECT e FROM Employee e WHERE e.employeeId IN :employeeIds AND e.deleted = false")
     List<Employee> findByEmployeeIds(@Param("employeeIds") List<String> employeeIds);
+
+    /**
+     * Find IDs of employees with the given status that have no attendance row for a date.
+     * Used by the absent marking job to find missing (employee, date) pairs in a single query.
+     *
+     * @param status Employment status to filter by
+     * @param date The attendance date
+     * @return List of employee database IDs
+     */
+    @Query("SELECT e.id FROM Employee e WHERE e.employmentStatus = :status AND e.deleted = false " +
+           "AND NOT EXISTS (SELECT a.id FROM Attendance a WHERE a.employee.id = e.id AND a.date = :date)")
+    List<Long> findIdsWithoutAttendanceOnDate(@Param("status") Employee.EmploymentStatus status,
+                                              @Param("date") LocalDate date);
+    
+    /**
+     * Broadcast recipients in one query: user id and FCM token (may be null) of every employee
+     * with the given status that has a user account.
+     *
+     * @param status Employment status to filter by
+     * @return Rows of [userId, fcmToken]
+     */
+    @Query("SELECT u.id, u.fcmToken FROM Employee e JOIN e.user u " +
+           "WHERE e.employmentStatus = :status AND e.deleted = false")
+    List<Object[]> findRecipientUserIdsAndTokens(@Param("status") Employee.EmploymentStatus status);
+    
+    /**
+     * Broadcast feed audience: the user's account creation time if they are an active employee
+     * (empty otherwise). Broadcasts created after it appear in their notification feed.
+     *
+     * @param userId User ID
+     * @return Account creation time, at most one element
+     */
+    @Query("SELECT u.createdAt FROM Employee e JOIN e.user u " +
+           "WHERE u.id = :userId AND e.employmentStatus = 'ACTIVE' AND e.deleted = false")
+    List<java.time.LocalDateTime> findBroadcastAudienceSince(@Param("userId") Long userId);
+
+    /**
+     * Same for several users at once (live delivery of a published broadcast)
+     *
+     * @return Rows of [userId (Long), account creation time (LocalDateTime)] for the users in the audience
+     */
+    @Query("SELECT u.id, u.createdAt FROM Employee e JOIN e.user u " +
+           "WHERE u.id IN :userIds AND e.employmentStatus = 'ACTIVE' AND e.deleted = false")
+    List<Object[]> findBroadcastAudienceSinceByUserIds(@Param("userIds") java.util.Collection<Long> userIds);
     
     // Find employees for handover selection (excludes current employee, supports search)
     @Query("SELECT e FROM Employee e WHERE e.deleted = false " +
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,18 +27,20 @@ public interface EmployeeSiteAssignmentRepository extends JpaRepository<Employee
            "AND a.isActive = true AND a.isPrimary = true")
     Optional<EmployeeSiteAssignment> findPrimaryAssignmentByEmployeeId(@Param("employeeId") Long employeeId);
 
+    // Offline punch sync - all active assignments (with sites) of the uploading employees in one query
+    @Query("SELECT a FROM EmployeeSiteAssignment a JOIN FETCH a.site WHERE a.employee.id IN :employeeIds " +
+           "AND a.isActive = true")
+    List<EmployeeSiteAssignment> findActiveAssignmentsByEmployeeIds(@Param("employeeIds") Collection<Long> employeeIds);
+
+    // Site spatial index - every active assignment with its site, loaded on rebuild
+    @Query("SELECT a FROM EmployeeSiteAssignment a JOIN FETCH a.site WHERE a.isActive = true")
+    List<EmployeeSiteAssignment> findAllActiveWithSite();
+
     @Query("SELECT a FROM EmployeeSiteAssignment a WHERE a.employee.id = :employeeId " +
            "AND a.site.id = :siteId AND a.isActive = true")
     Optional<EmployeeSiteAssignment> findByEmployeeIdAndSiteIdAndIsActiveTrue(
             @Param("employeeId") Long employeeId, @Param("siteId") Long siteId);
 
-    @Query("SELECT a FROM EmployeeSiteAssignment a WHERE a.employee.id = :employeeId " +
-           "AND a.isActive = true AND " +
-           "(a.endDate IS NULL OR a.endDate >= :date) AND " +
-           "a.assignmentDate <= :date")
-    List<EmployeeSiteAssignment> findActiveAssignmentsByEmployeeIdAndDate(
-            @Param("employeeId") Long employeeId, @Param("date") LocalDate date);
-
     @Query("SELECT COUNT(a) FROM EmployeeSiteAssignment a WHERE a.site.id = :siteId AND a.isActive = true")
     Long countActiveEmployeesBySiteId(@Param("siteId") Long siteId);
 
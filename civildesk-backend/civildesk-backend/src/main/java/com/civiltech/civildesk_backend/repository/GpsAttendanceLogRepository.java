@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -57,6 +58,21 @@ public interface GpsAttendanceLogRepository extends JpaRepository<GpsAttendanceL
             @Param("date") LocalDate date,
             @Param("punchType") GpsAttendanceLog.PunchType punchType);
 
+    // Offline punch sync - existing punches of the uploading employees over the uploaded days
+    @Query("SELECT g FROM GpsAttendanceLog g WHERE g.employee.id IN :employeeIds " +
+           "AND g.punchTime >= :startDateTime AND g.punchTime < :endDateTime")
+    List<GpsAttendanceLog> findByEmployeeIdsAndPunchTimeRange(
+            @Param("employeeIds") Collection<Long> employeeIds,
+            @Param("startDateTime") LocalDateTime startDateTime,
+            @Param("endDateTime") LocalDateTime endDateTime);
+
+    // Offline punch sync - punches already stored for the uploaded client punch ids
+    @Query("SELECT g FROM GpsAttendanceLog g JOIN FETCH g.employee LEFT JOIN FETCH g.site LEFT JOIN FETCH g.attendance " +
+           "WHERE g.employee.id IN :employeeIds AND g.clientPunchId IN :clientPunchIds")
+    List<GpsAttendanceLog> findByEmployeeIdsAndClientPunchIds(
+            @Param("employeeIds") Collection<Long> employeeIds,
+            @Param("clientPunchIds") Collection<String> clientPunchIds);
+
     @Query("SELECT g FROM GpsAttendanceLog g WHERE g.syncStatus = 'PENDING'")
     List<GpsAttendanceLog> findPendingSyncLogs();
 
@@ -85,5 +101,10 @@ public interface GpsAttendanceLogRepository extends JpaRepository<GpsAttendanceL
     @Query("SELECT g.punchType, COUNT(g) FROM GpsAttendanceLog g " +
            "WHERE DATE(g.punchTime) = :date GROUP BY g.punchType")
     List<Object[]> countPunchesByTypeForDate(@Param("date") LocalDate date);
-}
 
+    // Offline punches awaiting a decision on their device time, oldest first
+    @Query(value = "SELECT g FROM GpsAttendanceLog g JOIN FETCH g.employee LEFT JOIN FETCH g.site " +
+                   "WHERE g.requiresReview = true ORDER BY g.punchTime ASC",
+           countQuery = "SELECT COUNT(g) FROM GpsAttendanceLog g WHERE g.requiresReview = true")
+    Page<GpsAttendanceLog> findPendingReview(Pageable pageable);
+}
@@ -65,12 +65,30 @@ public interface LeaveRepository extends JpaRepository<Leave, Long> {
                                                    @Param("startDate") LocalDate startDate,
                                                    @Param("endDate") LocalDate endDate);
 
+    // Find leaves with a given status that cover a single date (all employees)
+    @Query("SELECT l FROM Leave l WHERE l.status = :status AND l.deleted = false AND " +
+           "l.startDate <= :date AND l.endDate >= :date")
+    List<Leave> findLeavesCoveringDate(@Param("status") Leave.LeaveStatus status,
+                                       @Param("date") LocalDate date);
+
     // Find all leaves by leave type
     List<Leave> findByLeaveTypeAndDeletedFalse(Leave.LeaveType leaveType);
 
     // Find leaves by department
     @Query("SELECT l FROM Leave l WHERE l.employee.department = :department AND l.deleted = false")
     List<Leave> findLeavesByDepartment(@Param("department") String department);
+
+    /**
+     * Number of employees on approved leave for each day of a date range (one row per day with leaves).
+     * Counts today correctly even before the absent marking job has created ON_LEAVE attendance rows.
+     */
+    @Query(value = "SELECT CAST(d AS date), COUNT(DISTINCT l.employee_id) " +
+           "FROM generate_series(CAST(:startDate AS date), CAST(:endDate AS date), interval '1 day') AS d " +
+           "JOIN leaves l ON l.status = 'APPROVED' AND l.deleted = false " +
+           "AND l.start_date <= d AND l.end_date >= d " +
+           "GROUP BY d", nativeQuery = true)
+    List<Object[]> countApprovedLeavesPerDay(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate);
     
     // Paginated queries
     @EntityGraph(attributePaths = {"employee"})
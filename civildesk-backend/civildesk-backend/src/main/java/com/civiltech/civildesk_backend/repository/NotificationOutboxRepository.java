@@ -0,0 +1,42 @@
+package com.civiltech.civildesk_backend.repository;
+
+import com.civiltech.civildesk_backend.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Lock the next due rows; rows locked by another dispatcher are skipped, not waited on.
+     * Includes SENDING rows whose lease expired (dispatcher died mid-send).
+     */
+    @Query(value = "SELECT * FROM notification_outbox " +
+           "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now AND deleted = false " +
+           "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Extend the lease of a row that is still held by the given claim (attempts is bumped on every
+     * claim, so a row re-claimed by another dispatcher no longer matches)
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.nextAttemptAt = :until " +
+           "WHERE o.id = :id AND o.status = :status AND o.attempts = :attempts")
+    int renewLease(@Param("id") Long id,
+                   @Param("attempts") Integer attempts,
+                   @Param("status") NotificationOutbox.OutboxStatus status,
+                   @Param("until") LocalDateTime until);
+
+    // Purge delivered/abandoned rows past the retention period
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status IN :statuses AND o.updatedAt < :before")
+    int deleteFinishedBefore(@Param("statuses") List<NotificationOutbox.OutboxStatus> statuses,
+                             @Param("before") LocalDateTime before);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -17,6 +18,22 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Uses composite index (user_id, created_at DESC) for optimal performance
     Page<Notification> findByUserIdAndDeletedFalseOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
+    // First keyset page of a user's feed, newest first (id breaks createdAt ties)
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.deleted = false " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findLatest(@Param("userId") Long userId, Pageable pageable);
+
+    // Next keyset page: notifications that come after (beforeCreatedAt, beforeId) in feed order
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.deleted = false " +
+           "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id < :beforeId)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findBefore(@Param("userId") Long userId,
+                                  @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                  @Param("beforeId") Long beforeId,
+                                  Pageable pageable);
+
+    long countByUserIdAndDeletedFalse(Long userId);
+
     // Get all unread notifications for a user
     List<Notification> findByUserIdAndIsReadFalseAndDeletedFalseOrderByCreatedAtDesc(Long userId);
 
@@ -26,6 +43,16 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Get all notifications for a user (for testing/debugging)
     List<Notification> findByUserIdAndDeletedFalseOrderByCreatedAtDesc(Long userId);
 
+    // Notifications created at or after the given one (stream resume); ties share a timestamp, so clients dedupe by id
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.deleted = false AND n.id <> :lastId " +
+           "AND n.createdAt >= (SELECT m.createdAt FROM Notification m WHERE m.id = :lastId AND m.user.id = :userId) " +
+           "ORDER BY n.createdAt ASC, n.id ASC")
+    List<Notification> findCreatedSince(@Param("userId") Long userId, @Param("lastId") Long lastId, Pageable pageable);
+
+    // Whether the notification exists and belongs to the user (stream resume)
+    @Query("SELECT COUNT(n) > 0 FROM Notification n WHERE n.id = :id AND n.user.id = :userId")
+    boolean existsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
     // Get notification by ID and user ID (for security)
     @Query("SELECT n FROM Notification n WHERE n.id = :id AND n.user.id = :userId AND n.deleted = false")
     Notification findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
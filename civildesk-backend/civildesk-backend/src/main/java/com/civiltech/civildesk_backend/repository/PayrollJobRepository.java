@@ -0,0 +1,47 @@
+package com.civiltech.civildesk_backend.repository;
+
+import com.civiltech.civildesk_backend.model.PayrollJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PayrollJobRepository extends JpaRepository<PayrollJob, Long> {
+
+    @Query("SELECT j FROM PayrollJob j WHERE j.id = :id AND j.deleted = false")
+    Optional<PayrollJob> findByIdAndDeletedFalse(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM PayrollJob j WHERE j.id = :id")
+    Optional<PayrollJob> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Jobs that are pending or whose worker stopped sending heartbeats (e.g. after a crash)
+     */
+    @Query("SELECT j.id FROM PayrollJob j WHERE j.deleted = false AND j.status IN :statuses " +
+           "AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore) ORDER BY j.id")
+    List<Long> findIdsToResume(@Param("statuses") List<PayrollJob.PayrollJobStatus> statuses,
+                               @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Atomically claim a job for this worker. Returns 0 if another worker holds a fresh heartbeat.
+     */
+    @Modifying
+    @Query("UPDATE PayrollJob j SET j.status = :running, j.heartbeatAt = :now, " +
+           "j.startedAt = COALESCE(j.startedAt, :now) " +
+           "WHERE j.id = :id AND j.status IN :statuses " +
+           "AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") Long id,
+              @Param("running") PayrollJob.PayrollJobStatus running,
+              @Param("statuses") List<PayrollJob.PayrollJobStatus> statuses,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+}
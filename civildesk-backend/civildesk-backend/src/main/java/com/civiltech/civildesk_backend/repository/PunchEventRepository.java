@@ -0,0 +1,26 @@
+package com.civiltech.civildesk_backend.repository;
+
+import com.civiltech.civildesk_backend.model.PunchEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PunchEventRepository extends JpaRepository<PunchEvent, Long> {
+
+    // Events are applied in the order they were recorded (ids come from pooled blocks, so they only break ties)
+    @Query("SELECT e FROM PunchEvent e WHERE e.employee.id = :employeeId AND e.date = :date " +
+           "AND e.deleted = false ORDER BY e.createdAt ASC, e.id ASC")
+    List<PunchEvent> findByEmployeeIdAndDate(@Param("employeeId") Long employeeId, @Param("date") LocalDate date);
+
+    // Replay - all events of a day
+    @Query("SELECT e FROM PunchEvent e WHERE e.date = :date AND e.deleted = false ORDER BY e.createdAt ASC, e.id ASC")
+    List<PunchEvent> findByDate(@Param("date") LocalDate date);
+
+    @Query("SELECT DISTINCT e.employee.id FROM PunchEvent e WHERE e.date = :date AND e.deleted = false")
+    List<Long> findEmployeeIdsByDate(@Param("date") LocalDate date);
+}
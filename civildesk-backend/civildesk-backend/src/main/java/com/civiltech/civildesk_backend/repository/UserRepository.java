@@ -2,8 +2,13 @@ package com.civiltech.civildesk_backend.repository;
 
 import com.civiltech.civildesk_backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +21,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Find all admin and HR manager users
     List<User> findByRoleInAndDeletedFalseAndIsActiveTrue(List<User.Role> roles);
+
+    // Drop FCM tokens reported as unregistered/invalid by a multicast batch
+    @Modifying
+    @Query("UPDATE User u SET u.fcmToken = NULL, u.fcmTokenUpdatedAt = :now WHERE u.fcmToken IN :tokens")
+    int clearFcmTokens(@Param("tokens") Collection<String> tokens, @Param("now") LocalDateTime now);
 }
 
@@ -0,0 +1,67 @@
+package com.civiltech.civildesk_backend.security;
+
+import com.civiltech.civildesk_backend.model.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Request-scoped current user, bound by JwtAuthenticationFilter once the request is authenticated.
+ * The User entity is loaded at most once per request and reused by every
+ * SecurityUtils.getCurrentUser() call (services, SpEL cache keys, controllers).
+ */
+public final class CurrentUserContext {
+
+    private static final String ATTRIBUTE = CurrentUserContext.class.getName();
+
+    private final Long userId;
+    private final String email;
+    private User user;
+    private boolean loaded;
+
+    private CurrentUserContext(Long userId, String email) {
+        this.userId = userId;
+        this.email = email;
+    }
+
+    /**
+     * Bind the authenticated user to the request
+     */
+    public static void bind(HttpServletRequest request, Long userId, String email) {
+        request.setAttribute(ATTRIBUTE, new CurrentUserContext(userId, email));
+    }
+
+    /**
+     * Context of the current request, or null outside a request (e.g. async or scheduled threads)
+     */
+    public static CurrentUserContext current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object context = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return context instanceof CurrentUserContext ? (CurrentUserContext) context : null;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Get the User entity, loading it on first use only
+     */
+    synchronized User getUser(Function<String, Optional<User>> loader) {
+        if (!loaded) {
+            user = loader.apply(email).orElse(null);
+            loaded = true;
+        }
+        return user;
+    }
+}
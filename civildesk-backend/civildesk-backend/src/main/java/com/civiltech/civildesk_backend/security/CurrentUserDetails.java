@@ -0,0 +1,25 @@
+package com.civiltech.civildesk_backend.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * UserDetails that also carries the user's database ID,
+ * so the current user ID can be read from the security context without a query.
+ */
+public class CurrentUserDetails extends User {
+
+    private final Long userId;
+
+    public CurrentUserDetails(Long userId, String username, String password, boolean enabled,
+                              Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
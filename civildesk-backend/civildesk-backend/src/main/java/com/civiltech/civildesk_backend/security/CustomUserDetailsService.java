@@ -19,24 +19,47 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return buildUserDetails(loadActiveUser(email));
+    }
+
+    /**
+     * Load UserDetails for an already verified JWT, using the in-process cache.
+     * Login keeps going through loadUserByUsername so credentials are always checked against the DB.
+     */
+    public UserDetails loadUserByUsernameCached(String email) throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = loadActiveUser(email);
+        UserDetails userDetails = buildUserDetails(user);
+        userDetailsCache.put(user.getId(), userDetails);
+        return userDetails;
+    }
+
+    private User loadActiveUser(String email) {
         User user = userRepository.findByEmailAndDeletedFalse(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
         if (!user.getIsActive()) {
             throw new UsernameNotFoundException("User account is inactive: " + email);
         }
+        return user;
+    }
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(getAuthorities(user))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!user.getIsActive())
-                .build();
+    private UserDetails buildUserDetails(User user) {
+        return new CurrentUserDetails(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                user.getIsActive(),
+                getAuthorities(user));
     }
 
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
@@ -26,8 +26,16 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration:604800000}") // Default 7 days
     private Long refreshExpiration;
 
+    private volatile SecretKey signingKey;
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // Derive the HMAC key once instead of on every sign/verify
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -65,6 +73,14 @@ public class JwtTokenProvider {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verify the signature and expiry of a token once and return its claims.
+     * Throws a JwtException if the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
     private Claims getAllClaimsFromToken(String token) {
         return Jwts.parser()
                 .verifyWith(getSigningKey())
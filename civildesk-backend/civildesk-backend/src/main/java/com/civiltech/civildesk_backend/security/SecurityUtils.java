@@ -34,27 +34,34 @@ public class SecurityUtils {
     }
 
     /**
-     * Get the currently authenticated user's ID
+     * Get the currently authenticated user's ID.
+     * Read from the authenticated principal; falls back to a lookup by email.
      */
     public static Long getCurrentUserId() {
-        String email = getCurrentUsername();
-        if (email != null && userRepository != null) {
-            return userRepository.findByEmailAndDeletedFalse(email)
-                    .map(User::getId)
-                    .orElse(null);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CurrentUserDetails) {
+            return ((CurrentUserDetails) authentication.getPrincipal()).getUserId();
         }
-        return null;
+
+        User user = getCurrentUser();
+        return user != null ? user.getId() : null;
     }
 
     /**
-     * Get the currently authenticated user entity
+     * Get the currently authenticated user entity.
+     * Within a request the entity is loaded once and memoized in CurrentUserContext.
      */
     public static User getCurrentUser() {
         String email = getCurrentUsername();
-        if (email != null && userRepository != null) {
-            return userRepository.findByEmailAndDeletedFalse(email).orElse(null);
+        if (email == null || userRepository == null) {
+            return null;
         }
-        return null;
+
+        CurrentUserContext context = CurrentUserContext.current();
+        if (context != null && email.equals(context.getEmail())) {
+            return context.getUser(userRepository::findByEmailAndDeletedFalse);
+        }
+        return userRepository.findByEmailAndDeletedFalse(email).orElse(null);
     }
 
     /**
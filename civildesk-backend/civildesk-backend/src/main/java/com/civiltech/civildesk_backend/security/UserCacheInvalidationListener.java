@@ -0,0 +1,52 @@
+package com.civiltech.civildesk_backend.security;
+
+import com.civiltech.civildesk_backend.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that evicts a user's cached UserDetails whenever the users row changes
+ * (deactivation, role change, password change, soft delete, ...), on this node and on every
+ * other node through UserDetailsCache's eviction channel.
+ *
+ * Hibernate obtains the listener from Spring (SpringBeanContainer) while the EntityManagerFactory is
+ * being built, so the cache is looked up on first use.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private final ObjectProvider<UserDetailsCache> userDetailsCache;
+
+    public UserCacheInvalidationListener(ObjectProvider<UserDetailsCache> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        UserDetailsCache cache = userDetailsCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        Long userId = user.getId();
+        String email = user.getEmail();
+        cache.evict(userId, email);
+
+        // Evict again after commit so a request that reloaded the old row before commit is not kept,
+        // and tell the other nodes only once the change is visible to them
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evictEverywhere(userId, email);
+                }
+            });
+        } else {
+            cache.evictEverywhere(userId, email);
+        }
+    }
+}
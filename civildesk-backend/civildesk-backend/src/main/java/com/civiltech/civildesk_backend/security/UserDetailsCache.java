@@ -0,0 +1,200 @@
+package com.civiltech.civildesk_backend.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded, short-TTL in-process cache of UserDetails used by JwtAuthenticationFilter,
+ * so an authenticated request does not need a users table lookup.
+ *
+ * Entries are evicted when the user row changes (see UserCacheInvalidationListener),
+ * which covers deactivation, role changes and password changes. With Redis enabled the
+ * eviction is published so every node drops the entry, the same way TwoLevelCacheManager
+ * invalidates L1 caches; the TTL only bounds a missed message.
+ *
+ * Message format: {@code <nodeId>|<userId>|<email>}. Messages from this node are ignored.
+ */
+@Component
+public class UserDetailsCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.security.user-cache.channel:civildesk:user-cache:evictions}")
+    private String evictionChannel;
+
+    @Value("${app.security.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    // Access-ordered LRU keyed by email (username); guarded by "this"
+    private final LinkedHashMap<String, CachedUser> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            if (size() > maxSize) {
+                emailsByUserId.remove(eldest.getValue().userId);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Reverse index so an update that changes the email still evicts the old key
+    private final Map<Long, String> emailsByUserId = new HashMap<>();
+
+    private StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    public String getEvictionChannel() {
+        return evictionChannel;
+    }
+
+    /**
+     * Get cached UserDetails, or null if absent or expired
+     */
+    public synchronized UserDetails get(String email) {
+        CachedUser cached = entries.get(email);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt < System.currentTimeMillis()) {
+            remove(email);
+            return null;
+        }
+        return cached.userDetails;
+    }
+
+    public synchronized void put(Long userId, UserDetails userDetails) {
+        String email = userDetails.getUsername();
+        String previousEmail = emailsByUserId.put(userId, email);
+        if (previousEmail != null && !previousEmail.equals(email)) {
+            entries.remove(previousEmail);
+        }
+        entries.put(email, new CachedUser(userId, userDetails, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+
+    /**
+     * Evict a user by ID and (current) email
+     */
+    public synchronized void evict(Long userId, String email) {
+        if (userId != null) {
+            String cachedEmail = emailsByUserId.remove(userId);
+            if (cachedEmail != null) {
+                entries.remove(cachedEmail);
+            }
+        }
+        if (email != null) {
+            remove(email);
+        }
+    }
+
+    /**
+     * Evict a user on this node and publish the eviction to every other node
+     */
+    public void evictEverywhere(Long userId, String email) {
+        evict(userId, email);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(evictionChannel,
+                    nodeId + "|" + (userId != null ? userId : "") + "|" + (email != null ? email : ""));
+        } catch (Exception e) {
+            // Other nodes drop the entry when its TTL runs out
+            logger.warn("Failed to publish user cache eviction: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            evict(parts[1].isEmpty() ? null : Long.valueOf(parts[1]), parts[2].isEmpty() ? null : parts[2]);
+        } catch (NumberFormatException e) {
+            logger.warn("Dropping malformed user cache eviction: {}", body);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        emailsByUserId.clear();
+    }
+
+    /**
+     * Drop expired entries so idle users do not hold memory until pushed out by the LRU bound
+     */
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public synchronized void removeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, CachedUser>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            CachedUser cached = iterator.next().getValue();
+            if (cached.expiresAt < now) {
+                emailsByUserId.remove(cached.userId);
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(String email) {
+        CachedUser removed = entries.remove(email);
+        if (removed != null) {
+            emailsByUserId.remove(removed.userId);
+        }
+    }
+
+    private static final class CachedUser {
+        final Long userId;
+        final UserDetails userDetails;
+        final long expiresAt;
+
+        CachedUser(Long userId, UserDetails userDetails, long expiresAt) {
+            this.userId = userId;
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
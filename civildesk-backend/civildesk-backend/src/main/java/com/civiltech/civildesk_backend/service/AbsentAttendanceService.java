@@ -14,9 +14,13 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for automatically marking absent employees.
@@ -39,15 +43,25 @@ public class AbsentAttendanceService {
     @Autowired
     private LeaveRepository leaveRepository;
 
+    @Autowired
+    private LiveAttendanceCounterService liveAttendanceCounterService;
+
+    @Autowired
+    private Clock businessClock;
+
+    // Keeps each IN list well below the PostgreSQL bind parameter limit
+    private static final int INSERT_BATCH_SIZE = 1000;
+
     /**
      * Scheduled job to mark absent employees.
      * Runs daily at 11:59 PM to mark absent for the current day.
      * Also runs at 9:00 AM to mark absent for the previous day (if not already marked).
+     * Both run on the business time zone, not the server's.
      */
-    @Scheduled(cron = "0 59 23 * * *") // Every day at 11:59 PM
+    @Scheduled(cron = "0 59 23 * * *", zone = "${app.business.time-zone:Asia/Kolkata}") // Every day at 11:59 PM
     @Transactional
     public void markAbsentForToday() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         logger.info("Starting absent marking job for date: {}", today);
         markAbsentForDate(today);
     }
@@ -56,10 +70,10 @@ public class AbsentAttendanceService {
      * Scheduled job to mark absent for previous day (catch-up).
      * Runs daily at 9:00 AM to ensure previous day's absent records are created.
      */
-    @Scheduled(cron = "0 0 9 * * *") // Every day at 9:00 AM
+    @Scheduled(cron = "0 0 9 * * *", zone = "${app.business.time-zone:Asia/Kolkata}") // Every day at 9:00 AM
     @Transactional
     public void markAbsentForPreviousDay() {
-        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate yesterday = LocalDate.now(businessClock).minusDays(1);
         logger.info("Starting catch-up absent marking job for date: {}", yesterday);
         markAbsentForDate(yesterday);
     }
@@ -87,102 +101,89 @@ public class AbsentAttendanceService {
             return 0;
         }
 
-        // Get all active employees
-        List<Employee> activeEmployees = employeeRepository
-                .findByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE);
-
-        int absentCount = 0;
-
-        for (Employee employee : activeEmployees) {
-            try {
-                // Check if attendance record already exists
-                Attendance existingAttendance = attendanceRepository
-                        .findByEmployeeAndDate(employee, date)
-                        .orElse(null);
-
-                if (existingAttendance != null) {
-                    // Attendance already exists, skip
-                    continue;
-                }
-
-                // Check if employee is on approved leave for this date
-                if (isEmployeeOnLeave(employee, date)) {
-                    // Create ON_LEAVE attendance record instead of ABSENT
-                    createLeaveAttendanceRecord(employee, date);
-                    logger.debug("Created ON_LEAVE record for employee {} on {}", 
-                            employee.getEmployeeId(), date);
-                    continue;
-                }
-
-                // Create ABSENT attendance record
-                Attendance absentAttendance = new Attendance();
-                absentAttendance.setEmployee(employee);
-                absentAttendance.setDate(date);
-                absentAttendance.setStatus(Attendance.AttendanceStatus.ABSENT);
-                absentAttendance.setRecognitionMethod("AUTO_ABSENT");
-                absentAttendance.setNotes("Automatically marked as absent - no attendance recorded");
-                absentAttendance.setDeleted(false);
-
-                attendanceRepository.save(absentAttendance);
-                absentCount++;
-
-                logger.debug("Marked absent: {} ({}) for date {}", 
-                        employee.getEmployeeId(), 
-                        employee.getFirstName() + " " + employee.getLastName(), 
-                        date);
-
-            } catch (Exception e) {
-                logger.error("Error marking absent for employee {} on date {}: {}", 
-                        employee.getEmployeeId(), date, e.getMessage(), e);
-                // Continue with next employee instead of failing entire job
+        // Active employees without any attendance row for the date (single query)
+        List<Long> employeeIdsWithoutAttendance = employeeRepository
+                .findIdsWithoutAttendanceOnDate(Employee.EmploymentStatus.ACTIVE, date);
+
+        if (employeeIdsWithoutAttendance.isEmpty()) {
+            logger.info("Completed absent marking for date: {}. All active employees already have attendance", date);
+            return 0;
+        }
+
+        // Approved leaves covering the date (single query)
+        Map<Long, Leave> approvedLeaves = findApprovedLeavesByEmployee(date);
+
+        // Group employees by the row they get: ABSENT, or ON_LEAVE/HALF_DAY with the leave's notes
+        List<Long> absentEmployeeIds = new ArrayList<>();
+        Map<String, Attendance> leaveTemplates = new HashMap<>();
+        Map<String, List<Long>> leaveEmployeeIds = new HashMap<>();
+        for (Long employeeId : employeeIdsWithoutAttendance) {
+            Leave leave = approvedLeaves.get(employeeId);
+            if (leave == null) {
+                absentEmployeeIds.add(employeeId);
+                continue;
             }
+            Attendance template = buildLeaveAttendanceRecord(null, date, leave);
+            String key = template.getStatus() + "|" + template.getNotes();
+            leaveTemplates.putIfAbsent(key, template);
+            leaveEmployeeIds.computeIfAbsent(key, k -> new ArrayList<>()).add(employeeId);
+        }
+
+        // ON CONFLICT DO NOTHING: a punch that lands meanwhile keeps its row and the rest still insert
+        int leaveCount = 0;
+        for (Map.Entry<String, List<Long>> group : leaveEmployeeIds.entrySet()) {
+            Attendance template = leaveTemplates.get(group.getKey());
+            leaveCount += insertMissing(group.getValue(), date, template.getStatus(),
+                    template.getRecognitionMethod(), template.getNotes());
         }
+        int absentCount = insertMissing(absentEmployeeIds, date, Attendance.AttendanceStatus.ABSENT,
+                "AUTO_ABSENT", "Automatically marked as absent - no attendance recorded");
 
-        logger.info("Completed absent marking for date: {}. Created {} absent records", date, absentCount);
+        logger.info("Completed absent marking for date: {}. Created {} absent records and {} leave records",
+                date, absentCount, leaveCount);
         return absentCount;
     }
 
     /**
-     * Check if employee is on approved leave for a specific date.
+     * Insert one attendance row per employee, skipping employees that already have a row for the date.
+     * The inserted rows are passed to the live counters, which the bulk insert bypasses.
+     *
+     * @return Number of rows inserted
+     */
+    private int insertMissing(List<Long> employeeIds, LocalDate date, Attendance.AttendanceStatus status,
+                              String recognitionMethod, String notes) {
+        List<Long> inserted = new ArrayList<>();
+        for (int i = 0; i < employeeIds.size(); i += INSERT_BATCH_SIZE) {
+            List<Long> batch = employeeIds.subList(i, Math.min(i + INSERT_BATCH_SIZE, employeeIds.size()));
+            inserted.addAll(attendanceRepository.insertMissingForDate(batch, date, status.name(), recognitionMethod, notes));
+        }
+        liveAttendanceCounterService.recordInsertedStatuses(inserted, date, status);
+        return inserted.size();
+    }
+
+    /**
+     * Find approved, non-deleted leaves covering a date, keyed by employee database ID.
      *
-     * @param employee The employee to check
      * @param date The date to check
-     * @return true if employee is on approved leave, false otherwise
+     * @return Map of employee ID to the leave covering the date
      */
-    private boolean isEmployeeOnLeave(Employee employee, LocalDate date) {
-        List<Leave> leaves = leaveRepository.findLeavesByEmployeeAndDateRange(
-                employee.getId(), date, date);
-
-        return leaves.stream()
-                .anyMatch(leave -> leave.getStatus() == Leave.LeaveStatus.APPROVED
-                        && !leave.getDeleted()
-                        && !date.isBefore(leave.getStartDate())
-                        && !date.isAfter(leave.getEndDate()));
+    private Map<Long, Leave> findApprovedLeavesByEmployee(LocalDate date) {
+        Map<Long, Leave> leavesByEmployee = new HashMap<>();
+        for (Leave leave : leaveRepository.findLeavesCoveringDate(Leave.LeaveStatus.APPROVED, date)) {
+            leavesByEmployee.putIfAbsent(leave.getEmployee().getId(), leave);
+        }
+        return leavesByEmployee;
     }
 
     /**
-     * Create an ON_LEAVE attendance record for an employee.
+     * Build (without saving) an ON_LEAVE or HALF_DAY attendance record for an employee.
      *
      * @param employee The employee
      * @param date The date
+     * @param leave The approved leave covering the date
+     * @return The unsaved attendance record
      */
-    private void createLeaveAttendanceRecord(Employee employee, LocalDate date) {
-        // Find the leave record
-        List<Leave> leaves = leaveRepository.findLeavesByEmployeeAndDateRange(
-                employee.getId(), date, date);
-
-        Leave leave = leaves.stream()
-                .filter(l -> l.getStatus() == Leave.LeaveStatus.APPROVED
-                        && !l.getDeleted()
-                        && !date.isBefore(l.getStartDate())
-                        && !date.isAfter(l.getEndDate()))
-                .findFirst()
-                .orElse(null);
-
-        if (leave == null) {
-            return;
-        }
-
+    private Attendance buildLeaveAttendanceRecord(Employee employee, LocalDate date, Leave leave) {
         Attendance leaveAttendance = new Attendance();
         leaveAttendance.setEmployee(employee);
         leaveAttendance.setDate(date);
@@ -196,7 +197,7 @@ public class AbsentAttendanceService {
             leaveAttendance.setStatus(Attendance.AttendanceStatus.HALF_DAY);
         }
 
-        attendanceRepository.save(leaveAttendance);
+        return leaveAttendance;
     }
 
     /**
@@ -287,6 +288,9 @@ public class AbsentAttendanceService {
                 .map(a -> a.getEmployee().getId())
                 .collect(java.util.stream.Collectors.toSet());
         
+        // Fetch approved leaves covering the date in a single query
+        Map<Long, Leave> approvedLeaves = findApprovedLeavesByEmployee(date);
+        
         // Create attendance records in batches
         List<Attendance> newAttendances = new java.util.ArrayList<>();
         
@@ -298,11 +302,10 @@ public class AbsentAttendanceService {
             }
             
             // Check if employee is on approved leave
-            if (isEmployeeOnLeave(employee, date)) {
-                // Create ON_LEAVE attendance record
-                createLeaveAttendanceRecord(employee, date);
-                logger.debug("Created ON_LEAVE record for employee {} on {}", 
-                        employee.getEmployeeId(), date);
+            Leave leave = approvedLeaves.get(employee.getId());
+            if (leave != null) {
+                // ON_LEAVE (or HALF_DAY) record, saved with the absent records below
+                newAttendances.add(buildLeaveAttendanceRecord(employee, date, leave));
                 continue;
             }
             
@@ -335,7 +338,7 @@ public class AbsentAttendanceService {
                     batch.size(), savedCount);
         }
         
-        logger.info("Bulk mark absent completed. Created {} absent records for date {}", 
+        logger.info("Bulk mark absent completed. Created {} absent and leave records for date {}", 
                 savedCount, date);
         
         return savedCount;
@@ -0,0 +1,62 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+/**
+ * JPA entity listener that feeds every attendance insert/update/delete into the live counters
+ * (face punches, GPS punches, manual edits and absent marking all go through the entity).
+ * Applied after commit so rolled-back punches are never counted.
+ *
+ * Hibernate obtains the listener from Spring (SpringBeanContainer) while the EntityManagerFactory is
+ * being built, so the counter service, which needs repositories, is looked up on first use.
+ */
+@Component
+public class AttendanceCounterListener {
+
+    private final ObjectProvider<LiveAttendanceCounterService> liveAttendanceCounterService;
+
+    public AttendanceCounterListener(ObjectProvider<LiveAttendanceCounterService> liveAttendanceCounterService) {
+        this.liveAttendanceCounterService = liveAttendanceCounterService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onAttendanceSaved(Attendance attendance) {
+        boolean deleted = attendance.getDeleted() != null && attendance.getDeleted();
+        record(attendance, deleted ? null : attendance.getStatus());
+    }
+
+    @PostRemove
+    public void onAttendanceRemoved(Attendance attendance) {
+        record(attendance, null);
+    }
+
+    private void record(Attendance attendance, Attendance.AttendanceStatus status) {
+        LiveAttendanceCounterService counters = liveAttendanceCounterService.getIfAvailable();
+        if (counters == null || attendance.getEmployee() == null) {
+            return;
+        }
+        Long employeeId = attendance.getEmployee().getId();
+        LocalDate date = attendance.getDate();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters.recordStatus(employeeId, date, status);
+                }
+            });
+        } else {
+            counters.recordStatus(employeeId, date, status);
+        }
+    }
+}
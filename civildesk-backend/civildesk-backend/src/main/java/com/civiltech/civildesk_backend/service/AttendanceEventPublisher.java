@@ -0,0 +1,115 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.AttendancePunchEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pushes committed punches to live dashboards over STOMP (/topic/attendance), so the admin map and
+ * daily attendance screens apply deltas instead of re-polling the full list.
+ *
+ * Events are sent after commit only, so a rolled-back punch is never shown. With Redis enabled the
+ * event is relayed through a pub/sub channel and every node forwards it to its own subscribers;
+ * otherwise it goes straight to the local broker.
+ */
+@Service
+public class AttendanceEventPublisher implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceEventPublisher.class);
+
+    public static final String ATTENDANCE_TOPIC = "/topic/attendance";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.attendance.events.channel:civildesk:attendance:events}")
+    private String eventChannel;
+
+    private StringRedisTemplate redisTemplate;
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    public String getEventChannel() {
+        return eventChannel;
+    }
+
+    /**
+     * Publish a punch once the surrounding transaction commits
+     */
+    public void publishAfterCommit(AttendancePunchEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(AttendancePunchEvent event) {
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.convertAndSend(eventChannel, objectMapper.writeValueAsString(event));
+                return;
+            } catch (Exception e) {
+                // Subscribers on this node still get it; other nodes catch up on their next snapshot
+                logger.warn("Failed to relay attendance event through Redis: {}", e.getMessage());
+            }
+        }
+        sendLocal(event);
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            sendLocal(objectMapper.readValue(body, AttendancePunchEvent.class));
+        } catch (Exception e) {
+            logger.warn("Dropping malformed attendance event: {}", e.getMessage());
+        }
+    }
+
+    private void sendLocal(AttendancePunchEvent event) {
+        try {
+            messagingTemplate.convertAndSend(ATTENDANCE_TOPIC, event);
+        } catch (Exception e) {
+            // Live push is best effort; the punch itself is already committed
+            logger.warn("Failed to push attendance event: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.PunchEvent;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.PunchEventRepository;
+import com.civiltech.civildesk_backend.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the punch times and hours of Attendance rows from the append-only punch event log
+ * (punch_events).
+ *
+ * - Incremental: every punch or correction appends an event and applies it to the day's row; hours
+ *   are recalculated only when the event changed a punch time and the day has both check-in and
+ *   check-out (a repeated check-in, or a lunch punch before check-out, costs no recalculation).
+ * - Replay: rebuild() recomputes rows from their events, e.g. after a change to the calculation rules.
+ *
+ * Status, recognition method and notes are still set by the callers and are not part of the replay.
+ */
+@Service
+public class AttendanceProjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceProjector.class);
+
+    @Autowired
+    private PunchEventRepository punchEventRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceCalculationService calculationService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Append a punch event and apply it to the day's attendance row (locked, or new and not yet saved)
+     *
+     * @return Whether a punch time changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean record(Attendance attendance, PunchEvent.PunchType punchType, LocalDateTime punchTime,
+                          PunchEvent.Source source, PunchEvent.Kind kind) {
+        Map<PunchEvent.PunchType, LocalDateTime> punches = new EnumMap<>(PunchEvent.PunchType.class);
+        punches.put(punchType, punchTime);
+        return record(attendance, punches, source, kind);
+    }
+
+    /**
+     * Same for several punches of one day (applied in punch type order), with at most one recalculation
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean record(Attendance attendance, Map<PunchEvent.PunchType, LocalDateTime> punches,
+                          PunchEvent.Source source, PunchEvent.Kind kind) {
+        String recordedBy = SecurityUtils.getCurrentUsername();
+        List<PunchEvent> events = new ArrayList<>();
+        for (Map.Entry<PunchEvent.PunchType, LocalDateTime> punch : new EnumMap<>(punches).entrySet()) {
+            PunchEvent event = new PunchEvent();
+            event.setEmployee(attendance.getEmployee());
+            event.setDate(attendance.getDate());
+            event.setPunchType(punch.getKey());
+            event.setPunchTime(punch.getValue());
+            event.setSource(source);
+            event.setKind(kind);
+            event.setRecordedBy(recordedBy);
+            events.add(event);
+        }
+        punchEventRepository.saveAll(events);
+
+        boolean changed = false;
+        for (PunchEvent event : events) {
+            changed |= applyPunch(attendance, event);
+        }
+        if (changed) {
+            recalculate(attendance);
+        }
+        return changed;
+    }
+
+    /**
+     * Withdraw a punch from the row's day (e.g. an offline punch moved to its device day on review):
+     * the first matching live event is soft-deleted, so it stays in the audit trail, and the row's punch
+     * times and hours are rebuilt from the remaining events. The row's status is left as it is.
+     *
+     * @return Whether a matching event was found
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean withdraw(Attendance attendance, PunchEvent.PunchType punchType, LocalDateTime punchTime,
+                            PunchEvent.Source source) {
+        List<PunchEvent> remaining = new ArrayList<>(
+                punchEventRepository.findByEmployeeIdAndDate(attendance.getEmployee().getId(), attendance.getDate()));
+        PunchEvent withdrawn = remaining.stream()
+                .filter(event -> event.getKind() == PunchEvent.Kind.PUNCH && event.getSource() == source
+                        && event.getPunchType() == punchType && punchTime.equals(event.getPunchTime()))
+                .findFirst()
+                .orElse(null);
+        if (withdrawn == null) {
+            return false;
+        }
+        withdrawn.setDeleted(true);
+        punchEventRepository.save(withdrawn);
+        remaining.removeIf(event -> event == withdrawn);
+        rebuild(attendance, remaining);
+        return true;
+    }
+
+    /**
+     * The employee's events for a day, in the order they were applied (audit trail)
+     */
+    @Transactional(readOnly = true)
+    public List<PunchEvent> getEvents(Long employeeId, LocalDate date) {
+        return punchEventRepository.findByEmployeeIdAndDate(employeeId, date);
+    }
+
+    /**
+     * Replay: rebuild punch times and hours of every attendance row with events in the date range.
+     * One transaction per day; the rows are locked before their events are read, so an event appended
+     * meanwhile is either replayed or waits for the rebuild. Days without events are left as they are.
+     *
+     * @return Number of rows that changed
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        int changed = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            LocalDate day = date;
+            Integer dayChanged = transactionTemplate.execute(status -> rebuildDay(day));
+            changed += dayChanged != null ? dayChanged : 0;
+        }
+        logger.info("Rebuilt attendance from punch events for {} to {}: {} rows changed", startDate, endDate, changed);
+        return changed;
+    }
+
+    private int rebuildDay(LocalDate date) {
+        List<Long> employeeIds = punchEventRepository.findEmployeeIdsByDate(date);
+        if (employeeIds.isEmpty()) {
+            return 0;
+        }
+        List<Attendance> rows = attendanceRepository.findByDateAndEmployeeIdsForUpdate(date, employeeIds);
+        Map<Long, List<PunchEvent>> eventsByEmployee = punchEventRepository.findByDate(date).stream()
+                .collect(Collectors.groupingBy(event -> event.getEmployee().getId()));
+
+        int changed = 0;
+        for (Attendance attendance : rows) {
+            if (rebuild(attendance, eventsByEmployee.getOrDefault(attendance.getEmployee().getId(), List.of()))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Recompute the row's punch times and hours from its events (in recorded order)
+     *
+     * @return Whether anything changed
+     */
+    boolean rebuild(Attendance attendance, List<PunchEvent> events) {
+        LocalDateTime checkIn = attendance.getCheckInTime();
+        LocalDateTime lunchOut = attendance.getLunchOutTime();
+        LocalDateTime lunchIn = attendance.getLunchInTime();
+        LocalDateTime checkOut = attendance.getCheckOutTime();
+        Double workingHours = attendance.getWorkingHours();
+        Double overtimeHours = attendance.getOvertimeHours();
+
+        attendance.setCheckInTime(null);
+        attendance.setLunchOutTime(null);
+        attendance.setLunchInTime(null);
+        attendance.setCheckOutTime(null);
+        for (PunchEvent event : events) {
+            applyPunch(attendance, event);
+        }
+        attendance.setWorkingHours(null);
+        attendance.setOvertimeHours(null);
+        recalculate(attendance);
+
+        return !Objects.equals(checkIn, attendance.getCheckInTime())
+                || !Objects.equals(lunchOut, attendance.getLunchOutTime())
+                || !Objects.equals(lunchIn, attendance.getLunchInTime())
+                || !Objects.equals(checkOut, attendance.getCheckOutTime())
+                || !Objects.equals(workingHours, attendance.getWorkingHours())
+                || !Objects.equals(overtimeHours, attendance.getOvertimeHours());
+    }
+
+    /**
+     * Apply one event to the punch times
+     *
+     * @return Whether a punch time changed
+     */
+    static boolean applyPunch(Attendance attendance, PunchEvent event) {
+        LocalDateTime time = event.getPunchTime();
+        boolean livePunch = event.getKind() == PunchEvent.Kind.PUNCH;
+        switch (event.getPunchType()) {
+            case CHECK_IN:
+                // A repeated live check-in keeps the first one
+                if (livePunch && attendance.getCheckInTime() != null) {
+                    return false;
+                }
+                return set(attendance.getCheckInTime(), time, attendance::setCheckInTime);
+            case LUNCH_OUT:
+                boolean changed = set(attendance.getLunchOutTime(), time, attendance::setLunchOutTime);
+                if (livePunch && attendance.getCheckInTime() == null) {
+                    attendance.setCheckInTime(time);
+                    changed = true;
+                }
+                return changed;
+            case LUNCH_IN:
+                return set(attendance.getLunchInTime(), time, attendance::setLunchInTime);
+            case CHECK_OUT:
+                return set(attendance.getCheckOutTime(), time, attendance::setCheckOutTime);
+            default:
+                return false;
+        }
+    }
+
+    private void recalculate(Attendance attendance) {
+        if (attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
+            AttendanceCalculationService.CalculationResult result = calculationService.calculateAttendance(attendance);
+            attendance.setWorkingHours(result.getWorkingHours());
+            attendance.setOvertimeHours(result.getOvertimeHours());
+        }
+    }
+
+    private static boolean set(LocalDateTime current, LocalDateTime value, Consumer<LocalDateTime> setter) {
+        if (Objects.equals(current, value)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.exception.BadRequestException;
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes punches per employee so concurrent punches (double tap, kiosk and phone at once) never
+ * race on the (employee_id, date) unique constraint.
+ *
+ * - In process: punches run under one of a fixed set of locks picked by employee id (lock striping),
+ *   so punches of the same employee queue up in memory (not holding a DB connection) while punches of
+ *   different employees stay parallel (apart from the occasional shared stripe).
+ * - In the database: the day's attendance row is created with INSERT ... ON CONFLICT and then row-locked,
+ *   which also covers punches for the same employee arriving on different nodes.
+ *
+ * Take the lock outside the transaction and lock the row inside it, so the lock is held until commit:
+ * <pre>
+ * punchGuard.withEmployeeLock(employee.getId(), () -> transactionTemplate.execute(status -> {
+ *     Attendance attendance = punchGuard.lockAttendanceRow(employee, date, method);
+ *     ...
+ * }));
+ * </pre>
+ */
+@Service
+public class AttendancePunchGuard {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Value("${app.attendance.punch-lock.stripes:256}")
+    private int stripes;
+
+    @Value("${app.attendance.punch-lock.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ReentrantLock[] locks;
+
+    @PostConstruct
+    public void init() {
+        locks = new ReentrantLock[Math.max(stripes, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run the action while holding the employee's punch lock
+     */
+    public <T> T withEmployeeLock(Long employeeId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(employeeId);
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException("Punch was interrupted. Please try again.");
+        }
+        if (!acquired) {
+            throw new BadRequestException("Another punch for this employee is still being recorded. Please try again.");
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The employee's attendance row for the date, created if missing and row-locked until the
+     * surrounding transaction ends. The row is reloaded, so it reflects punches committed just before.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Attendance lockAttendanceRow(Employee employee, LocalDate date, String recognitionMethod) {
+        return attendanceRepository.findByEmployeeIdAndDateForUpdate(employee.getId(), date)
+                .orElseGet(() -> {
+                    attendanceRepository.upsertForPunch(employee.getId(), date,
+                            Attendance.AttendanceStatus.PRESENT.name(), recognitionMethod);
+                    return attendanceRepository.findByEmployeeIdAndDateForUpdate(employee.getId(), date)
+                            .orElseThrow(() -> new IllegalStateException(
+                                    "Attendance row missing after upsert for employee " + employee.getId() + " on " + date));
+                });
+    }
+
+    int stripeFor(Long employeeId) {
+        return Math.floorMod(Long.hashCode(employeeId) * 0x9E3779B9, locks.length);
+    }
+
+    private ReentrantLock lockFor(Long employeeId) {
+        return locks[stripeFor(employeeId)];
+    }
+}
@@ -3,9 +3,11 @@ package com.civiltech.civildesk_backend.service;
 import com.civiltech.civildesk_backend.dto.AttendanceRequest;
 import com.civiltech.civildesk_backend.dto.AttendanceResponse;
 import com.civiltech.civildesk_backend.dto.AttendanceAnalyticsResponse;
+import com.civiltech.civildesk_backend.dto.AttendancePunchEvent;
 import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
 import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.PunchEvent;
 import com.civiltech.civildesk_backend.repository.AttendanceRepository;
 import com.civiltech.civildesk_backend.repository.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,14 +15,18 @@ import org.springframework.lang.NonNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -38,164 +44,120 @@ public class AttendanceService {
     private EmployeeRepository employeeRepository;
 
     @Autowired
-    private AttendanceCalculationService calculationService;
+    private AttendanceProjector attendanceProjector;
 
     @Autowired
     private AbsentAttendanceService absentAttendanceService;
 
+    @Autowired
+    private LiveAttendanceCounterService liveAttendanceCounterService;
+
+    @Autowired
+    private AttendanceEventPublisher attendanceEventPublisher;
+
+    @Autowired
+    private AttendancePunchGuard punchGuard;
+
+    @Autowired
+    private Clock businessClock;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     public Employee getEmployeeByUserId(Long userId) {
         return employeeRepository.findByUserIdAndDeletedFalse(userId).orElse(null);
     }
 
+    public Long getEmployeeRecordId(String employeeId) {
+        return employeeRepository.findByEmployeeIdAndDeletedFalse(employeeId)
+                .map(Employee::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + employeeId));
+    }
+
     /**
      * Mark attendance for a specific date (admin manual marking).
      * Used for emergency situations when employee forgot to mark attendance.
      */
-    @Transactional
     public AttendanceResponse markAttendanceForDate(String employeeId, LocalDate date, String attendanceType) {
         Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(employeeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + employeeId));
 
-        Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, date)
-                .orElse(new Attendance());
+        // Serialized with the employee's other punches (see AttendancePunchGuard)
+        return punchGuard.withEmployeeLock(employee.getId(), () -> transactionTemplate.execute(status ->
+                recordAttendanceForDate(employee, date, attendanceType)));
+    }
 
-        // Ensure BaseEntity fields are set for new records
-        if (attendance.getId() == null) {
-            attendance.setDeleted(false);
-        }
+    private AttendanceResponse recordAttendanceForDate(Employee employee, LocalDate date, String attendanceType) {
+        Attendance attendance = punchGuard.lockAttendanceRow(employee, date, "MANUAL_ADMIN");
 
         attendance.setEmployee(employee);
         attendance.setDate(date);
         
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(businessClock);
         String type = attendanceType != null ? attendanceType : "PUNCH_IN";
-        
-        boolean shouldRecalculate = false;
-        
-        switch (type.toUpperCase()) {
-            case "PUNCH_IN":
-                if (attendance.getCheckInTime() == null) {
-                    attendance.setCheckInTime(now);
-                }
+        PunchEvent.PunchType punchType = PunchEvent.PunchType.fromAttendanceType(type);
+        
+        if (punchType != null) {
+            boolean checkedIn = attendance.getCheckInTime() != null;
+            // Appended to the punch event log; hours are recalculated only if the punch changed them
+            attendanceProjector.record(attendance, punchType, now, PunchEvent.Source.ADMIN, PunchEvent.Kind.PUNCH);
+            if (punchType == PunchEvent.PunchType.CHECK_IN
+                    || (punchType == PunchEvent.PunchType.LUNCH_OUT && !checkedIn)) {
                 attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "LUNCH_OUT":
-                attendance.setLunchOutTime(now);
-                if (attendance.getCheckInTime() == null) {
-                    attendance.setCheckInTime(now);
-                    attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                }
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "LUNCH_IN":
-                attendance.setLunchInTime(now);
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "PUNCH_OUT":
-                attendance.setCheckOutTime(now);
-                if (attendance.getCheckInTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
+            }
         }
         
         attendance.setRecognitionMethod("MANUAL_ADMIN");
         attendance.setNotes("Manually marked by admin for emergency");
         
-        // Calculate working hours and overtime if check-in and check-out are available
-        if (shouldRecalculate && attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-            AttendanceCalculationService.CalculationResult result = 
-                calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
-        }
-        
         attendance = attendanceRepository.saveAndFlush(attendance);
         return mapToResponse(attendance);
     }
 
-    @Transactional
     public AttendanceResponse markAttendance(AttendanceRequest request) {
-        try {
-            Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(request.getEmployeeId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + request.getEmployeeId()));
+        Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(request.getEmployeeId())
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + request.getEmployeeId()));
 
-            LocalDate today = LocalDate.now();
-            Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
-                    .orElse(new Attendance());
+        // Concurrent punches of one employee (double tap, kiosk + phone) are applied one after another
+        // on the same row instead of racing to insert it (see AttendancePunchGuard)
+        return punchGuard.withEmployeeLock(employee.getId(), () -> transactionTemplate.execute(status ->
+                recordPunch(employee, request)));
+    }
 
-            // Ensure BaseEntity fields are set for new records
-            if (attendance.getId() == null) {
-                attendance.setDeleted(false);
-            }
+    private AttendanceResponse recordPunch(Employee employee, AttendanceRequest request) {
+        try {
+            LocalDate today = LocalDate.now(businessClock);
+            Attendance attendance = punchGuard.lockAttendanceRow(employee, today, request.getRecognitionMethod());
 
             attendance.setEmployee(employee);
             attendance.setDate(today);
             
-            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime now = LocalDateTime.now(businessClock);
             String attendanceType = request.getAttendanceType() != null ? request.getAttendanceType() : "PUNCH_IN";
+            PunchEvent.PunchType punchType = PunchEvent.PunchType.fromAttendanceType(attendanceType);
             
-            boolean shouldRecalculate = false;
-            
-            switch (attendanceType.toUpperCase()) {
-                case "PUNCH_IN":
-                    if (attendance.getCheckInTime() == null) {
-                        attendance.setCheckInTime(now);
-                    }
+            if (punchType != null) {
+                // Appended to the punch event log; hours are recalculated only if the punch changed them
+                attendanceProjector.record(attendance, punchType, now,
+                        PunchEvent.Source.fromRecognitionMethod(request.getRecognitionMethod()), PunchEvent.Kind.PUNCH);
+                if (punchType == PunchEvent.PunchType.CHECK_IN) {
                     attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                    // Recalculate if check-out was already done
-                    if (attendance.getCheckOutTime() != null) {
-                        shouldRecalculate = true;
-                    }
-                    break;
-                case "LUNCH_OUT":
-                    attendance.setLunchOutTime(now);
-                    if (attendance.getCheckInTime() == null) {
-                        attendance.setCheckInTime(now);
-                    }
-                    // Recalculate if check-out was already done (lunch times affect calculation)
-                    if (attendance.getCheckOutTime() != null) {
-                        shouldRecalculate = true;
-                    }
-                    break;
-                case "LUNCH_IN":
-                    attendance.setLunchInTime(now);
-                    // Recalculate if check-out was already done (lunch times affect calculation)
-                    if (attendance.getCheckOutTime() != null) {
-                        shouldRecalculate = true;
-                    }
-                    break;
-                case "PUNCH_OUT":
-                    attendance.setCheckOutTime(now);
-                    // Always recalculate when check-out is set (if check-in exists)
-                    if (attendance.getCheckInTime() != null) {
-                        shouldRecalculate = true;
-                    }
-                    break;
+                }
             }
             
             attendance.setRecognitionMethod(request.getRecognitionMethod());
             attendance.setFaceRecognitionConfidence(request.getFaceRecognitionConfidence());
             
-            // Calculate working hours and overtime if check-in and check-out are available
-            // This ensures calculation happens whenever any punch time is updated and both check-in and check-out exist
-            if (shouldRecalculate && attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-                AttendanceCalculationService.CalculationResult result = 
-                    calculationService.calculateAttendance(attendance);
-                attendance.setWorkingHours(result.getWorkingHours());
-                attendance.setOvertimeHours(result.getOvertimeHours());
-            }
-            
             attendance = attendanceRepository.saveAndFlush(attendance);
             
-            return mapToResponse(attendance);
+            AttendanceResponse response = mapToResponse(attendance);
+            attendanceEventPublisher.publishAfterCommit(
+                    AttendancePunchEvent.fromFacePunch(response, attendanceType.toUpperCase(), now));
+            return response;
         } catch (Exception e) {
             throw e;
         }
@@ -206,19 +168,13 @@ public class AttendanceService {
         Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(employeeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + employeeId));
 
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
                 .orElseThrow(() -> new ResourceNotFoundException("No attendance record found for today"));
 
-        attendance.setCheckOutTime(LocalDateTime.now());
-        
-        // Calculate working hours and overtime after check-out
-        if (attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-            AttendanceCalculationService.CalculationResult result = 
-                calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
-        }
+        // Working hours and overtime are recalculated by the projector
+        attendanceProjector.record(attendance, PunchEvent.PunchType.CHECK_OUT, LocalDateTime.now(businessClock),
+                PunchEvent.Source.fromRecognitionMethod(attendance.getRecognitionMethod()), PunchEvent.Kind.PUNCH);
         
         attendance = attendanceRepository.save(attendance);
         
@@ -229,7 +185,7 @@ public class AttendanceService {
         Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(employeeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found with ID: " + employeeId));
 
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
                 .orElse(null);
 
@@ -262,7 +218,7 @@ public class AttendanceService {
                         (a1, a2) -> a1 // In case of duplicates, keep first
                 ));
 
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         List<AttendanceResponse> responses = new ArrayList<>();
 
         // Iterate through all dates in range
@@ -309,7 +265,7 @@ public class AttendanceService {
      */
     @Transactional(readOnly = true)
     public List<AttendanceResponse> getDailyAttendance(LocalDate date) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         
         // Get all active employees
         List<Employee> activeEmployees = employeeRepository
@@ -353,7 +309,7 @@ public class AttendanceService {
      */
     @Transactional(readOnly = true)
     public Page<AttendanceResponse> getDailyAttendancePaginated(LocalDate date, Pageable pageable) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(businessClock);
         boolean isFutureDate = date.isAfter(today);
         
         if (isFutureDate) {
@@ -536,49 +492,18 @@ public class AttendanceService {
             attendance.setNotes("Attendance record created by admin when editing punch times");
         }
 
-        // Update the appropriate punch time based on punch type
-        boolean shouldRecalculate = false;
-        switch (punchType.toUpperCase()) {
-            case "CHECK_IN":
-                attendance.setCheckInTime(newTime);
-                attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "LUNCH_OUT":
-                attendance.setLunchOutTime(newTime);
-                if (attendance.getCheckInTime() == null) {
-                    attendance.setCheckInTime(newTime);
-                    attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                }
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "LUNCH_IN":
-                attendance.setLunchInTime(newTime);
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case "CHECK_OUT":
-                attendance.setCheckOutTime(newTime);
-                if (attendance.getCheckInTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid punch type: " + punchType);
+        // Record the correction in the punch event log; hours are recalculated only if it changed them
+        PunchEvent.PunchType type = PunchEvent.PunchType.parse(punchType);
+        Map<PunchEvent.PunchType, LocalDateTime> corrections = new EnumMap<>(PunchEvent.PunchType.class);
+        corrections.put(type, newTime);
+        if (type == PunchEvent.PunchType.LUNCH_OUT && attendance.getCheckInTime() == null) {
+            // A lunch out without check-in also sets the check-in
+            corrections.put(PunchEvent.PunchType.CHECK_IN, newTime);
         }
-
-        // Recalculate working hours and overtime after updating punch time
-        if (shouldRecalculate && attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-            AttendanceCalculationService.CalculationResult result = 
-                calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
+        if (corrections.containsKey(PunchEvent.PunchType.CHECK_IN)) {
+            attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
         }
+        attendanceProjector.record(attendance, corrections, PunchEvent.Source.ADMIN, PunchEvent.Kind.CORRECTION);
 
         attendance = attendanceRepository.saveAndFlush(attendance);
         return mapToResponse(attendance);
@@ -589,33 +514,11 @@ public class AttendanceService {
         Attendance attendance = attendanceRepository.findById(attendanceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attendance record not found with ID: " + attendanceId));
 
-        // Update the appropriate punch time based on punch type
-        switch (punchType.toUpperCase()) {
-            case "CHECK_IN":
-                attendance.setCheckInTime(newTime);
-                if (attendance.getStatus() == Attendance.AttendanceStatus.ABSENT) {
-                    attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-                }
-                break;
-            case "LUNCH_OUT":
-                attendance.setLunchOutTime(newTime);
-                break;
-            case "LUNCH_IN":
-                attendance.setLunchInTime(newTime);
-                break;
-            case "CHECK_OUT":
-                attendance.setCheckOutTime(newTime);
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid punch type: " + punchType);
-        }
-
-        // Recalculate working hours and overtime after updating punch time
-        if (attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-            AttendanceCalculationService.CalculationResult result = 
-                calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
+        // Record the correction in the punch event log; hours are recalculated only if it changed them
+        PunchEvent.PunchType type = PunchEvent.PunchType.parse(punchType);
+        attendanceProjector.record(attendance, type, newTime, PunchEvent.Source.ADMIN, PunchEvent.Kind.CORRECTION);
+        if (type == PunchEvent.PunchType.CHECK_IN && attendance.getStatus() == Attendance.AttendanceStatus.ABSENT) {
+            attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
         }
 
         attendance = attendanceRepository.save(attendance);
@@ -738,7 +641,20 @@ public class AttendanceService {
      */
     public Map<String, Long> getDailyAttendanceSummary(LocalDate date) {
         Map<String, Long> summary = new HashMap<>();
-        LocalDate today = LocalDate.now();
+        // Same business day as the live counters
+        LocalDate today = LocalDate.now(businessClock);
+        
+        // Today's summary is served from the live counters (no count queries per poll)
+        if (date.equals(today)) {
+            LiveAttendanceCounterService.LiveCounts liveCounts = liveAttendanceCounterService.getTodayCounts();
+            if (liveCounts != null) {
+                summary.put("present", liveCounts.getPresent());
+                summary.put("absent", liveCounts.getAbsent());
+                summary.put("notMarked", liveCounts.getNotMarked());
+                summary.put("onLeave", liveCounts.getOnLeave());
+                return summary;
+            }
+        }
         
         Long presentCount = attendanceRepository.countPresentByDate(date);
         Long absentCount = attendanceRepository.countAbsentByDate(date);
@@ -749,9 +665,8 @@ public class AttendanceService {
         // For today's date, calculate not marked employees
         if (date.equals(today) || date.isAfter(today)) {
             // Get total active employees
-            List<Employee> activeEmployees = employeeRepository
-                    .findByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE);
-            Long totalActiveEmployees = (long) activeEmployees.size();
+            long totalActiveEmployees = employeeRepository
+                    .countByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE);
             
             // Count employees who have marked attendance (any status)
             Long employeesWithAttendance = attendanceRepository.countEmployeesWithAttendanceByDate(date);
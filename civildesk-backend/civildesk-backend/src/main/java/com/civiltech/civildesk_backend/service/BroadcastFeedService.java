@@ -0,0 +1,398 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.NotificationResponse;
+import com.civiltech.civildesk_backend.model.BroadcastMessage;
+import com.civiltech.civildesk_backend.model.BroadcastReadMarker;
+import com.civiltech.civildesk_backend.repository.BroadcastMessageRepository;
+import com.civiltech.civildesk_backend.repository.BroadcastReadMarkerRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out-on-read broadcasts.
+ *
+ * A broadcast is stored once (broadcast_messages) and merged into each recipient's notification feed
+ * at read time, so sending one costs O(1) writes regardless of head count. Recipients are active
+ * employees, for broadcasts created after their account. Read state is one BroadcastReadMarker per
+ * user: read-through and hidden-through watermarks plus the few ids read or hidden individually. Ids of
+ * broadcasts that left the feed are pruned whenever a list is written; past its cap, the oldest hidden
+ * ids are folded into the hidden watermark, so a deleted broadcast never comes back.
+ *
+ * In the feed a broadcast is exposed as a NotificationResponse with a negative id (-broadcastId), so
+ * the existing read/delete endpoints work on both kinds of items without colliding with notification ids.
+ */
+@Service
+@Transactional
+public class BroadcastFeedService {
+
+    public static final String BROADCAST_TYPE = "BROADCAST_MESSAGE";
+
+    // NOT IN () is invalid SQL; excluded-id lists always carry this sentinel
+    private static final Long NO_ID = -1L;
+
+    // Upper bound on a marker's hidden ids (they also feed every feed query's NOT IN); older hides
+    // move the hidden watermark
+    static final int MAX_HIDDEN_IDS = 500;
+
+    @Autowired
+    private BroadcastMessageRepository broadcastMessageRepository;
+
+    @Autowired
+    private BroadcastReadMarkerRepository markerRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    public static boolean isBroadcastFeedId(Long id) {
+        return id != null && id < 0;
+    }
+
+    public static Long toFeedId(Long broadcastId) {
+        return -broadcastId;
+    }
+
+    public static Long toBroadcastId(Long feedId) {
+        return -feedId;
+    }
+
+    /**
+     * Newest broadcasts in the user's feed (up to limit) and the total number of feed broadcasts
+     */
+    @Transactional(readOnly = true)
+    public Feed getFeed(Long userId, int limit) {
+        return getFeed(userId, null, null, limit);
+    }
+
+    /**
+     * Feed broadcasts after a cursor in feed order (createdAt and feed id of the last item the client
+     * has; null for the first page), up to limit, and the total number of feed broadcasts
+     */
+    @Transactional(readOnly = true)
+    public Feed getFeed(Long userId, LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        LocalDateTime audienceSince = audienceSince(userId);
+        if (audienceSince == null) {
+            return new Feed(new ArrayList<>(), 0);
+        }
+        BroadcastReadMarker marker = markerRepository.findByUserId(userId).orElse(null);
+        LocalDateTime after = feedAfter(audienceSince, marker);
+        Set<Long> excluded = excludedIds(marker, false);
+
+        Pageable page = PageRequest.of(0, Math.max(limit, 1));
+        List<BroadcastMessage> broadcasts = beforeCreatedAt != null && beforeId != null
+                // Feed ids are -broadcastId, so "feed id below the cursor" is "broadcast id above -cursor"
+                ? broadcastMessageRepository.findFeedBroadcastsBefore(after, excluded, beforeCreatedAt, -beforeId, page)
+                : broadcastMessageRepository.findFeedBroadcasts(after, excluded, page);
+        List<NotificationResponse> items = broadcasts
+                .stream()
+                .map(broadcast -> toResponse(broadcast, isRead(broadcast, marker)))
+                .collect(Collectors.toList());
+        long total = broadcastMessageRepository.countFeedBroadcasts(after, excluded);
+        return new Feed(items, total);
+    }
+
+    /**
+     * Unread broadcasts in the user's feed, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<NotificationResponse> getUnread(Long userId) {
+        LocalDateTime audienceSince = audienceSince(userId);
+        if (audienceSince == null) {
+            return new ArrayList<>();
+        }
+        BroadcastReadMarker marker = markerRepository.findByUserId(userId).orElse(null);
+        return broadcastMessageRepository
+                .findFeedBroadcasts(unreadAfter(audienceSince, marker), excludedIds(marker, true), Pageable.unpaged())
+                .stream()
+                .map(broadcast -> toResponse(broadcast, false))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public long countUnread(Long userId) {
+        LocalDateTime audienceSince = audienceSince(userId);
+        if (audienceSince == null) {
+            return 0;
+        }
+        BroadcastReadMarker marker = markerRepository.findByUserId(userId).orElse(null);
+        return broadcastMessageRepository.countFeedBroadcasts(unreadAfter(audienceSince, marker), excludedIds(marker, true));
+    }
+
+    /**
+     * Live delivery of a just-published broadcast: the feed item (built once, unread) and which of the
+     * given users receive it, in one query for all of them. A new broadcast cannot be read or hidden
+     * yet, so only the audience decides. Null if the broadcast is no longer active.
+     */
+    @Transactional(readOnly = true)
+    public Delivery getDelivery(Long broadcastId, Collection<Long> userIds) {
+        BroadcastMessage broadcast = broadcastMessageRepository.findById(broadcastId).orElse(null);
+        if (broadcast == null || Boolean.TRUE.equals(broadcast.getDeleted()) || !Boolean.TRUE.equals(broadcast.getIsActive())
+                || broadcast.getCreatedAt() == null) {
+            return null;
+        }
+        Set<Long> recipients = new HashSet<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : employeeRepository.findBroadcastAudienceSinceByUserIds(userIds)) {
+                LocalDateTime audienceSince = (LocalDateTime) row[1];
+                if (audienceSince != null && broadcast.getCreatedAt().isAfter(audienceSince)) {
+                    recipients.add((Long) row[0]);
+                }
+            }
+        }
+        return new Delivery(toResponse(broadcast, false), recipients);
+    }
+
+    /**
+     * Mark one broadcast as read for the user
+     */
+    public NotificationResponse markAsRead(Long userId, Long broadcastId) {
+        BroadcastMessage broadcast = findVisible(userId, broadcastId);
+        if (broadcast == null) {
+            throw new RuntimeException("Notification not found or access denied");
+        }
+
+        BroadcastReadMarker marker = getOrCreateMarker(userId);
+        if (!isRead(broadcast, marker)) {
+            marker.getReadIds().add(broadcastId);
+            prune(marker);
+            markerRepository.save(marker);
+        }
+        return toResponse(broadcast, true);
+    }
+
+    /**
+     * Move the watermark to now: every broadcast so far is read
+     */
+    public void markAllAsRead(Long userId) {
+        if (audienceSince(userId) == null) {
+            return;
+        }
+        BroadcastReadMarker marker = getOrCreateMarker(userId);
+        marker.setReadThrough(LocalDateTime.now());
+        marker.getReadIds().clear();
+        markerRepository.save(marker);
+    }
+
+    /**
+     * Remove a broadcast from the user's feed
+     *
+     * @return false if the broadcast is not in the user's feed
+     */
+    public boolean hide(Long userId, Long broadcastId) {
+        BroadcastMessage broadcast = findVisible(userId, broadcastId);
+        if (broadcast == null) {
+            return false;
+        }
+        BroadcastReadMarker marker = getOrCreateMarker(userId);
+        marker.getHiddenIds().add(broadcastId);
+        marker.getReadIds().remove(broadcastId);
+        prune(marker);
+        markerRepository.save(marker);
+        return true;
+    }
+
+    // ==================== Presentation (shared with push payloads) ====================
+
+    public NotificationResponse toResponse(BroadcastMessage broadcast, boolean read) {
+        return new NotificationResponse(
+                toFeedId(broadcast.getId()),
+                formatTitle(broadcast.getTitle(), broadcast.getPriority()),
+                formatBody(broadcast.getMessage()),
+                BROADCAST_TYPE,
+                buildData(broadcast.getId(), broadcast.getPriority()),
+                read,
+                broadcast.getCreatedAt(),
+                null
+        );
+    }
+
+    public static String formatTitle(String title, BroadcastMessage.Priority priority) {
+        if (priority == BroadcastMessage.Priority.URGENT) {
+            return "🚨 URGENT: " + title;
+        } else if (priority == BroadcastMessage.Priority.HIGH) {
+            return "⚠️ " + title;
+        }
+        return "📢 " + title;
+    }
+
+    // Truncate message if too long for notification body
+    public static String formatBody(String message) {
+        return message.length() > 150
+                ? message.substring(0, 147) + "..."
+                : message;
+    }
+
+    public static Map<String, String> buildData(Long broadcastId, BroadcastMessage.Priority priority) {
+        Map<String, String> data = new HashMap<>();
+        data.put("broadcastId", broadcastId.toString());
+        data.put("priority", priority.name());
+        return data;
+    }
+
+    // ==================== Helpers ====================
+
+    // Null when the user does not receive broadcasts
+    private LocalDateTime audienceSince(Long userId) {
+        List<LocalDateTime> since = employeeRepository.findBroadcastAudienceSince(userId);
+        return since.isEmpty() ? null : since.get(0);
+    }
+
+    private BroadcastMessage findVisible(Long userId, Long broadcastId) {
+        LocalDateTime audienceSince = audienceSince(userId);
+        if (audienceSince == null || broadcastId == null) {
+            return null;
+        }
+        BroadcastMessage broadcast = broadcastMessageRepository.findById(broadcastId).orElse(null);
+        if (broadcast == null || Boolean.TRUE.equals(broadcast.getDeleted()) || !Boolean.TRUE.equals(broadcast.getIsActive())
+                || broadcast.getCreatedAt() == null || !broadcast.getCreatedAt().isAfter(audienceSince)) {
+            return null;
+        }
+        BroadcastReadMarker marker = markerRepository.findByUserId(userId).orElse(null);
+        if (marker != null && (marker.getHiddenIds().contains(broadcastId)
+                || !broadcast.getCreatedAt().isAfter(feedAfter(audienceSince, marker)))) {
+            return null;
+        }
+        return broadcast;
+    }
+
+    private boolean isRead(BroadcastMessage broadcast, BroadcastReadMarker marker) {
+        if (marker == null) {
+            return false;
+        }
+        if (marker.getReadThrough() != null && broadcast.getCreatedAt() != null
+                && !broadcast.getCreatedAt().isAfter(marker.getReadThrough())) {
+            return true;
+        }
+        return marker.getReadIds().contains(broadcast.getId());
+    }
+
+    // In the feed = created after both the audience start and the hidden watermark
+    private LocalDateTime feedAfter(LocalDateTime audienceSince, BroadcastReadMarker marker) {
+        if (marker != null && marker.getHiddenThrough() != null && marker.getHiddenThrough().isAfter(audienceSince)) {
+            return marker.getHiddenThrough();
+        }
+        return audienceSince;
+    }
+
+    // Unread = in the feed and created after the read watermark
+    private LocalDateTime unreadAfter(LocalDateTime audienceSince, BroadcastReadMarker marker) {
+        LocalDateTime after = feedAfter(audienceSince, marker);
+        if (marker != null && marker.getReadThrough() != null && marker.getReadThrough().isAfter(after)) {
+            return marker.getReadThrough();
+        }
+        return after;
+    }
+
+    private Set<Long> excludedIds(BroadcastReadMarker marker, boolean includeRead) {
+        Set<Long> excluded = new LinkedHashSet<>();
+        excluded.add(NO_ID);
+        if (marker != null) {
+            excluded.addAll(marker.getHiddenIds());
+            if (includeRead) {
+                excluded.addAll(marker.getReadIds());
+            }
+        }
+        return excluded;
+    }
+
+    // Drop ids of broadcasts no longer in any feed (deleted or deactivated), then cap the hidden list by
+    // moving the hidden watermark up to the oldest hides. Broadcasts the user kept that are no newer
+    // than those hides leave the feed with them.
+    private void prune(BroadcastReadMarker marker) {
+        Set<Long> ids = new HashSet<>(marker.getHiddenIds());
+        ids.addAll(marker.getReadIds());
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> active = new HashSet<>(broadcastMessageRepository.findActiveIds(ids));
+        marker.getReadIds().retainAll(active);
+        List<Long> hidden = marker.getHiddenIds();
+        hidden.retainAll(active);
+        if (hidden.size() > MAX_HIDDEN_IDS) {
+            // By creation time, not id: pooled ids from several nodes do not follow it exactly
+            List<BroadcastMessage> byAge = broadcastMessageRepository.findAllById(hidden).stream()
+                    .filter(broadcast -> broadcast.getCreatedAt() != null)
+                    .sorted(Comparator.comparing(BroadcastMessage::getCreatedAt).thenComparing(BroadcastMessage::getId))
+                    .collect(Collectors.toList());
+            if (byAge.size() > MAX_HIDDEN_IDS) {
+                LocalDateTime hiddenThrough = byAge.get(byAge.size() - MAX_HIDDEN_IDS - 1).getCreatedAt();
+                if (marker.getHiddenThrough() == null || hiddenThrough.isAfter(marker.getHiddenThrough())) {
+                    marker.setHiddenThrough(hiddenThrough);
+                }
+                hidden.removeAll(byAge.stream()
+                        .filter(broadcast -> !broadcast.getCreatedAt().isAfter(marker.getHiddenThrough()))
+                        .map(BroadcastMessage::getId)
+                        .collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    // The user's marker, created with ON CONFLICT so concurrent first mark-reads of one user do not
+    // fail on the unique user_id, and row-locked until the transaction ends
+    private BroadcastReadMarker getOrCreateMarker(Long userId) {
+        return markerRepository.findByUserIdForUpdate(userId).orElseGet(() -> {
+            markerRepository.insertIfMissing(userId);
+            return markerRepository.findByUserIdForUpdate(userId)
+                    .orElseThrow(() -> new IllegalStateException("Broadcast read marker missing after insert for user " + userId));
+        });
+    }
+
+    /**
+     * A published broadcast's feed item and its connected recipients
+     */
+    public static class Delivery {
+
+        private final NotificationResponse item;
+        private final Set<Long> recipients;
+
+        public Delivery(NotificationResponse item, Set<Long> recipients) {
+            this.item = item;
+            this.recipients = recipients;
+        }
+
+        public NotificationResponse getItem() {
+            return item;
+        }
+
+        public Set<Long> getRecipients() {
+            return recipients;
+        }
+    }
+
+    /**
+     * One page worth of feed broadcasts plus the total for paging
+     */
+    public static class Feed {
+
+        private final List<NotificationResponse> items;
+        private final long total;
+
+        public Feed(List<NotificationResponse> items, long total) {
+            this.items = items;
+            this.total = total;
+        }
+
+        public List<NotificationResponse> getItems() {
+            return items;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
@@ -1,19 +1,17 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.cache.CacheInvalidator;
 import com.civiltech.civildesk_backend.dto.BroadcastMessageRequest;
 import com.civiltech.civildesk_backend.dto.BroadcastMessageResponse;
 import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
 import com.civiltech.civildesk_backend.exception.UnauthorizedException;
 import com.civiltech.civildesk_backend.model.BroadcastMessage;
-import com.civiltech.civildesk_backend.model.Employee;
 import com.civiltech.civildesk_backend.model.User;
 import com.civiltech.civildesk_backend.repository.BroadcastMessageRepository;
-import com.civiltech.civildesk_backend.repository.EmployeeRepository;
 import com.civiltech.civildesk_backend.security.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -37,10 +35,9 @@ public class BroadcastService {
     private NotificationService notificationService;
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private CacheInvalidator cacheInvalidator;
 
     // Create broadcast message (Admin/HR only)
-    @CacheEvict(value = "broadcasts", allEntries = true)
     public BroadcastMessageResponse createBroadcast(BroadcastMessageRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -59,6 +56,7 @@ public class BroadcastService {
         broadcast.setDeleted(false);
 
         broadcast = broadcastMessageRepository.save(broadcast);
+        evictBroadcastCaches(broadcast);
 
         // Send notification to all employees if broadcast is active
         if (broadcast.getIsActive()) {
@@ -69,7 +67,6 @@ public class BroadcastService {
     }
 
     // Update broadcast message (Admin/HR only)
-    @CacheEvict(value = "broadcasts", key = "#id", allEntries = true)
     public BroadcastMessageResponse updateBroadcast(@NonNull Long id, BroadcastMessageRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -97,6 +94,7 @@ public class BroadcastService {
         broadcast.setUpdatedBy(currentUser);
 
         broadcast = broadcastMessageRepository.save(broadcast);
+        evictBroadcastCaches(broadcast);
 
         // Send notification if broadcast was just activated
         if (!wasActive && isNowActive) {
@@ -107,7 +105,6 @@ public class BroadcastService {
     }
 
     // Delete broadcast message (Admin/HR only) - Soft delete
-    @CacheEvict(value = "broadcasts", key = "#id", allEntries = true)
     public void deleteBroadcast(@NonNull Long id) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -128,10 +125,11 @@ public class BroadcastService {
         broadcast.setDeleted(true);
         broadcast.setUpdatedBy(currentUser);
         broadcastMessageRepository.save(broadcast);
+        evictBroadcastCaches(broadcast);
     }
 
     // Get all broadcast messages (Admin/HR only)
-    @Cacheable(value = "broadcasts", key = "'all-broadcasts'")
+    @Cacheable(value = "broadcasts", key = "'all-broadcasts'", sync = true)
     @Transactional(readOnly = true)
     public List<BroadcastMessageResponse> getAllBroadcasts() {
         User currentUser = SecurityUtils.getCurrentUser();
@@ -164,7 +162,7 @@ public class BroadcastService {
     }
 
     // Get active broadcast messages (for employees)
-    @Cacheable(value = "broadcasts", key = "'active-broadcasts'")
+    @Cacheable(value = "broadcasts", key = "'active-broadcasts'", sync = true)
     @Transactional(readOnly = true)
     public List<BroadcastMessageResponse> getActiveBroadcasts() {
         List<BroadcastMessage> broadcasts = broadcastMessageRepository.findActiveBroadcasts();
@@ -206,49 +204,25 @@ public class BroadcastService {
         return convertToResponse(broadcast);
     }
 
-    // Send broadcast notification to all employees
+    // Publish to all employees: stored once and merged into feeds at read time, one multicast push
     private void sendBroadcastNotificationToAllEmployees(BroadcastMessage broadcast) {
         try {
-            // Get all active employees
-            List<Employee> employees = employeeRepository.findByEmploymentStatusAndDeletedFalse(
-                    Employee.EmploymentStatus.ACTIVE
-            );
-
-            int successCount = 0;
-            int skippedCount = 0;
-            int errorCount = 0;
-
-            for (Employee employee : employees) {
-                if (employee.getUser() != null && employee.getUser().getId() != null) {
-                    try {
-                        notificationService.notifyBroadcastMessage(
-                                employee.getUser().getId(),
-                                broadcast.getId(),
-                                broadcast.getTitle(),
-                                broadcast.getMessage(),
-                                broadcast.getPriority()
-                        );
-                        successCount++;
-                        logger.debug("Broadcast notification sent to employee: {} (userId: {})", 
-                                employee.getId(), employee.getUser().getId());
-                    } catch (Exception e) {
-                        errorCount++;
-                        logger.error("Failed to send broadcast notification to employee: {} (userId: {})", 
-                                employee.getId(), employee.getUser().getId(), e);
-                    }
-                } else {
-                    skippedCount++;
-                    logger.warn("Skipping employee {} - no user account found", employee.getId());
-                }
-            }
-
-            logger.info("Broadcast notification completed - Total: {}, Success: {}, Errors: {}, Skipped: {}", 
-                    employees.size(), successCount, errorCount, skippedCount);
+            notificationService.publishBroadcast(broadcast);
+            logger.info("Broadcast {} published to employee feeds", broadcast.getId());
         } catch (Exception e) {
             logger.error("Failed to send broadcast notifications to employees", e);
         }
     }
 
+    // Broadcasts have no per-user lists: evict the message itself and the two shared lists
+    private void evictBroadcastCaches(BroadcastMessage broadcast) {
+        cacheInvalidator.invalidate("broadcasts")
+                .entity(broadcast.getId())
+                .aggregate("all-broadcasts")
+                .aggregate("active-broadcasts")
+                .evict();
+    }
+
     // Convert entity to response
     private BroadcastMessageResponse convertToResponse(BroadcastMessage broadcast) {
         BroadcastMessageResponse response = new BroadcastMessageResponse();
@@ -3,19 +3,24 @@ package com.civiltech.civildesk_backend.service;
 import com.civiltech.civildesk_backend.dto.DashboardStatsResponse;
 import com.civiltech.civildesk_backend.dto.EmployeeDashboardStatsResponse;
 import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
+import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
 import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.LeaveRepository;
 import com.civiltech.civildesk_backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -29,42 +34,45 @@ public class DashboardService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
+    @Autowired
+    private Clock businessClock;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private static final int WEEKLY_DAYS = 7;
+
     /**
      * Get admin dashboard statistics with optimized queries and caching.
-     * Uses database aggregation queries instead of loading all employees into memory.
+     * Uses database aggregation queries instead of loading all employees into memory:
+     * one query for employee counts, one for departments and two grouped attendance/leave queries.
      * Cached for 5 minutes to reduce database load.
      */
-    @Cacheable(value = "dashboard", key = "'admin-stats'")
+    @Cacheable(value = "dashboard", key = "'admin-stats'", sync = true)
     public DashboardStatsResponse getAdminDashboardStats() {
         DashboardStatsResponse response = new DashboardStatsResponse();
 
-        // Employee Stats - Using optimized count queries
+        LocalDate today = LocalDate.now(businessClock);
+        LocalDate firstDayOfMonth = today.withDayOfMonth(1);
+
+        // Employee Stats - all counts from a single conditional-aggregate query
         DashboardStatsResponse.EmployeeStats employeeStats = new DashboardStatsResponse.EmployeeStats();
-        long totalEmployees = employeeRepository.count();
-        long activeEmployees = employeeRepository.countByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE);
-        long inactiveEmployees = employeeRepository.countByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.INACTIVE);
-
-        // Get employees by type - Using optimized aggregation queries
-        long fullTimeCount = employeeRepository.countByEmploymentTypeAndDeletedFalse(Employee.EmploymentType.FULL_TIME);
-        long partTimeCount = employeeRepository.countByEmploymentTypeAndDeletedFalse(Employee.EmploymentType.PART_TIME);
-        long contractCount = employeeRepository.countByEmploymentTypeAndDeletedFalse(Employee.EmploymentType.CONTRACT);
-        long internCount = employeeRepository.countByEmploymentTypeAndDeletedFalse(Employee.EmploymentType.INTERN);
-
-        // New employees this month - Using optimized query with date filter
-        LocalDate firstDayOfMonth = LocalDate.now().withDayOfMonth(1);
-        LocalDateTime startOfMonth = firstDayOfMonth.atStartOfDay();
-        long newEmployeesThisMonth = employeeRepository.countNewEmployeesSince(startOfMonth);
-
-        employeeStats.setTotalEmployees(totalEmployees);
-        employeeStats.setActiveEmployees(activeEmployees);
-        employeeStats.setInactiveEmployees(inactiveEmployees);
-        employeeStats.setNewEmployeesThisMonth(newEmployeesThisMonth);
-        employeeStats.setTotalEmployeesByTypeFullTime(fullTimeCount);
-        employeeStats.setTotalEmployeesByTypePartTime(partTimeCount);
-        employeeStats.setTotalEmployeesByTypeContract(contractCount);
-        employeeStats.setTotalEmployeesByTypeIntern(internCount);
+        List<Object[]> employeeCountRows = employeeRepository.getDashboardEmployeeCounts(firstDayOfMonth.atStartOfDay());
+        Object[] employeeCounts = employeeCountRows.isEmpty() ? new Object[8] : employeeCountRows.get(0);
+
+        employeeStats.setTotalEmployees(toLong(employeeCounts[0]));
+        employeeStats.setActiveEmployees(toLong(employeeCounts[1]));
+        employeeStats.setInactiveEmployees(toLong(employeeCounts[2]));
+        employeeStats.setTotalEmployeesByTypeFullTime(toLong(employeeCounts[3]));
+        employeeStats.setTotalEmployeesByTypePartTime(toLong(employeeCounts[4]));
+        employeeStats.setTotalEmployeesByTypeContract(toLong(employeeCounts[5]));
+        employeeStats.setTotalEmployeesByTypeIntern(toLong(employeeCounts[6]));
+        employeeStats.setNewEmployeesThisMonth(toLong(employeeCounts[7]));
 
         // Department Stats - Using optimized GROUP BY query
         DashboardStatsResponse.DepartmentStats departmentStats = new DashboardStatsResponse.DepartmentStats();
@@ -81,13 +89,9 @@ public class DashboardService {
         departmentStats.setDepartmentCounts(departmentCounts);
         departmentStats.setTotalDepartments((long) departmentCounts.size());
 
-        // Attendance Stats (Placeholder - will be implemented in Phase 5)
-        DashboardStatsResponse.AttendanceStats attendanceStats = new DashboardStatsResponse.AttendanceStats();
-        attendanceStats.setPresentToday(0L);
-        attendanceStats.setAbsentToday(0L);
-        attendanceStats.setOnLeaveToday(0L);
-        attendanceStats.setAttendancePercentageThisMonth(0.0);
-        attendanceStats.setWeeklyAttendance(new ArrayList<>());
+        // Attendance Stats - two grouped queries cover today, the last 7 days and the month
+        DashboardStatsResponse.AttendanceStats attendanceStats =
+                buildAttendanceStats(today, firstDayOfMonth, employeeStats.getActiveEmployees());
 
         // Recent Activity (Placeholder)
         DashboardStatsResponse.RecentActivity recentActivity = new DashboardStatsResponse.RecentActivity();
@@ -101,6 +105,87 @@ public class DashboardService {
         return response;
     }
 
+    /**
+     * Build today's counts, the 7-day series and the monthly percentage from per-day aggregates.
+     * Present counts PRESENT, LATE and HALF_DAY rows; on leave counts approved leaves covering the day.
+     * Past days use ABSENT rows; today has none until the absent marking job runs, so it counts
+     * active employees that are neither present nor on leave.
+     */
+    private DashboardStatsResponse.AttendanceStats buildAttendanceStats(LocalDate today, LocalDate firstDayOfMonth,
+                                                                        long activeEmployees) {
+        LocalDate weekStart = today.minusDays(WEEKLY_DAYS - 1);
+        LocalDate rangeStart = weekStart.isBefore(firstDayOfMonth) ? weekStart : firstDayOfMonth;
+
+        Map<LocalDate, long[]> countsByDate = new HashMap<>();
+        for (Object[] row : attendanceRepository.countByDateAndStatusBetween(rangeStart, today)) {
+            long[] counts = countsByDate.computeIfAbsent(toLocalDate(row[0]), d -> new long[2]);
+            Attendance.AttendanceStatus status = (Attendance.AttendanceStatus) row[1];
+            long count = toLong(row[2]);
+            if (status == Attendance.AttendanceStatus.ABSENT) {
+                counts[1] += count;
+            } else if (status != Attendance.AttendanceStatus.ON_LEAVE) {
+                counts[0] += count;
+            }
+        }
+
+        Map<LocalDate, Long> onLeaveByDate = new HashMap<>();
+        for (Object[] row : leaveRepository.countApprovedLeavesPerDay(rangeStart, today)) {
+            onLeaveByDate.put(toLocalDate(row[0]), toLong(row[1]));
+        }
+
+        List<DashboardStatsResponse.DailyAttendance> weeklyAttendance = new ArrayList<>();
+        long presentThisMonth = 0;
+        long absentThisMonth = 0;
+        DashboardStatsResponse.DailyAttendance todayAttendance = null;
+
+        for (LocalDate date = rangeStart; !date.isAfter(today); date = date.plusDays(1)) {
+            long[] counts = countsByDate.getOrDefault(date, new long[2]);
+            long present = counts[0];
+            long onLeave = onLeaveByDate.getOrDefault(date, 0L);
+            long absent = date.equals(today)
+                    ? Math.max(counts[1], activeEmployees - present - onLeave)
+                    : counts[1];
+
+            DashboardStatsResponse.DailyAttendance day =
+                    new DashboardStatsResponse.DailyAttendance(date.format(DATE_FORMATTER), present, absent, onLeave);
+            if (!date.isBefore(weekStart)) {
+                weeklyAttendance.add(day);
+            }
+            if (!date.isBefore(firstDayOfMonth)) {
+                presentThisMonth += present;
+                absentThisMonth += absent;
+            }
+            if (date.equals(today)) {
+                todayAttendance = day;
+            }
+        }
+
+        long markedThisMonth = presentThisMonth + absentThisMonth;
+        double percentage = markedThisMonth > 0
+                ? Math.round(presentThisMonth * 10000.0 / markedThisMonth) / 100.0
+                : 0.0;
+
+        DashboardStatsResponse.AttendanceStats attendanceStats = new DashboardStatsResponse.AttendanceStats();
+        attendanceStats.setPresentToday(todayAttendance.getPresent());
+        attendanceStats.setAbsentToday(todayAttendance.getAbsent());
+        attendanceStats.setOnLeaveToday(todayAttendance.getOnLeave());
+        attendanceStats.setAttendancePercentageThisMonth(percentage);
+        attendanceStats.setWeeklyAttendance(weeklyAttendance);
+        return attendanceStats;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    // Native queries return java.sql.Date, JPQL returns LocalDate
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
     /**
      * Get employee dashboard statistics with caching.
      * Cached per user to reduce database load.
@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.cache.CacheInvalidator;
 import com.civiltech.civildesk_backend.dto.EmployeeRequest;
 import com.civiltech.civildesk_backend.dto.EmployeeResponse;
 import com.civiltech.civildesk_backend.exception.BadRequestException;
@@ -11,9 +12,7 @@ import com.civiltech.civildesk_backend.repository.UserRepository;
 import com.civiltech.civildesk_backend.security.SecurityUtils;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -46,6 +45,9 @@ public class EmployeeService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
     private static final SecureRandom random = new SecureRandom();
     private static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     private static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
@@ -53,10 +55,6 @@ public class EmployeeService {
     private static final String SPECIAL = "!@#$%&*";
     private static final String ALL_CHARS = UPPER + LOWER + DIGITS + SPECIAL;
 
-    @Caching(evict = {
-        @CacheEvict(value = "employees", allEntries = true),
-        @CacheEvict(value = "dashboard", allEntries = true)
-    })
     public EmployeeResponse createEmployee(EmployeeRequest request) {
         // Validate uniqueness
         validateUniqueness(request, null);
@@ -111,14 +109,14 @@ public class EmployeeService {
 
         Employee savedEmployee = employeeRepository.save(employee);
 
+        // A new employee only changes the admin counts
+        cacheInvalidator.invalidate("dashboard")
+                .aggregate("admin-stats")
+                .evict();
+
         return mapToResponse(savedEmployee);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "employee", key = "#id"),
-        @CacheEvict(value = "employees", allEntries = true),
-        @CacheEvict(value = "dashboard", allEntries = true)
-    })
     public EmployeeResponse updateEmployee(Long id, EmployeeRequest request) {
         Long employeeId = Objects.requireNonNull(id, "Employee ID cannot be null");
         Employee employee = employeeRepository.findById(employeeId)
@@ -138,6 +136,7 @@ public class EmployeeService {
         calculateTotalSalary(employee);
 
         Employee updatedEmployee = employeeRepository.save(employee);
+        evictEmployeeCaches(updatedEmployee);
 
         return mapToResponse(updatedEmployee);
     }
@@ -230,11 +229,6 @@ public class EmployeeService {
         return employees.map(this::mapToResponse);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "employee", key = "#id"),
-        @CacheEvict(value = "employees", allEntries = true),
-        @CacheEvict(value = "dashboard", allEntries = true)
-    })
     public void deleteEmployee(Long id) {
         Long employeeId = Objects.requireNonNull(id, "Employee ID cannot be null");
         Employee employee = employeeRepository.findById(employeeId)
@@ -258,6 +252,21 @@ public class EmployeeService {
         employee.setIsActive(false);
         employee.setEmploymentStatus(Employee.EmploymentStatus.TERMINATED);
         employeeRepository.save(employee);
+        evictEmployeeCaches(employee);
+    }
+
+    // Evict the employee under both of its keys, its own dashboard stats and the admin counts
+    private void evictEmployeeCaches(Employee employee) {
+        cacheInvalidator.invalidate("employee")
+                .entity(employee.getId())
+                .entity("empId:" + employee.getEmployeeId())
+                .evict();
+
+        Long userId = employee.getUser() != null ? employee.getUser().getId() : null;
+        cacheInvalidator.invalidate("dashboard")
+                .owner("employee-stats:", userId)
+                .aggregate("admin-stats")
+                .evict();
     }
 
     /**
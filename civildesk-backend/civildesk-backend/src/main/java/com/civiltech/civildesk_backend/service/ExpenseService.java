@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.cache.CacheInvalidator;
 import com.civiltech.civildesk_backend.dto.ExpenseRequest;
 import com.civiltech.civildesk_backend.dto.ExpenseResponse;
 import com.civiltech.civildesk_backend.dto.ExpenseReviewRequest;
@@ -16,9 +17,7 @@ import com.civiltech.civildesk_backend.security.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
@@ -49,8 +48,10 @@ public class ExpenseService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
     // Apply for expense
-    @CacheEvict(value = "expenses", allEntries = true)
     public ExpenseResponse applyExpense(ExpenseRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -79,6 +80,7 @@ public class ExpenseService {
         }
 
         expense = expenseRepository.save(expense);
+        evictExpenseCaches(expense);
 
         ExpenseResponse response = convertToResponse(expense);
         
@@ -106,10 +108,6 @@ public class ExpenseService {
     }
 
     // Update expense (only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "expenses", key = "#expenseId"),
-        @CacheEvict(value = "expenses", allEntries = true)
-    })
     public ExpenseResponse updateExpense(@NonNull Long expenseId, ExpenseRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -151,15 +149,12 @@ public class ExpenseService {
         }
 
         expense = expenseRepository.save(expense);
+        evictExpenseCaches(expense);
 
         return convertToResponse(expense);
     }
 
     // Delete expense (only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "expenses", key = "#expenseId"),
-        @CacheEvict(value = "expenses", allEntries = true)
-    })
     public void deleteExpense(@NonNull Long expenseId) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -184,6 +179,7 @@ public class ExpenseService {
         // Soft delete
         expense.setDeleted(true);
         expenseRepository.save(expense);
+        evictExpenseCaches(expense);
     }
 
     // Get all expenses for current employee
@@ -203,7 +199,7 @@ public class ExpenseService {
     }
 
     // Get all expenses (Admin/HR only)
-    @Cacheable(value = "expenses", key = "'all-expenses'")
+    @Cacheable(value = "expenses", key = "'all-expenses'", sync = true)
     @Transactional(readOnly = true)
     public List<ExpenseResponse> getAllExpenses() {
         User currentUser = SecurityUtils.getCurrentUser();
@@ -332,10 +328,6 @@ public class ExpenseService {
     }
 
     // Review expense (Approve/Reject) - Admin/HR only
-    @Caching(evict = {
-        @CacheEvict(value = "expenses", key = "#expenseId"),
-        @CacheEvict(value = "expenses", allEntries = true)
-    })
     public ExpenseResponse reviewExpense(@NonNull Long expenseId, ExpenseReviewRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -370,6 +362,7 @@ public class ExpenseService {
         expense.setReviewNote(request.getReviewNote());
 
         expense = expenseRepository.save(expense);
+        evictExpenseCaches(expense);
 
         // Send notification to employee
         if (expense.getEmployee() != null && expense.getEmployee().getUser() != null 
@@ -395,6 +388,20 @@ public class ExpenseService {
         return convertToResponse(expense);
     }
 
+    // Evict only the entries this expense appears in: its own entry, the owner's list and the admin lists
+    private void evictExpenseCaches(Expense expense) {
+        Long ownerUserId = expense.getEmployee() != null && expense.getEmployee().getUser() != null
+                ? expense.getEmployee().getUser().getId()
+                : null;
+
+        cacheInvalidator.invalidate("expenses")
+                .entity(expense.getId())
+                .owner("my-expenses:", ownerUserId)
+                .aggregate("all-expenses")
+                .aggregate("expenses-status:", Expense.ExpenseStatus.values())
+                .evict();
+    }
+
     // Helper method to convert Expense entity to ExpenseResponse
     private ExpenseResponse convertToResponse(Expense expense) {
         ExpenseResponse response = new ExpenseResponse();
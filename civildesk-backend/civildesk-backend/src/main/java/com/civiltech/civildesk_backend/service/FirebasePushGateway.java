@@ -0,0 +1,130 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.SendResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FCM implementation of PushGateway using sendEachForMulticast / sendEach (one call per batch of up to 500 tokens)
+ */
+@Component
+public class FirebasePushGateway implements PushGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebasePushGateway.class);
+
+    // Data-only payload; the apps build the visible notification themselves
+    private static final AndroidConfig ANDROID_CONFIG = AndroidConfig.builder()
+            .setPriority(AndroidConfig.Priority.HIGH)
+            .build();
+
+    private static final ApnsConfig APNS_CONFIG = ApnsConfig.builder()
+            .setAps(Aps.builder()
+                    .setSound("default")
+                    .build())
+            .build();
+
+    @Autowired(required = false)
+    private FirebaseMessaging firebaseMessaging;
+
+    @Override
+    public boolean isAvailable() {
+        return firebaseMessaging != null;
+    }
+
+    @Override
+    public BatchResult sendMulticast(List<String> tokens, Map<String, String> data) throws Exception {
+        MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .putAllData(data)
+                .setAndroidConfig(ANDROID_CONFIG)
+                .setApnsConfig(APNS_CONFIG)
+                .build();
+
+        // Same payload for every token: if any was accepted, INVALID_ARGUMENT can only mean a bad token
+        BatchResponse response = firebaseMessaging.sendEachForMulticast(message);
+        return toResult(tokens, response, response.getSuccessCount() > 0);
+    }
+
+    @Override
+    public BatchResult sendEach(List<String> tokens, List<Map<String, String>> payloads) throws Exception {
+        List<Message> messages = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            messages.add(Message.builder()
+                    .setToken(tokens.get(i))
+                    .putAllData(payloads.get(i))
+                    .setAndroidConfig(ANDROID_CONFIG)
+                    .setApnsConfig(APNS_CONFIG)
+                    .build());
+        }
+
+        // Payloads differ per message, so one message going through says nothing about another's payload
+        return toResult(tokens, firebaseMessaging.sendEach(messages), false);
+    }
+
+    // Responses are in request order
+    private BatchResult toResult(List<String> tokens, BatchResponse response, boolean payloadAccepted) {
+        List<String> invalidTokens = new ArrayList<>();
+        List<Outcome> outcomes = new ArrayList<>(tokens.size());
+        List<SendResponse> responses = response.getResponses();
+        int failed = 0;
+        FirebaseMessagingException firstFailure = null;
+        for (int i = 0; i < responses.size(); i++) {
+            SendResponse sendResponse = responses.get(i);
+            if (sendResponse.isSuccessful()) {
+                outcomes.add(Outcome.SENT);
+                continue;
+            }
+            FirebaseMessagingException exception = sendResponse.getException();
+            Outcome outcome = classify(exception != null ? exception.getMessagingErrorCode() : null, payloadAccepted);
+            if (outcome == Outcome.INVALID_TOKEN) {
+                invalidTokens.add(tokens.get(i));
+                outcomes.add(Outcome.INVALID_TOKEN);
+            } else {
+                failed++;
+                if (firstFailure == null) {
+                    firstFailure = exception;
+                }
+                outcomes.add(Outcome.FAILED);
+            }
+        }
+        if (failed > 0) {
+            // One line per batch; a bad payload fails every message of it the same way
+            logger.warn("FCM send failed for {} of {} messages, first error {}: {}", failed, responses.size(),
+                    firstFailure != null ? firstFailure.getMessagingErrorCode() : null,
+                    firstFailure != null ? firstFailure.getMessage() : "no error details");
+        }
+        return new BatchResult(response.getSuccessCount(), response.getFailureCount(), invalidTokens, outcomes);
+    }
+
+    /**
+     * Outcome of a failed message from its FCM error code.
+     * UNREGISTERED and SENDER_ID_MISMATCH always mean the token is dead. INVALID_ARGUMENT is also
+     * returned for payload problems (oversized data, bad field), which must not clear anybody's token,
+     * so it only counts as a dead token when the payload is known to be valid.
+     */
+    static Outcome classify(@Nullable MessagingErrorCode errorCode, boolean payloadAccepted) {
+        if (errorCode == MessagingErrorCode.UNREGISTERED || errorCode == MessagingErrorCode.SENDER_ID_MISMATCH) {
+            return Outcome.INVALID_TOKEN;
+        }
+        if (errorCode == MessagingErrorCode.INVALID_ARGUMENT && payloadAccepted) {
+            return Outcome.INVALID_TOKEN;
+        }
+        return Outcome.FAILED;
+    }
+}
@@ -6,13 +6,21 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GeofenceService {
 
     private static final double EARTH_RADIUS_METERS = 6371000;
+    private static final double METERS_PER_DEGREE = 111000.0; // Approximate, slightly conservative
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Compiled geofences keyed by site id.
+    // Polygon JSON is parsed once per site instead of once per punch; entries are evicted
+    // by SiteService on update/delete and recompiled if the site's geofence fields change.
+    private final ConcurrentHashMap<Long, CompiledGeofence> compiledGeofences = new ConcurrentHashMap<>();
+
     /**
      * Calculate distance between two GPS coordinates using Haversine formula
      * @return distance in meters
@@ -34,63 +42,84 @@ public class GeofenceService {
      * Check if a point is inside the site's geofence
      */
     public boolean isInsideGeofence(Site site, double latitude, double longitude) {
-        if (site.getGeofenceType() == Site.GeofenceType.POLYGON) {
-            return isInsidePolygon(site.getGeofencePolygon(), latitude, longitude);
-        } else {
-            // Default to radius-based geofence
-            double distance = calculateDistance(
-                    site.getLatitude(), site.getLongitude(),
-                    latitude, longitude
-            );
-            return distance <= site.getGeofenceRadiusMeters();
-        }
+        return getCompiledGeofence(site).contains(latitude, longitude);
     }
 
     /**
      * Calculate distance from site center
      */
     public double getDistanceFromSite(Site site, double latitude, double longitude) {
-        return calculateDistance(site.getLatitude(), site.getLongitude(), latitude, longitude);
+        return getCompiledGeofence(site).distanceFromCenter(latitude, longitude);
+    }
+
+    /**
+     * Get the compiled geofence for a site, compiling it on first use.
+     * A cached entry is reused only while the site's geofence fields are unchanged.
+     */
+    public CompiledGeofence getCompiledGeofence(Site site) {
+        if (site.getId() == null) {
+            return compile(site);
+        }
+        CompiledGeofence cached = compiledGeofences.get(site.getId());
+        if (cached != null && cached.isCompiledFrom(site)) {
+            return cached;
+        }
+        CompiledGeofence compiled = compile(site);
+        compiledGeofences.put(site.getId(), compiled);
+        return compiled;
     }
 
     /**
-     * Check if point is inside a polygon using Ray Casting algorithm
+     * Evict the compiled geofence of a site (called when the site is updated or deleted)
+     */
+    public void evictCompiledGeofence(Long siteId) {
+        if (siteId != null) {
+            compiledGeofences.remove(siteId);
+        }
+    }
+
+    /**
+     * Evict all compiled geofences
+     */
+    public void clearCompiledGeofences() {
+        compiledGeofences.clear();
+    }
+
+    private CompiledGeofence compile(Site site) {
+        double[] polygon = null;
+        if (site.getGeofenceType() == Site.GeofenceType.POLYGON) {
+            polygon = parsePolygon(site.getGeofencePolygon());
+        }
+        return new CompiledGeofence(site, polygon);
+    }
+
+    /**
+     * Parse polygon JSON into a flat array of [lat0, lon0, lat1, lon1, ...].
      * Polygon is stored as JSON array: [[lat1,lon1],[lat2,lon2],...]
+     * @return vertices, or null if the polygon is missing, malformed or has fewer than 3 points
      */
     @SuppressWarnings("unchecked")
-    private boolean isInsidePolygon(String polygonJson, double latitude, double longitude) {
+    private double[] parsePolygon(String polygonJson) {
         if (polygonJson == null || polygonJson.isEmpty()) {
-            return false;
+            return null;
         }
 
         try {
-            List<List<Double>> polygon = objectMapper.readValue(polygonJson, List.class);
+            List<List<Number>> polygon = objectMapper.readValue(polygonJson, List.class);
             
             if (polygon.size() < 3) {
-                return false;
+                return null;
             }
 
-            int n = polygon.size();
-            boolean inside = false;
-
-            for (int i = 0, j = n - 1; i < n; j = i++) {
-                List<Double> pointI = polygon.get(i);
-                List<Double> pointJ = polygon.get(j);
-                
-                double xi = pointI.get(0);
-                double yi = pointI.get(1);
-                double xj = pointJ.get(0);
-                double yj = pointJ.get(1);
-
-                if (((yi > longitude) != (yj > longitude)) &&
-                    (latitude < (xj - xi) * (longitude - yi) / (yj - yi) + xi)) {
-                    inside = !inside;
-                }
+            double[] vertices = new double[polygon.size() * 2];
+            for (int i = 0; i < polygon.size(); i++) {
+                List<Number> point = polygon.get(i);
+                vertices[2 * i] = point.get(0).doubleValue();
+                vertices[2 * i + 1] = point.get(1).doubleValue();
             }
-
-            return inside;
+            return vertices;
         } catch (Exception e) {
-            return false;
+            return null;
         }
     }
 
@@ -109,8 +138,8 @@ public class GeofenceService {
      * @return Map with minLat, maxLat, minLon, maxLon
      */
     public Map<String, Double> getBoundingBox(double latitude, double longitude, double radiusMeters) {
-        double latDelta = radiusMeters / 111000.0; // Approximate degrees per meter at equator
-        double lonDelta = radiusMeters / (111000.0 * Math.cos(Math.toRadians(latitude)));
+        double latDelta = radiusMeters / METERS_PER_DEGREE; // Approximate degrees per meter at equator
+        double lonDelta = radiusMeters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
 
         return Map.of(
                 "minLat", latitude - latDelta,
@@ -119,5 +148,189 @@ public class GeofenceService {
                 "maxLon", longitude + lonDelta
         );
     }
-}
 
+    /**
+     * Immutable, pre-parsed form of a site's geofence.
+     * Holds polygon vertices as primitive arrays and a bounding box used to
+     * reject far-away points before running the exact radius or polygon check.
+     */
+    public static final class CompiledGeofence {
+        private final Long siteId;
+        private final Site.GeofenceType geofenceType;
+        private final String sourcePolygon;
+        private final Integer sourceRadiusMeters;
+
+        private final double centerLatitude;
+        private final double centerLongitude;
+        private final double cosCenterLatitude;
+        private final double radiusMeters;
+
+        // Polygon vertices: lats[i], lons[i]; null for radius geofences or invalid polygons
+        private final double[] lats;
+        private final double[] lons;
+
+        private final double minLat;
+        private final double maxLat;
+        private final double minLon;
+        private final double maxLon;
+
+        private CompiledGeofence(Site site, double[] polygon) {
+            this.siteId = site.getId();
+            this.geofenceType = site.getGeofenceType();
+            this.sourcePolygon = site.getGeofencePolygon();
+            this.sourceRadiusMeters = site.getGeofenceRadiusMeters();
+            this.centerLatitude = site.getLatitude();
+            this.centerLongitude = site.getLongitude();
+            this.cosCenterLatitude = Math.cos(Math.toRadians(centerLatitude));
+            this.radiusMeters = site.getGeofenceRadiusMeters() != null ? site.getGeofenceRadiusMeters() : 0;
+
+            if (geofenceType == Site.GeofenceType.POLYGON) {
+                if (polygon != null) {
+                    int n = polygon.length / 2;
+                    lats = new double[n];
+                    lons = new double[n];
+                    double minLatitude = Double.POSITIVE_INFINITY, maxLatitude = Double.NEGATIVE_INFINITY;
+                    double minLongitude = Double.POSITIVE_INFINITY, maxLongitude = Double.NEGATIVE_INFINITY;
+                    for (int i = 0; i < n; i++) {
+                        lats[i] = polygon[2 * i];
+                        lons[i] = polygon[2 * i + 1];
+                        minLatitude = Math.min(minLatitude, lats[i]);
+                        maxLatitude = Math.max(maxLatitude, lats[i]);
+                        minLongitude = Math.min(minLongitude, lons[i]);
+                        maxLongitude = Math.max(maxLongitude, lons[i]);
+                    }
+                    minLat = minLatitude;
+                    maxLat = maxLatitude;
+                    minLon = minLongitude;
+                    maxLon = maxLongitude;
+                } else {
+                    // Invalid polygon never contains any point (empty bounding box)
+                    lats = null;
+                    lons = null;
+                    minLat = Double.POSITIVE_INFINITY;
+                    maxLat = Double.NEGATIVE_INFINITY;
+                    minLon = Double.POSITIVE_INFINITY;
+                    maxLon = Double.NEGATIVE_INFINITY;
+                }
+            } else {
+                lats = null;
+                lons = null;
+                double latDelta = radiusMeters / METERS_PER_DEGREE;
+                minLat = centerLatitude - latDelta;
+                maxLat = centerLatitude + latDelta;
+                double lonDelta = cosCenterLatitude > 1e-6
+                        ? radiusMeters / (METERS_PER_DEGREE * cosCenterLatitude)
+                        : Double.POSITIVE_INFINITY;
+                if (centerLongitude - lonDelta >= -180 && centerLongitude + lonDelta <= 180) {
+                    minLon = centerLongitude - lonDelta;
+                    maxLon = centerLongitude + lonDelta;
+                } else {
+                    // At the poles, or across ±180° where the box would wrap, every longitude is
+                    // within reach; the Haversine check alone decides
+                    minLon = -180;
+                    maxLon = 180;
+                }
+            }
+        }
+
+        /**
+         * Check if a point is inside this geofence.
+         * Radius geofences use the Haversine distance, polygons use Ray Casting.
+         */
+        public boolean contains(double latitude, double longitude) {
+            if (!boundingBoxContains(latitude, longitude)) {
+                return false;
+            }
+            if (geofenceType == Site.GeofenceType.POLYGON) {
+                return polygonContains(latitude, longitude);
+            }
+            return distanceFromCenter(latitude, longitude) <= radiusMeters;
+        }
+
+        /**
+         * Cheap rectangle test used to reject points before the exact check
+         */
+        public boolean boundingBoxContains(double latitude, double longitude) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+        }
+
+        /**
+         * Haversine distance from the site center in meters
+         */
+        public double distanceFromCenter(double latitude, double longitude) {
+            double dLat = Math.toRadians(latitude - centerLatitude);
+            double dLon = Math.toRadians(longitude - centerLongitude);
+            double sinDLat = Math.sin(dLat / 2);
+            double sinDLon = Math.sin(dLon / 2);
+
+            double a = sinDLat * sinDLat +
+                       cosCenterLatitude * Math.cos(Math.toRadians(latitude)) * sinDLon * sinDLon;
+
+            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+            return EARTH_RADIUS_METERS * c;
+        }
+
+        private boolean polygonContains(double latitude, double longitude) {
+            if (lats == null) {
+                return false;
+            }
+
+            int n = lats.length;
+            boolean inside = false;
+
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double xi = lats[i];
+                double yi = lons[i];
+                double xj = lats[j];
+                double yj = lons[j];
+
+                if (((yi > longitude) != (yj > longitude)) &&
+                    (latitude < (xj - xi) * (longitude - yi) / (yj - yi) + xi)) {
+                    inside = !inside;
+                }
+            }
+
+            return inside;
+        }
+
+        /**
+         * Whether this geofence was compiled from the site's current geofence fields
+         */
+        boolean isCompiledFrom(Site site) {
+            return geofenceType == site.getGeofenceType()
+                    && Objects.equals(sourceRadiusMeters, site.getGeofenceRadiusMeters())
+                    && Objects.equals(centerLatitude, site.getLatitude())
+                    && Objects.equals(centerLongitude, site.getLongitude())
+                    && Objects.equals(sourcePolygon, site.getGeofencePolygon());
+        }
+
+        public Long getSiteId() {
+            return siteId;
+        }
+
+        public double getCenterLatitude() {
+            return centerLatitude;
+        }
+
+        public double getCenterLongitude() {
+            return centerLongitude;
+        }
+
+        public double getMinLat() {
+            return minLat;
+        }
+
+        public double getMaxLat() {
+            return maxLat;
+        }
+
+        public double getMinLon() {
+            return minLon;
+        }
+
+        public double getMaxLon() {
+            return maxLon;
+        }
+    }
+}
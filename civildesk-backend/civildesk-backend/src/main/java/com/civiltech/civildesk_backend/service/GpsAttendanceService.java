@@ -1,30 +1,54 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.dto.AttendancePunchEvent;
 import com.civiltech.civildesk_backend.dto.GpsAttendanceRequest;
 import com.civiltech.civildesk_backend.dto.GpsAttendanceResponse;
+import com.civiltech.civildesk_backend.dto.GpsPunchSyncResult;
+import com.civiltech.civildesk_backend.dto.IngestedPunch;
 import com.civiltech.civildesk_backend.exception.BadRequestException;
 import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
 import com.civiltech.civildesk_backend.model.*;
 import com.civiltech.civildesk_backend.repository.*;
+import com.civiltech.civildesk_backend.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Service
 public class GpsAttendanceService {
 
+    private static final Logger logger = LoggerFactory.getLogger(GpsAttendanceService.class);
+
+    // Offline punches stored further than this from their device time (clamped, see resolvePunchTime) are reviewed
+    private static final long REVIEW_TOLERANCE_SECONDS = 120;
+
     @Autowired
     private GpsAttendanceLogRepository gpsLogRepository;
 
@@ -44,22 +68,56 @@ public class GpsAttendanceService {
     private GeofenceService geofenceService;
 
     @Autowired
-    private AttendanceCalculationService calculationService;
+    private SiteSpatialIndexService siteSpatialIndexService;
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    @Autowired
+    private AttendanceEventPublisher attendanceEventPublisher;
+
+    @Autowired
+    private AttendancePunchGuard punchGuard;
+
+    @Autowired
+    private Clock businessClock;
+
+    @Value("${app.attendance.offline-sync.max-batch-size:200}")
+    private int maxSyncBatchSize;
+
+    @Value("${app.attendance.offline-sync.max-age-hours:12}")
+    private long maxOfflineAgeHours;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
 
     /**
      * Mark GPS-based attendance
      */
-    @Transactional
     public GpsAttendanceResponse markGpsAttendance(GpsAttendanceRequest request) {
-        // Validate coordinates
-        if (!geofenceService.isValidCoordinates(request.getLatitude(), request.getLongitude())) {
-            throw new BadRequestException("Invalid GPS coordinates");
-        }
+        Employee employee = validateOnlinePunch(request);
 
-        // Block mock location
-        if (Boolean.TRUE.equals(request.getIsMockLocation())) {
-            throw new BadRequestException("Mock location detected. Please disable mock location and try again.");
-        }
+        // Concurrent punches of one employee are applied one after another (see AttendancePunchGuard)
+        return punchGuard.withEmployeeLock(employee.getId(), () -> transactionTemplate.execute(status ->
+                recordGpsPunch(request, employee)));
+    }
+
+    /**
+     * Checks of an online punch that come before the employee's punch lock: location, location
+     * freshness and the employee's attendance method
+     *
+     * @return The punching employee
+     */
+    public Employee validateOnlinePunch(GpsAttendanceRequest request) {
+        validateLocation(request);
 
         // Validate location timestamp freshness (must be within last 60 seconds)
         // This prevents using stale/cached location data
@@ -68,7 +126,7 @@ public class GpsAttendanceService {
             // Convert both timestamps to UTC (Instant) for timezone-agnostic comparison
             // The client sends UTC timestamps, so we treat the incoming LocalDateTime as UTC
             Instant locationTime = request.getLocationTimestamp().toInstant(ZoneOffset.UTC);
-            Instant now = Instant.now();
+            Instant now = businessClock.instant();
             long secondsSinceLocationCapture = ChronoUnit.SECONDS.between(locationTime, now);
             
             // Allow up to 10 seconds in the future to account for:
@@ -98,58 +156,390 @@ public class GpsAttendanceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found: " + request.getEmployeeId()));
 
         // Check if employee is assigned to GPS-based attendance
-        if (employee.getAttendanceMethod() != Employee.AttendanceMethod.GPS_BASED) {
-            throw new BadRequestException("Employee is not assigned to GPS-based attendance. Current method: " + 
-                    employee.getAttendanceMethod());
+        requireGpsBasedAttendance(employee);
+        return employee;
+    }
+
+    private GpsAttendanceResponse recordGpsPunch(GpsAttendanceRequest request, Employee employee) {
+        Site site = resolvePunchSite(request, employee);
+
+        // Calculate distance from site; rejected if outside geofence
+        Double distanceFromSite = requireInsideGeofence(site, request.getLatitude(), request.getLongitude());
+
+        // Get or create attendance record for today (business time zone), locked until commit
+        LocalDate today = LocalDate.now(businessClock);
+        Attendance attendance = punchGuard.lockAttendanceRow(employee, today, "GPS_BASED");
+
+        // Validate punch sequence (a rejected punch rolls back the row created above)
+        validatePunchSequence(employee.getEmployeeId(), request.getPunchType());
+
+        // Create GPS attendance log
+        // Use the business time zone for punch times to match local business hours
+        LocalDateTime nowBusinessTime = LocalDateTime.now(businessClock);
+        GpsAttendanceLog log = buildLog(request, employee, site, attendance, nowBusinessTime, distanceFromSite);
+
+        log = gpsLogRepository.save(log);
+
+        // Update attendance record based on punch type
+        updateAttendanceFromPunch(attendance, request.getPunchType(), log.getPunchTime());
+        attendanceRepository.save(attendance);
+
+        GpsAttendanceResponse response = GpsAttendanceResponse.fromEntity(log);
+        attendanceEventPublisher.publishAfterCommit(AttendancePunchEvent.fromGpsPunch(response));
+        return response;
+    }
+
+    /**
+     * Validate an online punch for the write-behind queue (PunchIngestionService) without writing
+     * anything: site, geofence, and the punch sequence against today's stored punches plus the
+     * employee's punches still queued. Call under the employee's punch lock.
+     *
+     * @param queued The employee's queued punches, read before this call so that a punch written in
+     *               between is seen either there or in the stored punches
+     */
+    public IngestedPunch prepareIngestedPunch(GpsAttendanceRequest request, Employee employee, List<IngestedPunch> queued) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            Site site = resolvePunchSite(request, employee);
+            Double distanceFromSite = requireInsideGeofence(site, request.getLatitude(), request.getLongitude());
+
+            LocalDateTime punchTime = LocalDateTime.now(businessClock);
+            LocalDate today = punchTime.toLocalDate();
+            Set<GpsAttendanceLog.PunchType> recorded = queued.stream()
+                    .filter(punch -> punch.getPunchTime().toLocalDate().equals(today))
+                    .map(punch -> punch.getRequest().getPunchType())
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class)));
+            recorded.addAll(findRecordedPunchTypes(employee.getEmployeeId(), today));
+            checkPunchSequence(recorded, request.getPunchType(), "today");
+
+            IngestedPunch punch = new IngestedPunch();
+            punch.setEmployeeRecordId(employee.getId());
+            String firstName = employee.getFirstName() != null ? employee.getFirstName() : "";
+            String lastName = employee.getLastName() != null ? employee.getLastName() : "";
+            punch.setEmployeeName((firstName + " " + lastName).trim());
+            punch.setSiteId(site.getId());
+            punch.setSiteName(site.getSiteName());
+            punch.setSiteCode(site.getSiteCode());
+            punch.setDistanceFromSite(distanceFromSite);
+            punch.setPunchTime(punchTime);
+            punch.setAcceptedAt(LocalDateTime.now(ZoneOffset.UTC));
+            punch.setRequest(request);
+            return punch;
+        });
+    }
+
+    /**
+     * Write punches accepted by the write-behind queue, in one transaction, skipping those whose
+     * clientPunchId is already stored (journal replayed after a restart).
+     *
+     * The punches were acknowledged, so a sequence conflict with punches stored since (written from
+     * another node's queue, or by an offline sync) does not drop them: the punch is logged and applied
+     * like any live punch (a repeated check-in keeps the first, a lunch-out without check-in also checks
+     * in), and counted in conflicts.
+     *
+     * @param conflicts Called once per punch written despite a sequence conflict, with the reason
+     * @return Why punches could not be written, by journal sequence (empty when all were written)
+     */
+    public Map<Long, String> persistIngestedPunches(List<IngestedPunch> punches, BiConsumer<IngestedPunch, String> conflicts) {
+        return transactionTemplate.execute(status -> writeIngestedPunches(punches, conflicts));
+    }
+
+    private Map<Long, String> writeIngestedPunches(List<IngestedPunch> punches, BiConsumer<IngestedPunch, String> conflicts) {
+        Map<Long, String> rejected = new HashMap<>();
+        Set<Long> employeeIds = punches.stream().map(IngestedPunch::getEmployeeRecordId).collect(Collectors.toSet());
+        Set<Long> siteIds = punches.stream().map(IngestedPunch::getSiteId).collect(Collectors.toSet());
+        Set<String> clientPunchIds = punches.stream().map(punch -> punch.getRequest().getClientPunchId())
+                .collect(Collectors.toSet());
+
+        Map<Long, Employee> employees = employeeRepository.findAllById(employeeIds).stream()
+                .collect(Collectors.toMap(Employee::getId, employee -> employee));
+        Map<Long, Site> sites = siteRepository.findAllById(siteIds).stream()
+                .collect(Collectors.toMap(Site::getId, site -> site));
+        Set<String> storedPunches = gpsLogRepository.findByEmployeeIdsAndClientPunchIds(employeeIds, clientPunchIds).stream()
+                .map(log -> clientPunchKey(log.getEmployee().getId(), log.getClientPunchId()))
+                .collect(Collectors.toSet());
+
+        LocalDate firstDay = punches.stream().map(punch -> punch.getPunchTime().toLocalDate()).min(Comparator.naturalOrder()).get();
+        LocalDate lastDay = punches.stream().map(punch -> punch.getPunchTime().toLocalDate()).max(Comparator.naturalOrder()).get();
+        Map<String, Set<GpsAttendanceLog.PunchType>> recordedPunches = new HashMap<>();
+        for (GpsAttendanceLog log : gpsLogRepository.findByEmployeeIdsAndPunchTimeRange(
+                employeeIds, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay())) {
+            recordedPunches.computeIfAbsent(employeeDayKey(log.getEmployee().getId(), log.getPunchTime().toLocalDate()),
+                    key -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class)).add(log.getPunchType());
         }
 
-        // Find assigned site for employee
-        Site site = findAssignedSiteForLocation(employee, request.getLatitude(), request.getLongitude());
-        
-        if (site == null && request.getSiteId() != null) {
-            site = siteRepository.findById(Objects.requireNonNull(request.getSiteId(), "Site ID cannot be null"))
-                    .orElseThrow(() -> new ResourceNotFoundException("Site not found: " + request.getSiteId()));
+        // Attendance rows are locked in employee order, then punches applied in the order they were accepted
+        List<IngestedPunch> ordered = new ArrayList<>(punches);
+        ordered.sort(Comparator.comparing(IngestedPunch::getEmployeeRecordId).thenComparing(IngestedPunch::getSequence));
+
+        Map<String, Attendance> attendanceByEmployeeDay = new HashMap<>();
+        Set<Attendance> touchedAttendances = new LinkedHashSet<>();
+        List<GpsAttendanceLog> logs = new ArrayList<>();
+        for (IngestedPunch punch : ordered) {
+            GpsAttendanceRequest request = punch.getRequest();
+            Employee employee = employees.get(punch.getEmployeeRecordId());
+            Site site = sites.get(punch.getSiteId());
+            if (employee == null || site == null) {
+                rejected.put(punch.getSequence(), employee == null ? "Employee not found" : "Site not found");
+                continue;
+            }
+            if (storedPunches.contains(clientPunchKey(employee.getId(), request.getClientPunchId()))) {
+                continue;
+            }
+
+            LocalDate day = punch.getPunchTime().toLocalDate();
+            String employeeDay = employeeDayKey(employee.getId(), day);
+            Set<GpsAttendanceLog.PunchType> recorded = recordedPunches.computeIfAbsent(
+                    employeeDay, key -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class));
+            try {
+                checkPunchSequence(recorded, request.getPunchType(), "this day");
+            } catch (BadRequestException e) {
+                conflicts.accept(punch, e.getMessage());
+            }
+            recorded.add(request.getPunchType());
+
+            Attendance attendance = attendanceByEmployeeDay.computeIfAbsent(employeeDay,
+                    key -> punchGuard.lockAttendanceRow(employee, day, "GPS_BASED"));
+            GpsAttendanceLog log = buildLog(request, employee, site, attendance, punch.getPunchTime(), punch.getDistanceFromSite());
+            log.setServerTimestamp(punch.getAcceptedAt());
+            updateAttendanceFromPunch(attendance, request.getPunchType(), log.getPunchTime());
+            touchedAttendances.add(attendance);
+            logs.add(log);
+        }
+        if (logs.isEmpty()) {
+            return rejected;
         }
 
-        // Require that employee must be assigned to a site
-        if (site == null) {
-            throw new BadRequestException("You are not assigned to any site or you are outside all assigned sites. Please contact your administrator or move to an assigned site to mark attendance.");
+        attendanceRepository.saveAll(touchedAttendances);
+        for (GpsAttendanceLog log : gpsLogRepository.saveAll(logs)) {
+            attendanceEventPublisher.publishAfterCommit(AttendancePunchEvent.fromGpsPunch(GpsAttendanceResponse.fromEntity(log)));
         }
+        return rejected;
+    }
 
-        // Calculate distance from site
-        Double distanceFromSite = geofenceService.getDistanceFromSite(site, request.getLatitude(), request.getLongitude());
-        boolean isInsideGeofence = geofenceService.isInsideGeofence(site, request.getLatitude(), request.getLongitude());
-        
-        // Reject if outside geofence - attendance can only be marked inside the site
-        if (!isInsideGeofence) {
+    /**
+     * Sync offline attendance punches.
+     *
+     * Only the caller's own punches are accepted. The punch time is the device's offlineTimestamp,
+     * clamped to the last max-age-hours (and to now); a punch whose time had to be moved by the clamp is
+     * flagged for an admin to accept or reject the device time (reviewOfflinePunch).
+     *
+     * Punches are grouped per employee and day of their punch time: each employee's existing punches and
+     * attendance rows are loaded once, the punch sequence is validated in memory in punch-time order (so
+     * yesterday's check-in and check-out land on yesterday, with their hours), and logs and attendance rows
+     * are written in batches. Every punch gets its own result; a rejected punch does not affect the
+     * others, and each employee's punches commit in their own transaction.
+     * Punches carrying a clientPunchId that is already stored come back as DUPLICATE.
+     */
+    public List<GpsPunchSyncResult> syncOfflineAttendance(List<GpsAttendanceRequest> requests) {
+        if (requests.size() > maxSyncBatchSize) {
             throw new BadRequestException(String.format(
-                    "You are %.0f meters away from the site boundary. You must be inside the site (within %d meters) to mark attendance. Please move closer to the site.",
-                    distanceFromSite - (site.getGeofenceRadiusMeters() != null ? site.getGeofenceRadiusMeters() : 0),
-                    site.getGeofenceRadiusMeters() != null ? site.getGeofenceRadiusMeters() : 0
-            ));
+                    "Too many punches in one sync (%d). Upload at most %d at a time.", requests.size(), maxSyncBatchSize));
         }
 
-        // Validate punch sequence
-        validatePunchSequence(employee.getEmployeeId(), request.getPunchType());
+        GpsPunchSyncResult[] results = new GpsPunchSyncResult[requests.size()];
+        Instant now = businessClock.instant();
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+
+        // Checks that need no database state
+        List<PendingPunch> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            GpsAttendanceRequest request = requests.get(i);
+            try {
+                if (request == null || request.getEmployeeId() == null || request.getPunchType() == null
+                        || request.getLatitude() == null || request.getLongitude() == null) {
+                    throw new BadRequestException("Employee ID, punch type and location are required");
+                }
+                validateLocation(request);
+                LocalDateTime deviceTime = resolveDeviceTime(request, now);
+                pending.add(new PendingPunch(i, request, deviceTime, resolvePunchTime(deviceTime, now)));
+            } catch (BadRequestException e) {
+                results[i] = GpsPunchSyncResult.rejected(i, request != null ? request.getClientPunchId() : null, e.getMessage());
+            }
+        }
 
-        // Get or create attendance record for today
-        // Use IST (Asia/Kolkata) timezone for business operations
-        ZoneId businessTimeZone = ZoneId.of("Asia/Kolkata");
-        LocalDate today = LocalDate.now(businessTimeZone);
-        Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
-                .orElseGet(() -> createNewAttendance(employee, today));
+        // Employees in one query
+        List<String> employeeCodes = pending.stream()
+                .map(punch -> punch.request.getEmployeeId())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Employee> employeesByCode = employeeCodes.isEmpty() ? new HashMap<>()
+                : employeeRepository.findByEmployeeIds(employeeCodes).stream()
+                        .collect(Collectors.toMap(Employee::getEmployeeId, employee -> employee, (a, b) -> a));
+
+        Map<Long, List<PendingPunch>> punchesByEmployee = new LinkedHashMap<>();
+        for (PendingPunch punch : pending) {
+            Employee employee = employeesByCode.get(punch.request.getEmployeeId());
+            if (employee == null) {
+                results[punch.index] = punch.reject("Employee not found: " + punch.request.getEmployeeId());
+                continue;
+            }
+            if (employee.getUser() == null) {
+                results[punch.index] = punch.reject("Employee " + employee.getEmployeeId() + " has no user account");
+                continue;
+            }
+            if (currentUserId == null || !currentUserId.equals(employee.getUser().getId())) {
+                results[punch.index] = punch.reject("You can only sync your own punches");
+                continue;
+            }
+            if (employee.getAttendanceMethod() != Employee.AttendanceMethod.GPS_BASED) {
+                results[punch.index] = punch.reject("Employee is not assigned to GPS-based attendance. Current method: "
+                        + employee.getAttendanceMethod());
+                continue;
+            }
+            punch.employee = employee;
+            punchesByEmployee.computeIfAbsent(employee.getId(), id -> new ArrayList<>()).add(punch);
+        }
+        if (punchesByEmployee.isEmpty()) {
+            return Arrays.asList(results);
+        }
 
-        // Create GPS attendance log
-        // Use business timezone (IST) for punch times to match local business hours
-        // Use UTC for server timestamp for consistency
-        LocalDateTime nowBusinessTime = LocalDateTime.now(businessTimeZone);
+        // Dedupe by client punch id: against earlier uploads, then within this upload
+        Set<String> clientPunchIds = punchesByEmployee.values().stream()
+                .flatMap(List::stream)
+                .map(punch -> punch.request.getClientPunchId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, GpsAttendanceLog> storedPunches = new HashMap<>();
+        if (!clientPunchIds.isEmpty()) {
+            gpsLogRepository.findByEmployeeIdsAndClientPunchIds(punchesByEmployee.keySet(), clientPunchIds)
+                    .forEach(log -> storedPunches.put(clientPunchKey(log.getEmployee().getId(), log.getClientPunchId()), log));
+        }
+        Set<String> seenClientPunchIds = new HashSet<>();
+        for (List<PendingPunch> punches : punchesByEmployee.values()) {
+            punches.removeIf(punch -> {
+                String clientPunchId = punch.request.getClientPunchId();
+                if (clientPunchId == null) {
+                    return false;
+                }
+                String key = clientPunchKey(punch.employee.getId(), clientPunchId);
+                GpsAttendanceLog stored = storedPunches.get(key);
+                if (stored != null) {
+                    results[punch.index] = GpsPunchSyncResult.duplicate(punch.index, clientPunchId, GpsAttendanceResponse.fromEntity(stored));
+                    return true;
+                }
+                if (!seenClientPunchIds.add(key)) {
+                    results[punch.index] = GpsPunchSyncResult.duplicate(punch.index, clientPunchId, null);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        // Site assignments of all employees in one query
+        Map<Long, List<EmployeeSiteAssignment>> assignmentsByEmployee = assignmentRepository
+                .findActiveAssignmentsByEmployeeIds(punchesByEmployee.keySet()).stream()
+                .collect(Collectors.groupingBy(assignment -> assignment.getEmployee().getId()));
+        Map<Long, Site> requestedSites = new HashMap<>();
+
+        for (Map.Entry<Long, List<PendingPunch>> entry : punchesByEmployee.entrySet()) {
+            List<PendingPunch> punches = entry.getValue();
+            if (punches.isEmpty()) {
+                continue;
+            }
+            // Day by day, in the order the punches were made
+            punches.sort(Comparator.comparing((PendingPunch punch) -> punch.punchTime).thenComparing(punch -> punch.index));
+            List<EmployeeSiteAssignment> assignments = assignmentsByEmployee.getOrDefault(entry.getKey(), new ArrayList<>());
+
+            List<GpsPunchSyncResult> employeeResults = new ArrayList<>();
+            try {
+                punchGuard.withEmployeeLock(entry.getKey(), () -> transactionTemplate.execute(status ->
+                        employeeResults.addAll(syncEmployeePunches(punches, assignments, requestedSites))));
+                employeeResults.forEach(result -> results[result.getIndex()] = result);
+            } catch (Exception e) {
+                logger.error("Failed to sync {} offline punches for employee {}", punches.size(),
+                        punches.get(0).request.getEmployeeId(), e);
+                punches.forEach(punch -> results[punch.index] = GpsPunchSyncResult.failed(
+                        punch.index, punch.request.getClientPunchId(), "Failed to save punch. Please retry."));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validate and store one employee's punches (sorted by punch time) inside the caller's transaction
+     */
+    private List<GpsPunchSyncResult> syncEmployeePunches(List<PendingPunch> punches,
+                                                         List<EmployeeSiteAssignment> assignments,
+                                                         Map<Long, Site> requestedSites) {
+        Employee employee = punches.get(0).employee;
+        LocalDate firstDay = punches.get(0).punchTime.toLocalDate();
+        LocalDate lastDay = punches.get(punches.size() - 1).punchTime.toLocalDate();
+        List<Long> employeeIds = List.of(employee.getId());
+
+        // Employee's state over the uploaded days, loaded once
+        Map<LocalDate, Set<GpsAttendanceLog.PunchType>> recordedPunches = new HashMap<>();
+        for (GpsAttendanceLog log : gpsLogRepository.findByEmployeeIdsAndPunchTimeRange(
+                employeeIds, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay())) {
+            recordedPunches.computeIfAbsent(log.getPunchTime().toLocalDate(), day -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class))
+                    .add(log.getPunchType());
+        }
+        // Attendance rows are created/locked only for days that get an accepted punch
+        Map<LocalDate, Attendance> attendanceByDay = new HashMap<>();
+
+        List<GpsPunchSyncResult> results = new ArrayList<>();
+        List<GpsAttendanceLog> logs = new ArrayList<>();
+        List<PendingPunch> accepted = new ArrayList<>();
+        Set<Attendance> touchedAttendances = new LinkedHashSet<>();
+        for (PendingPunch punch : punches) {
+            GpsAttendanceRequest request = punch.request;
+            LocalDate day = punch.punchTime.toLocalDate();
+            try {
+                Site site = findAssignedSiteForLocation(assignments, day, request.getLatitude(), request.getLongitude());
+                if (site == null && request.getSiteId() != null) {
+                    site = requestedSites.computeIfAbsent(request.getSiteId(),
+                            siteId -> siteRepository.findById(siteId).orElse(null));
+                    if (site == null) {
+                        throw new BadRequestException("Site not found: " + request.getSiteId());
+                    }
+                }
+                if (site == null) {
+                    throw new BadRequestException("You are not assigned to any site or you are outside all assigned sites. Please contact your administrator or move to an assigned site to mark attendance.");
+                }
+                Double distanceFromSite = requireInsideGeofence(site, request.getLatitude(), request.getLongitude());
+
+                Set<GpsAttendanceLog.PunchType> recorded = recordedPunches.computeIfAbsent(
+                        day, d -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class));
+                checkPunchSequence(recorded, request.getPunchType(), "this day");
+                recorded.add(request.getPunchType());
+
+                Attendance attendance = attendanceByDay.computeIfAbsent(day,
+                        d -> punchGuard.lockAttendanceRow(employee, d, "GPS_BASED"));
+                GpsAttendanceLog log = buildLog(request, employee, site, attendance, punch.punchTime, distanceFromSite);
+                log.setRequiresReview(Math.abs(ChronoUnit.SECONDS.between(punch.deviceTime, punch.punchTime))
+                        > REVIEW_TOLERANCE_SECONDS);
+                updateAttendanceFromPunch(attendance, request.getPunchType(), log.getPunchTime());
+                touchedAttendances.add(attendance);
+                logs.add(log);
+                accepted.add(punch);
+            } catch (BadRequestException e) {
+                results.add(punch.reject(e.getMessage()));
+            }
+        }
+        if (logs.isEmpty()) {
+            return results;
+        }
+
+        // Pooled sequence ids + hibernate.jdbc.batch_size turn these into batched writes
+        attendanceRepository.saveAll(touchedAttendances);
+        logs = gpsLogRepository.saveAll(logs);
+
+        for (int i = 0; i < logs.size(); i++) {
+            GpsAttendanceResponse response = GpsAttendanceResponse.fromEntity(logs.get(i));
+            attendanceEventPublisher.publishAfterCommit(AttendancePunchEvent.fromGpsPunch(response));
+            results.add(GpsPunchSyncResult.synced(accepted.get(i).index, response));
+        }
+        return results;
+    }
+
+    private GpsAttendanceLog buildLog(GpsAttendanceRequest request, Employee employee, Site site, Attendance attendance,
+                                      LocalDateTime punchTime, Double distanceFromSite) {
         LocalDateTime nowUtc = LocalDateTime.now(ZoneOffset.UTC);
         GpsAttendanceLog log = new GpsAttendanceLog();
         log.setAttendance(attendance);
         log.setEmployee(employee);
         log.setSite(site);
         log.setPunchType(request.getPunchType());
-        log.setPunchTime(nowBusinessTime); // Store in business timezone (IST)
+        log.setPunchTime(punchTime); // Store in business timezone (IST)
         log.setServerTimestamp(nowUtc); // Server timestamp in UTC
         log.setLatitude(request.getLatitude());
         log.setLongitude(request.getLongitude());
@@ -161,34 +551,61 @@ public class GpsAttendanceService {
         log.setOsVersion(request.getOsVersion());
         log.setAppVersion(request.getAppVersion());
         log.setIsMockLocation(request.getIsMockLocation());
-        log.setIsInsideGeofence(isInsideGeofence);
+        log.setIsInsideGeofence(true); // Punches outside the geofence are rejected
         log.setDistanceFromSite(distanceFromSite);
         log.setNetworkStatus(request.getNetworkStatus() != null ? 
                 GpsAttendanceLog.NetworkStatus.valueOf(request.getNetworkStatus()) : 
                 GpsAttendanceLog.NetworkStatus.ONLINE);
         log.setOfflineTimestamp(request.getOfflineTimestamp());
+        log.setClientPunchId(request.getClientPunchId());
         log.setSyncStatus(GpsAttendanceLog.SyncStatus.SYNCED);
-        log.setSyncedAt(LocalDateTime.now(ZoneOffset.UTC));
-
-        log = gpsLogRepository.save(log);
-
-        // Update attendance record based on punch type
-        updateAttendanceFromPunch(attendance, request.getPunchType(), log.getPunchTime(), site);
-        // Attendance is guaranteed to be non-null from orElseGet(), Spring Data JPA save() always returns non-null
-        @SuppressWarnings("unused")
-        Attendance savedAttendance = attendanceRepository.save(attendance);
+        log.setSyncedAt(nowUtc);
+        return log;
+    }
 
-        return GpsAttendanceResponse.fromEntity(log);
+    /**
+     * Offline punches flagged for review, oldest first
+     */
+    public Page<GpsAttendanceResponse> getPunchesPendingReview(Pageable pageable) {
+        return gpsLogRepository.findPendingReview(pageable).map(GpsAttendanceResponse::fromEntity);
     }
 
     /**
-     * Sync offline attendance punches
+     * Settle the review of an offline punch. Accepting the device time moves the punch to it and applies
+     * it to that day's attendance as an admin correction; when that is another day, the punch is first
+     * withdrawn from the attendance of the day it was stored on (see AttendanceProjector.withdraw).
+     * Rejecting keeps the stored time. Either way the punch leaves the review list.
      */
-    @Transactional
-    public List<GpsAttendanceResponse> syncOfflineAttendance(List<GpsAttendanceRequest> requests) {
-        return requests.stream()
-                .map(this::markGpsAttendance)
-                .collect(Collectors.toList());
+    public GpsAttendanceResponse reviewOfflinePunch(Long logId, boolean acceptDeviceTime) {
+        GpsAttendanceLog flagged = gpsLogRepository.findById(logId)
+                .orElseThrow(() -> new ResourceNotFoundException("GPS punch not found with ID: " + logId));
+
+        return punchGuard.withEmployeeLock(flagged.getEmployee().getId(), () -> transactionTemplate.execute(status -> {
+            GpsAttendanceLog log = gpsLogRepository.findById(logId)
+                    .orElseThrow(() -> new ResourceNotFoundException("GPS punch not found with ID: " + logId));
+            if (!Boolean.TRUE.equals(log.getRequiresReview()) || log.getOfflineTimestamp() == null) {
+                throw new BadRequestException("Punch is not awaiting review");
+            }
+
+            if (acceptDeviceTime) {
+                LocalDateTime deviceTime = LocalDateTime.ofInstant(
+                        log.getOfflineTimestamp().toInstant(ZoneOffset.UTC), businessClock.getZone());
+                PunchEvent.PunchType punchType = PunchEvent.PunchType.valueOf(log.getPunchType().name());
+                LocalDate storedDay = log.getPunchTime().toLocalDate();
+                if (!deviceTime.toLocalDate().equals(storedDay)) {
+                    Attendance storedAttendance = punchGuard.lockAttendanceRow(log.getEmployee(), storedDay, "GPS_BASED");
+                    attendanceProjector.withdraw(storedAttendance, punchType, log.getPunchTime(), PunchEvent.Source.GPS);
+                    attendanceRepository.save(storedAttendance);
+                }
+                Attendance attendance = punchGuard.lockAttendanceRow(log.getEmployee(), deviceTime.toLocalDate(), "GPS_BASED");
+                attendanceProjector.record(attendance, punchType, deviceTime, PunchEvent.Source.ADMIN, PunchEvent.Kind.CORRECTION);
+                attendanceRepository.save(attendance);
+                log.setAttendance(attendance);
+                log.setPunchTime(deviceTime);
+            }
+            log.setRequiresReview(false);
+            return GpsAttendanceResponse.fromEntity(gpsLogRepository.save(log));
+        }));
     }
 
     /**
@@ -248,42 +665,175 @@ public class GpsAttendanceService {
 
     // ==================== Helper Methods ====================
 
+    private void validateLocation(GpsAttendanceRequest request) {
+        // Validate coordinates
+        if (!geofenceService.isValidCoordinates(request.getLatitude(), request.getLongitude())) {
+            throw new BadRequestException("Invalid GPS coordinates");
+        }
+
+        // Block mock location
+        if (Boolean.TRUE.equals(request.getIsMockLocation())) {
+            throw new BadRequestException("Mock location detected. Please disable mock location and try again.");
+        }
+    }
+
+    /**
+     * Device time of an offline punch in business time: the device's offlineTimestamp (UTC) when given,
+     * otherwise now. Claims more than 10 seconds ahead are refused, and the location must have been
+     * captured within 60 seconds of the claimed time.
+     */
+    private LocalDateTime resolveDeviceTime(GpsAttendanceRequest request, Instant now) {
+        Instant punchInstant = request.getOfflineTimestamp() != null
+                ? request.getOfflineTimestamp().toInstant(ZoneOffset.UTC)
+                : now;
+
+        // Same 10 second allowance for clock drift as online punches
+        if (ChronoUnit.SECONDS.between(now, punchInstant) > 10) {
+            throw new BadRequestException("Punch time is in the future. Please check your device time settings and ensure it's synchronized with network time.");
+        }
+
+        if (request.getLocationTimestamp() != null) {
+            Instant locationTime = request.getLocationTimestamp().toInstant(ZoneOffset.UTC);
+            long secondsBeforePunch = ChronoUnit.SECONDS.between(locationTime, punchInstant);
+            if (secondsBeforePunch < -10 || secondsBeforePunch > 60) {
+                throw new BadRequestException(String.format(
+                        "Location was captured %d seconds from the punch time. Location must be captured within 60 seconds of the punch.",
+                        Math.abs(secondsBeforePunch)));
+            }
+        }
+        return LocalDateTime.ofInstant(punchInstant, businessClock.getZone());
+    }
+
+    /**
+     * Time an offline punch is stored at: its device time, clamped to the last max-age-hours and to now
+     */
+    private LocalDateTime resolvePunchTime(LocalDateTime deviceTime, Instant now) {
+        LocalDateTime receivedAt = LocalDateTime.ofInstant(now, businessClock.getZone());
+        LocalDateTime earliest = receivedAt.minusHours(maxOfflineAgeHours);
+        if (deviceTime.isBefore(earliest)) {
+            return earliest;
+        }
+        return deviceTime.isAfter(receivedAt) ? receivedAt : deviceTime;
+    }
+
+    private void requireGpsBasedAttendance(Employee employee) {
+        if (employee.getAttendanceMethod() != Employee.AttendanceMethod.GPS_BASED) {
+            throw new BadRequestException("Employee is not assigned to GPS-based attendance. Current method: " + 
+                    employee.getAttendanceMethod());
+        }
+    }
+
+    /**
+     * Reject if outside geofence - attendance can only be marked inside the site
+     *
+     * @return Distance from the site in meters
+     */
+    private Double requireInsideGeofence(Site site, double latitude, double longitude) {
+        Double distanceFromSite = geofenceService.getDistanceFromSite(site, latitude, longitude);
+        if (!geofenceService.isInsideGeofence(site, latitude, longitude)) {
+            throw new BadRequestException(String.format(
+                    "You are %.0f meters away from the site boundary. You must be inside the site (within %d meters) to mark attendance. Please move closer to the site.",
+                    distanceFromSite - (site.getGeofenceRadiusMeters() != null ? site.getGeofenceRadiusMeters() : 0),
+                    site.getGeofenceRadiusMeters() != null ? site.getGeofenceRadiusMeters() : 0
+            ));
+        }
+        return distanceFromSite;
+    }
+
+    /**
+     * Site of an online punch: the assigned site containing the location, else the primary assignment's
+     * site, else the site given in the request
+     */
+    private Site resolvePunchSite(GpsAttendanceRequest request, Employee employee) {
+        Site site = findAssignedSiteForLocation(employee, request.getLatitude(), request.getLongitude());
+
+        if (site == null && request.getSiteId() != null) {
+            site = siteRepository.findById(Objects.requireNonNull(request.getSiteId(), "Site ID cannot be null"))
+                    .orElseThrow(() -> new ResourceNotFoundException("Site not found: " + request.getSiteId()));
+        }
+
+        // Require that employee must be assigned to a site
+        if (site == null) {
+            throw new BadRequestException("You are not assigned to any site or you are outside all assigned sites. Please contact your administrator or move to an assigned site to mark attendance.");
+        }
+        return site;
+    }
+
     private Site findAssignedSiteForLocation(Employee employee, double latitude, double longitude) {
-        ZoneId businessTimeZone = ZoneId.of("Asia/Kolkata");
-        List<EmployeeSiteAssignment> assignments = 
-                assignmentRepository.findActiveAssignmentsByEmployeeIdAndDate(employee.getId(), LocalDate.now(businessTimeZone));
+        // Active assignments come from the site index, which every node rebuilds when an assignment changes
+        return findAssignedSiteForLocation(siteSpatialIndexService.findActiveAssignments(employee.getId()),
+                LocalDate.now(businessClock), latitude, longitude);
+    }
+
+    /**
+     * Site assigned to the employee on the given day that contains the location, else the primary
+     * assignment's site for that day, else any primary assignment's site, from all of the employee's
+     * active assignments (already loaded)
+     */
+    private Site findAssignedSiteForLocation(List<EmployeeSiteAssignment> activeAssignments, LocalDate day,
+                                             double latitude, double longitude) {
+        List<EmployeeSiteAssignment> assignments = activeAssignments.stream()
+                .filter(assignment -> assignment.getAssignmentDate() == null || !assignment.getAssignmentDate().isAfter(day))
+                .filter(assignment -> assignment.getEndDate() == null || !assignment.getEndDate().isBefore(day))
+                .collect(Collectors.toList());
+
+        Site site = findContainingSite(assignments, latitude, longitude);
+        if (site != null) {
+            return site;
+        }
+        return assignments.stream()
+                .filter(assignment -> Boolean.TRUE.equals(assignment.getIsPrimary()))
+                .findFirst()
+                .or(() -> activeAssignments.stream()
+                        .filter(assignment -> Boolean.TRUE.equals(assignment.getIsPrimary()))
+                        .findFirst())
+                .map(EmployeeSiteAssignment::getSite)
+                .orElse(null);
+    }
+
+    private Site findContainingSite(List<EmployeeSiteAssignment> assignments, double latitude, double longitude) {
+        // Resolve containing sites from the in-memory spatial index
+        Set<Long> containingSiteIds = siteSpatialIndexService.findContainingSiteIds(latitude, longitude);
 
         for (EmployeeSiteAssignment assignment : assignments) {
             Site site = assignment.getSite();
-            if (geofenceService.isInsideGeofence(site, latitude, longitude)) {
+            if (containingSiteIds.contains(site.getId())) {
+                return site;
+            }
+            // Sites not in the index (e.g. deactivated) are checked directly
+            if (!siteSpatialIndexService.isIndexed(site.getId())
+                    && geofenceService.isInsideGeofence(site, latitude, longitude)) {
                 return site;
             }
         }
-
-        // If no exact match, return primary assignment's site
-        return assignmentRepository.findPrimaryAssignmentByEmployeeId(employee.getId())
-                .map(EmployeeSiteAssignment::getSite)
-                .orElse(null);
+        return null;
     }
 
     private void validatePunchSequence(String employeeId, GpsAttendanceLog.PunchType punchType) {
-        ZoneId businessTimeZone = ZoneId.of("Asia/Kolkata");
-        LocalDate today = LocalDate.now(businessTimeZone);
-        List<GpsAttendanceLog> todayLogs = gpsLogRepository.findByEmployeeIdAndDate(employeeId, today);
-
-        boolean hasCheckIn = todayLogs.stream()
-                .anyMatch(log -> log.getPunchType() == GpsAttendanceLog.PunchType.CHECK_IN);
-        boolean hasLunchOut = todayLogs.stream()
-                .anyMatch(log -> log.getPunchType() == GpsAttendanceLog.PunchType.LUNCH_OUT);
-        boolean hasLunchIn = todayLogs.stream()
-                .anyMatch(log -> log.getPunchType() == GpsAttendanceLog.PunchType.LUNCH_IN);
-        boolean hasCheckOut = todayLogs.stream()
-                .anyMatch(log -> log.getPunchType() == GpsAttendanceLog.PunchType.CHECK_OUT);
+        LocalDate today = LocalDate.now(businessClock);
+        checkPunchSequence(findRecordedPunchTypes(employeeId, today), punchType, "today");
+    }
+
+    private Set<GpsAttendanceLog.PunchType> findRecordedPunchTypes(String employeeId, LocalDate date) {
+        return gpsLogRepository.findByEmployeeIdAndDate(employeeId, date).stream()
+                .map(GpsAttendanceLog::getPunchType)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(GpsAttendanceLog.PunchType.class)));
+    }
+
+    /**
+     * Check a punch against the punch types already recorded for its day
+     */
+    private void checkPunchSequence(Set<GpsAttendanceLog.PunchType> recorded, GpsAttendanceLog.PunchType punchType,
+                                    String dayLabel) {
+        boolean hasCheckIn = recorded.contains(GpsAttendanceLog.PunchType.CHECK_IN);
+        boolean hasLunchOut = recorded.contains(GpsAttendanceLog.PunchType.LUNCH_OUT);
+        boolean hasLunchIn = recorded.contains(GpsAttendanceLog.PunchType.LUNCH_IN);
+        boolean hasCheckOut = recorded.contains(GpsAttendanceLog.PunchType.CHECK_OUT);
 
         switch (punchType) {
             case CHECK_IN:
                 if (hasCheckIn) {
-                    throw new BadRequestException("Check-in already recorded for today");
+                    throw new BadRequestException("Check-in already recorded for " + dayLabel);
                 }
                 break;
             case LUNCH_OUT:
@@ -291,7 +841,7 @@ public class GpsAttendanceService {
                     throw new BadRequestException("Please check-in first before marking lunch out");
                 }
                 if (hasLunchOut) {
-                    throw new BadRequestException("Lunch out already recorded for today");
+                    throw new BadRequestException("Lunch out already recorded for " + dayLabel);
                 }
                 break;
             case LUNCH_IN:
@@ -299,7 +849,7 @@ public class GpsAttendanceService {
                     throw new BadRequestException("Please mark lunch out first before marking lunch in");
                 }
                 if (hasLunchIn) {
-                    throw new BadRequestException("Lunch in already recorded for today");
+                    throw new BadRequestException("Lunch in already recorded for " + dayLabel);
                 }
                 break;
             case CHECK_OUT:
@@ -307,70 +857,48 @@ public class GpsAttendanceService {
                     throw new BadRequestException("Please check-in first before checking out");
                 }
                 if (hasCheckOut) {
-                    throw new BadRequestException("Check-out already recorded for today");
+                    throw new BadRequestException("Check-out already recorded for " + dayLabel);
                 }
                 break;
         }
     }
 
-    private Attendance createNewAttendance(Employee employee, LocalDate date) {
-        Attendance attendance = new Attendance();
-        attendance.setEmployee(employee);
-        attendance.setDate(date);
-        attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-        attendance.setRecognitionMethod("GPS_BASED");
-        return attendanceRepository.save(attendance);
+    private static String clientPunchKey(Long employeeId, String clientPunchId) {
+        return employeeId + "|" + clientPunchId;
     }
 
-    private void updateAttendanceFromPunch(Attendance attendance, GpsAttendanceLog.PunchType punchType, 
-                                           LocalDateTime punchTime, Site site) {
-        boolean shouldRecalculate = false;
-        
-        switch (punchType) {
-            case CHECK_IN:
-                attendance.setCheckInTime(punchTime);
-                // Recalculate if check-out was already done
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case LUNCH_OUT:
-                attendance.setLunchOutTime(punchTime);
-                // Recalculate if check-out was already done (lunch times affect calculation)
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case LUNCH_IN:
-                attendance.setLunchInTime(punchTime);
-                // Recalculate if check-out was already done (lunch times affect calculation)
-                if (attendance.getCheckOutTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-            case CHECK_OUT:
-                attendance.setCheckOutTime(punchTime);
-                // Always recalculate when check-out is set (if check-in exists)
-                if (attendance.getCheckInTime() != null) {
-                    shouldRecalculate = true;
-                }
-                break;
-        }
+    private static String employeeDayKey(Long employeeId, LocalDate day) {
+        return employeeId + "|" + day;
+    }
 
-        // Recalculate working hours if needed (when both check-in and check-out are available)
-        if (shouldRecalculate && attendance.getCheckInTime() != null && attendance.getCheckOutTime() != null) {
-            AttendanceCalculationService.CalculationResult result = 
-                calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
+    private void updateAttendanceFromPunch(Attendance attendance, GpsAttendanceLog.PunchType punchType,
+                                           LocalDateTime punchTime) {
+        // Appended to the punch event log; hours are recalculated only if the punch changed them
+        attendanceProjector.record(attendance, PunchEvent.PunchType.valueOf(punchType.name()), punchTime,
+                PunchEvent.Source.GPS, PunchEvent.Kind.PUNCH);
+    }
+
+    /**
+     * An offline punch that passed the stateless checks: the device's claimed time and the punch time
+     * (the device time clamped to the allowed age)
+     */
+    private static final class PendingPunch {
+
+        private final int index;
+        private final GpsAttendanceRequest request;
+        private final LocalDateTime deviceTime;
+        private final LocalDateTime punchTime;
+        private Employee employee;
+
+        private PendingPunch(int index, GpsAttendanceRequest request, LocalDateTime deviceTime, LocalDateTime punchTime) {
+            this.index = index;
+            this.request = request;
+            this.deviceTime = deviceTime;
+            this.punchTime = punchTime;
         }
 
-        // Update site info on attendance record
-        if (site != null) {
-            // Store the site ID and distance in the attendance record
-            // These fields would need to be added to the Attendance model if not present
+        private GpsPunchSyncResult reject(String message) {
+            return GpsPunchSyncResult.rejected(index, request.getClientPunchId(), message);
         }
     }
-
 }
-
@@ -7,6 +7,7 @@ import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
 import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.model.Employee;
 import com.civiltech.civildesk_backend.model.Holiday;
+import com.civiltech.civildesk_backend.model.PunchEvent;
 import com.civiltech.civildesk_backend.repository.AttendanceRepository;
 import com.civiltech.civildesk_backend.repository.EmployeeRepository;
 import com.civiltech.civildesk_backend.repository.HolidayRepository;
@@ -20,8 +21,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -38,7 +42,7 @@ public class HolidayService {
     private AttendanceRepository attendanceRepository;
 
     @Autowired
-    private AttendanceCalculationService calculationService;
+    private AttendanceProjector attendanceProjector;
 
     // Normalized holiday attendance times
     private static final LocalTime HOLIDAY_CHECK_IN = LocalTime.of(9, 0);   // 09:00
@@ -247,23 +251,19 @@ public class HolidayService {
                 attendance.setDeleted(false);
             }
 
-            // Set normalized times
+            // Set normalized times (recorded as holiday events; working hours recalculated, should be 8 hours)
             attendance.setEmployee(employee);
             attendance.setDate(holidayDate);
-            attendance.setCheckInTime(holidayDate.atTime(HOLIDAY_CHECK_IN));
-            attendance.setLunchOutTime(holidayDate.atTime(HOLIDAY_LUNCH_OUT));
-            attendance.setLunchInTime(holidayDate.atTime(HOLIDAY_LUNCH_IN));
-            attendance.setCheckOutTime(holidayDate.atTime(HOLIDAY_CHECK_OUT));
+            Map<PunchEvent.PunchType, LocalDateTime> normalizedTimes = new EnumMap<>(PunchEvent.PunchType.class);
+            normalizedTimes.put(PunchEvent.PunchType.CHECK_IN, holidayDate.atTime(HOLIDAY_CHECK_IN));
+            normalizedTimes.put(PunchEvent.PunchType.LUNCH_OUT, holidayDate.atTime(HOLIDAY_LUNCH_OUT));
+            normalizedTimes.put(PunchEvent.PunchType.LUNCH_IN, holidayDate.atTime(HOLIDAY_LUNCH_IN));
+            normalizedTimes.put(PunchEvent.PunchType.CHECK_OUT, holidayDate.atTime(HOLIDAY_CHECK_OUT));
+            attendanceProjector.record(attendance, normalizedTimes, PunchEvent.Source.HOLIDAY, PunchEvent.Kind.CORRECTION);
             attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
             attendance.setRecognitionMethod("HOLIDAY");
             attendance.setNotes("Holiday: Normalized attendance");
 
-            // Calculate working hours (should be 8 hours)
-            AttendanceCalculationService.CalculationResult result = 
-                    calculationService.calculateAttendance(attendance);
-            attendance.setWorkingHours(result.getWorkingHours());
-            attendance.setOvertimeHours(result.getOvertimeHours());
-
             attendanceRepository.save(attendance);
         }
     }
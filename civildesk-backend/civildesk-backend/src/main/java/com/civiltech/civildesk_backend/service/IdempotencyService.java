@@ -0,0 +1,370 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.ApiResponse;
+import com.civiltech.civildesk_backend.security.SecurityUtils;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys for retried write endpoints (attendance punches).
+ *
+ * The client sends an Idempotency-Key header, unique per logical request and reused on retries. The
+ * first request with a key runs and, when successful (2xx), its response is kept for ttl-seconds; a
+ * retry with the same key gets that response back without running the action again (and without any
+ * database access), marked with an Idempotent-Replayed header. A retry that arrives while the first
+ * request is still running gets 409 and should retry shortly. Failed responses are not kept, so a
+ * retry after a failure runs again.
+ *
+ * A hash of the request's identifying fields (e.g. employee and punch type) is kept with the key; reusing
+ * a key for a different request gets 422 instead of the other request's response.
+ *
+ * Keys are scoped per endpoint and per authenticated user. With Redis enabled the store is shared by
+ * all nodes; otherwise (or if Redis is unreachable) a bounded in-process store is used.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String IN_FLIGHT = "IN_FLIGHT";
+    private static final int MAX_KEY_LENGTH = 128;
+    // Hex SHA-256
+    private static final int HASH_LENGTH = 64;
+
+    // Delete the key only while it still holds this request's in-flight marker (an expired claim must
+    // not remove a newer request's marker or stored response)
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    // Bounds how long a crashed request blocks retries with its key
+    @Value("${app.idempotency.in-flight-ttl-seconds:60}")
+    private long inFlightTtlSeconds;
+
+    @Value("${app.idempotency.local.max-size:10000}")
+    private long localMaxSize;
+
+    private StringRedisTemplate redisTemplate;
+
+    private Cache<String, StoredResponse> localCompleted;
+
+    // Entries are always removed when the request finishes
+    private final ConcurrentHashMap<String, InFlight> localInFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+        localCompleted = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Run the action at most once per idempotency key (no key: always run)
+     *
+     * @param scope    Endpoint name, so the same key on different endpoints does not collide
+     * @param key      Client-supplied Idempotency-Key header, may be null
+     * @param request  Fields that identify the request (null allowed); a key reused with other values is refused
+     * @param dataType Type of ApiResponse.data, used to read a stored response back
+     */
+    public <T> ResponseEntity<ApiResponse<T>> execute(String scope, String key, List<?> request, Class<T> dataType,
+                                                      Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String storeKey = KEY_PREFIX + scope + ":" + SecurityUtils.getCurrentUsername() + ":" + key;
+        String requestHash = hash(request);
+        JavaType responseType = objectMapper.getTypeFactory().constructParametricType(ApiResponse.class, dataType);
+
+        Store store = redisTemplate != null ? new RedisStore() : new LocalStore();
+        Claim claim;
+        try {
+            claim = store.claim(storeKey, requestHash);
+        } catch (Exception e) {
+            logger.warn("Idempotency store unavailable, using local store: {}", e.getMessage());
+            store = new LocalStore();
+            claim = store.claim(storeKey, requestHash);
+        }
+
+        if (claim.requestHash != null && !claim.requestHash.equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ApiResponse.error("This " + HEADER + " was already used for a different request",
+                            HttpStatus.UNPROCESSABLE_ENTITY.value()));
+        }
+        if (claim.stored != null) {
+            return replay(claim.stored, responseType);
+        }
+        if (!claim.acquired) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("Retry-After", "1")
+                    .body(ApiResponse.error("A request with this " + HEADER + " is still being processed",
+                            HttpStatus.CONFLICT.value()));
+        }
+
+        ResponseEntity<ApiResponse<T>> response = null;
+        try {
+            response = action.get();
+            return response;
+        } finally {
+            finish(store, storeKey, claim, requestHash, response);
+        }
+    }
+
+    private <T> void finish(Store store, String storeKey, Claim claim, String requestHash,
+                            ResponseEntity<ApiResponse<T>> response) {
+        try {
+            if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                store.complete(storeKey, new StoredResponse(response.getStatusCode().value(), requestHash,
+                        objectMapper.writeValueAsString(response.getBody())));
+            } else {
+                store.release(storeKey, claim);
+            }
+        } catch (Exception e) {
+            // The action already ran; a lost entry only means a retry runs it again
+            logger.warn("Failed to record idempotent response for {}: {}", storeKey, e.getMessage());
+            localInFlight.remove(storeKey, claim.owner);
+        }
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> replay(StoredResponse stored, JavaType responseType) {
+        try {
+            ApiResponse<T> body = objectMapper.readValue(stored.body, responseType);
+            return ResponseEntity.status(stored.status)
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (Exception e) {
+            logger.error("Failed to read stored idempotent response: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("This request was already processed", HttpStatus.CONFLICT.value()));
+        }
+    }
+
+    // SHA-256 of the request's identifying fields, hex encoded
+    private static String hash(List<?> request) {
+        StringBuilder fields = new StringBuilder();
+        if (request != null) {
+            for (Object field : request) {
+                // Length-prefixed so ("a|b", "c") and ("a", "b|c") differ
+                String value = field != null ? field.toString() : "";
+                fields.append(value.length()).append(':').append(value).append('|');
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fields.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ==================== Stores ====================
+
+    private interface Store {
+
+        Claim claim(String key, String requestHash);
+
+        void complete(String key, StoredResponse response);
+
+        // Give the key up after a failed request, if the claim still holds it
+        void release(String key, Claim claim);
+    }
+
+    private class RedisStore implements Store {
+
+        @Override
+        public Claim claim(String key, String requestHash) {
+            // "IN_FLIGHT|<request hash>|<claim id>"
+            String marker = IN_FLIGHT + "|" + requestHash + "|" + UUID.randomUUID();
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(key, marker, Duration.ofSeconds(inFlightTtlSeconds));
+            if (Boolean.TRUE.equals(acquired)) {
+                return Claim.acquired(marker);
+            }
+            String value = redisTemplate.opsForValue().get(key);
+            if (value == null) {
+                // Expired between the two calls; treat as still busy rather than racing for it
+                return Claim.busy(null);
+            }
+            if (value.startsWith(IN_FLIGHT + "|")) {
+                int hashStart = IN_FLIGHT.length() + 1;
+                return Claim.busy(value.substring(hashStart, Math.min(hashStart + HASH_LENGTH, value.length())));
+            }
+            StoredResponse stored = StoredResponse.decode(value);
+            if (stored == null) {
+                // Not written by this version; refuse rather than run the request a second time
+                logger.warn("Unreadable idempotency entry for {}, refusing until it expires", key);
+                return Claim.busy(null);
+            }
+            return Claim.stored(stored);
+        }
+
+        @Override
+        public void complete(String key, StoredResponse response) {
+            redisTemplate.opsForValue().set(key, response.encode(), Duration.ofSeconds(ttlSeconds));
+        }
+
+        @Override
+        public void release(String key, Claim claim) {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(key), claim.owner);
+        }
+    }
+
+    private class LocalStore implements Store {
+
+        @Override
+        public Claim claim(String key, String requestHash) {
+            StoredResponse stored = localCompleted.getIfPresent(key);
+            if (stored != null) {
+                return Claim.stored(stored);
+            }
+            InFlight claim = new InFlight(System.currentTimeMillis(), requestHash);
+            long expiredBefore = claim.startedAt - inFlightTtlSeconds * 1000;
+            InFlight previous = localInFlight.putIfAbsent(key, claim);
+            if (previous != null && previous.startedAt < expiredBefore && localInFlight.replace(key, previous, claim)) {
+                previous = null;
+            }
+            if (previous != null) {
+                return Claim.busy(previous.requestHash);
+            }
+            // Completed between the lookup and the claim
+            stored = localCompleted.getIfPresent(key);
+            if (stored != null) {
+                localInFlight.remove(key, claim);
+                return Claim.stored(stored);
+            }
+            return Claim.acquired(claim);
+        }
+
+        @Override
+        public void complete(String key, StoredResponse response) {
+            localCompleted.put(key, response);
+            localInFlight.remove(key);
+        }
+
+        @Override
+        public void release(String key, Claim claim) {
+            localInFlight.remove(key, claim.owner);
+        }
+    }
+
+    private static final class Claim {
+
+        private final boolean acquired;
+        private final StoredResponse stored;
+        // Request hash of the entry already holding the key (null when acquired or unknown)
+        private final String requestHash;
+        // What this request wrote to claim the key (Redis marker or local InFlight); null when not acquired
+        private final Object owner;
+
+        private Claim(boolean acquired, StoredResponse stored, String requestHash, Object owner) {
+            this.acquired = acquired;
+            this.stored = stored;
+            this.requestHash = requestHash;
+            this.owner = owner;
+        }
+
+        private static Claim acquired(Object owner) {
+            return new Claim(true, null, null, owner);
+        }
+
+        private static Claim busy(String requestHash) {
+            return new Claim(false, null, requestHash, null);
+        }
+
+        private static Claim stored(StoredResponse stored) {
+            return new Claim(false, stored, stored.requestHash, null);
+        }
+    }
+
+    // Local claim of a key; compared by identity when an expired claim is replaced
+    private static final class InFlight {
+
+        private final long startedAt;
+        private final String requestHash;
+
+        private InFlight(long startedAt, String requestHash) {
+            this.startedAt = startedAt;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class StoredResponse {
+
+        private final int status;
+        private final String requestHash;
+        private final String body;
+
+        private StoredResponse(int status, String requestHash, String body) {
+            this.status = status;
+            this.requestHash = requestHash;
+            this.body = body;
+        }
+
+        // "<status>|<request hash>|<json body>"
+        private String encode() {
+            return status + "|" + requestHash + "|" + body;
+        }
+
+        // Null if the value is not in that format
+        private static StoredResponse decode(String value) {
+            int first = value.indexOf('|');
+            int second = first + 1 + HASH_LENGTH;
+            if (first <= 0 || value.length() <= second || value.charAt(second) != '|'
+                    || !value.substring(0, first).chars().allMatch(Character::isDigit)
+                    || !value.substring(first + 1, second).chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+                return null;
+            }
+            return new StoredResponse(Integer.parseInt(value.substring(0, first)),
+                    value.substring(first + 1, second), value.substring(second + 1));
+        }
+    }
+}
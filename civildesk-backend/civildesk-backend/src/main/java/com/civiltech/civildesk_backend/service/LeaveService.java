@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.cache.CacheInvalidator;
 import com.civiltech.civildesk_backend.dto.LeaveRequest;
 import com.civiltech.civildesk_backend.dto.LeaveResponse;
 import com.civiltech.civildesk_backend.dto.LeaveReviewRequest;
@@ -16,9 +17,7 @@ import com.civiltech.civildesk_backend.security.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
@@ -30,8 +29,10 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -52,8 +53,13 @@ public class LeaveService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private LiveAttendanceCounterService liveAttendanceCounterService;
+
     // Apply for leave
-    @CacheEvict(value = "leaves", allEntries = true)
     public LeaveResponse applyLeave(LeaveRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -109,6 +115,7 @@ public class LeaveService {
         leave.setTotalDays(totalDays);
 
         leave = leaveRepository.save(leave);
+        evictLeaveCaches(leave, null);
 
         LeaveResponse response = convertToResponse(leave);
         
@@ -140,10 +147,6 @@ public class LeaveService {
     }
 
     // Update leave (only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "leaves", key = "#leaveId"),
-        @CacheEvict(value = "leaves", allEntries = true)
-    })
     public LeaveResponse updateLeave(@NonNull Long leaveId, LeaveRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -183,6 +186,9 @@ public class LeaveService {
             throw new BadRequestException("Half day leave can only be applied for a single day");
         }
 
+        // Handover employees before the update also lose this responsibility
+        String previousHandoverIds = leave.getHandoverEmployeeIds();
+
         // Update leave
         leave.setLeaveType(request.getLeaveType());
         leave.setStartDate(request.getStartDate());
@@ -212,6 +218,7 @@ public class LeaveService {
         leave.setTotalDays(totalDays);
 
         leave = leaveRepository.save(leave);
+        evictLeaveCaches(leave, previousHandoverIds);
 
         LeaveResponse response = convertToResponse(leave);
         
@@ -225,10 +232,6 @@ public class LeaveService {
     }
 
     // Delete leave (only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "leaves", key = "#leaveId"),
-        @CacheEvict(value = "leaves", allEntries = true)
-    })
     public void deleteLeave(@NonNull Long leaveId) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -253,6 +256,7 @@ public class LeaveService {
         // Soft delete
         leave.setDeleted(true);
         leaveRepository.save(leave);
+        evictLeaveCaches(leave, null);
     }
 
     // Get all leaves for current employee
@@ -357,7 +361,7 @@ public class LeaveService {
     }
 
     // Get all leaves (Admin/HR only)
-    @Cacheable(value = "leaves", key = "'all-leaves'")
+    @Cacheable(value = "leaves", key = "'all-leaves'", sync = true)
     @Transactional(readOnly = true)
     public List<LeaveResponse> getAllLeaves() {
         User currentUser = SecurityUtils.getCurrentUser();
@@ -486,10 +490,6 @@ public class LeaveService {
     }
 
     // Review leave (Approve/Reject) - Admin/HR only
-    @Caching(evict = {
-        @CacheEvict(value = "leaves", key = "#leaveId"),
-        @CacheEvict(value = "leaves", allEntries = true)
-    })
     public LeaveResponse reviewLeave(@NonNull Long leaveId, LeaveReviewRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
         
@@ -524,6 +524,12 @@ public class LeaveService {
         leave.setReviewNote(request.getReviewNote());
 
         leave = leaveRepository.save(leave);
+        evictLeaveCaches(leave, null);
+
+        if (leave.getStatus() == Leave.LeaveStatus.APPROVED) {
+            liveAttendanceCounterService.recordApprovedLeave(
+                    leave.getEmployee().getId(), leave.getStartDate(), leave.getEndDate());
+        }
 
         // Send notification to employee
         if (leave.getEmployee() != null && leave.getEmployee().getUser() != null 
@@ -549,6 +555,43 @@ public class LeaveService {
         return convertToResponse(leave);
     }
 
+    // Evict only the entries this leave appears in: its own entry, the owner's lists, the
+    // responsibilities of its handover employees and the admin lists. Other users' entries stay cached.
+    private void evictLeaveCaches(Leave leave, String previousHandoverIds) {
+        Set<Long> handoverEmployeeIds = new HashSet<>(parseHandoverEmployeeIds(leave.getHandoverEmployeeIds()));
+        handoverEmployeeIds.addAll(parseHandoverEmployeeIds(previousHandoverIds));
+
+        List<Long> handoverUserIds = handoverEmployeeIds.isEmpty()
+                ? new ArrayList<>()
+                : employeeRepository.findAllById(handoverEmployeeIds).stream()
+                        .filter(emp -> emp.getUser() != null)
+                        .map(emp -> emp.getUser().getId())
+                        .collect(Collectors.toList());
+
+        Long ownerUserId = leave.getEmployee() != null && leave.getEmployee().getUser() != null
+                ? leave.getEmployee().getUser().getId()
+                : null;
+
+        cacheInvalidator.invalidate("leaves")
+                .entity(leave.getId())
+                .owner("my-leaves:", ownerUserId)
+                // The owner's own leaves show up as conflicts on their responsibilities
+                .owner("my-responsibilities:", ownerUserId)
+                .owners("my-responsibilities:", handoverUserIds)
+                .aggregate("all-leaves")
+                .aggregate("leaves-status:", Leave.LeaveStatus.values())
+                .evict();
+    }
+
+    private List<Long> parseHandoverEmployeeIds(String handoverIds) {
+        if (handoverIds == null || handoverIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(handoverIds.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
     // Helper method to validate dates
     private void validateLeaveDates(LocalDate startDate, LocalDate endDate) {
         if (startDate.isBefore(LocalDate.now())) {
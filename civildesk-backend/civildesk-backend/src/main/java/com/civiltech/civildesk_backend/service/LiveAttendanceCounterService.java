@@ -0,0 +1,633 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.Leave;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.LeaveRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Live "present / absent / on leave today" counters.
+ *
+ * Every committed attendance change (see AttendanceCounterListener) and every approved leave moves the
+ * counters, so today's summary is a constant-time read instead of three count queries per poll.
+ * The store keeps each employee's current status for the day, which makes updates idempotent: a second
+ * punch on the same day changes nothing, a status change moves one count to another. An employee on an
+ * approved leave is counted as on leave only, whatever their attendance row says, so approving a leave
+ * for someone already present moves them out of the present count.
+ *
+ * Counters live in memory by default. With app.attendance.live-counters.redis-enabled they live in Redis
+ * hashes updated by Lua scripts, so all nodes share them. Either way they are rebuilt from the database
+ * on startup, at day rollover and periodically, which bounds any drift (e.g. from bulk SQL updates).
+ * "Today" is the business day (businessClock), not the server's.
+ *
+ * In Redis one node at a time rebuilds (SET NX lock). It builds the new hashes under separate keys and
+ * swaps them in with one script; employees whose status changed while it read the database are marked
+ * by the update scripts and keep their live value in the swap, so no update is lost. In memory, updates
+ * that arrive while the database is read are collected and re-applied over the loaded values.
+ */
+@Service
+public class LiveAttendanceCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveAttendanceCounterService.class);
+
+    private static final String KEY_PREFIX = "attendance:live:";
+    private static final String MARKED = "MARKED";
+    private static final String ON_LEAVE = "ON_LEAVE_TODAY";
+    private static final String ACTIVE = "ACTIVE_EMPLOYEES";
+    private static final Duration KEY_TTL = Duration.ofDays(2);
+    private static final String RECONCILE_LOCK_KEY = KEY_PREFIX + "reconcile-lock";
+    private static final Duration RECONCILE_LOCK_TTL = Duration.ofSeconds(60);
+
+    // KEYS: status hash, counts hash, reconcile lock, dirty-status set, on-leave set;
+    // ARGV: employee id, new status ('' removes), ttl seconds. Employees on leave keep their count under ON_LEAVE_TODAY.
+    private static final DefaultRedisScript<Long> RECORD_STATUS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 then " +
+            "  redis.call('SADD', KEYS[4], ARGV[1]) redis.call('EXPIRE', KEYS[4], ARGV[3]) " +
+            "end " +
+            "local prev = redis.call('HGET', KEYS[1], ARGV[1]) " +
+            "if (prev or '') == ARGV[2] then return 0 end " +
+            "if ARGV[2] == '' then redis.call('HDEL', KEYS[1], ARGV[1]) else redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "if redis.call('SISMEMBER', KEYS[5], ARGV[1]) == 0 then " +
+            "  if prev then redis.call('HINCRBY', KEYS[2], prev, -1) else redis.call('HINCRBY', KEYS[2], 'MARKED', 1) end " +
+            "  if ARGV[2] == '' then redis.call('HINCRBY', KEYS[2], 'MARKED', -1) else redis.call('HINCRBY', KEYS[2], ARGV[2], 1) end " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    // Same as above for many employees moving to one status. KEYS: as above; ARGV: new status, ttl seconds, employee ids...
+    private static final DefaultRedisScript<Long> RECORD_STATUSES_SCRIPT = new DefaultRedisScript<>(
+            "local reconciling = redis.call('EXISTS', KEYS[3]) == 1 " +
+            "local changed = 0 " +
+            "for i = 3, #ARGV do " +
+            "  local id = ARGV[i] " +
+            "  if reconciling then redis.call('SADD', KEYS[4], id) end " +
+            "  local prev = redis.call('HGET', KEYS[1], id) " +
+            "  if prev ~= ARGV[1] then " +
+            "    redis.call('HSET', KEYS[1], id, ARGV[1]) " +
+            "    if redis.call('SISMEMBER', KEYS[5], id) == 0 then " +
+            "      if prev then redis.call('HINCRBY', KEYS[2], prev, -1) else redis.call('HINCRBY', KEYS[2], 'MARKED', 1) end " +
+            "      redis.call('HINCRBY', KEYS[2], ARGV[1], 1) " +
+            "    end " +
+            "    changed = changed + 1 " +
+            "  end " +
+            "end " +
+            "if reconciling then redis.call('EXPIRE', KEYS[4], ARGV[2]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "return changed",
+            Long.class);
+
+    // Employee ids passed to one RECORD_STATUSES_SCRIPT call
+    private static final int STATUS_SCRIPT_CHUNK = 1000;
+
+    // KEYS: on-leave set, counts hash, reconcile lock, dirty-leave set, status hash; ARGV: employee id, ttl seconds.
+    // The employee's attendance status, if any, stops counting.
+    private static final DefaultRedisScript<Long> RECORD_LEAVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 then " +
+            "  redis.call('SADD', KEYS[4], ARGV[1]) redis.call('EXPIRE', KEYS[4], ARGV[2]) " +
+            "end " +
+            "if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "local prev = redis.call('HGET', KEYS[5], ARGV[1]) " +
+            "if prev then redis.call('HINCRBY', KEYS[2], prev, -1) else redis.call('HINCRBY', KEYS[2], 'MARKED', 1) end " +
+            "redis.call('HINCRBY', KEYS[2], 'ON_LEAVE_TODAY', 1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    // Swap rebuilt counters in. KEYS: status, leave, counts, rebuilt status, rebuilt leave, rebuilt counts,
+    // reconcile lock, dirty-status set, dirty-leave set; ARGV: lock token, ttl seconds
+    private static final DefaultRedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>(
+            // The count an employee is under in the rebuilt keys (false if none), and moving them between counts
+            "local function bucket(id) " +
+            "  if redis.call('SISMEMBER', KEYS[5], id) == 1 then return 'ON_LEAVE_TODAY' end " +
+            "  return redis.call('HGET', KEYS[4], id) " +
+            "end " +
+            "local function move(from, to) " +
+            "  if from == to then return end " +
+            "  if from then redis.call('HINCRBY', KEYS[6], from, -1) else redis.call('HINCRBY', KEYS[6], 'MARKED', 1) end " +
+            "  if to then redis.call('HINCRBY', KEYS[6], to, 1) else redis.call('HINCRBY', KEYS[6], 'MARKED', -1) end " +
+            "end " +
+            "if redis.call('GET', KEYS[7]) ~= ARGV[1] then " +
+            "  redis.call('DEL', KEYS[4], KEYS[5], KEYS[6]) return 0 " +
+            "end " +
+            // Changed during the rebuild: the live value is newer than what was read from the database
+            "for _, id in ipairs(redis.call('SMEMBERS', KEYS[8])) do " +
+            "  local live = redis.call('HGET', KEYS[1], id) " +
+            "  local rebuilt = redis.call('HGET', KEYS[4], id) " +
+            "  if live ~= rebuilt then " +
+            "    local before = bucket(id) " +
+            "    if live then redis.call('HSET', KEYS[4], id, live) else redis.call('HDEL', KEYS[4], id) end " +
+            "    move(before, bucket(id)) " +
+            "  end " +
+            "end " +
+            "for _, id in ipairs(redis.call('SMEMBERS', KEYS[9])) do " +
+            "  local before = bucket(id) " +
+            "  redis.call('SADD', KEYS[5], id) " +
+            "  move(before, 'ON_LEAVE_TODAY') " +
+            "end " +
+            "for i = 1, 3 do " +
+            "  if redis.call('EXISTS', KEYS[i + 3]) == 1 then " +
+            "    redis.call('RENAME', KEYS[i + 3], KEYS[i]) redis.call('EXPIRE', KEYS[i], ARGV[2]) " +
+            "  else redis.call('DEL', KEYS[i]) end " +
+            "end " +
+            "redis.call('DEL', KEYS[7], KEYS[8], KEYS[9]) " +
+            "return 1",
+            Long.class);
+
+    // KEYS: reconcile lock; ARGV: lock token
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Autowired
+    private Clock businessClock;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.attendance.live-counters.redis-enabled:false}")
+    private boolean liveCountersInRedis;
+
+    private StringRedisTemplate redisTemplate;
+
+    // In-memory store (used when Redis is not configured for the counters); guarded by "this".
+    // statusCounts skips employees on leave; marked counts employees with a status or on leave.
+    private LocalDate day;
+    private final Map<Long, Attendance.AttendanceStatus> statuses = new HashMap<>();
+    private final Set<Long> onLeave = new HashSet<>();
+    private final Map<Attendance.AttendanceStatus, Long> statusCounts = new HashMap<>();
+    private long marked;
+    private long activeEmployees;
+
+    // Updates for pendingDay that arrive while an in-memory rebuild reads the database (null otherwise);
+    // a null status means the row was removed
+    private LocalDate pendingDay;
+    private Map<Long, Attendance.AttendanceStatus> pendingStatuses;
+    private Set<Long> pendingLeaves;
+    private final Object rebuildLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && liveCountersInRedis && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+            logger.info("Live attendance counters stored in Redis");
+        }
+    }
+
+    /**
+     * Record an employee's committed attendance status for a date; null removes the employee (row deleted).
+     * Changes for any date other than today are ignored.
+     */
+    public void recordStatus(Long employeeId, LocalDate date, Attendance.AttendanceStatus status) {
+        LocalDate today = LocalDate.now(businessClock);
+        if (employeeId == null || !today.equals(date)) {
+            return;
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.execute(RECORD_STATUS_SCRIPT,
+                        Arrays.asList(key(today, "status"), key(today, "counts"), RECONCILE_LOCK_KEY,
+                                key(today, "dirty-status"), key(today, "leave")),
+                        String.valueOf(employeeId), status != null ? status.name() : "",
+                        String.valueOf(KEY_TTL.getSeconds()));
+            } catch (Exception e) {
+                // Reconciliation repairs the counters
+                logger.warn("Failed to update live attendance counters in Redis: {}", e.getMessage());
+            }
+            return;
+        }
+        synchronized (this) {
+            if (pendingStatuses != null && today.equals(pendingDay)) {
+                pendingStatuses.put(employeeId, status);
+            }
+            // Not loaded yet or stale: the next read reconciles from the database
+            if (today.equals(day)) {
+                applyLocalStatus(employeeId, status);
+            }
+        }
+    }
+
+    /**
+     * Record rows inserted with bulk SQL (which bypasses AttendanceCounterListener): every employee moves
+     * to the same status. Inside a transaction the update is applied after commit.
+     */
+    public void recordInsertedStatuses(Collection<Long> employeeIds, LocalDate date, Attendance.AttendanceStatus status) {
+        if (employeeIds.isEmpty()) {
+            return;
+        }
+        List<Long> inserted = new ArrayList<>(employeeIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyInsertedStatuses(inserted, date, status);
+                }
+            });
+        } else {
+            applyInsertedStatuses(inserted, date, status);
+        }
+    }
+
+    private void applyInsertedStatuses(List<Long> employeeIds, LocalDate date, Attendance.AttendanceStatus status) {
+        LocalDate today = LocalDate.now(businessClock);
+        if (!today.equals(date)) {
+            return;
+        }
+        if (redisTemplate != null) {
+            List<String> keys = Arrays.asList(key(today, "status"), key(today, "counts"), RECONCILE_LOCK_KEY,
+                    key(today, "dirty-status"), key(today, "leave"));
+            try {
+                for (int i = 0; i < employeeIds.size(); i += STATUS_SCRIPT_CHUNK) {
+                    List<Long> chunk = employeeIds.subList(i, Math.min(i + STATUS_SCRIPT_CHUNK, employeeIds.size()));
+                    List<String> args = new ArrayList<>(chunk.size() + 2);
+                    args.add(status.name());
+                    args.add(String.valueOf(KEY_TTL.getSeconds()));
+                    chunk.forEach(employeeId -> args.add(String.valueOf(employeeId)));
+                    redisTemplate.execute(RECORD_STATUSES_SCRIPT, keys, args.toArray());
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to update live attendance counters in Redis: {}", e.getMessage());
+            }
+            return;
+        }
+        synchronized (this) {
+            for (Long employeeId : employeeIds) {
+                if (pendingStatuses != null && today.equals(pendingDay)) {
+                    pendingStatuses.put(employeeId, status);
+                }
+                if (today.equals(day)) {
+                    applyLocalStatus(employeeId, status);
+                }
+            }
+        }
+    }
+
+    // Caller holds the monitor
+    private void applyLocalStatus(Long employeeId, Attendance.AttendanceStatus status) {
+        Attendance.AttendanceStatus previous = status != null
+                ? statuses.put(employeeId, status)
+                : statuses.remove(employeeId);
+        if (previous == status || onLeave.contains(employeeId)) {
+            return;
+        }
+        if (previous != null) {
+            statusCounts.merge(previous, -1L, Long::sum);
+        } else {
+            marked++;
+        }
+        if (status != null) {
+            statusCounts.merge(status, 1L, Long::sum);
+        } else {
+            marked--;
+        }
+    }
+
+    // Caller holds the monitor
+    private void applyLocalLeave(Long employeeId) {
+        if (!onLeave.add(employeeId)) {
+            return;
+        }
+        Attendance.AttendanceStatus status = statuses.get(employeeId);
+        if (status != null) {
+            statusCounts.merge(status, -1L, Long::sum);
+        } else {
+            marked++;
+        }
+    }
+
+    /**
+     * Record an approved leave; counts the employee as on leave if the leave covers today.
+     * Inside a transaction the update is applied after commit.
+     */
+    public void recordApprovedLeave(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyApprovedLeave(employeeId, startDate, endDate);
+                }
+            });
+        } else {
+            applyApprovedLeave(employeeId, startDate, endDate);
+        }
+    }
+
+    private void applyApprovedLeave(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now(businessClock);
+        if (employeeId == null || today.isBefore(startDate) || today.isAfter(endDate)) {
+            return;
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.execute(RECORD_LEAVE_SCRIPT,
+                        Arrays.asList(key(today, "leave"), key(today, "counts"), RECONCILE_LOCK_KEY,
+                                key(today, "dirty-leave"), key(today, "status")),
+                        String.valueOf(employeeId), String.valueOf(KEY_TTL.getSeconds()));
+            } catch (Exception e) {
+                logger.warn("Failed to update live on-leave counter in Redis: {}", e.getMessage());
+            }
+            return;
+        }
+        synchronized (this) {
+            if (pendingLeaves != null && today.equals(pendingDay)) {
+                pendingLeaves.add(employeeId);
+            }
+            if (today.equals(day)) {
+                applyLocalLeave(employeeId);
+            }
+        }
+    }
+
+    /**
+     * Today's counts; reconciles from the database first if the store has not been loaded for today
+     */
+    public LiveCounts getTodayCounts() {
+        LocalDate today = LocalDate.now(businessClock);
+        if (redisTemplate != null) {
+            try {
+                Map<Object, Object> counts = redisTemplate.opsForHash().entries(key(today, "counts"));
+                // Punches after midnight may create the hash before the day's first reconciliation
+                if (!counts.containsKey(ACTIVE)) {
+                    reconcile();
+                    counts = redisTemplate.opsForHash().entries(key(today, "counts"));
+                    if (!counts.containsKey(ACTIVE)) {
+                        // Another node is still rebuilding; callers fall back to the database
+                        return null;
+                    }
+                }
+                return new LiveCounts(
+                        parse(counts.get(Attendance.AttendanceStatus.PRESENT.name())),
+                        parse(counts.get(Attendance.AttendanceStatus.ABSENT.name())),
+                        parse(counts.get(MARKED)),
+                        parse(counts.get(ON_LEAVE)),
+                        parse(counts.get(ACTIVE)));
+            } catch (Exception e) {
+                logger.warn("Live attendance counters unavailable in Redis: {}", e.getMessage());
+                return null;
+            }
+        }
+        boolean loaded;
+        synchronized (this) {
+            loaded = today.equals(day);
+        }
+        if (!loaded) {
+            // Outside the monitor: the rebuild takes it only to collect updates and to publish
+            reconcile();
+        }
+        synchronized (this) {
+            return new LiveCounts(
+                    statusCounts.getOrDefault(Attendance.AttendanceStatus.PRESENT, 0L),
+                    statusCounts.getOrDefault(Attendance.AttendanceStatus.ABSENT, 0L),
+                    marked,
+                    onLeave.size(),
+                    activeEmployees);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.warn("Initial live attendance counter load failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild today's counters from the database (three queries).
+     * In Redis this is skipped while another node holds the reconcile lock.
+     */
+    @Scheduled(fixedDelayString = "${app.attendance.live-counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.attendance.live-counters.reconcile-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        if (redisTemplate == null) {
+            rebuild(null);
+            return;
+        }
+        // Taken before the database is read: updates committed after this are marked dirty
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(RECONCILE_LOCK_KEY, lockToken, RECONCILE_LOCK_TTL))) {
+            logger.debug("Live attendance counters are being reconciled by another node");
+            return;
+        }
+        try {
+            rebuild(lockToken);
+        } finally {
+            // Already gone after a successful swap
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(RECONCILE_LOCK_KEY), lockToken);
+        }
+    }
+
+    private void rebuild(String lockToken) {
+        LocalDate today = LocalDate.now(businessClock);
+        if (redisTemplate != null) {
+            Map<Long, Attendance.AttendanceStatus> loadedStatuses = loadStatuses(today);
+            Set<Long> loadedOnLeave = loadOnLeave(today);
+            writeToRedis(today, lockToken, loadedStatuses, loadedOnLeave, countActive());
+            logger.debug("Reconciled live attendance counters for {}: {} marked, {} on leave",
+                    today, loadedStatuses.size(), loadedOnLeave.size());
+            return;
+        }
+        synchronized (rebuildLock) {
+            rebuildInMemory(today);
+        }
+    }
+
+    private void rebuildInMemory(LocalDate today) {
+        synchronized (this) {
+            // Updates committed from here on may be missing from what is read below
+            pendingDay = today;
+            pendingStatuses = new HashMap<>();
+            pendingLeaves = new HashSet<>();
+        }
+        try {
+            Map<Long, Attendance.AttendanceStatus> loadedStatuses = loadStatuses(today);
+            Set<Long> loadedOnLeave = loadOnLeave(today);
+            long loadedActive = countActive();
+
+            synchronized (this) {
+                day = today;
+                statuses.clear();
+                onLeave.clear();
+                statusCounts.clear();
+                marked = 0;
+                activeEmployees = loadedActive;
+                loadedOnLeave.forEach(this::applyLocalLeave);
+                loadedStatuses.forEach(this::applyLocalStatus);
+                // Collected while the database was read, so newer than (or equal to) the loaded values
+                pendingLeaves.forEach(this::applyLocalLeave);
+                pendingStatuses.forEach(this::applyLocalStatus);
+                logger.debug("Reconciled live attendance counters for {}: {} marked, {} on leave",
+                        today, marked, onLeave.size());
+            }
+        } finally {
+            synchronized (this) {
+                pendingDay = null;
+                pendingStatuses = null;
+                pendingLeaves = null;
+            }
+        }
+    }
+
+    private Map<Long, Attendance.AttendanceStatus> loadStatuses(LocalDate date) {
+        Map<Long, Attendance.AttendanceStatus> loaded = new HashMap<>();
+        for (Object[] row : attendanceRepository.findEmployeeStatusesByDate(date)) {
+            loaded.put((Long) row[0], (Attendance.AttendanceStatus) row[1]);
+        }
+        return loaded;
+    }
+
+    private Set<Long> loadOnLeave(LocalDate date) {
+        Set<Long> loaded = new HashSet<>();
+        for (Leave leave : leaveRepository.findLeavesCoveringDate(Leave.LeaveStatus.APPROVED, date)) {
+            loaded.add(leave.getEmployee().getId());
+        }
+        return loaded;
+    }
+
+    private long countActive() {
+        return employeeRepository.countByEmploymentStatusAndDeletedFalse(Employee.EmploymentStatus.ACTIVE);
+    }
+
+    private void writeToRedis(LocalDate today, String lockToken, Map<Long, Attendance.AttendanceStatus> loadedStatuses,
+                              Set<Long> loadedOnLeave, long loadedActive) {
+        // Built under separate keys, then swapped in atomically
+        String statusKey = key(today, "rebuild:status");
+        String leaveKey = key(today, "rebuild:leave");
+        String countsKey = key(today, "rebuild:counts");
+
+        Map<String, String> statusEntries = new HashMap<>();
+        loadedStatuses.forEach((employeeId, status) -> statusEntries.put(String.valueOf(employeeId), status.name()));
+        // Same counting as the update scripts: employees on leave count only under ON_LEAVE
+        Map<String, Long> counts = new HashMap<>();
+        loadedStatuses.forEach((employeeId, status) -> {
+            if (!loadedOnLeave.contains(employeeId)) {
+                counts.merge(status.name(), 1L, Long::sum);
+            }
+        });
+        long markedOrOnLeave = loadedOnLeave.size() + loadedStatuses.keySet().stream()
+                .filter(employeeId -> !loadedOnLeave.contains(employeeId))
+                .count();
+        Map<String, String> countEntries = new HashMap<>();
+        counts.forEach((status, count) -> countEntries.put(status, String.valueOf(count)));
+        countEntries.put(MARKED, String.valueOf(markedOrOnLeave));
+        countEntries.put(ON_LEAVE, String.valueOf(loadedOnLeave.size()));
+        countEntries.put(ACTIVE, String.valueOf(loadedActive));
+
+        redisTemplate.delete(Arrays.asList(statusKey, leaveKey, countsKey));
+        if (!statusEntries.isEmpty()) {
+            redisTemplate.opsForHash().putAll(statusKey, statusEntries);
+        }
+        if (!loadedOnLeave.isEmpty()) {
+            redisTemplate.opsForSet().add(leaveKey, loadedOnLeave.stream().map(String::valueOf).toArray(String[]::new));
+        }
+        redisTemplate.opsForHash().putAll(countsKey, countEntries);
+
+        Long swapped = redisTemplate.execute(SWAP_SCRIPT,
+                Arrays.asList(key(today, "status"), key(today, "leave"), key(today, "counts"),
+                        statusKey, leaveKey, countsKey,
+                        RECONCILE_LOCK_KEY, key(today, "dirty-status"), key(today, "dirty-leave")),
+                lockToken, String.valueOf(KEY_TTL.getSeconds()));
+        if (swapped == null || swapped == 0) {
+            logger.warn("Live attendance counter rebuild for {} outlasted its lock; discarded", today);
+        }
+    }
+
+    private static String key(LocalDate date, String part) {
+        return KEY_PREFIX + date + ":" + part;
+    }
+
+    private static long parse(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+
+    /**
+     * Snapshot of today's counters
+     */
+    public static class LiveCounts {
+        private final long present;
+        private final long absent;
+        private final long marked;
+        private final long onLeave;
+        private final long activeEmployees;
+
+        public LiveCounts(long present, long absent, long marked, long onLeave, long activeEmployees) {
+            this.present = present;
+            this.absent = absent;
+            this.marked = marked;
+            this.onLeave = onLeave;
+            this.activeEmployees = activeEmployees;
+        }
+
+        public long getPresent() {
+            return present;
+        }
+
+        public long getAbsent() {
+            return absent;
+        }
+
+        // Employees with an attendance row or an approved leave today
+        public long getMarked() {
+            return marked;
+        }
+
+        public long getOnLeave() {
+            return onLeave;
+        }
+
+        public long getActiveEmployees() {
+            return activeEmployees;
+        }
+
+        public long getNotMarked() {
+            return Math.max(0, activeEmployees - marked);
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.NotificationOutbox;
+import com.civiltech.civildesk_backend.model.User;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.NotificationOutboxRepository;
+import com.civiltech.civildesk_backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for push notifications.
+ *
+ * Business flows only insert an outbox row (same transaction as the notification), so approvals never
+ * wait on FCM or hold a connection during the network call. The dispatcher claims due rows with
+ * FOR UPDATE SKIP LOCKED (several nodes can dispatch concurrently), marks them SENDING with a lease,
+ * sends outside any transaction and records the result. The lease is renewed right before every
+ * provider batch (a user batch, or each batch of a broadcast multicast), and a row whose lease was lost to another dispatcher is neither sent
+ * nor recorded here; the attempts counter, bumped on every claim, identifies the holder:
+ * - SENT:    delivered to the provider
+ * - SKIPPED: user has no FCM token, or the token was invalid (token is cleared)
+ * - PENDING: transient failure, retried with exponential backoff (a broadcast only retries the
+ *            tokens that failed, kept in pending_tokens)
+ * - FAILED:  gave up after max-attempts
+ *
+ * Rows are dispatched right after the writing transaction commits and by a periodic poll that picks up
+ * retries and anything missed (e.g. a restart between commit and dispatch).
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private PushGateway pushGateway;
+
+    @Autowired
+    private PushMulticastService pushMulticastService;
+
+    @Autowired
+    @Qualifier("pushExecutor")
+    private Executor pushExecutor;
+
+    @Value("${app.notifications.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.notifications.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${app.notifications.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${app.notifications.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.notifications.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==================== Enqueue (inside the business transaction) ====================
+
+    /**
+     * Queue a push to one user, delivered after the surrounding transaction commits
+     */
+    public void enqueueForUser(Long userId, Long notificationId, Map<String, String> payload) {
+        NotificationOutbox row = newRow(NotificationOutbox.RecipientType.USER, payload);
+        row.setUserId(userId);
+        row.setNotificationId(notificationId);
+        outboxRepository.save(row);
+        dispatchAfterCommit();
+    }
+
+    /**
+     * Queue one multicast push to every active employee (one row regardless of head count)
+     */
+    public void enqueueForActiveEmployees(Map<String, String> payload) {
+        outboxRepository.save(newRow(NotificationOutbox.RecipientType.ACTIVE_EMPLOYEES, payload));
+        dispatchAfterCommit();
+    }
+
+    private NotificationOutbox newRow(NotificationOutbox.RecipientType recipientType, Map<String, String> payload) {
+        NotificationOutbox row = new NotificationOutbox();
+        row.setRecipientType(recipientType);
+        row.setPayload(new HashMap<>(payload));
+        row.setStatus(NotificationOutbox.OutboxStatus.PENDING);
+        row.setAttempts(0);
+        row.setNextAttemptAt(LocalDateTime.now());
+        row.setDeleted(false);
+        return row;
+    }
+
+    private void dispatchAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    triggerDispatch();
+                }
+            });
+        } else {
+            triggerDispatch();
+        }
+    }
+
+    private void triggerDispatch() {
+        try {
+            pushExecutor.execute(this::dispatchDue);
+        } catch (RuntimeException e) {
+            // The periodic poll picks the rows up
+            logger.debug("Outbox dispatch not triggered: {}", e.getMessage());
+        }
+    }
+
+    // ==================== Dispatch (outside any business transaction) ====================
+
+    /**
+     * Send every due row, one claimed batch at a time. One dispatch loop per node; other nodes
+     * run their own and skip rows locked here.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.poll-interval-ms:5000}")
+    public void dispatchDue() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed >= batchSize);
+        } catch (Exception e) {
+            logger.error("Notification outbox dispatch failed", e);
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Purge delivered rows after the retention period (FAILED rows are kept for inspection)
+     */
+    @Scheduled(cron = "${app.notifications.outbox.cleanup-cron:0 30 3 * * ?}")
+    public void purgeFinished() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deleteFinishedBefore(
+                Arrays.asList(NotificationOutbox.OutboxStatus.SENT, NotificationOutbox.OutboxStatus.SKIPPED), before));
+        logger.info("Purged {} delivered notification outbox rows", deleted);
+    }
+
+    private int dispatchBatch() {
+        List<NotificationOutbox> rows = claim();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Result> results = new HashMap<>();
+        List<NotificationOutbox> userRows = new ArrayList<>();
+        for (NotificationOutbox row : rows) {
+            if (row.getRecipientType() == NotificationOutbox.RecipientType.USER) {
+                userRows.add(row);
+            } else {
+                Result result = sendToActiveEmployees(row);
+                if (result != null) {
+                    results.put(row.getId(), result);
+                }
+            }
+        }
+        if (!userRows.isEmpty()) {
+            results.putAll(sendToUsers(userRows));
+        }
+
+        record(rows, results);
+        return rows.size();
+    }
+
+    // Lock due rows, lease them to this dispatcher and commit, so the send happens without a transaction
+    private List<NotificationOutbox> claim() {
+        List<NotificationOutbox> rows = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = outboxRepository.claimDue(now, batchSize);
+            for (NotificationOutbox row : due) {
+                row.setStatus(NotificationOutbox.OutboxStatus.SENDING);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+        return rows != null ? rows : new ArrayList<>();
+    }
+
+    // Push the lease out before a send; returns the ids still held by this dispatcher's claim
+    private Set<Long> renewLeases(List<NotificationOutbox> rows) {
+        Set<Long> held = transactionTemplate.execute(status -> {
+            LocalDateTime until = LocalDateTime.now().plusSeconds(leaseSeconds);
+            Set<Long> renewed = new HashSet<>();
+            for (NotificationOutbox row : rows) {
+                if (outboxRepository.renewLease(row.getId(), row.getAttempts(),
+                        NotificationOutbox.OutboxStatus.SENDING, until) > 0) {
+                    renewed.add(row.getId());
+                }
+            }
+            return renewed;
+        });
+        if (held == null || held.size() < rows.size()) {
+            logger.warn("Outbox lease lost for {} of {} rows, leaving them to their new holder",
+                    rows.size() - (held != null ? held.size() : 0), rows.size());
+        }
+        return held != null ? held : new HashSet<>();
+    }
+
+    private Map<Long, Result> sendToUsers(List<NotificationOutbox> rows) {
+        Map<Long, Result> results = new HashMap<>();
+        if (!pushGateway.isAvailable()) {
+            rows.forEach(row -> results.put(row.getId(), Result.skipped("Push gateway is not configured")));
+            return results;
+        }
+
+        // Current tokens for all recipients in one query
+        Set<Long> userIds = rows.stream().map(NotificationOutbox::getUserId).collect(Collectors.toSet());
+        Map<Long, String> tokens = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            if (user.getFcmToken() != null && !user.getFcmToken().trim().isEmpty()) {
+                tokens.put(user.getId(), user.getFcmToken());
+            }
+        }
+
+        List<NotificationOutbox> sendable = new ArrayList<>();
+        for (NotificationOutbox row : rows) {
+            if (tokens.containsKey(row.getUserId())) {
+                sendable.add(row);
+            } else {
+                results.put(row.getId(), Result.skipped("No FCM token"));
+            }
+        }
+
+        Set<String> invalidTokens = new LinkedHashSet<>();
+        for (int from = 0; from < sendable.size(); from += PushGateway.MAX_BATCH_SIZE) {
+            List<NotificationOutbox> batch = sendable.subList(from, Math.min(from + PushGateway.MAX_BATCH_SIZE, sendable.size()));
+            Set<Long> held = renewLeases(batch);
+            batch = batch.stream().filter(row -> held.contains(row.getId())).collect(Collectors.toList());
+            if (batch.isEmpty()) {
+                continue;
+            }
+            List<String> batchTokens = new ArrayList<>(batch.size());
+            List<Map<String, String>> payloads = new ArrayList<>(batch.size());
+            for (NotificationOutbox row : batch) {
+                batchTokens.add(tokens.get(row.getUserId()));
+                payloads.add(row.getPayload());
+            }
+
+            try {
+                PushGateway.BatchResult result = pushGateway.sendEach(batchTokens, payloads);
+                List<PushGateway.Outcome> outcomes = result.getOutcomes();
+                for (int i = 0; i < batch.size(); i++) {
+                    PushGateway.Outcome outcome = i < outcomes.size() ? outcomes.get(i) : PushGateway.Outcome.FAILED;
+                    results.put(batch.get(i).getId(), Result.of(outcome));
+                }
+                invalidTokens.addAll(result.getInvalidTokens());
+            } catch (Exception e) {
+                logger.warn("Push batch of {} failed, will retry: {}", batch.size(), e.getMessage());
+                batch.forEach(row -> results.put(row.getId(), Result.retry(e.getMessage())));
+            }
+        }
+
+        if (!invalidTokens.isEmpty()) {
+            pushMulticastService.clearInvalidTokens(invalidTokens);
+        }
+        return results;
+    }
+
+    // null when the lease was lost part way; the new holder sends and records the row
+    private Result sendToActiveEmployees(NotificationOutbox row) {
+        if (!pushGateway.isAvailable()) {
+            return Result.skipped("Push gateway is not configured");
+        }
+        try {
+            // A retry only goes to the tokens the previous attempt could not reach
+            List<String> tokens = row.getPendingTokens();
+            if (tokens == null) {
+                tokens = new ArrayList<>();
+                for (Object[] recipient : employeeRepository.findRecipientUserIdsAndTokens(Employee.EmploymentStatus.ACTIVE)) {
+                    String token = (String) recipient[1];
+                    if (token != null && !token.trim().isEmpty()) {
+                        tokens.add(token);
+                    }
+                }
+            }
+            if (tokens.isEmpty()) {
+                return Result.skipped("No FCM tokens");
+            }
+            // A broadcast spans many batches, so the lease is renewed before each of them
+            PushMulticastService.MulticastResult result = pushMulticastService.send(tokens, row.getPayload(),
+                    () -> !renewLeases(List.of(row)).isEmpty());
+            if (result.isStopped()) {
+                return null;
+            }
+            if (!result.getRetryTokens().isEmpty()) {
+                logger.warn("Broadcast push {} failed for {} of {} tokens, will retry those",
+                        row.getId(), result.getRetryTokens().size(), tokens.size());
+                return Result.retry(result.getLastError() != null ? result.getLastError() : "Provider rejected the message",
+                        result.getRetryTokens());
+            }
+            if (result.getSentCount() == 0) {
+                return Result.skipped("Invalid FCM tokens");
+            }
+            return Result.of(PushGateway.Outcome.SENT);
+        } catch (Exception e) {
+            logger.warn("Broadcast push {} failed, will retry: {}", row.getId(), e.getMessage());
+            return Result.retry(e.getMessage());
+        }
+    }
+
+    // Write all outcomes in one short transaction (batched updates); rows re-claimed since are left alone
+    private void record(List<NotificationOutbox> claimed, Map<Long, Result> results) {
+        Set<Long> ids = new HashSet<>(results.keySet());
+        Map<Long, Integer> claimedAttempts = new HashMap<>();
+        claimed.forEach(row -> claimedAttempts.put(row.getId(), row.getAttempts()));
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> rows = outboxRepository.findAllById(ids);
+            for (NotificationOutbox row : rows) {
+                Result result = results.get(row.getId());
+                if (row.getStatus() != NotificationOutbox.OutboxStatus.SENDING
+                        || !row.getAttempts().equals(claimedAttempts.get(row.getId()))) {
+                    continue;
+                }
+                switch (result.outcome) {
+                    case SENT:
+                        row.setStatus(NotificationOutbox.OutboxStatus.SENT);
+                        row.setSentAt(now);
+                        row.setLastError(null);
+                        row.setPendingTokens(null);
+                        break;
+                    case INVALID_TOKEN:
+                        row.setStatus(NotificationOutbox.OutboxStatus.SKIPPED);
+                        row.setLastError(truncate(result.error != null ? result.error : "Invalid FCM token"));
+                        break;
+                    default:
+                        row.setLastError(truncate(result.error));
+                        if (result.pendingTokens != null) {
+                            row.setPendingTokens(result.pendingTokens);
+                        }
+                        if (row.getAttempts() >= maxAttempts) {
+                            row.setStatus(NotificationOutbox.OutboxStatus.FAILED);
+                        } else {
+                            row.setStatus(NotificationOutbox.OutboxStatus.PENDING);
+                            row.setNextAttemptAt(now.plusSeconds(backoffSeconds(row.getAttempts())));
+                        }
+                        break;
+                }
+            }
+        });
+
+        long sent = results.values().stream().filter(r -> r.outcome == PushGateway.Outcome.SENT).count();
+        logger.debug("Outbox batch dispatched - Claimed: {}, Sent: {}", claimed.size(), sent);
+    }
+
+    // base * 2^(attempts - 1), capped
+    private long backoffSeconds(int attempts) {
+        long delay = backoffBaseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(delay, backoffMaxSeconds);
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static final class Result {
+
+        private final PushGateway.Outcome outcome;
+        private final String error;
+        // Tokens the retry of a broadcast is limited to; null keeps the row's current recipients
+        private final List<String> pendingTokens;
+
+        private Result(PushGateway.Outcome outcome, String error, List<String> pendingTokens) {
+            this.outcome = outcome;
+            this.error = error;
+            this.pendingTokens = pendingTokens;
+        }
+
+        static Result of(PushGateway.Outcome outcome) {
+            return new Result(outcome, outcome == PushGateway.Outcome.FAILED ? "Provider rejected the message" : null, null);
+        }
+
+        static Result retry(String error) {
+            return new Result(PushGateway.Outcome.FAILED, error, null);
+        }
+
+        static Result retry(String error, List<String> pendingTokens) {
+            return new Result(PushGateway.Outcome.FAILED, error, pendingTokens);
+        }
+
+        // Nothing to deliver to; recorded like an invalid token (no retry)
+        static Result skipped(String reason) {
+            return new Result(PushGateway.Outcome.INVALID_TOKEN, reason, null);
+        }
+    }
+}
@@ -1,24 +1,28 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.dto.NotificationResponse;
+import com.civiltech.civildesk_backend.model.BroadcastMessage;
 import com.civiltech.civildesk_backend.model.Notification;
 import com.civiltech.civildesk_backend.model.User;
 import com.civiltech.civildesk_backend.repository.NotificationRepository;
 import com.civiltech.civildesk_backend.repository.UserRepository;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,14 +30,25 @@ public class NotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
+    // Feed order: newest first, ties broken by id
+    private static final Comparator<NotificationResponse> NEWEST_FIRST = Comparator
+            .comparing(NotificationResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(NotificationResponse::getId, Comparator.reverseOrder());
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired(required = false)
-    private FirebaseMessaging firebaseMessaging;
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private BroadcastFeedService broadcastFeedService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
 
     // ==================== FCM Token Management ====================
 
@@ -86,116 +101,125 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
 
         notification = notificationRepository.save(notification);
+        notificationStreamService.notificationCreated(userId, notification.getId());
 
-        // Send push notification
-        sendPushNotification(userId, title, body, type, data, notification.getId().toString());
+        // Push is delivered from the outbox after commit; FCM latency never holds this transaction
+        notificationOutboxService.enqueueForUser(userId, notification.getId(),
+                buildPushData(title, body, type, data, notification.getId().toString()));
 
         return notification;
     }
 
     /**
-     * Send push notification via FCM (without saving to DB)
+     * Data-only payload shared by single and multicast pushes
      */
-    public void sendPushNotification(Long userId, String title, String body, 
-                                     String type, Map<String, String> data, 
-                                     String notificationId) {
-        if (firebaseMessaging == null) {
-            logger.warn("Firebase Messaging is not configured. Push notification skipped.");
-            return;
-        }
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        String fcmToken = user.getFcmToken();
-        if (fcmToken == null || fcmToken.trim().isEmpty()) {
-            logger.debug("No FCM token found for user: {}. Push notification skipped.", userId);
-            return;
-        }
-
-        try {
-            // Build data payload (data-only message for custom notification display)
-            Map<String, String> messageData = new HashMap<>();
-            messageData.put("title", title);
-            messageData.put("body", body);
-            messageData.put("type", type);
+    private Map<String, String> buildPushData(String title, String body, String type,
+                                              Map<String, String> data, String notificationId) {
+        Map<String, String> messageData = new HashMap<>();
+        messageData.put("title", title);
+        messageData.put("body", body);
+        messageData.put("type", type);
+        if (notificationId != null) {
             messageData.put("notificationId", notificationId);
-            messageData.put("click_action", "FLUTTER_NOTIFICATION_CLICK");
-            
-            // Add custom data
-            if (data != null) {
-                messageData.putAll(data);
-            }
+        }
+        messageData.put("click_action", "FLUTTER_NOTIFICATION_CLICK");
 
-            // Build FCM message
-            Message message = Message.builder()
-                    .setToken(fcmToken)
-                    .putAllData(messageData)
-                    .setAndroidConfig(com.google.firebase.messaging.AndroidConfig.builder()
-                            .setPriority(com.google.firebase.messaging.AndroidConfig.Priority.HIGH)
-                            .build())
-                    .setApnsConfig(com.google.firebase.messaging.ApnsConfig.builder()
-                            .setAps(com.google.firebase.messaging.Aps.builder()
-                                    .setSound("default")
-                                    .build())
-                            .build())
-                    .build();
-
-            // Send message
-            String response = firebaseMessaging.send(message);
-            logger.info("Push notification sent successfully to user: {}. Message ID: {}", userId, response);
-
-        } catch (FirebaseMessagingException e) {
-            logger.error("Failed to send push notification to user: {}", userId, e);
-            
-            // Handle invalid token
-            if (e.getErrorCode() != null) {
-                String errorCode = e.getErrorCode().toString();
-                if ("messaging/invalid-registration-token".equals(errorCode) ||
-                    "messaging/registration-token-not-registered".equals(errorCode)) {
-                    logger.warn("Invalid FCM token detected for user: {}. Removing token.", userId);
-                    user.setFcmToken(null);
-                    user.setFcmTokenUpdatedAt(LocalDateTime.now());
-                    userRepository.save(user);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Unexpected error sending push notification to user: {}", userId, e);
+        // Add custom data
+        if (data != null) {
+            messageData.putAll(data);
         }
+        return messageData;
     }
 
     // ==================== Notification Retrieval ====================
 
     /**
-     * Get paginated notifications for a user
+     * Get a page of notifications for a user, with broadcasts merged in by creation time.
+     * Pages are read by keyset: the client passes the createdAt and id of the last item it has, and each
+     * source is read for one page after that point, however deep the page. Numbered pages without a
+     * cursor are still served for older app builds, by merging both sources from the top.
      */
     @Transactional(readOnly = true)
-    public Page<Notification> getUserNotifications(Long userId, Pageable pageable) {
-        return notificationRepository.findByUserIdAndDeletedFalseOrderByCreatedAtDesc(userId, pageable);
+    public Page<NotificationResponse> getUserNotifications(Long userId, Pageable pageable,
+                                                           LocalDateTime beforeCreatedAt, Long beforeId) {
+        boolean keyset = beforeCreatedAt != null && beforeId != null;
+        if (!keyset && pageable.getOffset() > 0) {
+            return getUserNotificationsByOffset(userId, pageable);
+        }
+
+        int size = Math.max(pageable.getPageSize(), 1);
+        PageRequest firstPage = PageRequest.of(0, size);
+        List<Notification> notifications = keyset
+                ? notificationRepository.findBefore(userId, beforeCreatedAt, beforeId, firstPage)
+                : notificationRepository.findLatest(userId, firstPage);
+        BroadcastFeedService.Feed broadcasts = broadcastFeedService.getFeed(userId, beforeCreatedAt, beforeId, size);
+
+        List<NotificationResponse> merged = new ArrayList<>(notifications.size() + broadcasts.getItems().size());
+        notifications.forEach(notification -> merged.add(NotificationResponse.fromEntity(notification)));
+        merged.addAll(broadcasts.getItems());
+        merged.sort(NEWEST_FIRST);
+
+        List<NotificationResponse> content = merged.stream().limit(size).collect(Collectors.toList());
+        long total = notificationRepository.countByUserIdAndDeletedFalse(userId) + broadcasts.getTotal();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // Numbered page without a cursor: both sources read up to the end of the page and merged
+    private Page<NotificationResponse> getUserNotificationsByOffset(Long userId, Pageable pageable) {
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        Page<Notification> notifications = notificationRepository.findByUserIdAndDeletedFalseOrderByCreatedAtDesc(
+                userId, PageRequest.of(0, Math.max(limit, 1)));
+        BroadcastFeedService.Feed broadcasts = broadcastFeedService.getFeed(userId, limit);
+
+        List<NotificationResponse> merged = new ArrayList<>(notifications.getNumberOfElements() + broadcasts.getItems().size());
+        notifications.forEach(notification -> merged.add(NotificationResponse.fromEntity(notification)));
+        merged.addAll(broadcasts.getItems());
+        merged.sort(NEWEST_FIRST);
+
+        List<NotificationResponse> content = merged.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, notifications.getTotalElements() + broadcasts.getTotal());
     }
 
     /**
-     * Get unread notifications for a user
+     * Get unread notifications for a user (including unread broadcasts)
      */
     @Transactional(readOnly = true)
-    public List<Notification> getUnreadNotifications(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalseAndDeletedFalseOrderByCreatedAtDesc(userId);
+    public List<NotificationResponse> getUnreadNotifications(Long userId) {
+        List<NotificationResponse> unread = notificationRepository
+                .findByUserIdAndIsReadFalseAndDeletedFalseOrderByCreatedAtDesc(userId)
+                .stream()
+                .map(NotificationResponse::fromEntity)
+                .collect(Collectors.toList());
+        unread.addAll(broadcastFeedService.getUnread(userId));
+        unread.sort(NEWEST_FIRST);
+        return unread;
     }
 
     /**
-     * Get unread count for a user
+     * Get unread count for a user (including unread broadcasts)
      */
     @Transactional(readOnly = true)
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalseAndDeletedFalse(userId);
+        return notificationRepository.countByUserIdAndIsReadFalseAndDeletedFalse(userId)
+                + broadcastFeedService.countUnread(userId);
     }
 
     // ==================== Status Management ====================
 
     /**
-     * Mark notification as read
+     * Mark notification as read (negative ids are broadcast feed items)
      */
-    public Notification markAsRead(Long notificationId, Long userId) {
+    public NotificationResponse markAsRead(Long notificationId, Long userId) {
+        if (BroadcastFeedService.isBroadcastFeedId(notificationId)) {
+            NotificationResponse response = broadcastFeedService.markAsRead(
+                    userId, BroadcastFeedService.toBroadcastId(notificationId));
+            notificationStreamService.unreadCountChanged(userId);
+            return response;
+        }
+
         Notification notification = notificationRepository.findByIdAndUserId(notificationId, userId);
         if (notification == null) {
             throw new RuntimeException("Notification not found or access denied");
@@ -203,7 +227,9 @@ public class NotificationService {
 
         notification.setIsRead(true);
         notification.setReadAt(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        notification = notificationRepository.save(notification);
+        notificationStreamService.unreadCountChanged(userId);
+        return NotificationResponse.fromEntity(notification);
     }
 
     /**
@@ -220,12 +246,22 @@ public class NotificationService {
         }
         
         notificationRepository.saveAll(unreadNotifications);
+        broadcastFeedService.markAllAsRead(userId);
+        notificationStreamService.unreadCountChanged(userId);
     }
 
     /**
      * Delete notification
      */
     public boolean deleteNotification(Long notificationId, Long userId) {
+        if (BroadcastFeedService.isBroadcastFeedId(notificationId)) {
+            boolean hidden = broadcastFeedService.hide(userId, BroadcastFeedService.toBroadcastId(notificationId));
+            if (hidden) {
+                notificationStreamService.unreadCountChanged(userId);
+            }
+            return hidden;
+        }
+
         Notification notification = notificationRepository.findByIdAndUserId(notificationId, userId);
         if (notification == null) {
             return false;
@@ -233,6 +269,9 @@ public class NotificationService {
 
         notification.setDeleted(true);
         notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notificationStreamService.unreadCountChanged(userId);
+        }
         return true;
     }
 
@@ -448,31 +487,19 @@ public class NotificationService {
     }
 
     /**
-     * Notify when broadcast message is created
+     * Publish a broadcast to every active employee.
+     * Fan-out-on-read: nothing is written per employee; the broadcast shows up in each feed at read time
+     * (see BroadcastFeedService). Only one outbox row is added for the multicast push, so it carries
+     * broadcastId rather than a per-user notificationId.
      */
-    public void notifyBroadcastMessage(Long userId, Long broadcastId, String title, String message, 
-                                      com.civiltech.civildesk_backend.model.BroadcastMessage.Priority priority) {
-        Map<String, String> data = new HashMap<>();
-        data.put("broadcastId", broadcastId.toString());
-        data.put("priority", priority.name());
-        
-        // Truncate message if too long for notification body
-        String notificationBody = message.length() > 150 
-                ? message.substring(0, 147) + "..." 
-                : message;
-        
-        String notificationTitle = "📢 " + title;
-        if (priority == com.civiltech.civildesk_backend.model.BroadcastMessage.Priority.URGENT) {
-            notificationTitle = "🚨 URGENT: " + title;
-        } else if (priority == com.civiltech.civildesk_backend.model.BroadcastMessage.Priority.HIGH) {
-            notificationTitle = "⚠️ " + title;
-        }
-        
-        sendNotification(userId,
-                notificationTitle,
-                notificationBody,
-                "BROADCAST_MESSAGE",
-                data);
+    public void publishBroadcast(BroadcastMessage broadcast) {
+        String title = BroadcastFeedService.formatTitle(broadcast.getTitle(), broadcast.getPriority());
+        String body = BroadcastFeedService.formatBody(broadcast.getMessage());
+        Map<String, String> data = BroadcastFeedService.buildData(broadcast.getId(), broadcast.getPriority());
+
+        notificationOutboxService.enqueueForActiveEmployees(
+                buildPushData(title, body, BroadcastFeedService.BROADCAST_TYPE, data, null));
+        notificationStreamService.broadcastPublished(broadcast.getId());
     }
 }
 
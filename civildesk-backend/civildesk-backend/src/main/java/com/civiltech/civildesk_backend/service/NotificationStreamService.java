@@ -0,0 +1,431 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.NotificationResponse;
+import com.civiltech.civildesk_backend.model.Notification;
+import com.civiltech.civildesk_backend.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events stream of a user's notifications, replacing polling of the unread count and list.
+ *
+ * Events:
+ * - notification: a new notification (event id = notification id) or a published broadcast (no id)
+ * - unread-count: the current unread count, sent on connect and whenever it changes
+ * - unread-count-delta: change to add to the unread count (a broadcast was published)
+ * - resync:       the client missed events (buffer overflow or resume too far back) and should reload via REST
+ *
+ * Each connection has a small bounded buffer drained on a dedicated executor, so a slow client never
+ * blocks the writer and never holds more than buffer-size events. If the executor rejects a drain the
+ * connection is closed and the client reconnects and resumes. Idle connections only receive a comment
+ * heartbeat, sent by one task for all connections. Reconnecting clients send Last-Event-ID and get the
+ * notifications they missed. With Redis enabled, changes are relayed through a pub/sub channel so the
+ * node holding the connection delivers them.
+ */
+@Service
+public class NotificationStreamService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String EVENT_UNREAD_COUNT = "unread-count";
+    private static final String EVENT_UNREAD_COUNT_DELTA = "unread-count-delta";
+    private static final String EVENT_RESYNC = "resync";
+
+    // Pub/sub target for broadcasts (delivered to every connected recipient)
+    private static final String BROADCAST_TARGET = "*";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BroadcastFeedService broadcastFeedService;
+
+    @Autowired
+    @Qualifier("notificationStreamExecutor")
+    private Executor executor;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.notifications.stream.channel:civildesk:notifications:events}")
+    private String eventChannel;
+
+    @Value("${app.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.notifications.stream.buffer-size:50}")
+    private int bufferSize;
+
+    @Value("${app.notifications.stream.resume-limit:100}")
+    private int resumeLimit;
+
+    @Value("${app.notifications.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    private StringRedisTemplate redisTemplate;
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean heartbeatRunning = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    public String getEventChannel() {
+        return eventChannel;
+    }
+
+    /**
+     * Open a stream for a user, replaying notifications created after lastEventId when given
+     */
+    public SseEmitter connect(Long userId, @Nullable Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter);
+
+        Set<Connection> userConnections = connections.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>());
+        userConnections.add(connection);
+        // Abandoned tabs/devices that never closed cleanly; keep only the newest few.
+        // Remove before closing: close() is a no-op for a connection already marked closed.
+        while (userConnections.size() > maxConnectionsPerUser) {
+            userConnections.stream().min((a, b) -> Long.compare(a.openedAt, b.openedAt))
+                    .ifPresent(oldest -> {
+                        userConnections.remove(oldest);
+                        close(oldest, true);
+                    });
+        }
+
+        emitter.onCompletion(() -> close(connection, false));
+        emitter.onTimeout(() -> close(connection, true));
+        emitter.onError(e -> close(connection, false));
+
+        if (lastEventId != null) {
+            replay(connection, lastEventId);
+        }
+        enqueue(connection, unreadCountEvent(unreadCount(userId)));
+        return emitter;
+    }
+
+    /**
+     * Push a newly persisted notification (and the new unread count) once the transaction commits
+     */
+    public void notificationCreated(Long userId, Long notificationId) {
+        afterCommit(() -> publish(userId, notificationId));
+    }
+
+    /**
+     * Push a published broadcast to every connected recipient once the transaction commits
+     */
+    public void broadcastPublished(Long broadcastId) {
+        afterCommit(() -> publish(null, broadcastId));
+    }
+
+    /**
+     * Push the user's unread count once the transaction commits (read, read-all, delete)
+     */
+    public void unreadCountChanged(Long userId) {
+        afterCommit(() -> publish(userId, null));
+    }
+
+    /**
+     * Keep idle connections open through proxies; connections with pending events are already busy.
+     * One executor task writes every heartbeat, instead of one task per connection competing with
+     * event delivery for the executor's queue.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        if (!heartbeatRunning.compareAndSet(false, true)) {
+            // Previous round still writing
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    sendHeartbeats();
+                } finally {
+                    heartbeatRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            heartbeatRunning.set(false);
+            logger.warn("Notification stream executor rejected heartbeat round: {}", e.getMessage());
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                synchronized (connection) {
+                    if (!connection.isIdle()) {
+                        continue;
+                    }
+                    connection.pending.add(SseEmitter.event().comment("heartbeat"));
+                    connection.draining = true;
+                }
+                // On this thread; also sends anything enqueued meanwhile
+                drain(connection);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        try {
+            Long userId = BROADCAST_TARGET.equals(parts[0]) ? null : Long.valueOf(parts[0]);
+            Long notificationId = parts.length > 1 && !parts[1].isEmpty() ? Long.valueOf(parts[1]) : null;
+            executor.execute(() -> dispatch(userId, notificationId));
+        } catch (RuntimeException e) {
+            logger.warn("Dropping malformed notification stream message: {}", e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // userId null = broadcast to every connected recipient (id is then the broadcast id)
+    private void publish(@Nullable Long userId, @Nullable Long notificationId) {
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.convertAndSend(eventChannel, (userId != null ? userId : BROADCAST_TARGET) + "|"
+                        + (notificationId != null ? notificationId : ""));
+                return;
+            } catch (Exception e) {
+                // Connections on this node still get it; others resync on reconnect
+                logger.warn("Failed to relay notification event through Redis: {}", e.getMessage());
+            }
+        }
+        try {
+            executor.execute(() -> dispatch(userId, notificationId));
+        } catch (RuntimeException e) {
+            // Executor saturated; clients fall back to the unread count sent on reconnect
+            logger.warn("Notification stream executor rejected event for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void dispatch(@Nullable Long userId, @Nullable Long id) {
+        if (userId != null) {
+            deliver(userId, id);
+        } else if (id != null) {
+            deliverBroadcast(id);
+        }
+    }
+
+    // Broadcasts are fan-out-on-read: send the feed item to each connected user who receives it.
+    // The item and the audience are loaded once for all connected users, and recipients get an
+    // unread-count delta instead of a per-user count query.
+    // No event id, so a client's Last-Event-ID keeps tracking its own notifications.
+    private void deliverBroadcast(Long broadcastId) {
+        List<Long> connectedUserIds = new ArrayList<>(connections.keySet());
+        if (connectedUserIds.isEmpty()) {
+            return;
+        }
+        BroadcastFeedService.Delivery delivery;
+        try {
+            delivery = broadcastFeedService.getDelivery(broadcastId, connectedUserIds);
+        } catch (Exception e) {
+            logger.warn("Failed to load broadcast {} for live delivery: {}", broadcastId, e.getMessage());
+            return;
+        }
+        if (delivery == null) {
+            return;
+        }
+        for (Long userId : delivery.getRecipients()) {
+            Set<Connection> userConnections = connections.get(userId);
+            if (userConnections == null) {
+                continue;
+            }
+            for (Connection connection : userConnections) {
+                enqueue(connection, SseEmitter.event().name(EVENT_NOTIFICATION).data(delivery.getItem()));
+                enqueue(connection, unreadCountDeltaEvent(1));
+            }
+        }
+    }
+
+    private long unreadCount(Long userId) {
+        return notificationRepository.countByUserIdAndIsReadFalseAndDeletedFalse(userId)
+                + broadcastFeedService.countUnread(userId);
+    }
+
+    private void deliver(Long userId, @Nullable Long notificationId) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null || userConnections.isEmpty()) {
+            return;
+        }
+        try {
+            if (notificationId != null) {
+                notificationRepository.findById(notificationId)
+                        .filter(notification -> !Boolean.TRUE.equals(notification.getDeleted()))
+                        .ifPresent(notification -> userConnections.forEach(c -> enqueue(c, notificationEvent(notification))));
+            }
+            long unreadCount = unreadCount(userId);
+            userConnections.forEach(c -> enqueue(c, unreadCountEvent(unreadCount)));
+        } catch (Exception e) {
+            logger.warn("Failed to load notification stream update for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void replay(Connection connection, Long lastEventId) {
+        List<Notification> missed = notificationRepository.findCreatedSince(
+                connection.userId, lastEventId, PageRequest.of(0, resumeLimit + 1));
+        if (missed.size() > resumeLimit
+                || (missed.isEmpty() && !notificationRepository.existsByIdAndUserId(lastEventId, connection.userId))) {
+            enqueue(connection, SseEmitter.event().name(EVENT_RESYNC).data("resync"));
+            return;
+        }
+        missed.forEach(notification -> enqueue(connection, notificationEvent(notification)));
+    }
+
+    private SseEmitter.SseEventBuilder notificationEvent(Notification notification) {
+        return SseEmitter.event()
+                .id(String.valueOf(notification.getId()))
+                .name(EVENT_NOTIFICATION)
+                .data(NotificationResponse.fromEntity(notification));
+    }
+
+    private SseEmitter.SseEventBuilder unreadCountEvent(long count) {
+        return SseEmitter.event()
+                .name(EVENT_UNREAD_COUNT)
+                .data(Collections.singletonMap("count", count));
+    }
+
+    private SseEmitter.SseEventBuilder unreadCountDeltaEvent(long delta) {
+        return SseEmitter.event()
+                .name(EVENT_UNREAD_COUNT_DELTA)
+                .data(Collections.singletonMap("delta", delta));
+    }
+
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event) {
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            if (connection.pending.size() >= bufferSize) {
+                // Too far behind: drop the backlog and have the client reload instead of buffering without bound
+                connection.pending.clear();
+                connection.pending.add(SseEmitter.event().name(EVENT_RESYNC).data("resync"));
+                return;
+            }
+            connection.pending.add(event);
+            if (connection.draining) {
+                return;
+            }
+            connection.draining = true;
+        }
+        try {
+            executor.execute(() -> drain(connection));
+        } catch (RuntimeException e) {
+            // Nothing would ever drain this connection again: close it so the client reconnects and
+            // resumes from its Last-Event-ID
+            logger.warn("Notification stream executor rejected delivery for user {}: {}", connection.userId, e.getMessage());
+            close(connection, true);
+        }
+    }
+
+    private void drain(Connection connection) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (connection) {
+                event = connection.pending.poll();
+                if (event == null || connection.closed) {
+                    connection.draining = false;
+                    return;
+                }
+            }
+            try {
+                connection.emitter.send(event);
+            } catch (Exception e) {
+                // Client went away; the container reports completion separately
+                close(connection, false);
+                return;
+            }
+        }
+    }
+
+    private void close(Connection connection, boolean complete) {
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            connection.closed = true;
+            connection.pending.clear();
+        }
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+        if (complete) {
+            try {
+                connection.emitter.complete();
+            } catch (Exception e) {
+                logger.debug("Error completing notification stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long openedAt = System.nanoTime();
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private synchronized boolean isIdle() {
+            return !closed && !draining && pending.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.PayrollJobResponse;
+import com.civiltech.civildesk_backend.dto.SalaryCalculationRequest;
+import com.civiltech.civildesk_backend.exception.BadRequestException;
+import com.civiltech.civildesk_backend.exception.ResourceNotFoundException;
+import com.civiltech.civildesk_backend.model.PayrollJob;
+import com.civiltech.civildesk_backend.repository.PayrollJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs bulk payroll as a persistent, resumable job.
+ *
+ * Each chunk of requests is processed in its own transaction that commits the generated
+ * salary slips together with the job checkpoint, so no single transaction (or connection)
+ * is held for the whole run. Jobs left behind by a crashed or restarted node are picked
+ * up again from their last checkpoint.
+ *
+ * A chunk that fails as a whole (e.g. a database error while committing it) is recorded
+ * against its employees and the run continues with the next chunk; the job then finishes
+ * as COMPLETED_WITH_ERRORS and {@link #retryFailures(Long)} re-runs only the failed requests.
+ */
+@Service
+public class PayrollJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollJobService.class);
+
+    // Number of requests committed per checkpoint
+    private static final int CHUNK_SIZE = 200;
+    // A running job without a heartbeat for this long is considered abandoned
+    private static final Duration STALE_AFTER = Duration.ofMinutes(5);
+    private static final List<PayrollJob.PayrollJobStatus> RESUMABLE_STATUSES =
+            List.of(PayrollJob.PayrollJobStatus.PENDING, PayrollJob.PayrollJobStatus.RUNNING);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private PayrollJobRepository payrollJobRepository;
+
+    @Autowired
+    private PayrollRunService payrollRunService;
+
+    @Autowired
+    @Qualifier("computeExecutor")
+    private Executor computeExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create a payroll job and start it once the job row is committed.
+     *
+     * @param requests Salary calculation requests
+     * @param generatedByUserId User ID who started the run (resolved on the request thread)
+     * @return Initial job status
+     */
+    @Transactional
+    public PayrollJobResponse submit(List<SalaryCalculationRequest> requests, Long generatedByUserId) {
+        PayrollJob job = new PayrollJob();
+        job.setStatus(PayrollJob.PayrollJobStatus.PENDING);
+        job.setPeriod(resolvePeriod(requests));
+        job.setTotalCount(requests.size());
+        job.setRequestPayload(writeJson(requests));
+        job.setGeneratedByUserId(generatedByUserId);
+        return start(job);
+    }
+
+    /**
+     * Start a new job for the failed requests of a finished job.
+     * Requests that already produced a salary slip are not run again.
+     *
+     * @param jobId Job that finished with errors
+     * @param generatedByUserId User ID who started the retry
+     * @return Initial status of the retry job
+     */
+    @Transactional
+    public PayrollJobResponse retryFailures(Long jobId, Long generatedByUserId) {
+        PayrollJob source = payrollJobRepository.findByIdForUpdate(jobId)
+                .filter(job -> !job.getDeleted())
+                .orElseThrow(() -> new ResourceNotFoundException("Payroll job not found with ID: " + jobId));
+        if (source.getStatus() != PayrollJob.PayrollJobStatus.COMPLETED_WITH_ERRORS) {
+            throw new BadRequestException("Only a job that completed with errors can be retried");
+        }
+
+        List<SalaryCalculationRequest> requests = readRequests(source.getRequestPayload());
+        List<SalaryCalculationRequest> failed = new ArrayList<>();
+        for (Integer index : readIndexes(source.getFailedIndexes())) {
+            failed.add(requests.get(index));
+        }
+        if (failed.isEmpty()) {
+            throw new BadRequestException("Payroll job " + jobId + " has no failed requests to retry");
+        }
+
+        PayrollJob job = new PayrollJob();
+        job.setStatus(PayrollJob.PayrollJobStatus.PENDING);
+        job.setPeriod(source.getPeriod());
+        job.setTotalCount(failed.size());
+        job.setRequestPayload(writeJson(failed));
+        job.setGeneratedByUserId(generatedByUserId);
+        job.setRetryOfJobId(source.getId());
+        return start(job);
+    }
+
+    private PayrollJobResponse start(PayrollJob job) {
+        PayrollJob saved = payrollJobRepository.save(job);
+
+        Long jobId = saved.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(jobId);
+            }
+        });
+
+        return toResponse(saved);
+    }
+
+    /**
+     * Get the current status of a payroll job
+     */
+    @Transactional(readOnly = true)
+    public PayrollJobResponse getJob(Long jobId) {
+        PayrollJob job = payrollJobRepository.findByIdAndDeletedFalse(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payroll job not found with ID: " + jobId));
+        return toResponse(job);
+    }
+
+    /**
+     * Resume jobs that were pending or running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        resumeAbandonedJobs();
+    }
+
+    /**
+     * Pick up jobs whose worker stopped sending heartbeats (e.g. another node crashed).
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void resumeAbandonedJobs() {
+        try {
+            List<Long> jobIds = payrollJobRepository.findIdsToResume(
+                    RESUMABLE_STATUSES, LocalDateTime.now().minus(STALE_AFTER));
+            for (Long jobId : jobIds) {
+                logger.info("Resuming payroll job {}", jobId);
+                dispatch(jobId);
+            }
+        } catch (Exception e) {
+            logger.error("Error checking for payroll jobs to resume", e);
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        try {
+            computeExecutor.execute(() -> processJob(jobId));
+        } catch (RejectedExecutionException e) {
+            // Left PENDING/RUNNING; the resume check will retry once the executor has capacity
+            logger.warn("Compute executor is busy, payroll job {} will be retried later", jobId);
+        }
+    }
+
+    /**
+     * Process a job from its last checkpoint to the end.
+     * Does nothing if another worker currently owns the job.
+     */
+    void processJob(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> payrollJobRepository.claim(
+                jobId, PayrollJob.PayrollJobStatus.RUNNING, RESUMABLE_STATUSES, now, now.minus(STALE_AFTER)));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        try {
+            PayrollJob job = payrollJobRepository.findByIdAndDeletedFalse(jobId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payroll job not found with ID: " + jobId));
+            List<SalaryCalculationRequest> requests = readRequests(job.getRequestPayload());
+            int index = job.getNextIndex();
+            if (index > 0) {
+                logger.info("Payroll job {} resuming at {}/{}", jobId, index, requests.size());
+            }
+
+            while (index < requests.size()) {
+                int chunkStart = index;
+                int chunkEnd = Math.min(index + CHUNK_SIZE, requests.size());
+                List<SalaryCalculationRequest> chunk = requests.subList(chunkStart, chunkEnd);
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            processChunk(jobId, chunk, chunkStart, chunkEnd, job.getGeneratedByUserId()));
+                } catch (CheckpointMovedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // The chunk rolled back as a whole; record it and carry on with the next one
+                    logger.error("Payroll job {} chunk {}-{} failed", jobId, chunkStart, chunkEnd, e);
+                    transactionTemplate.executeWithoutResult(status ->
+                            recordFailedChunk(jobId, chunk, chunkStart, chunkEnd, e.getMessage()));
+                }
+                index = chunkEnd;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> complete(jobId));
+        } catch (CheckpointMovedException e) {
+            logger.warn("Payroll job {} was taken over by another worker, stopping", jobId);
+        } catch (Exception e) {
+            logger.error("Payroll job {} failed", jobId, e);
+            transactionTemplate.executeWithoutResult(status -> markFailed(jobId, e.getMessage()));
+        }
+    }
+
+    /**
+     * Generate slips for one chunk and advance the checkpoint in the same transaction
+     */
+    private void processChunk(Long jobId, List<SalaryCalculationRequest> chunk,
+                              int chunkStart, int chunkEnd, Long generatedByUserId) {
+        // Row lock serializes workers; a moved checkpoint means another worker already did this chunk
+        PayrollJob job = payrollJobRepository.findByIdForUpdate(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payroll job not found with ID: " + jobId));
+        if (job.getNextIndex() != chunkStart) {
+            throw new CheckpointMovedException();
+        }
+
+        PayrollRunService.PayrollRunResult result = payrollRunService.run(chunk, generatedByUserId);
+
+        List<PayrollJobResponse.EmployeeError> errors = readErrors(job.getErrors());
+        for (Map.Entry<String, String> failure : result.getFailures().entrySet()) {
+            errors.add(new PayrollJobResponse.EmployeeError(failure.getKey(), failure.getValue()));
+        }
+        List<Integer> failedIndexes = readIndexes(job.getFailedIndexes());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (result.getFailures().containsKey(chunk.get(i).getEmployeeId())) {
+                failedIndexes.add(chunkStart + i);
+            }
+        }
+
+        job.setSuccessCount(job.getSuccessCount() + result.getSalarySlips().size());
+        job.setFailedCount(job.getFailedCount() + result.getFailures().size());
+        advance(job, chunk.size(), chunkEnd, errors, failedIndexes);
+        // run() clears the persistence context after its batched inserts, so merge the job back
+        payrollJobRepository.save(job);
+    }
+
+    /**
+     * Mark every request of a chunk that could not be committed as failed and move past it
+     */
+    private void recordFailedChunk(Long jobId, List<SalaryCalculationRequest> chunk,
+                                   int chunkStart, int chunkEnd, String message) {
+        PayrollJob job = payrollJobRepository.findByIdForUpdate(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payroll job not found with ID: " + jobId));
+        if (job.getNextIndex() != chunkStart) {
+            throw new CheckpointMovedException();
+        }
+
+        List<PayrollJobResponse.EmployeeError> errors = readErrors(job.getErrors());
+        List<Integer> failedIndexes = readIndexes(job.getFailedIndexes());
+        for (int i = 0; i < chunk.size(); i++) {
+            errors.add(new PayrollJobResponse.EmployeeError(chunk.get(i).getEmployeeId(), message));
+            failedIndexes.add(chunkStart + i);
+        }
+
+        job.setFailedCount(job.getFailedCount() + chunk.size());
+        job.setLastError(message);
+        advance(job, chunk.size(), chunkEnd, errors, failedIndexes);
+        payrollJobRepository.save(job);
+    }
+
+    private void advance(PayrollJob job, int chunkSize, int chunkEnd,
+                         List<PayrollJobResponse.EmployeeError> errors, List<Integer> failedIndexes) {
+        job.setProcessedCount(job.getProcessedCount() + chunkSize);
+        job.setNextIndex(chunkEnd);
+        job.setErrors(errors.isEmpty() ? null : writeJson(errors));
+        job.setFailedIndexes(failedIndexes.isEmpty() ? null : writeJson(failedIndexes));
+        job.setHeartbeatAt(LocalDateTime.now());
+    }
+
+    private void complete(Long jobId) {
+        payrollJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(job.getFailedCount() > 0
+                    ? PayrollJob.PayrollJobStatus.COMPLETED_WITH_ERRORS
+                    : PayrollJob.PayrollJobStatus.COMPLETED);
+            job.setCompletedAt(LocalDateTime.now());
+            payrollJobRepository.save(job);
+            logger.info("Payroll job {} completed: {} generated, {} failed",
+                    jobId, job.getSuccessCount(), job.getFailedCount());
+        });
+    }
+
+    private void markFailed(Long jobId, String message) {
+        payrollJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(PayrollJob.PayrollJobStatus.FAILED);
+            job.setLastError(message);
+            job.setCompletedAt(LocalDateTime.now());
+            payrollJobRepository.save(job);
+        });
+    }
+
+    private PayrollJobResponse toResponse(PayrollJob job) {
+        PayrollJobResponse response = new PayrollJobResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus().name());
+        response.setPeriod(job.getPeriod());
+        response.setTotalCount(job.getTotalCount());
+        response.setProcessedCount(job.getProcessedCount());
+        response.setSuccessCount(job.getSuccessCount());
+        response.setFailedCount(job.getFailedCount());
+        response.setProgressPercent(job.getTotalCount() > 0
+                ? Math.round(job.getProcessedCount() * 1000.0 / job.getTotalCount()) / 10.0
+                : 100.0);
+        response.setErrors(readErrors(job.getErrors()));
+        response.setLastError(job.getLastError());
+        response.setRetryOfJobId(job.getRetryOfJobId());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        return response;
+    }
+
+    /**
+     * A job covers a single pay period, stored as YYYY-MM
+     */
+    private String resolvePeriod(List<SalaryCalculationRequest> requests) {
+        List<String> periods = requests.stream()
+                .filter(request -> request.getYear() != null && request.getMonth() != null)
+                .map(request -> YearMonth.of(request.getYear(), request.getMonth()).toString())
+                .distinct()
+                .collect(Collectors.toList());
+        if (periods.size() > 1) {
+            throw new BadRequestException("All requests in a bulk run must be for the same month");
+        }
+        return periods.isEmpty() ? null : periods.get(0);
+    }
+
+    private List<SalaryCalculationRequest> readRequests(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<SalaryCalculationRequest>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid payroll job payload", e);
+        }
+    }
+
+    private List<PayrollJobResponse.EmployeeError> readErrors(String json) {
+        if (json == null || json.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<PayrollJobResponse.EmployeeError>>() {});
+        } catch (JsonProcessingException e) {
+            logger.warn("Invalid payroll job error list: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<Integer> readIndexes(String json) {
+        if (json == null || json.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<Integer>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid payroll job failed index list", e);
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(Objects.requireNonNull(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payroll job data", e);
+        }
+    }
+
+    /**
+     * Thrown when the job checkpoint no longer matches the chunk this worker is about to process
+     */
+    private static class CheckpointMovedException extends RuntimeException {
+        CheckpointMovedException() {
+            super("Payroll job checkpoint moved");
+        }
+    }
+}
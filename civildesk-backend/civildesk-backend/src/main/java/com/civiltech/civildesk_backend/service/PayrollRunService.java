@@ -0,0 +1,226 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.SalaryCalculationRequest;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.SalarySlip;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Month-end payroll run engine.
+ *
+ * Generates salary slips for many employees in three steps:
+ * 1. Load all employees and their per-employee SUM(working_hours), SUM(overtime_hours)
+ *    with one grouped query per period (instead of one attendance scan per employee).
+ * 2. Compute slips in parallel chunks; the calculation itself does no database access.
+ * 3. Persist the slips with batched inserts.
+ */
+@Service
+public class PayrollRunService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollRunService.class);
+
+    // Number of slips computed per parallel task
+    private static final int COMPUTE_CHUNK_SIZE = 100;
+    // Maximum number of IDs bound into a single IN (...) query
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private SalaryCalculationService calculationService;
+
+    @Autowired
+    private BatchOperationService batchOperationService;
+
+    /**
+     * Run payroll for a list of salary calculation requests.
+     * Failures for individual employees are collected and do not stop the run.
+     *
+     * @param requests Salary calculation requests (one per employee and period)
+     * @param generatedByUserId User ID who started the run
+     * @return Result with persisted slips and per-employee failures
+     */
+    @Transactional
+    public PayrollRunResult run(List<SalaryCalculationRequest> requests, Long generatedByUserId) {
+        long startTime = System.currentTimeMillis();
+
+        // Step 1: Load employees and aggregated attendance hours
+        Map<String, Employee> employeesByCode = loadEmployees(requests);
+        Map<YearMonth, Map<Long, double[]>> hoursByPeriod = loadAttendanceHours(requests, employeesByCode);
+
+        // Step 2: Compute slips in parallel chunks
+        List<List<SalaryCalculationRequest>> chunks = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i += COMPUTE_CHUNK_SIZE) {
+            chunks.add(requests.subList(i, Math.min(i + COMPUTE_CHUNK_SIZE, requests.size())));
+        }
+
+        List<ComputedSlip> computed = chunks.parallelStream()
+                .flatMap(chunk -> chunk.stream()
+                        .map(request -> computeSlip(request, employeesByCode, hoursByPeriod, generatedByUserId)))
+                .collect(Collectors.toList());
+
+        PayrollRunResult result = new PayrollRunResult();
+        List<SalarySlip> slipsToSave = new ArrayList<>(computed.size());
+        for (ComputedSlip slip : computed) {
+            if (slip.salarySlip != null) {
+                slipsToSave.add(slip.salarySlip);
+            } else {
+                result.failures.put(slip.employeeId, slip.error);
+            }
+        }
+
+        // Step 3: Persist with batched inserts
+        result.salarySlips.addAll(batchOperationService.batchInsert(slipsToSave));
+
+        logger.info("Payroll run completed: {} slips generated, {} failed, {} ms",
+                result.salarySlips.size(), result.failures.size(), System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /**
+     * Compute a single slip without touching the database
+     */
+    ComputedSlip computeSlip(SalaryCalculationRequest request,
+                             Map<String, Employee> employeesByCode,
+                             Map<YearMonth, Map<Long, double[]>> hoursByPeriod,
+                             Long generatedByUserId) {
+        String employeeId = request != null ? request.getEmployeeId() : "unknown";
+        try {
+            Employee employee = employeesByCode.get(employeeId);
+            if (employee == null) {
+                return ComputedSlip.failed(employeeId, "Employee not found with ID: " + employeeId);
+            }
+            YearMonth period = YearMonth.of(request.getYear(), request.getMonth());
+            double[] hours = hoursByPeriod.getOrDefault(period, Map.of()).getOrDefault(employee.getId(), new double[2]);
+            SalarySlip salarySlip = calculationService.buildSalarySlip(
+                    employee, request, hours[0], hours[1], generatedByUserId);
+            return ComputedSlip.succeeded(employeeId, salarySlip);
+        } catch (Exception e) {
+            logger.warn("Error calculating salary for employee {}: {}", employeeId, e.getMessage());
+            return ComputedSlip.failed(employeeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Load all requested employees, keyed by employee code
+     */
+    Map<String, Employee> loadEmployees(List<SalaryCalculationRequest> requests) {
+        List<String> employeeCodes = requests.stream()
+                .filter(request -> request != null && request.getEmployeeId() != null)
+                .map(SalaryCalculationRequest::getEmployeeId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<String, Employee> employeesByCode = new HashMap<>(employeeCodes.size() * 2);
+        for (int i = 0; i < employeeCodes.size(); i += QUERY_CHUNK_SIZE) {
+            List<String> chunk = employeeCodes.subList(i, Math.min(i + QUERY_CHUNK_SIZE, employeeCodes.size()));
+            for (Employee employee : employeeRepository.findByEmployeeIds(chunk)) {
+                employeesByCode.put(employee.getEmployeeId(), employee);
+            }
+        }
+        return employeesByCode;
+    }
+
+    /**
+     * Load per-employee [workingHours, overtimeHours] totals with one grouped query per period
+     */
+    Map<YearMonth, Map<Long, double[]>> loadAttendanceHours(List<SalaryCalculationRequest> requests,
+                                                            Map<String, Employee> employeesByCode) {
+        Map<YearMonth, List<Long>> employeeIdsByPeriod = new LinkedHashMap<>();
+        for (SalaryCalculationRequest request : requests) {
+            if (request == null || request.getYear() == null || request.getMonth() == null) {
+                continue;
+            }
+            Employee employee = employeesByCode.get(request.getEmployeeId());
+            if (employee == null) {
+                continue;
+            }
+            YearMonth period;
+            try {
+                period = YearMonth.of(request.getYear(), request.getMonth());
+            } catch (Exception e) {
+                continue; // Invalid period is reported per employee in computeSlip
+            }
+            employeeIdsByPeriod.computeIfAbsent(period, key -> new ArrayList<>()).add(employee.getId());
+        }
+
+        Map<YearMonth, Map<Long, double[]>> hoursByPeriod = new HashMap<>();
+        for (Map.Entry<YearMonth, List<Long>> entry : employeeIdsByPeriod.entrySet()) {
+            YearMonth period = entry.getKey();
+            List<Long> employeeIds = entry.getValue().stream().distinct().collect(Collectors.toList());
+            Map<Long, double[]> hoursByEmployee = new HashMap<>(employeeIds.size() * 2);
+
+            for (int i = 0; i < employeeIds.size(); i += QUERY_CHUNK_SIZE) {
+                List<Long> chunk = employeeIds.subList(i, Math.min(i + QUERY_CHUNK_SIZE, employeeIds.size()));
+                List<Object[]> rows = attendanceRepository.sumHoursByEmployeeIdsAndDateBetween(
+                        chunk, period.atDay(1), period.atEndOfMonth());
+                for (Object[] row : rows) {
+                    hoursByEmployee.put((Long) row[0], new double[] {
+                            ((Number) row[1]).doubleValue(),
+                            ((Number) row[2]).doubleValue()
+                    });
+                }
+            }
+            hoursByPeriod.put(period, hoursByEmployee);
+        }
+        return hoursByPeriod;
+    }
+
+    /**
+     * Outcome of computing one slip: either a salary slip or an error message
+     */
+    static final class ComputedSlip {
+        final String employeeId;
+        final SalarySlip salarySlip;
+        final String error;
+
+        private ComputedSlip(String employeeId, SalarySlip salarySlip, String error) {
+            this.employeeId = employeeId;
+            this.salarySlip = salarySlip;
+            this.error = error;
+        }
+
+        static ComputedSlip succeeded(String employeeId, SalarySlip salarySlip) {
+            return new ComputedSlip(employeeId, salarySlip, null);
+        }
+
+        static ComputedSlip failed(String employeeId, String error) {
+            return new ComputedSlip(employeeId, null, error != null ? error : "Unknown error");
+        }
+    }
+
+    /**
+     * Result of a payroll run
+     */
+    public static class PayrollRunResult {
+        private final List<SalarySlip> salarySlips = new ArrayList<>();
+        // Employee ID -> error message
+        private final Map<String, String> failures = new LinkedHashMap<>();
+
+        public List<SalarySlip> getSalarySlips() {
+            return salarySlips;
+        }
+
+        public Map<String, String> getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.GpsAttendanceRequest;
+import com.civiltech.civildesk_backend.dto.GpsAttendanceResponse;
+import com.civiltech.civildesk_backend.dto.IngestedPunch;
+import com.civiltech.civildesk_backend.exception.BadRequestException;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion of online GPS punches, for the morning punch storm.
+ *
+ * With app.attendance.ingestion.write-behind.enabled a punch is validated (reads only), appended to the
+ * local punch journal (see PunchJournal) and acknowledged with sync status PENDING; it does not wait
+ * for any database write. A background writer then persists queued punches to gps_attendance_logs and
+ * attendance in batches (app.attendance.ingestion.batch-size per transaction).
+ *
+ * - Read-your-writes: queued punches take part in the employee's punch sequence check and are merged
+ *   into the employee's own punches for the day (withQueuedPunches) until they are written. This only
+ *   covers the node's own queue: a punch taken by another node meanwhile is checked against stored
+ *   punches only, so the writer can find it out of sequence. An acknowledged punch is not dropped for
+ *   that; the writer applies it with the live-punch rules and counts it (conflicts metric).
+ * - Durability: an acknowledged punch is on disk; after a restart the journal is replayed, and punches
+ *   already written are recognised by their clientPunchId. The journal is per node, so it must live on
+ *   persistent storage.
+ * - Failures: if a batch fails its punches are written one by one; one that still fails while others
+ *   go through (e.g. its employee was deleted) is moved to the dead-letter file, and if none go through (database down) the queue is
+ *   kept and retried on the next run. While more than max-queued punches wait, new punches are refused.
+ *
+ * Metrics: attendance.punch.ingest (acknowledge latency, with p50/p95/p99 and the punch rate),
+ * attendance.punch.persist.batch (batch write time), attendance.punch.persist.batch.size,
+ * attendance.punch.persist.conflicts, attendance.punch.ingest.queued and
+ * attendance.punch.ingest.dead.letters. PunchIngestionTimedRun (benchmark profile) measures a 5,000 punch
+ * storm through this path and the synchronous one.
+ */
+@Service
+public class PunchIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PunchIngestionService.class);
+
+    @Autowired
+    private GpsAttendanceService gpsAttendanceService;
+
+    @Autowired
+    private AttendancePunchGuard punchGuard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.attendance.ingestion.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.attendance.ingestion.journal-dir:./data/punch-journal}")
+    private String journalDir;
+
+    @Value("${app.attendance.ingestion.journal-fsync:true}")
+    private boolean journalFsync;
+
+    @Value("${app.attendance.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.attendance.ingestion.max-queued:50000}")
+    private int maxQueued;
+
+    private PunchJournal journal;
+
+    // Acknowledged punches not yet written, in journal order; only the writer removes from it
+    private final ConcurrentLinkedQueue<IngestedPunch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // The same punches by employee code, for the sequence check and the employee's own view
+    private final ConcurrentHashMap<String, List<IngestedPunch>> queuedByEmployee = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    private Timer ingestTimer;
+    private Timer persistTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter deadLetterCounter;
+    private Counter conflictCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        ingestTimer = Timer.builder("attendance.punch.ingest")
+                .description("Time to validate, journal and acknowledge a write-behind GPS punch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        persistTimer = Timer.builder("attendance.punch.persist.batch")
+                .description("Time to write one batch of queued GPS punches")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("attendance.punch.persist.batch.size")
+                .description("Punches per write-behind batch")
+                .register(meterRegistry);
+        deadLetterCounter = Counter.builder("attendance.punch.ingest.dead.letters")
+                .description("Queued GPS punches that could not be written")
+                .register(meterRegistry);
+        conflictCounter = Counter.builder("attendance.punch.persist.conflicts")
+                .description("Queued GPS punches written out of sequence with punches stored since they were accepted")
+                .register(meterRegistry);
+        Gauge.builder("attendance.punch.ingest.queued", queued, AtomicInteger::get)
+                .description("GPS punches acknowledged but not yet written")
+                .register(meterRegistry);
+
+        // A journal left by an earlier run is drained even if the mode has been switched off since
+        Path directory = Paths.get(journalDir);
+        if (!enabled && !Files.exists(directory)) {
+            return;
+        }
+        journal = new PunchJournal(directory, objectMapper, journalFsync);
+        List<IngestedPunch> recovered = journal.open();
+        recovered.forEach(this::enqueue);
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered {} journaled GPS punches not yet written to the database", recovered.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && journal != null;
+    }
+
+    /**
+     * Validate, journal and acknowledge an online GPS punch; it is written to the database shortly after
+     */
+    public GpsAttendanceResponse submit(GpsAttendanceRequest request) {
+        long start = System.nanoTime();
+        try {
+            Employee employee = gpsAttendanceService.validateOnlinePunch(request);
+            return punchGuard.withEmployeeLock(employee.getId(), () -> accept(request, employee));
+        } finally {
+            ingestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private GpsAttendanceResponse accept(GpsAttendanceRequest request, Employee employee) {
+        List<IngestedPunch> employeeQueue = queuedPunches(request.getEmployeeId());
+        if (request.getClientPunchId() != null) {
+            // Retry of a punch that is still queued
+            for (IngestedPunch punch : employeeQueue) {
+                if (request.getClientPunchId().equals(punch.getRequest().getClientPunchId())) {
+                    return punch.toResponse();
+                }
+            }
+        } else {
+            request.setClientPunchId(UUID.randomUUID().toString());
+        }
+        if (queued.get() >= maxQueued) {
+            throw new BadRequestException("Too many punches are waiting to be saved. Please try again in a moment.");
+        }
+
+        IngestedPunch punch = gpsAttendanceService.prepareIngestedPunch(request, employee, employeeQueue);
+        try {
+            // Enqueued under the journal lock: the queue stays in sequence order across employees
+            journal.append(punch, this::enqueue);
+        } catch (IOException e) {
+            logger.error("Failed to journal GPS punch for employee {}", employee.getEmployeeId(), e);
+            throw new BadRequestException("Failed to record punch. Please try again.");
+        }
+        return punch.toResponse();
+    }
+
+    /**
+     * The employee's punches for the date, including punches acknowledged but not yet written
+     *
+     * @param stored Loads the stored punches; called after the queue is read, so a punch written in
+     *               between shows up in one or the other
+     */
+    public List<GpsAttendanceResponse> withQueuedPunches(String employeeId, LocalDate date,
+                                                         Supplier<List<GpsAttendanceResponse>> stored) {
+        List<IngestedPunch> pending = queuedPunches(employeeId).stream()
+                .filter(punch -> punch.getPunchTime().toLocalDate().equals(date))
+                .collect(Collectors.toList());
+        List<GpsAttendanceResponse> responses = new ArrayList<>(stored.get());
+        if (pending.isEmpty()) {
+            return responses;
+        }
+        Set<String> storedClientPunchIds = responses.stream()
+                .map(GpsAttendanceResponse::getClientPunchId)
+                .collect(Collectors.toSet());
+        pending.stream()
+                .filter(punch -> !storedClientPunchIds.contains(punch.getRequest().getClientPunchId()))
+                .map(IngestedPunch::toResponse)
+                .forEach(responses::add);
+        responses.sort(Comparator.comparing(GpsAttendanceResponse::getPunchTime));
+        return responses;
+    }
+
+    /**
+     * Background writer: persist queued punches in batches, oldest first
+     */
+    @Scheduled(fixedDelayString = "${app.attendance.ingestion.flush-interval-ms:200}")
+    public void flush() {
+        if (journal == null || queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (!queue.isEmpty()) {
+                List<IngestedPunch> batch = new ArrayList<>(batchSize);
+                Iterator<IngestedPunch> iterator = queue.iterator();
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    batch.add(iterator.next());
+                }
+                if (!writeBatch(batch)) {
+                    break;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    queue.poll();
+                }
+                queued.addAndGet(-batch.size());
+                // Dequeued only after commit, so the employee always sees the punch somewhere
+                batch.forEach(this::dequeue);
+                checkpoint(batch.get(batch.size() - 1).getSequence());
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * @return false if nothing could be written (the batch stays queued)
+     */
+    private boolean writeBatch(List<IngestedPunch> batch) {
+        long start = System.nanoTime();
+        try {
+            Map<Long, String> rejected = gpsAttendanceService.persistIngestedPunches(batch, this::conflict);
+            persistTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            deadLetterRejected(batch, rejected);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to write {} queued GPS punches as a batch, writing them one by one: {}",
+                    batch.size(), e.getMessage());
+        }
+
+        // One bad punch must not hold back the rest
+        int written = 0;
+        Map<IngestedPunch, String> failed = new LinkedHashMap<>();
+        for (IngestedPunch punch : batch) {
+            try {
+                deadLetterRejected(List.of(punch), gpsAttendanceService.persistIngestedPunches(List.of(punch), this::conflict));
+                written++;
+            } catch (Exception e) {
+                failed.put(punch, e.getMessage());
+            }
+        }
+        if (written == 0) {
+            logger.error("Failed to write queued GPS punches, {} waiting; retrying on the next run", queued.get());
+            return false;
+        }
+        failed.forEach(this::deadLetter);
+        return true;
+    }
+
+    private void deadLetterRejected(List<IngestedPunch> batch, Map<Long, String> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        for (IngestedPunch punch : batch) {
+            String reason = rejected.get(punch.getSequence());
+            if (reason != null) {
+                deadLetter(punch, reason);
+            }
+        }
+    }
+
+    private void conflict(IngestedPunch punch, String reason) {
+        conflictCounter.increment();
+        logger.warn("Queued GPS punch {} of employee {} ({} at {}) written out of sequence: {}", punch.getRequest().getClientPunchId(),
+                punch.getRequest().getEmployeeId(), punch.getRequest().getPunchType(), punch.getPunchTime(), reason);
+    }
+
+    private void deadLetter(IngestedPunch punch, String reason) {
+        deadLetterCounter.increment();
+        logger.error("Dropping queued GPS punch {} of employee {} ({} at {}): {}", punch.getRequest().getClientPunchId(),
+                punch.getRequest().getEmployeeId(), punch.getRequest().getPunchType(), punch.getPunchTime(), reason);
+        try {
+            journal.deadLetter(punch, reason);
+        } catch (IOException e) {
+            logger.error("Failed to write punch {} to the dead-letter file", punch.getRequest().getClientPunchId(), e);
+        }
+    }
+
+    private void checkpoint(long sequence) {
+        try {
+            journal.checkpoint(sequence);
+        } catch (IOException e) {
+            // Written punches are recognised by clientPunchId if the journal is replayed
+            logger.warn("Failed to checkpoint punch journal at {}: {}", sequence, e.getMessage());
+        }
+    }
+
+    private void enqueue(IngestedPunch punch) {
+        queuedByEmployee.compute(punch.getRequest().getEmployeeId(), (employeeId, punches) -> {
+            List<IngestedPunch> list = punches != null ? punches : Collections.synchronizedList(new ArrayList<>());
+            list.add(punch);
+            return list;
+        });
+        queue.add(punch);
+        queued.incrementAndGet();
+    }
+
+    private void dequeue(IngestedPunch punch) {
+        queuedByEmployee.computeIfPresent(punch.getRequest().getEmployeeId(), (employeeId, punches) -> {
+            punches.remove(punch);
+            return punches.isEmpty() ? null : punches;
+        });
+    }
+
+    private List<IngestedPunch> queuedPunches(String employeeId) {
+        List<IngestedPunch> punches = queuedByEmployee.get(employeeId);
+        if (punches == null) {
+            return List.of();
+        }
+        synchronized (punches) {
+            return new ArrayList<>(punches);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close punch journal: {}", e.getMessage());
+        }
+    }
+}
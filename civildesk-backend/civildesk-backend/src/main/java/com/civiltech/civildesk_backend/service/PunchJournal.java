@@ -0,0 +1,189 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.IngestedPunch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Append-only local journal behind the write-behind punch queue (see PunchIngestionService).
+ *
+ * Files in the journal directory:
+ * - punches.log:     one JSON line per accepted punch, forced to disk before the punch is acknowledged
+ * - checkpoint:      sequence of the last punch written to the database; everything up to it is done
+ * - dead-letter.log: punches the writer gave up on, with the reason, for manual repair
+ *
+ * Punches are queued under the journal lock (append with a callback) and written to the database in
+ * sequence order, so a single checkpoint is enough. The log is truncated whenever everything in it is
+ * checkpointed, and compacted when the journal is opened.
+ */
+class PunchJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PunchJournal.class);
+
+    private static final String LOG_FILE = "punches.log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private FileChannel log;
+    private long lastSequence;
+    private long checkpoint;
+
+    PunchJournal(Path directory, ObjectMapper objectMapper, boolean fsync) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the journal (once, at startup)
+     *
+     * @return Punches not yet written to the database, in sequence order
+     */
+    synchronized List<IngestedPunch> open() throws IOException {
+        Files.createDirectories(directory);
+        Path checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointPath)) {
+            checkpoint = Long.parseLong(Files.readString(checkpointPath, StandardCharsets.UTF_8).trim());
+        }
+        lastSequence = checkpoint;
+
+        Path logPath = directory.resolve(LOG_FILE);
+        List<IngestedPunch> pending = new ArrayList<>();
+        List<String> pendingLines = new ArrayList<>();
+        if (Files.exists(logPath)) {
+            for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                IngestedPunch punch;
+                try {
+                    punch = objectMapper.readValue(line, IngestedPunch.class);
+                } catch (IOException e) {
+                    // Torn last line of a crash mid-append; that punch was never acknowledged
+                    logger.warn("Skipping unreadable punch journal line: {}", e.getMessage());
+                    continue;
+                }
+                lastSequence = Math.max(lastSequence, punch.getSequence());
+                if (punch.getSequence() > checkpoint) {
+                    pending.add(punch);
+                    pendingLines.add(line);
+                }
+            }
+        }
+
+        // Rewrite the log with only the pending punches (drops written ones and any torn line)
+        Path compacted = directory.resolve(LOG_FILE + ".tmp");
+        Files.write(compacted, pendingLines, StandardCharsets.UTF_8);
+        Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return pending;
+    }
+
+    /**
+     * Assign the punch its sequence and append it; when this returns the punch survives a crash
+     */
+    void append(IngestedPunch punch) throws IOException {
+        append(punch, appended -> { });
+    }
+
+    /**
+     * Same, and hand the punch to the queue while still holding the journal lock, so punches reach the
+     * writer in sequence order (a checkpoint must never pass a punch that is only in memory)
+     */
+    synchronized void append(IngestedPunch punch, Consumer<IngestedPunch> onAppended) throws IOException {
+        punch.setSequence(lastSequence + 1);
+        String line = objectMapper.writeValueAsString(punch);
+        long size = log.size();
+        try {
+            write(log, line);
+            if (fsync) {
+                log.force(false);
+            }
+        } catch (IOException e) {
+            // Drop a partial line so the next append starts on a clean line
+            log.truncate(size);
+            throw e;
+        }
+        lastSequence = punch.getSequence();
+        onAppended.accept(punch);
+    }
+
+    /**
+     * Record that every punch up to and including this sequence is in the database
+     */
+    synchronized void checkpoint(long sequence) throws IOException {
+        if (sequence <= checkpoint) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = sequence;
+
+        if (checkpoint >= lastSequence) {
+            log.truncate(0);
+        }
+    }
+
+    /**
+     * Keep a punch that could not be written, so it is not lost with the log
+     */
+    synchronized void deadLetter(IngestedPunch punch, String reason) throws IOException {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("failedAt", LocalDateTime.now().toString());
+        entry.put("reason", reason);
+        entry.put("punch", punch);
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(channel, objectMapper.writeValueAsString(entry));
+            channel.force(false);
+        }
+    }
+
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private static void write(FileChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
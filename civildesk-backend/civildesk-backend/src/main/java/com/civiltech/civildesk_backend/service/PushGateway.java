@@ -0,0 +1,80 @@
+package com.civiltech.civildesk_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends one data payload to a batch of device tokens.
+ *
+ * FirebasePushGateway is the production implementation; a local FCM stub can be wired in by
+ * providing another PushGateway bean (e.g. @Primary in a test configuration).
+ */
+public interface PushGateway {
+
+    /**
+     * Largest batch accepted by a single multicast call
+     */
+    int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Whether pushes can be sent at all (e.g. credentials configured)
+     */
+    boolean isAvailable();
+
+    /**
+     * Send the payload to up to MAX_BATCH_SIZE tokens
+     */
+    BatchResult sendMulticast(List<String> tokens, Map<String, String> data) throws Exception;
+
+    /**
+     * Send a different payload to each token (payloads.get(i) goes to tokens.get(i)), up to MAX_BATCH_SIZE
+     */
+    BatchResult sendEach(List<String> tokens, List<Map<String, String>> payloads) throws Exception;
+
+    /**
+     * Per-token result, in request order
+     */
+    enum Outcome {
+        SENT,
+        // Token unregistered or malformed; retrying will not help
+        INVALID_TOKEN,
+        // Transient or unknown provider error; worth retrying
+        FAILED
+    }
+
+    /**
+     * Outcome of one multicast batch
+     */
+    class BatchResult {
+
+        private final int successCount;
+        private final int failureCount;
+        private final List<String> invalidTokens;
+        private final List<Outcome> outcomes;
+
+        public BatchResult(int successCount, int failureCount, List<String> invalidTokens, List<Outcome> outcomes) {
+            this.successCount = successCount;
+            this.failureCount = failureCount;
+            this.invalidTokens = invalidTokens != null ? invalidTokens : new ArrayList<>();
+            this.outcomes = outcomes != null ? outcomes : new ArrayList<>();
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        // Tokens the provider reported as unregistered or malformed; they should be removed
+        public List<String> getInvalidTokens() {
+            return invalidTokens;
+        }
+
+        public List<Outcome> getOutcomes() {
+            return outcomes;
+        }
+    }
+}
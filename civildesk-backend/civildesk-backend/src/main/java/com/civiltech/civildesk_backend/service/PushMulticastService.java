@@ -0,0 +1,159 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends one payload to many device tokens in multicast batches.
+ * Invalid tokens reported by the batches are cleared with a single update.
+ * Called from the notification outbox dispatcher, never inside a business transaction.
+ */
+@Service
+public class PushMulticastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushMulticastService.class);
+
+    @Autowired
+    private PushGateway pushGateway;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Send to all tokens in batches of PushGateway.MAX_BATCH_SIZE (blocking).
+     * Never throws for a failed send: tokens of a batch that could not be sent, and tokens the provider
+     * failed transiently, come back as retry tokens so the caller can retry just those; tokens reported
+     * as unregistered or malformed are cleared and never retried.
+     */
+    public MulticastResult send(List<String> tokens, Map<String, String> data) {
+        return send(tokens, data, () -> true);
+    }
+
+    /**
+     * Same as send(tokens, data), asking beforeBatch before each batch (e.g. to renew a lease, since a
+     * large multicast spans many batches). When it returns false nothing more is sent and the result
+     * is marked stopped.
+     */
+    public MulticastResult send(List<String> tokens, Map<String, String> data, BooleanSupplier beforeBatch) {
+        List<String> distinctTokens = new ArrayList<>(new LinkedHashSet<>(tokens));
+        int sent = 0;
+        boolean stopped = false;
+        Exception lastError = null;
+        List<String> retryTokens = new ArrayList<>();
+        Set<String> invalidTokens = new LinkedHashSet<>();
+
+        for (int from = 0; from < distinctTokens.size(); from += PushGateway.MAX_BATCH_SIZE) {
+            List<String> batch = distinctTokens.subList(from,
+                    Math.min(from + PushGateway.MAX_BATCH_SIZE, distinctTokens.size()));
+            if (!beforeBatch.getAsBoolean()) {
+                stopped = true;
+                break;
+            }
+            try {
+                PushGateway.BatchResult result = pushGateway.sendMulticast(batch, data);
+                List<PushGateway.Outcome> outcomes = result.getOutcomes();
+                for (int i = 0; i < batch.size(); i++) {
+                    PushGateway.Outcome outcome = i < outcomes.size() ? outcomes.get(i) : PushGateway.Outcome.FAILED;
+                    if (outcome == PushGateway.Outcome.SENT) {
+                        sent++;
+                    } else if (outcome == PushGateway.Outcome.FAILED) {
+                        retryTokens.add(batch.get(i));
+                    }
+                }
+                invalidTokens.addAll(result.getInvalidTokens());
+            } catch (Exception e) {
+                retryTokens.addAll(batch);
+                lastError = e;
+                logger.error("Failed to send push batch of {} tokens", batch.size(), e);
+            }
+        }
+
+        if (!invalidTokens.isEmpty()) {
+            clearInvalidTokens(invalidTokens);
+        }
+
+        logger.info("Multicast push {} - Tokens: {}, Sent: {}, To retry: {}, Invalid tokens removed: {}",
+                stopped ? "stopped" : "completed", distinctTokens.size(), sent, retryTokens.size(), invalidTokens.size());
+
+        return new MulticastResult(sent, retryTokens, new ArrayList<>(invalidTokens),
+                lastError != null ? lastError.getMessage() : null, stopped);
+    }
+
+    /**
+     * Remove FCM tokens the provider reported as unregistered or malformed (one update)
+     */
+    public void clearInvalidTokens(Collection<String> invalidTokens) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    userRepository.clearFcmTokens(invalidTokens, LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.warn("Failed to clear {} invalid FCM tokens: {}", invalidTokens.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Outcome of one multicast send over all its batches
+     */
+    public static class MulticastResult {
+
+        private final int sentCount;
+        private final List<String> retryTokens;
+        private final List<String> invalidTokens;
+        private final String lastError;
+        private final boolean stopped;
+
+        public MulticastResult(int sentCount, List<String> retryTokens, List<String> invalidTokens, String lastError,
+                               boolean stopped) {
+            this.sentCount = sentCount;
+            this.retryTokens = retryTokens;
+            this.invalidTokens = invalidTokens;
+            this.lastError = lastError;
+            this.stopped = stopped;
+        }
+
+        public int getSentCount() {
+            return sentCount;
+        }
+
+        // Tokens of failed batches and transient provider failures; worth sending again
+        public List<String> getRetryTokens() {
+            return retryTokens;
+        }
+
+        // Tokens the provider reported as unregistered or malformed; already cleared, never retried
+        public List<String> getInvalidTokens() {
+            return invalidTokens;
+        }
+
+        // Error of the last batch that could not be sent at all, if any
+        public String getLastError() {
+            return lastError;
+        }
+
+        // beforeBatch returned false; the remaining batches were not sent
+        public boolean isStopped() {
+            return stopped;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.civiltech.civildesk_backend.service;
 
 import com.civiltech.civildesk_backend.dto.SalaryCalculationRequest;
 import com.civiltech.civildesk_backend.exception.BadRequestException;
-import com.civiltech.civildesk_backend.model.Attendance;
 import com.civiltech.civildesk_backend.model.Employee;
 import com.civiltech.civildesk_backend.model.SalarySlip;
 import com.civiltech.civildesk_backend.repository.AttendanceRepository;
@@ -48,6 +47,34 @@ public class SalaryCalculationService {
         Employee employee = employeeRepository.findByEmployeeIdAndDeletedFalse(request.getEmployeeId())
                 .orElseThrow(() -> new BadRequestException("Employee not found with ID: " + request.getEmployeeId()));
 
+        // Sum working and overtime hours for the month in the database
+        YearMonth yearMonth = YearMonth.of(request.getYear(), request.getMonth());
+        double totalWorkingHours = 0.0;
+        double totalOvertimeHours = 0.0;
+        List<Object[]> totals = attendanceRepository.sumHoursByEmployeeIdsAndDateBetween(
+                List.of(employee.getId()), yearMonth.atDay(1), yearMonth.atEndOfMonth());
+        if (!totals.isEmpty()) {
+            totalWorkingHours = ((Number) totals.get(0)[1]).doubleValue();
+            totalOvertimeHours = ((Number) totals.get(0)[2]).doubleValue();
+        }
+
+        return buildSalarySlip(employee, request, totalWorkingHours, totalOvertimeHours, generatedByUserId);
+    }
+
+    /**
+     * Build a salary slip from an already loaded employee and pre-aggregated attendance hours.
+     * Performs no database access, so it can be used to compute slips in parallel.
+     *
+     * @param employee Employee with salary structure loaded
+     * @param request Salary calculation request (period and optional deductions)
+     * @param totalWorkingHours Sum of attendance working hours for the month
+     * @param totalOvertimeHours Sum of attendance overtime hours for the month
+     * @param generatedByUserId User ID who generated the salary slip
+     * @return Unsaved salary slip
+     */
+    public SalarySlip buildSalarySlip(Employee employee, SalaryCalculationRequest request,
+                                      double totalWorkingHours, double totalOvertimeHours,
+                                      Long generatedByUserId) {
         validateEmployeeSalaryStructure(employee);
 
         // Step 2: Calculate calendar and working days
@@ -57,7 +84,8 @@ public class SalaryCalculationService {
         // Step 3: Calculate attendance data
         LocalDate startDate = yearMonth.atDay(1);
         LocalDate endDate = yearMonth.atEndOfMonth();
-        AttendanceCalculation attendanceCalc = calculateAttendance(employee, startDate, endDate);
+        AttendanceCalculation attendanceCalc = calculateAttendance(
+                totalWorkingHours, totalOvertimeHours, startDate, endDate);
 
         // Validate attendance
         if (attendanceCalc.presentDays > calendarCalc.workingDays) {
@@ -171,22 +199,8 @@ public class SalaryCalculationService {
     /**
      * STEP 2: Calculate attendance data
      */
-    private AttendanceCalculation calculateAttendance(Employee employee, LocalDate startDate, LocalDate endDate) {
-        List<Attendance> attendances = attendanceRepository.findByEmployeeIdAndDateBetween(
-                employee.getId(), startDate, endDate);
-
-        double totalEffectiveWorkingHours = 0.0;
-        double totalOvertimeHours = 0.0;
-
-        for (Attendance attendance : attendances) {
-            if (attendance.getWorkingHours() != null) {
-                totalEffectiveWorkingHours += attendance.getWorkingHours();
-            }
-            if (attendance.getOvertimeHours() != null) {
-                totalOvertimeHours += attendance.getOvertimeHours();
-            }
-        }
-
+    private AttendanceCalculation calculateAttendance(double totalEffectiveWorkingHours, double totalOvertimeHours,
+                                                      LocalDate startDate, LocalDate endDate) {
         // Calculate raw present days
         double rawPresentDays = totalEffectiveWorkingHours / HOURS_PER_DAY;
 
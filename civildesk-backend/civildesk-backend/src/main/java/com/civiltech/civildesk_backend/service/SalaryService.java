@@ -15,14 +15,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -266,49 +263,6 @@ public class SalaryService {
         salarySlipRepository.save(salarySlip);
     }
 
-    /**
-     * Generate salary slips in bulk for multiple employees asynchronously.
-     * This method processes salary calculations in batches to avoid blocking the main thread.
-     * 
-     * @param requests List of salary calculation requests
-     * @return CompletableFuture with list of generated salary slips
-     */
-    @Async("computeExecutor")
-    @Transactional
-    public CompletableFuture<List<SalarySlip>> generateBulkSalarySlipsAsync(List<SalaryCalculationRequest> requests) {
-        List<SalarySlip> salarySlips = new ArrayList<>();
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        
-        int batchSize = 50;
-        for (int i = 0; i < requests.size(); i++) {
-            SalaryCalculationRequest request = requests.get(i);
-            try {
-                SalarySlip salarySlip = calculationService.calculateSalary(request, currentUserId);
-                // Spring Data JPA save() always returns a non-null entity
-                SalarySlip savedSlip = salarySlipRepository.save(salarySlip);
-                salarySlips.add(savedSlip);
-                
-                // Flush and clear every batchSize to manage memory
-                if ((i + 1) % batchSize == 0) {
-                    salarySlipRepository.flush();
-                }
-            } catch (Exception e) {
-                // Log error but continue with other employees
-                String employeeId = request != null ? request.getEmployeeId() : "unknown";
-                System.err.println("Error calculating salary for employee " + 
-                    employeeId + ": " + e.getMessage());
-                // Continue with next employee
-            }
-        }
-        
-        // Final flush
-        if (!salarySlips.isEmpty()) {
-            salarySlipRepository.flush();
-        }
-        
-        return CompletableFuture.completedFuture(salarySlips);
-    }
-
     private SalaryCalculationResponse buildCalculationResponse(SalarySlip salarySlip) {
         SalarySlipResponse slipResponse = mapToResponse(salarySlip);
         
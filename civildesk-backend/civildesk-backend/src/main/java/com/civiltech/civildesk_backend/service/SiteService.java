@@ -22,7 +22,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -43,6 +42,9 @@ public class SiteService {
     @Autowired
     private GeofenceService geofenceService;
 
+    @Autowired
+    private SiteSpatialIndexService siteSpatialIndexService;
+
     // ==================== Site CRUD ====================
 
     @Transactional
@@ -64,6 +66,7 @@ public class SiteService {
         site.setSiteCode(siteCode);
 
         site = siteRepository.save(site);
+        siteSpatialIndexService.markStale();
         return SiteResponse.fromEntity(site);
     }
 
@@ -87,6 +90,8 @@ public class SiteService {
         updateSiteFromRequest(site, request);
         // Spring Data JPA save() always returns a non-null entity
         Site savedSite = siteRepository.save(site);
+        geofenceService.evictCompiledGeofence(id);
+        siteSpatialIndexService.markStale();
         return SiteResponse.fromEntity(savedSite);
     }
 
@@ -130,7 +135,7 @@ public class SiteService {
     }
 
     @Transactional(readOnly = true)
-    @Cacheable(value = "sites", key = "'active'")
+    @Cacheable(value = "sites", key = "'active'", sync = true)
     public List<SiteResponse> getActiveSites() {
         // Use optimized query to fetch active sites with employee counts in a single query
         // This eliminates N+1 query problem
@@ -163,6 +168,8 @@ public class SiteService {
         // Soft delete - deactivate instead of hard delete
         site.setIsActive(false);
         siteRepository.save(site);
+        geofenceService.evictCompiledGeofence(id);
+        siteSpatialIndexService.markStale();
     }
 
     // ==================== Site Assignment ====================
@@ -219,6 +226,7 @@ public class SiteService {
         }
 
         EmployeeSiteAssignment savedAssignment = assignmentRepository.save(assignment);
+        siteSpatialIndexService.markStale();
         return EmployeeSiteAssignmentResponse.fromEntity(savedAssignment);
     }
 
@@ -230,6 +238,7 @@ public class SiteService {
         assignment.setIsActive(false);
         assignment.setEndDate(LocalDate.now());
         assignmentRepository.save(assignment);
+        siteSpatialIndexService.markStale();
     }
 
     public List<EmployeeSiteAssignmentResponse> getEmployeeAssignments(Long employeeId) {
@@ -253,18 +262,21 @@ public class SiteService {
     // ==================== Nearby Sites ====================
 
     public List<SiteResponse> findNearbySites(double latitude, double longitude, double radiusMeters) {
-        Map<String, Double> bbox = geofenceService.getBoundingBox(latitude, longitude, radiusMeters);
-        
-        List<Site> sites = siteRepository.findSitesInBoundingBox(
-                bbox.get("minLat"), bbox.get("maxLat"),
-                bbox.get("minLon"), bbox.get("maxLon")
-        );
-
-        // Filter by exact distance
-        return sites.stream()
-                .filter(site -> geofenceService.calculateDistance(
-                        latitude, longitude, site.getLatitude(), site.getLongitude()) <= radiusMeters)
-                .map(SiteResponse::fromEntity)
+        // Served from the in-memory spatial index instead of a bounding box query
+        return siteSpatialIndexService.findSitesWithinRadius(latitude, longitude, radiusMeters).stream()
+                .map(this::toResponseWithDistance)
+                .collect(Collectors.toList());
+    }
+
+    public List<SiteResponse> findNearestSites(double latitude, double longitude, int limit) {
+        if (!geofenceService.isValidCoordinates(latitude, longitude)) {
+            throw new BadRequestException("Invalid GPS coordinates");
+        }
+        if (limit < 1 || limit > 50) {
+            throw new BadRequestException("Limit must be between 1 and 50");
+        }
+        return siteSpatialIndexService.findNearestSites(latitude, longitude, limit).stream()
+                .map(this::toResponseWithDistance)
                 .collect(Collectors.toList());
     }
 
@@ -291,6 +303,12 @@ public class SiteService {
         site.setLunchEndTime(request.getLunchEndTime());
     }
 
+    private SiteResponse toResponseWithDistance(SiteSpatialIndexService.SiteDistance siteDistance) {
+        SiteResponse response = SiteResponse.fromEntity(siteDistance.getSite());
+        response.setDistanceMeters(siteDistance.getDistanceMeters());
+        return response;
+    }
+
     private String generateSiteCode() {
         return "SITE-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
@@ -0,0 +1,459 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.EmployeeSiteAssignment;
+import com.civiltech.civildesk_backend.model.Site;
+import com.civiltech.civildesk_backend.repository.EmployeeSiteAssignmentRepository;
+import com.civiltech.civildesk_backend.repository.SiteRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory grid index of active site geofences, plus every employee's active site assignments.
+ *
+ * Answers "which sites contain this point", "k nearest sites" and "which sites is this employee
+ * assigned to" without touching the database. The index is an immutable snapshot that is swapped
+ * atomically on rebuild; SiteService marks it stale after a site or an assignment changes. With Redis
+ * enabled the change is published so that every node rebuilds before its next punch; the periodic
+ * refresh only covers a missed message.
+ */
+@Service
+public class SiteSpatialIndexService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteSpatialIndexService.class);
+
+    // Grid cell size in degrees (~1.1 km of latitude)
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double METERS_PER_DEGREE = 111000.0;
+    // Sites whose bounding box spans more cells than this are kept in a separate list
+    private static final int MAX_CELLS_PER_SITE = 10_000;
+
+    @Autowired
+    private SiteRepository siteRepository;
+
+    @Autowired
+    private EmployeeSiteAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private GeofenceService geofenceService;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Value("${app.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.attendance.site-index.channel:civildesk:site-index:changes}")
+    private String changeChannel;
+
+    private StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean stale = true;
+    private final Object rebuildLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (redisEnabled && connectionFactory != null) {
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    public String getChangeChannel() {
+        return changeChannel;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Could not build site spatial index at startup: {}. It will be built on first use.", e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic refresh in case a change message from another node was missed
+     */
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public void scheduledRefresh() {
+        stale = true;
+    }
+
+    /**
+     * Mark the index as stale on every node (call after a site or a site assignment changes).
+     * If called inside a transaction, the index is only marked stale after commit so that the
+     * rebuild sees the committed data.
+     */
+    public void markStale() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stale = true;
+                    publishChange();
+                }
+            });
+        } else {
+            stale = true;
+            publishChange();
+        }
+    }
+
+    private void publishChange() {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(changeChannel, nodeId);
+        } catch (Exception e) {
+            // Other nodes pick the change up on their periodic refresh
+            logger.warn("Failed to publish site index change: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        if (!nodeId.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Reload all active sites and site assignments and swap in a new index snapshot
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            // Clear the flag before reading so that a change committed during the rebuild marks it stale again
+            stale = false;
+            try {
+                List<Site> sites = siteRepository.findByIsActiveTrue();
+                List<Entry> entries = new ArrayList<>(sites.size());
+                for (Site site : sites) {
+                    if (Boolean.TRUE.equals(site.getDeleted()) || site.getLatitude() == null || site.getLongitude() == null) {
+                        continue;
+                    }
+                    entries.add(new Entry(site, geofenceService.getCompiledGeofence(site)));
+                }
+                Map<Long, List<EmployeeSiteAssignment>> assignments = new HashMap<>();
+                for (EmployeeSiteAssignment assignment : assignmentRepository.findAllActiveWithSite()) {
+                    assignments.computeIfAbsent(assignment.getEmployee().getId(), key -> new ArrayList<>(1)).add(assignment);
+                }
+                snapshot = Snapshot.build(entries, assignments);
+                logger.info("Site spatial index rebuilt with {} active sites and {} employees with assignments",
+                        entries.size(), assignments.size());
+            } catch (RuntimeException e) {
+                stale = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Find all active sites whose geofence contains the point
+     */
+    public List<Site> findContainingSites(double latitude, double longitude) {
+        Snapshot current = currentSnapshot();
+        List<Site> result = new ArrayList<>(2);
+        for (Entry entry : current.geofenceCandidates(latitude, longitude)) {
+            if (entry.geofence.contains(latitude, longitude)) {
+                result.add(entry.site);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the ids of all active sites whose geofence contains the point
+     */
+    public Set<Long> findContainingSiteIds(double latitude, double longitude) {
+        Snapshot current = currentSnapshot();
+        Set<Long> result = new HashSet<>(4);
+        for (Entry entry : current.geofenceCandidates(latitude, longitude)) {
+            if (entry.geofence.contains(latitude, longitude)) {
+                result.add(entry.site.getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Active site assignments of an employee (sites fetched), whatever their date range
+     */
+    public List<EmployeeSiteAssignment> findActiveAssignments(Long employeeId) {
+        return currentSnapshot().assignmentsByEmployee.getOrDefault(employeeId, Collections.emptyList());
+    }
+
+    /**
+     * Whether the site is present in the index (i.e. it is an active site)
+     */
+    public boolean isIndexed(Long siteId) {
+        return siteId != null && currentSnapshot().byId.containsKey(siteId);
+    }
+
+    /**
+     * Find active sites whose center lies within radiusMeters of the point, nearest first
+     */
+    public List<SiteDistance> findSitesWithinRadius(double latitude, double longitude, double radiusMeters) {
+        Snapshot current = currentSnapshot();
+        List<SiteDistance> result = new ArrayList<>();
+
+        double latDelta = radiusMeters / METERS_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat > 1e-6 ? radiusMeters / (METERS_PER_DEGREE * cosLat) : 360;
+        long cellCount = (long) (2 * latDelta / CELL_SIZE_DEGREES + 2) * (long) (2 * lonDelta / CELL_SIZE_DEGREES + 2);
+
+        if (cellCount > current.entries.size()) {
+            // Scanning all sites is cheaper than visiting every cell in the radius
+            for (Entry entry : current.entries) {
+                addIfWithin(result, entry, latitude, longitude, radiusMeters);
+            }
+        } else {
+            int minLatCell = cellIndex(latitude - latDelta);
+            int maxLatCell = cellIndex(latitude + latDelta);
+            int minLonCell = cellIndex(longitude - lonDelta);
+            int maxLonCell = cellIndex(longitude + lonDelta);
+            for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                    for (Entry entry : current.centerCells.getOrDefault(cellKey(latCell, lonCell), Collections.emptyList())) {
+                        addIfWithin(result, entry, latitude, longitude, radiusMeters);
+                    }
+                }
+            }
+        }
+
+        result.sort((a, b) -> Double.compare(a.getDistanceMeters(), b.getDistanceMeters()));
+        return result;
+    }
+
+    /**
+     * Find the k active sites whose centers are nearest to the point, nearest first.
+     * Searches the grid in expanding rings and stops once no closer site can exist.
+     */
+    public List<SiteDistance> findNearestSites(double latitude, double longitude, int k) {
+        Snapshot current = currentSnapshot();
+        if (k <= 0 || current.entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Max-heap on distance holding the best k candidates found so far
+        PriorityQueue<SiteDistance> best = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(b.getDistanceMeters(), a.getDistanceMeters()));
+
+        int centerLatCell = cellIndex(latitude);
+        int centerLonCell = cellIndex(longitude);
+        // Lower bound on the distance covered by one ring of cells
+        double ringMeters = CELL_SIZE_DEGREES * METERS_PER_DEGREE * Math.max(0.0, Math.cos(Math.toRadians(latitude)));
+
+        for (int ring = 0; ; ring++) {
+            long cellsVisited = (long) (2 * ring + 1) * (2 * ring + 1);
+            if (cellsVisited > current.entries.size() || ringMeters <= 0) {
+                // Sparse neighbourhood - a full scan is cheaper than more rings
+                best.clear();
+                for (Entry entry : current.entries) {
+                    offer(best, k, entry, latitude, longitude);
+                }
+                break;
+            }
+
+            for (int latCell = centerLatCell - ring; latCell <= centerLatCell + ring; latCell++) {
+                boolean edgeRow = latCell == centerLatCell - ring || latCell == centerLatCell + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int lonCell = centerLonCell - ring; lonCell <= centerLonCell + ring; lonCell += Math.max(step, 1)) {
+                    for (Entry entry : current.centerCells.getOrDefault(cellKey(latCell, lonCell), Collections.emptyList())) {
+                        offer(best, k, entry, latitude, longitude);
+                    }
+                }
+            }
+
+            // Any site outside the rings searched so far is at least ring * ringMeters away
+            if (best.size() == k && best.peek().getDistanceMeters() <= ring * ringMeters) {
+                break;
+            }
+        }
+
+        List<SiteDistance> result = new ArrayList<>(best);
+        result.sort((a, b) -> Double.compare(a.getDistanceMeters(), b.getDistanceMeters()));
+        return result;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Snapshot currentSnapshot() {
+        if (stale) {
+            synchronized (rebuildLock) {
+                if (stale) {
+                    rebuild();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static void addIfWithin(List<SiteDistance> result, Entry entry, double latitude, double longitude, double radiusMeters) {
+        double distance = entry.geofence.distanceFromCenter(latitude, longitude);
+        if (distance <= radiusMeters) {
+            result.add(new SiteDistance(entry.site, distance));
+        }
+    }
+
+    private static void offer(PriorityQueue<SiteDistance> best, int k, Entry entry, double latitude, double longitude) {
+        double distance = entry.geofence.distanceFromCenter(latitude, longitude);
+        if (best.size() < k) {
+            best.add(new SiteDistance(entry.site, distance));
+        } else if (distance < best.peek().getDistanceMeters()) {
+            best.poll();
+            best.add(new SiteDistance(entry.site, distance));
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    private static final class Entry {
+        private final Site site;
+        private final GeofenceService.CompiledGeofence geofence;
+
+        private Entry(Site site, GeofenceService.CompiledGeofence geofence) {
+            this.site = site;
+            this.geofence = geofence;
+        }
+    }
+
+    /**
+     * Immutable index snapshot: geofence bounding boxes and site centers bucketed by grid cell,
+     * and active site assignments by employee id
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(
+                Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final List<Entry> entries;
+        private final Map<Long, List<Entry>> geofenceCells;
+        private final Map<Long, List<Entry>> centerCells;
+        private final List<Entry> oversized;
+        private final Map<Long, Entry> byId;
+        private final Map<Long, List<EmployeeSiteAssignment>> assignmentsByEmployee;
+
+        private Snapshot(List<Entry> entries, Map<Long, List<Entry>> geofenceCells, Map<Long, List<Entry>> centerCells,
+                         List<Entry> oversized, Map<Long, Entry> byId,
+                         Map<Long, List<EmployeeSiteAssignment>> assignmentsByEmployee) {
+            this.entries = entries;
+            this.geofenceCells = geofenceCells;
+            this.centerCells = centerCells;
+            this.oversized = oversized;
+            this.byId = byId;
+            this.assignmentsByEmployee = assignmentsByEmployee;
+        }
+
+        private static Snapshot build(List<Entry> entries, Map<Long, List<EmployeeSiteAssignment>> assignments) {
+            Map<Long, List<Entry>> geofenceCells = new HashMap<>();
+            Map<Long, List<Entry>> centerCells = new HashMap<>();
+            List<Entry> oversized = new ArrayList<>();
+            Map<Long, Entry> byId = new HashMap<>();
+
+            for (Entry entry : entries) {
+                GeofenceService.CompiledGeofence geofence = entry.geofence;
+                byId.put(entry.site.getId(), entry);
+                centerCells.computeIfAbsent(
+                        cellKey(cellIndex(geofence.getCenterLatitude()), cellIndex(geofence.getCenterLongitude())),
+                        key -> new ArrayList<>(1)).add(entry);
+
+                if (geofence.getMinLat() > geofence.getMaxLat()) {
+                    continue; // Empty geofence (e.g. invalid polygon) never contains any point
+                }
+                int minLatCell = cellIndex(geofence.getMinLat());
+                int maxLatCell = cellIndex(geofence.getMaxLat());
+                int minLonCell = cellIndex(geofence.getMinLon());
+                int maxLonCell = cellIndex(geofence.getMaxLon());
+                long cells = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+                if (cells > MAX_CELLS_PER_SITE) {
+                    oversized.add(entry);
+                    continue;
+                }
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                        geofenceCells.computeIfAbsent(cellKey(latCell, lonCell), key -> new ArrayList<>(1)).add(entry);
+                    }
+                }
+            }
+
+            Map<Long, List<EmployeeSiteAssignment>> assignmentsByEmployee = new HashMap<>();
+            assignments.forEach((employeeId, employeeAssignments) ->
+                    assignmentsByEmployee.put(employeeId, Collections.unmodifiableList(employeeAssignments)));
+
+            return new Snapshot(Collections.unmodifiableList(entries), geofenceCells, centerCells,
+                    Collections.unmodifiableList(oversized), byId, assignmentsByEmployee);
+        }
+
+        /**
+         * Sites whose geofence bounding box may contain the point
+         */
+        private List<Entry> geofenceCandidates(double latitude, double longitude) {
+            List<Entry> cell = geofenceCells.getOrDefault(
+                    cellKey(cellIndex(latitude), cellIndex(longitude)), Collections.emptyList());
+            if (oversized.isEmpty()) {
+                return cell;
+            }
+            List<Entry> candidates = new ArrayList<>(cell.size() + oversized.size());
+            candidates.addAll(cell);
+            candidates.addAll(oversized);
+            return candidates;
+        }
+    }
+
+    /**
+     * A site together with its distance from a queried point
+     */
+    public static class SiteDistance {
+        private final Site site;
+        private final double distanceMeters;
+
+        public SiteDistance(Site site, double distanceMeters) {
+            this.site = site;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public Site getSite() {
+            return site;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.civiltech.civildesk_backend.service;
 
+import com.civiltech.civildesk_backend.cache.CacheInvalidator;
 import com.civiltech.civildesk_backend.dto.TaskRequest;
 import com.civiltech.civildesk_backend.dto.TaskResponse;
 import com.civiltech.civildesk_backend.dto.TaskReviewRequest;
@@ -18,9 +19,7 @@ import com.civiltech.civildesk_backend.security.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
@@ -55,8 +54,10 @@ public class TaskService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
     // Assign task to employees (Admin/HR only)
-    @CacheEvict(value = "tasks", allEntries = true)
     public TaskResponse assignTask(TaskRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -116,14 +117,12 @@ public class TaskService {
             }
         }
 
+        evictTaskCaches(task.getId(), employees);
+
         return convertToResponse(task);
     }
 
     // Update task (Admin/HR only, only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "tasks", key = "#taskId"),
-        @CacheEvict(value = "tasks", allEntries = true)
-    })
     public TaskResponse updateTask(@NonNull Long taskId, TaskRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -166,7 +165,10 @@ public class TaskService {
         // Update task assignments
         // First, soft delete existing assignments
         List<TaskAssignment> existingAssignments = taskAssignmentRepository.findAllByTaskId(taskId);
+        // Both the previous and the new assignees see this task in their lists
+        List<Employee> affectedEmployees = new ArrayList<>();
         for (TaskAssignment assignment : existingAssignments) {
+            affectedEmployees.add(assignment.getEmployee());
             assignment.setDeleted(true);
             taskAssignmentRepository.save(assignment);
         }
@@ -175,6 +177,7 @@ public class TaskService {
         for (Long employeeId : request.getEmployeeIds()) {
             Employee employee = employeeRepository.findById(Objects.requireNonNull(employeeId, "Employee ID cannot be null"))
                     .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+            affectedEmployees.add(employee);
             
             // Check if assignment already exists (not deleted)
             TaskAssignment existingAssignment = taskAssignmentRepository
@@ -193,15 +196,12 @@ public class TaskService {
         }
 
         task = taskRepository.save(task);
+        evictTaskCaches(taskId, affectedEmployees);
 
         return convertToResponse(task);
     }
 
     // Delete task (Admin/HR only, only if status is PENDING)
-    @Caching(evict = {
-        @CacheEvict(value = "tasks", key = "#taskId"),
-        @CacheEvict(value = "tasks", allEntries = true)
-    })
     public void deleteTask(@NonNull Long taskId) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -234,10 +234,14 @@ public class TaskService {
 
         // Soft delete all task assignments
         List<TaskAssignment> assignments = taskAssignmentRepository.findAllByTaskId(taskId);
+        List<Employee> affectedEmployees = new ArrayList<>();
         for (TaskAssignment assignment : assignments) {
             assignment.setDeleted(true);
             taskAssignmentRepository.save(assignment);
+            affectedEmployees.add(assignment.getEmployee());
         }
+
+        evictTaskCaches(taskId, affectedEmployees);
     }
 
     // Get all tasks assigned to current employee
@@ -273,7 +277,7 @@ public class TaskService {
     }
 
     // Get all tasks (Admin/HR only) - shows all tasks assigned to all employees
-    @Cacheable(value = "tasks", key = "'all-tasks'")
+    @Cacheable(value = "tasks", key = "'all-tasks'", sync = true)
     @Transactional(readOnly = true)
     public List<TaskResponse> getAllTasks() {
         User currentUser = SecurityUtils.getCurrentUser();
@@ -391,10 +395,6 @@ public class TaskService {
     }
 
     // Review task (Approve/Reject) - Employee only
-    @Caching(evict = {
-        @CacheEvict(value = "tasks", key = "#taskId"),
-        @CacheEvict(value = "tasks", allEntries = true)
-    })
     public TaskResponse reviewTask(@NonNull Long taskId, TaskReviewRequest request) {
         User currentUser = SecurityUtils.getCurrentUser();
 
@@ -440,6 +440,11 @@ public class TaskService {
 
         task = taskRepository.save(task);
 
+        // The status lives on the task, so every assignee's lists change
+        evictTaskCaches(taskId, taskAssignmentRepository.findAllByTaskId(taskId).stream()
+                .map(TaskAssignment::getEmployee)
+                .collect(Collectors.toList()));
+
         // Send notification to all admins and HR managers
         try {
             List<User.Role> adminRoles = Arrays.asList(User.Role.ADMIN, User.Role.HR_MANAGER);
@@ -465,6 +470,23 @@ public class TaskService {
         return convertToResponse(task);
     }
 
+    // Evict only the entries this task appears in: its own entry, its assignees' lists and the admin lists
+    private void evictTaskCaches(Long taskId, List<Employee> assignees) {
+        List<Long> assigneeUserIds = assignees.stream()
+                .filter(emp -> emp != null && emp.getUser() != null)
+                .map(emp -> emp.getUser().getId())
+                .distinct()
+                .collect(Collectors.toList());
+
+        cacheInvalidator.invalidate("tasks")
+                .entity(taskId)
+                .owners("my-tasks:", assigneeUserIds)
+                .owners("my-tasks-status:", assigneeUserIds, Task.TaskStatus.values())
+                .aggregate("all-tasks")
+                .aggregate("tasks-status:", Task.TaskStatus.values())
+                .evict();
+    }
+
     // Helper method to validate dates
     private void validateTaskDates(java.time.LocalDate startDate, java.time.LocalDate endDate) {
         if (endDate.isBefore(startDate)) {
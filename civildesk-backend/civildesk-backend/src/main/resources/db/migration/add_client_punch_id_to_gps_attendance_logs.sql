@@ -0,0 +1,41 @@
+-- ============================================================================
+-- Migration Script: Add client_punch_id to GPS Attendance Logs
+-- ============================================================================
+-- Description: Adds the client_punch_id column used by the offline punch sync
+--              (POST /api/gps-attendance/sync) to dedupe punches a device
+--              uploads more than once. The id is generated by the mobile app
+--              when the punch is queued and is unique per employee.
+--
+-- Database: PostgreSQL
+-- Table: gps_attendance_logs
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f add_client_punch_id_to_gps_attendance_logs.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+ALTER TABLE gps_attendance_logs ADD COLUMN IF NOT EXISTS client_punch_id VARCHAR(64) NULL;
+
+-- Same punch uploaded twice (retried sync) is rejected by the database as a last resort
+CREATE UNIQUE INDEX IF NOT EXISTS uk_gps_attendance_logs_employee_client_punch
+    ON gps_attendance_logs(employee_id, client_punch_id) WHERE client_punch_id IS NOT NULL;
+
+COMMENT ON COLUMN gps_attendance_logs.client_punch_id IS 'Id generated by the device for an offline punch, used to dedupe sync uploads';
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- To rollback this migration, run:
+--
+-- BEGIN;
+-- DROP INDEX IF EXISTS uk_gps_attendance_logs_employee_client_punch;
+-- ALTER TABLE gps_attendance_logs DROP COLUMN IF EXISTS client_punch_id;
+-- COMMIT;
+-- ============================================================================
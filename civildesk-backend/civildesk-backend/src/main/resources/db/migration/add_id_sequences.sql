@@ -0,0 +1,90 @@
+-- ============================================================================
+-- Migration Script: Sequence-based ID generation
+-- ============================================================================
+-- Description: Creates one pooled sequence per entity table so that Hibernate
+--              can use GenerationType.SEQUENCE instead of IDENTITY. IDENTITY
+--              disables JDBC insert batching (hibernate.jdbc.batch_size), so
+--              bulk inserts were executed one INSERT per row.
+--
+--              Sequence names follow Hibernate's standard implicit naming
+--              (<EntityName>_SEQ) after Spring's CamelCaseToUnderscoresNamingStrategy,
+--              i.e. the entity class name in snake_case plus _seq
+--              (GpsAttendanceLog -> gps_attendance_log_seq). They use INCREMENT BY 50
+--              to match the default allocationSize of the pooled optimizer. Each
+--              sequence is aligned above the current MAX(id) of its table.
+--
+-- IMPORTANT: Run this script BEFORE deploying the version that switches
+--            BaseEntity to sequences. If the application already started and
+--            created the sequences itself, run it anyway - it is idempotent
+--            and realigns every sequence with the existing data.
+--
+-- Database: PostgreSQL
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f add_id_sequences.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+DO $$
+DECLARE
+    r RECORD;
+    max_id BIGINT;
+BEGIN
+    FOR r IN
+        SELECT * FROM (VALUES
+            ('attendance',               'attendance_seq'),
+            ('broadcast_messages',       'broadcast_message_seq'),
+            ('employees',                'employee_seq'),
+            ('employee_site_assignments','employee_site_assignment_seq'),
+            ('expenses',                 'expense_seq'),
+            ('gps_attendance_logs',      'gps_attendance_log_seq'),
+            ('holidays',                 'holiday_seq'),
+            ('leaves',                   'leave_seq'),
+            ('notifications',            'notification_seq'),
+            ('overtimes',                'overtime_seq'),
+            ('refresh_tokens',           'refresh_token_seq'),
+            ('salary_slips',             'salary_slip_seq'),
+            ('sites',                    'site_seq'),
+            ('tasks',                    'task_seq'),
+            ('task_assignments',         'task_assignment_seq'),
+            ('users',                    'user_seq')
+        ) AS t(table_name, sequence_name)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50 START WITH 1', r.sequence_name);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', r.sequence_name);
+
+        IF to_regclass('public.' || r.table_name) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', r.table_name) INTO max_id;
+        ELSE
+            max_id := 0;
+        END IF;
+
+        -- The pooled optimizer hands out (value - 49 .. value] for each nextval,
+        -- so the next value must be at least MAX(id) + 50 to stay clear of existing rows
+        PERFORM setval(r.sequence_name, max_id + 50, false);
+
+        RAISE NOTICE 'Sequence % aligned to table % (max id %)', r.sequence_name, r.table_name, max_id;
+    END LOOP;
+END $$;
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- Revert BaseEntity to GenerationType.IDENTITY first, then run:
+--
+-- BEGIN;
+-- DROP SEQUENCE IF EXISTS attendance_seq, broadcast_message_seq, employee_seq,
+--     employee_site_assignment_seq, expense_seq, gps_attendance_log_seq, holiday_seq,
+--     leave_seq, notification_seq, overtime_seq, refresh_token_seq, salary_slip_seq,
+--     site_seq, task_seq, task_assignment_seq, user_seq;
+-- -- Realign identity columns with the ids handed out by the sequences, e.g.:
+-- -- SELECT setval(pg_get_serial_sequence('attendance', 'id'), (SELECT MAX(id) FROM attendance));
+-- COMMIT;
+-- ============================================================================
@@ -0,0 +1,44 @@
+-- ============================================================================
+-- Migration Script: Review flag for offline GPS punches
+-- ============================================================================
+-- Description: Offline punches (POST /api/gps-attendance/sync) are stored at
+--              the device's claimed time (kept in offline_timestamp), clamped
+--              to app.attendance.offline-sync.max-age-hours before the upload.
+--              When the clamp moved a punch, requires_review is set and an
+--              admin accepts or rejects the device time
+--              (POST /api/gps-attendance/{logId}/review).
+--
+-- Database: PostgreSQL
+-- Table: gps_attendance_logs
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f add_offline_review_to_gps_attendance_logs.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+ALTER TABLE gps_attendance_logs ADD COLUMN IF NOT EXISTS requires_review BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Review list: only flagged punches are indexed
+CREATE INDEX IF NOT EXISTS idx_gps_attendance_logs_review
+    ON gps_attendance_logs(punch_time) WHERE requires_review = true;
+
+COMMENT ON COLUMN gps_attendance_logs.offline_timestamp IS 'Device time claimed for an offline punch (UTC); punch_time is this time clamped to the allowed age';
+COMMENT ON COLUMN gps_attendance_logs.requires_review IS 'Offline punch stored away from its device time (clamped), awaiting admin review';
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- To rollback this migration, run:
+--
+-- BEGIN;
+-- DROP INDEX IF EXISTS idx_gps_attendance_logs_review;
+-- ALTER TABLE gps_attendance_logs DROP COLUMN IF EXISTS requires_review;
+-- COMMIT;
+-- ============================================================================
@@ -0,0 +1,87 @@
+-- ============================================================================
+-- Migration Script: Fan-out-on-read broadcasts (broadcast_read_markers)
+-- ============================================================================
+-- Description: Broadcasts are no longer copied into one notifications row per
+--              employee. They are stored once in broadcast_messages and merged
+--              into each user's notification feed at read time. Per-user read
+--              state is kept in one compact row per user:
+--                read_through - watermark: broadcasts created at or before it
+--                               are read ("mark all as read" moves it)
+--                read_ids     - broadcasts newer than the watermark read one by one
+--                hidden_through - hidden watermark: broadcasts created at or
+--                               before it are out of the feed (the oldest
+--                               hidden_ids are folded into it past their cap)
+--                hidden_ids   - broadcasts newer than it deleted from the feed
+--
+--              Existing per-user broadcast notifications are converted into
+--              markers (read/deleted state preserved) and then soft-deleted so
+--              they are not listed twice.
+--
+-- Database: PostgreSQL
+-- Table: broadcast_read_markers
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f create_broadcast_read_markers_table.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+-- Pooled sequence used by BaseEntity (see add_id_sequences.sql); Hibernate names it
+-- after the entity in snake_case (BroadcastReadMarker -> broadcast_read_marker_seq)
+CREATE SEQUENCE IF NOT EXISTS broadcast_read_marker_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS broadcast_read_markers (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    read_through TIMESTAMP,
+    read_ids JSONB NOT NULL DEFAULT '[]'::jsonb,
+    hidden_through TIMESTAMP,
+    hidden_ids JSONB NOT NULL DEFAULT '[]'::jsonb,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_broadcast_read_marker_user UNIQUE (user_id)
+);
+
+-- Feed queries: active broadcasts by creation time
+CREATE INDEX IF NOT EXISTS idx_broadcast_messages_active_created
+    ON broadcast_messages(created_at DESC) WHERE deleted = false AND is_active = true;
+
+-- Carry over read/deleted state from the per-user broadcast notifications
+INSERT INTO broadcast_read_markers (id, user_id, read_through, read_ids, hidden_ids, created_at, updated_at, deleted)
+SELECT nextval('broadcast_read_marker_seq'),
+       n.user_id,
+       NULL,
+       COALESCE(jsonb_agg(DISTINCT (n.data->>'broadcastId')::bigint)
+                FILTER (WHERE n.is_read = true AND n.deleted = false), '[]'::jsonb),
+       COALESCE(jsonb_agg(DISTINCT (n.data->>'broadcastId')::bigint)
+                FILTER (WHERE n.deleted = true), '[]'::jsonb),
+       CURRENT_TIMESTAMP,
+       CURRENT_TIMESTAMP,
+       false
+FROM notifications n
+WHERE n.type = 'BROADCAST_MESSAGE' AND n.data ? 'broadcastId'
+GROUP BY n.user_id
+ON CONFLICT (user_id) DO NOTHING;
+
+UPDATE notifications SET deleted = true, updated_at = CURRENT_TIMESTAMP
+WHERE type = 'BROADCAST_MESSAGE' AND deleted = false;
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- Redeploy the version that writes one notification per employee, then run:
+--
+-- BEGIN;
+-- UPDATE notifications SET deleted = false WHERE type = 'BROADCAST_MESSAGE';
+-- DROP INDEX IF EXISTS idx_broadcast_messages_active_created;
+-- DROP TABLE IF EXISTS broadcast_read_markers;
+-- DROP SEQUENCE IF EXISTS broadcast_read_marker_seq;
+-- COMMIT;
+-- ============================================================================
@@ -0,0 +1,64 @@
+-- ============================================================================
+-- Migration Script: Create notification_outbox table
+-- ============================================================================
+-- Description: Transactional outbox for push notifications. Rows are written
+--              in the same transaction as the notification (or broadcast) that
+--              caused them; NotificationOutboxService claims due rows with
+--              FOR UPDATE SKIP LOCKED, sends them to FCM outside any business
+--              transaction and records the delivery status. Failed sends are
+--              retried with exponential backoff via next_attempt_at; a broadcast
+--              that failed for some tokens only retries those (pending_tokens).
+--
+-- Database: PostgreSQL
+-- Table: notification_outbox
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f create_notification_outbox_table.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+-- Pooled sequence used by BaseEntity (see add_id_sequences.sql); Hibernate names it
+-- after the entity in snake_case (NotificationOutbox -> notification_outbox_seq)
+CREATE SEQUENCE IF NOT EXISTS notification_outbox_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT PRIMARY KEY,
+    recipient_type VARCHAR(30) NOT NULL,
+    user_id BIGINT,
+    notification_id BIGINT,
+    payload JSONB NOT NULL,
+    pending_tokens JSONB,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error TEXT,
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+-- Dispatcher claim: status IN ('PENDING', 'SENDING') AND next_attempt_at <= now
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_due ON notification_outbox(status, next_attempt_at);
+
+COMMENT ON COLUMN notification_outbox.recipient_type IS 'USER (user_id) or ACTIVE_EMPLOYEES (broadcast multicast)';
+COMMENT ON COLUMN notification_outbox.pending_tokens IS 'ACTIVE_EMPLOYEES rows: tokens left to retry after a partly failed multicast';
+COMMENT ON COLUMN notification_outbox.next_attempt_at IS 'Next retry time; for SENDING rows the claim lease expiry';
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- To rollback this migration, run:
+--
+-- BEGIN;
+-- DROP TABLE IF EXISTS notification_outbox;
+-- DROP SEQUENCE IF EXISTS notification_outbox_seq;
+-- COMMIT;
+-- ============================================================================
@@ -0,0 +1,69 @@
+-- ============================================================================
+-- Migration Script: Create payroll_jobs table
+-- ============================================================================
+-- Description: Stores bulk payroll runs (POST /api/salary/bulk-generate).
+--              Each job keeps its requests, a checkpoint (next_index) and
+--              progress counters so that a run interrupted by a restart is
+--              resumed from the last committed chunk instead of starting over.
+--              A chunk that fails is recorded in failed_indexes and the run
+--              continues; a retry job (retry_of_job_id) re-runs only those.
+--
+-- Database: PostgreSQL
+-- Table: payroll_jobs
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f create_payroll_jobs_table.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+-- Pooled sequence used by BaseEntity (see add_id_sequences.sql); Hibernate names it
+-- after the entity in snake_case (PayrollJob -> payroll_job_seq)
+CREATE SEQUENCE IF NOT EXISTS payroll_job_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS payroll_jobs (
+    id BIGINT PRIMARY KEY,
+    status VARCHAR(30) NOT NULL DEFAULT 'PENDING',
+    period VARCHAR(7),
+    total_count INTEGER NOT NULL DEFAULT 0,
+    processed_count INTEGER NOT NULL DEFAULT 0,
+    success_count INTEGER NOT NULL DEFAULT 0,
+    failed_count INTEGER NOT NULL DEFAULT 0,
+    next_index INTEGER NOT NULL DEFAULT 0,
+    request_payload TEXT NOT NULL,
+    errors TEXT,
+    failed_indexes TEXT,
+    last_error TEXT,
+    generated_by_user_id BIGINT,
+    retry_of_job_id BIGINT REFERENCES payroll_jobs(id),
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    heartbeat_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+CREATE INDEX IF NOT EXISTS idx_payroll_job_status ON payroll_jobs(status);
+
+COMMENT ON COLUMN payroll_jobs.next_index IS 'Checkpoint: index of the next request to process';
+COMMENT ON COLUMN payroll_jobs.period IS 'Pay period as YYYY-MM';
+COMMENT ON COLUMN payroll_jobs.failed_indexes IS 'JSON array of request_payload indexes that failed';
+COMMENT ON COLUMN payroll_jobs.heartbeat_at IS 'Updated per committed chunk; stale running jobs are resumed';
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- To rollback this migration, run:
+--
+-- BEGIN;
+-- DROP TABLE IF EXISTS payroll_jobs;
+-- DROP SEQUENCE IF EXISTS payroll_job_seq;
+-- COMMIT;
+-- ============================================================================
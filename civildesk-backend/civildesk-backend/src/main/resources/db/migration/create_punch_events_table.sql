@@ -0,0 +1,98 @@
+-- ============================================================================
+-- Migration Script: Append-only punch event log (punch_events)
+-- ============================================================================
+-- Description: Every punch (face, GPS, admin manual marking, holiday) and every
+--              admin punch-time correction is appended to punch_events. The
+--              four punch times and the working/overtime hours on attendance
+--              are derived from a day's events (AttendanceProjector), so
+--              corrections keep their history and attendance can be rebuilt
+--              from the events after a rule change (POST /api/attendance/rebuild).
+--                kind = PUNCH      - live punch (a repeated check-in keeps the first)
+--                kind = CORRECTION - sets the punch time exactly as given
+--
+--              Existing attendance punch times are backfilled as CORRECTION
+--              events, so a rebuild reproduces the current rows.
+--
+-- Database: PostgreSQL
+-- Table: punch_events
+--
+-- Run this script using one of the following methods:
+--   1. pgAdmin Query Tool: Connect to civildesk database and execute
+--   2. psql command line: psql -U postgres -d civildesk -f create_punch_events_table.sql
+--   3. Spring Boot: Place in db/migration folder if using Flyway
+-- ============================================================================
+
+-- Start transaction for safe execution
+BEGIN;
+
+-- Pooled sequence used by BaseEntity (see add_id_sequences.sql); Hibernate names it
+-- after the entity in snake_case (PunchEvent -> punch_event_seq)
+CREATE SEQUENCE IF NOT EXISTS punch_event_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS punch_events (
+    id BIGINT PRIMARY KEY,
+    employee_id BIGINT NOT NULL REFERENCES employees(id),
+    date DATE NOT NULL,
+    punch_type VARCHAR(20) NOT NULL,
+    punch_time TIMESTAMP NOT NULL,
+    source VARCHAR(20) NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    recorded_by VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT chk_punch_events_punch_type CHECK (punch_type IN ('CHECK_IN', 'LUNCH_OUT', 'LUNCH_IN', 'CHECK_OUT')),
+    CONSTRAINT chk_punch_events_source CHECK (source IN ('FACE', 'GPS', 'ADMIN', 'HOLIDAY')),
+    CONSTRAINT chk_punch_events_kind CHECK (kind IN ('PUNCH', 'CORRECTION'))
+);
+
+-- Audit trail and incremental replay of one employee's day
+CREATE INDEX IF NOT EXISTS idx_punch_events_employee_date ON punch_events(employee_id, date);
+
+-- Replay of a whole day
+CREATE INDEX IF NOT EXISTS idx_punch_events_date ON punch_events(date);
+
+-- Backfill the current punch times of live attendance rows
+INSERT INTO punch_events (id, employee_id, date, punch_type, punch_time, source, kind, recorded_by,
+                          created_at, updated_at, deleted)
+SELECT nextval('punch_event_seq'),
+       a.employee_id,
+       a.date,
+       p.punch_type,
+       p.punch_time,
+       CASE UPPER(COALESCE(a.recognition_method, ''))
+           WHEN 'GPS_BASED' THEN 'GPS'
+           WHEN 'HOLIDAY' THEN 'HOLIDAY'
+           WHEN 'MANUAL' THEN 'ADMIN'
+           WHEN 'MANUAL_ADMIN' THEN 'ADMIN'
+           ELSE 'FACE'
+       END,
+       'CORRECTION',
+       NULL,
+       CURRENT_TIMESTAMP,
+       CURRENT_TIMESTAMP,
+       false
+FROM attendance a
+CROSS JOIN LATERAL (VALUES
+    ('CHECK_IN', a.check_in_time),
+    ('LUNCH_OUT', a.lunch_out_time),
+    ('LUNCH_IN', a.lunch_in_time),
+    ('CHECK_OUT', a.check_out_time)
+) AS p(punch_type, punch_time)
+WHERE a.deleted = false
+  AND p.punch_time IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM punch_events e WHERE e.employee_id = a.employee_id AND e.date = a.date);
+
+-- Commit the transaction
+COMMIT;
+
+-- ============================================================================
+-- Rollback Script (if needed)
+-- ============================================================================
+-- Redeploy the version that writes punch times directly, then run:
+--
+-- BEGIN;
+-- DROP TABLE IF EXISTS punch_events;
+-- DROP SEQUENCE IF EXISTS punch_event_seq;
+-- COMMIT;
+-- ============================================================================
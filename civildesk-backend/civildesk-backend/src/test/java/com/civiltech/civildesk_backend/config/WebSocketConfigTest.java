@@ -0,0 +1,99 @@
+package com.civiltech.civildesk_backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebSocketConfigTest {
+
+	private final WebSocketConfig config = new WebSocketConfig();
+
+	@Test
+	void sendToAttendanceTopicIsRefused() {
+		Message<?> forged = frame(StompCommand.SEND, "/topic/attendance", user("ROLE_EMPLOYEE"));
+
+		assertThrows(MessageDeliveryException.class, () -> config.checkInboundFrame(forged));
+	}
+
+	@Test
+	void sendToAttendanceTopicIsRefusedForAdminsToo() {
+		Message<?> forged = frame(StompCommand.SEND, "/topic/attendance", user("ROLE_ADMIN"));
+
+		assertThrows(MessageDeliveryException.class, () -> config.checkInboundFrame(forged));
+	}
+
+	@Test
+	void sendToApplicationDestinationIsAllowed() {
+		Message<?> message = frame(StompCommand.SEND, "/app/ping", user("ROLE_EMPLOYEE"));
+
+		assertSame(message, config.checkInboundFrame(message));
+	}
+
+	@Test
+	void framesWithoutAuthenticatedUserAreRefused() {
+		assertThrows(MessageDeliveryException.class,
+				() -> config.checkInboundFrame(frame(StompCommand.SUBSCRIBE, "/topic/other", null)));
+		assertThrows(MessageDeliveryException.class,
+				() -> config.checkInboundFrame(frame(StompCommand.SEND, "/app/ping", null)));
+	}
+
+	@Test
+	void attendanceSubscriptionIsLimitedToAdminsAndHr() {
+		assertThrows(MessageDeliveryException.class,
+				() -> config.checkInboundFrame(frame(StompCommand.SUBSCRIBE, "/topic/attendance", user("ROLE_EMPLOYEE"))));
+
+		Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/attendance", user("ROLE_HR_MANAGER"));
+		assertSame(message, config.checkInboundFrame(message));
+	}
+
+	@Test
+	void wildcardSubscriptionIsRefused() {
+		for (String pattern : List.of("/topic/**", "/topic/*", "/topic/attend?nce", "/topic/{name}")) {
+			assertThrows(MessageDeliveryException.class,
+					() -> config.checkInboundFrame(frame(StompCommand.SUBSCRIBE, pattern, user("ROLE_EMPLOYEE"))),
+					pattern);
+		}
+	}
+
+	@Test
+	void otherTopicSubscriptionIsAllowed() {
+		Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/other", user("ROLE_EMPLOYEE"));
+
+		assertSame(message, config.checkInboundFrame(message));
+	}
+
+	@Test
+	void disconnectPassesWithoutUser() {
+		Message<?> message = frame(StompCommand.DISCONNECT, null, null);
+
+		assertSame(message, config.checkInboundFrame(message));
+	}
+
+	private static Message<?> frame(StompCommand command, String destination, Authentication user) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		if (destination != null) {
+			accessor.setDestination(destination);
+		}
+		if (user != null) {
+			accessor.setUser(user);
+		}
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Authentication user(String role) {
+		return new UsernamePasswordAuthenticationToken("user@example.com", null,
+				List.of(new SimpleGrantedAuthority(role)));
+	}
+}
@@ -0,0 +1,95 @@
+package com.civiltech.civildesk_backend.security;
+
+import com.civiltech.civildesk_backend.model.User;
+import com.civiltech.civildesk_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityUtilsTest {
+
+	private static final String EMAIL = "employee@civildesk.com";
+
+	private UserRepository userRepository;
+	private MockHttpServletRequest request;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		new SecurityUtils().setUserRepository(userRepository);
+
+		user = new User();
+		user.setId(42L);
+		user.setEmail(EMAIL);
+		when(userRepository.findByEmailAndDeletedFalse(EMAIL)).thenReturn(Optional.of(user));
+
+		// Same state JwtAuthenticationFilter leaves behind for an authenticated request
+		CurrentUserDetails principal = new CurrentUserDetails(42L, EMAIL, "secret", true,
+				List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE")));
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+		request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		CurrentUserContext.bind(request, 42L, EMAIL);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void currentUserIsLoadedAtMostOncePerRequest() {
+		User first = SecurityUtils.getCurrentUser();
+		User second = SecurityUtils.getCurrentUser();
+		SecurityUtils.getCurrentUserId();
+		SecurityUtils.getCurrentUser();
+
+		assertSame(user, first);
+		assertSame(first, second);
+		verify(userRepository, times(1)).findByEmailAndDeletedFalse(anyString());
+	}
+
+	@Test
+	void currentUserIdIsReadFromPrincipalWithoutQuery() {
+		assertEquals(42L, SecurityUtils.getCurrentUserId());
+		assertEquals(42L, SecurityUtils.getCurrentUserId());
+
+		verify(userRepository, never()).findByEmailAndDeletedFalse(anyString());
+	}
+
+	@Test
+	void eachRequestLoadsItsOwnUser() {
+		SecurityUtils.getCurrentUser();
+
+		// Next request on the same thread
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(nextRequest));
+		CurrentUserContext.bind(nextRequest, 42L, EMAIL);
+		SecurityUtils.getCurrentUser();
+		SecurityUtils.getCurrentUser();
+
+		verify(userRepository, times(2)).findByEmailAndDeletedFalse(anyString());
+	}
+}
@@ -0,0 +1,141 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.model.PunchEvent;
+import com.civiltech.civildesk_backend.repository.PunchEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendanceProjectorTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+	private AttendanceProjector projector;
+	private PunchEventRepository punchEventRepository;
+
+	@BeforeEach
+	void setUp() {
+		projector = new AttendanceProjector();
+		punchEventRepository = mock(PunchEventRepository.class);
+		ReflectionTestUtils.setField(projector, "calculationService", new AttendanceCalculationService());
+		ReflectionTestUtils.setField(projector, "punchEventRepository", punchEventRepository);
+	}
+
+	@Test
+	void replayMatchesIncrementalProjection() {
+		List<PunchEvent> events = List.of(
+				event(PunchEvent.PunchType.CHECK_IN, 9, 5, PunchEvent.Kind.PUNCH),
+				event(PunchEvent.PunchType.CHECK_IN, 9, 40, PunchEvent.Kind.PUNCH),
+				event(PunchEvent.PunchType.LUNCH_OUT, 13, 0, PunchEvent.Kind.PUNCH),
+				event(PunchEvent.PunchType.LUNCH_IN, 14, 0, PunchEvent.Kind.PUNCH),
+				event(PunchEvent.PunchType.CHECK_OUT, 20, 30, PunchEvent.Kind.PUNCH),
+				event(PunchEvent.PunchType.CHECK_IN, 8, 50, PunchEvent.Kind.CORRECTION));
+
+		Attendance incremental = attendance();
+		for (PunchEvent event : events) {
+			AttendanceProjector.applyPunch(incremental, event);
+		}
+		Attendance replayed = attendance();
+		assertTrue(projector.rebuild(replayed, events));
+
+		assertEquals(at(8, 50), replayed.getCheckInTime());
+		assertEquals(incremental.getCheckInTime(), replayed.getCheckInTime());
+		assertEquals(incremental.getLunchOutTime(), replayed.getLunchOutTime());
+		assertEquals(incremental.getLunchInTime(), replayed.getLunchInTime());
+		assertEquals(incremental.getCheckOutTime(), replayed.getCheckOutTime());
+		assertNotNull(replayed.getWorkingHours());
+
+		// Replaying the same events again changes nothing
+		assertFalse(projector.rebuild(replayed, events));
+	}
+
+	@Test
+	void repeatedCheckInKeepsTheFirstAndCorrectionOverwrites() {
+		Attendance attendance = attendance();
+
+		assertTrue(AttendanceProjector.applyPunch(attendance, event(PunchEvent.PunchType.CHECK_IN, 9, 0, PunchEvent.Kind.PUNCH)));
+		assertFalse(AttendanceProjector.applyPunch(attendance, event(PunchEvent.PunchType.CHECK_IN, 9, 30, PunchEvent.Kind.PUNCH)));
+		assertEquals(at(9, 0), attendance.getCheckInTime());
+
+		assertTrue(AttendanceProjector.applyPunch(attendance, event(PunchEvent.PunchType.CHECK_IN, 9, 30, PunchEvent.Kind.CORRECTION)));
+		assertEquals(at(9, 30), attendance.getCheckInTime());
+	}
+
+	@Test
+	void lunchOutWithoutCheckInAlsoChecksIn() {
+		Attendance attendance = attendance();
+
+		assertTrue(AttendanceProjector.applyPunch(attendance, event(PunchEvent.PunchType.LUNCH_OUT, 13, 0, PunchEvent.Kind.PUNCH)));
+		assertEquals(at(13, 0), attendance.getCheckInTime());
+		assertEquals(at(13, 0), attendance.getLunchOutTime());
+	}
+
+	@Test
+	void replayWithoutCheckOutLeavesHoursUnset() {
+		Attendance attendance = attendance();
+		attendance.setWorkingHours(8.0);
+
+		assertTrue(projector.rebuild(attendance, List.of(event(PunchEvent.PunchType.CHECK_IN, 9, 0, PunchEvent.Kind.PUNCH))));
+		assertEquals(at(9, 0), attendance.getCheckInTime());
+		assertNull(attendance.getWorkingHours());
+	}
+
+	@Test
+	void withdrawnPunchIsDeletedAndTheDayRebuiltWithoutIt() {
+		Attendance attendance = attendance();
+		Employee employee = new Employee();
+		employee.setId(7L);
+		attendance.setEmployee(employee);
+		PunchEvent checkIn = event(PunchEvent.PunchType.CHECK_IN, 9, 0, PunchEvent.Kind.PUNCH);
+		PunchEvent checkOut = event(PunchEvent.PunchType.CHECK_OUT, 18, 0, PunchEvent.Kind.PUNCH);
+		checkOut.setSource(PunchEvent.Source.GPS);
+		projector.rebuild(attendance, List.of(checkIn, checkOut));
+		assertNotNull(attendance.getWorkingHours());
+		when(punchEventRepository.findByEmployeeIdAndDate(7L, DAY)).thenReturn(List.of(checkIn, checkOut));
+
+		// Only a live punch from the given source matches
+		assertFalse(projector.withdraw(attendance, PunchEvent.PunchType.CHECK_OUT, at(18, 0), PunchEvent.Source.FACE));
+		assertTrue(projector.withdraw(attendance, PunchEvent.PunchType.CHECK_OUT, at(18, 0), PunchEvent.Source.GPS));
+
+		assertTrue(checkOut.getDeleted());
+		verify(punchEventRepository).save(checkOut);
+		assertEquals(at(9, 0), attendance.getCheckInTime());
+		assertNull(attendance.getCheckOutTime());
+		assertNull(attendance.getWorkingHours());
+	}
+
+	private static Attendance attendance() {
+		Attendance attendance = new Attendance();
+		attendance.setDate(DAY);
+		return attendance;
+	}
+
+	private static PunchEvent event(PunchEvent.PunchType type, int hour, int minute, PunchEvent.Kind kind) {
+		PunchEvent event = new PunchEvent();
+		event.setDate(DAY);
+		event.setPunchType(type);
+		event.setPunchTime(at(hour, minute));
+		event.setSource(PunchEvent.Source.FACE);
+		event.setKind(kind);
+		return event;
+	}
+
+	private static LocalDateTime at(int hour, int minute) {
+		return DAY.atTime(hour, minute);
+	}
+}
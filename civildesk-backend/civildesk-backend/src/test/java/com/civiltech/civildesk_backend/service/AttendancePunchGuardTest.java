@@ -0,0 +1,88 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendancePunchGuardTest {
+
+	private AttendancePunchGuard guard;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		guard = new AttendancePunchGuard();
+		ReflectionTestUtils.setField(guard, "stripes", 64);
+		ReflectionTestUtils.setField(guard, "timeoutMs", 30_000L);
+		guard.init();
+		executor = Executors.newFixedThreadPool(64);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void punchesOfDifferentEmployeesDoNotWaitForEachOther() throws Exception {
+		long first = 1L;
+		long second = 2L;
+		while (guard.stripeFor(second) == guard.stripeFor(first)) {
+			second++;
+		}
+		long other = second;
+
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> guard.withEmployeeLock(first, () -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+		// Completes while the first employee's lock is still held
+		Future<Boolean> parallel = executor.submit(() -> guard.withEmployeeLock(other, () -> true));
+		assertTrue(parallel.get(5, TimeUnit.SECONDS));
+
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void punchGivesUpWhenTheEmployeeLockIsHeldTooLong() throws Exception {
+		ReflectionTestUtils.setField(guard, "timeoutMs", 50L);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> holder = executor.submit(() -> guard.withEmployeeLock(7L, () -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+		assertThrows(BadRequestException.class, () -> guard.withEmployeeLock(7L, () -> null));
+
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.AttendanceRequest;
+import com.civiltech.civildesk_backend.model.Attendance;
+import com.civiltech.civildesk_backend.model.Employee;
+import com.civiltech.civildesk_backend.repository.AttendanceRepository;
+import com.civiltech.civildesk_backend.repository.EmployeeRepository;
+import com.civiltech.civildesk_backend.repository.PunchEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the face punch path (markAttendance -> AttendancePunchGuard -> upsertForPunch) with many
+ * simultaneous punches against an in-memory stand-in for the attendance table.
+ */
+class AttendanceServicePunchTest {
+
+	private static final int EMPLOYEES = 25;
+	private static final int PUNCHES = 1000;
+
+	private AttendanceService attendanceService;
+	private AttendanceRepository attendanceRepository;
+	private PunchEventRepository punchEventRepository;
+	private ExecutorService executor;
+
+	// (employee_id, date) -> row; an insert of an existing key is what used to violate the constraint
+	private final Map<String, Attendance> rows = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> upserts = new ConcurrentHashMap<>();
+	private final AtomicInteger constraintViolations = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		attendanceRepository = mock(AttendanceRepository.class);
+		punchEventRepository = mock(PunchEventRepository.class);
+		EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+
+		for (long id = 1; id <= EMPLOYEES; id++) {
+			Employee employee = new Employee();
+			employee.setId(id);
+			employee.setEmployeeId("EMP" + id);
+			employee.setFirstName("Employee");
+			employee.setLastName(String.valueOf(id));
+			when(employeeRepository.findByEmployeeIdAndDeletedFalse("EMP" + id)).thenReturn(Optional.of(employee));
+		}
+
+		when(attendanceRepository.findByEmployeeIdAndDateForUpdate(anyLong(), any(LocalDate.class)))
+				.thenAnswer(invocation -> Optional.ofNullable(rows.get(key(invocation.getArgument(0), invocation.getArgument(1)))));
+		when(attendanceRepository.upsertForPunch(anyLong(), any(LocalDate.class), anyString(), anyString()))
+				.thenAnswer(invocation -> {
+					String key = key(invocation.getArgument(0), invocation.getArgument(1));
+					upserts.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+					Attendance row = new Attendance();
+					row.setDate(invocation.getArgument(1));
+					row.setStatus(Attendance.AttendanceStatus.valueOf(invocation.getArgument(2)));
+					row.setRecognitionMethod(invocation.getArgument(3));
+					// ON CONFLICT (employee_id, date): a second insert of the key is a no-op, never an error
+					if (rows.putIfAbsent(key, row) != null) {
+						constraintViolations.incrementAndGet();
+					}
+					return 1;
+				});
+		when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		AttendancePunchGuard punchGuard = new AttendancePunchGuard();
+		ReflectionTestUtils.setField(punchGuard, "attendanceRepository", attendanceRepository);
+		ReflectionTestUtils.setField(punchGuard, "stripes", 8);
+		ReflectionTestUtils.setField(punchGuard, "timeoutMs", 30_000L);
+		punchGuard.init();
+
+		AttendanceProjector projector = new AttendanceProjector();
+		ReflectionTestUtils.setField(projector, "punchEventRepository", punchEventRepository);
+		ReflectionTestUtils.setField(projector, "attendanceRepository", attendanceRepository);
+		ReflectionTestUtils.setField(projector, "calculationService", new AttendanceCalculationService());
+
+		attendanceService = new AttendanceService();
+		ReflectionTestUtils.setField(attendanceService, "attendanceRepository", attendanceRepository);
+		ReflectionTestUtils.setField(attendanceService, "employeeRepository", employeeRepository);
+		ReflectionTestUtils.setField(attendanceService, "attendanceProjector", projector);
+		ReflectionTestUtils.setField(attendanceService, "attendanceEventPublisher", mock(AttendanceEventPublisher.class));
+		ReflectionTestUtils.setField(attendanceService, "punchGuard", punchGuard);
+		attendanceService.setTransactionManager(mock(PlatformTransactionManager.class));
+
+		executor = Executors.newFixedThreadPool(64);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void thousandSimultaneousPunchesCreateOneRowPerEmployeeAndDay() throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> punches = new ArrayList<>();
+		for (int i = 0; i < PUNCHES; i++) {
+			AttendanceRequest request = new AttendanceRequest();
+			request.setEmployeeId("EMP" + (i % EMPLOYEES + 1));
+			request.setAttendanceType("PUNCH_IN");
+			punches.add(executor.submit(() -> {
+				start.await();
+				return attendanceService.markAttendance(request);
+			}));
+		}
+		start.countDown();
+		for (Future<?> punch : punches) {
+			assertNotNull(punch.get(30, TimeUnit.SECONDS));
+		}
+
+		assertEquals(0, constraintViolations.get());
+		assertEquals(EMPLOYEES, rows.size());
+		// Every later punch of the day finds the row the first one created
+		assertEquals(EMPLOYEES, upserts.size());
+		upserts.forEach((key, count) -> assertEquals(1, count.get(), "upserts for " + key));
+		verify(attendanceRepository, atLeast(PUNCHES)).findByEmployeeIdAndDateForUpdate(anyLong(), any(LocalDate.class));
+		// Each punch still reached the event log
+		verify(punchEventRepository, atLeast(PUNCHES)).saveAll(anyList());
+		rows.values().forEach(row -> assertNotNull(row.getCheckInTime()));
+	}
+
+	private static String key(Long employeeId, LocalDate date) {
+		return employeeId + "|" + date;
+	}
+}
@@ -0,0 +1,30 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FirebasePushGatewayTest {
+
+	@Test
+	void unregisteredTokenIsDead() {
+		assertEquals(PushGateway.Outcome.INVALID_TOKEN, FirebasePushGateway.classify(MessagingErrorCode.UNREGISTERED, false));
+		assertEquals(PushGateway.Outcome.INVALID_TOKEN, FirebasePushGateway.classify(MessagingErrorCode.SENDER_ID_MISMATCH, false));
+	}
+
+	@Test
+	void invalidArgumentIsDeadOnlyWhenThePayloadWasAccepted() {
+		assertEquals(PushGateway.Outcome.INVALID_TOKEN, FirebasePushGateway.classify(MessagingErrorCode.INVALID_ARGUMENT, true));
+		// Possibly an oversized or malformed payload: must not clear the token
+		assertEquals(PushGateway.Outcome.FAILED, FirebasePushGateway.classify(MessagingErrorCode.INVALID_ARGUMENT, false));
+	}
+
+	@Test
+	void transientErrorsAreRetried() {
+		assertEquals(PushGateway.Outcome.FAILED, FirebasePushGateway.classify(MessagingErrorCode.UNAVAILABLE, true));
+		assertEquals(PushGateway.Outcome.FAILED, FirebasePushGateway.classify(MessagingErrorCode.QUOTA_EXCEEDED, true));
+		assertEquals(PushGateway.Outcome.FAILED, FirebasePushGateway.classify(MessagingErrorCode.INTERNAL, true));
+		assertEquals(PushGateway.Outcome.FAILED, FirebasePushGateway.classify(null, true));
+	}
+}
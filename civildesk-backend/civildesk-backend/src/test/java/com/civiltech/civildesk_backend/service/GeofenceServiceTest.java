@@ -0,0 +1,38 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.model.Site;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeofenceServiceTest {
+
+	private final GeofenceService geofenceService = new GeofenceService();
+
+	@Test
+	void radiusGeofenceContainsNearbyPoint() {
+		Site site = radiusSite(18.5204, 73.8567, 100);
+
+		assertTrue(geofenceService.isInsideGeofence(site, 18.5208, 73.8570));
+		assertFalse(geofenceService.isInsideGeofence(site, 18.5304, 73.8567));
+	}
+
+	@Test
+	void radiusGeofenceContainsPointAcrossAntimeridian() {
+		// About 64 m east of the site, on the other side of ±180°
+		Site site = radiusSite(-17.0, 179.9997, 200);
+
+		assertTrue(geofenceService.isInsideGeofence(site, -17.0, -179.9997));
+		assertFalse(geofenceService.isInsideGeofence(site, -17.0, -179.99));
+	}
+
+	private static Site radiusSite(double latitude, double longitude, int radiusMeters) {
+		Site site = new Site();
+		site.setLatitude(latitude);
+		site.setLongitude(longitude);
+		site.setGeofenceType(Site.GeofenceType.RADIUS);
+		site.setGeofenceRadiusMeters(radiusMeters);
+		return site;
+	}
+}
@@ -0,0 +1,113 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+	private IdempotencyService idempotencyService;
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		idempotencyService = new IdempotencyService();
+		ReflectionTestUtils.setField(idempotencyService, "objectMapper",
+				new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+		ReflectionTestUtils.setField(idempotencyService, "redisConnectionFactory", mock(ObjectProvider.class));
+		ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 3600L);
+		ReflectionTestUtils.setField(idempotencyService, "inFlightTtlSeconds", 60L);
+		ReflectionTestUtils.setField(idempotencyService, "localMaxSize", 100L);
+		idempotencyService.init();
+	}
+
+	@Test
+	void retryWithSameRequestReplaysTheFirstResponse() {
+		ResponseEntity<ApiResponse<String>> first = punch("key-1", "PUNCH_IN");
+		ResponseEntity<ApiResponse<String>> retry = punch("key-1", "PUNCH_IN");
+
+		assertEquals(1, runs.get());
+		assertEquals(HttpStatus.OK, retry.getStatusCode());
+		assertEquals(first.getBody().getData(), retry.getBody().getData());
+		assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+	}
+
+	@Test
+	void keyReusedForDifferentPunchIsRefused() {
+		punch("key-1", "PUNCH_IN");
+		ResponseEntity<ApiResponse<String>> checkOut = punch("key-1", "PUNCH_OUT");
+
+		assertEquals(1, runs.get());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, checkOut.getStatusCode());
+	}
+
+	@Test
+	void differentKeysRunSeparately() {
+		punch("key-1", "PUNCH_IN");
+		punch("key-2", "PUNCH_OUT");
+
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	void failedRequestReleasesTheKey() {
+		ResponseEntity<ApiResponse<String>> failed = idempotencyService.execute("attendance-my-mark", "key-1",
+				Arrays.asList("EMP001", "PUNCH_IN"), String.class,
+				() -> ResponseEntity.badRequest().body(ApiResponse.error("Already checked in")));
+		punch("key-1", "PUNCH_IN");
+
+		assertEquals(HttpStatus.BAD_REQUEST, failed.getStatusCode());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void redisReleaseOnlyDeletesItsOwnMarker() {
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+		ReflectionTestUtils.setField(idempotencyService, "redisTemplate", redisTemplate);
+
+		idempotencyService.execute("attendance-my-mark", "key-1", Arrays.asList("EMP001", "PUNCH_IN"), String.class,
+				() -> ResponseEntity.badRequest().body(ApiResponse.error("Already checked in")));
+
+		// No authenticated user in this test
+		String key = "idempotency:attendance-my-mark:null:key-1";
+		verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(key)),
+				(Object) argThat(marker -> marker.toString().startsWith("IN_FLIGHT|")));
+		verify(redisTemplate, never()).delete(anyString());
+	}
+
+	private ResponseEntity<ApiResponse<String>> punch(String key, String attendanceType) {
+		return idempotencyService.execute("attendance-my-mark", key, Arrays.asList("EMP001", attendanceType),
+				String.class, () -> ResponseEntity.ok(ApiResponse.success("Attendance marked successfully",
+						attendanceType + "#" + runs.incrementAndGet())));
+	}
+}
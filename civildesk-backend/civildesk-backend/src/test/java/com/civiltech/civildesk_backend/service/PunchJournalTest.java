@@ -0,0 +1,158 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.dto.GpsAttendanceRequest;
+import com.civiltech.civildesk_backend.dto.IngestedPunch;
+import com.civiltech.civildesk_backend.model.GpsAttendanceLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PunchJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		objectMapper = new ObjectMapper().findAndRegisterModules()
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	@Test
+	void punchesNotCheckpointedAreReplayedAfterRestart() throws Exception {
+		PunchJournal journal = new PunchJournal(directory, objectMapper, true);
+		assertTrue(journal.open().isEmpty());
+		for (int i = 1; i <= 3; i++) {
+			journal.append(punch("EMP00" + i));
+		}
+		journal.checkpoint(1);
+		journal.close();
+
+		PunchJournal reopened = new PunchJournal(directory, objectMapper, true);
+		List<IngestedPunch> pending = reopened.open();
+
+		assertEquals(2, pending.size());
+		assertEquals(2, pending.get(0).getSequence());
+		assertEquals("EMP002", pending.get(0).getRequest().getEmployeeId());
+		assertEquals(GpsAttendanceLog.PunchType.CHECK_IN, pending.get(0).getRequest().getPunchType());
+		assertEquals(3, pending.get(1).getSequence());
+	}
+
+	@Test
+	void fullyCheckpointedLogIsTruncatedAndSequenceContinues() throws Exception {
+		PunchJournal journal = new PunchJournal(directory, objectMapper, true);
+		journal.open();
+		journal.append(punch("EMP001"));
+		journal.append(punch("EMP002"));
+		journal.checkpoint(2);
+
+		assertEquals(0, Files.size(directory.resolve("punches.log")));
+		journal.close();
+
+		PunchJournal reopened = new PunchJournal(directory, objectMapper, true);
+		assertTrue(reopened.open().isEmpty());
+		IngestedPunch next = punch("EMP003");
+		reopened.append(next);
+		assertEquals(3, next.getSequence());
+	}
+
+	@Test
+	void tornLastLineIsDroppedOnOpen() throws Exception {
+		PunchJournal journal = new PunchJournal(directory, objectMapper, true);
+		journal.open();
+		journal.append(punch("EMP001"));
+		journal.close();
+		// Crash in the middle of the next append
+		Files.writeString(directory.resolve("punches.log"), "{\"sequence\":2,\"employeeRec",
+				StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		PunchJournal reopened = new PunchJournal(directory, objectMapper, true);
+		assertEquals(1, reopened.open().size());
+		IngestedPunch next = punch("EMP002");
+		reopened.append(next);
+		reopened.close();
+
+		assertEquals(2, new PunchJournal(directory, objectMapper, true).open().size());
+	}
+
+	@Test
+	void concurrentAppendsAreQueuedInSequenceOrder() throws Exception {
+		PunchJournal journal = new PunchJournal(directory, objectMapper, false);
+		journal.open();
+		// Stand-in for the writer queue: punches must arrive in sequence order, or flushing a later
+		// punch would checkpoint (and truncate) past an earlier one that is only in memory
+		List<Long> queued = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> appends = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				String employeeId = "EMP" + i;
+				appends.add(executor.submit(() -> {
+					start.await();
+					journal.append(punch(employeeId), punch -> {
+						Thread.yield();
+						queued.add(punch.getSequence());
+					});
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> append : appends) {
+				append.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(400, queued.size());
+		for (int i = 0; i < queued.size(); i++) {
+			assertEquals(i + 1L, queued.get(i));
+		}
+
+		// Checkpointing the head of the queue keeps everything behind it
+		journal.checkpoint(queued.get(199));
+		journal.close();
+		List<IngestedPunch> pending = new PunchJournal(directory, objectMapper, false).open();
+		assertEquals(200, pending.size());
+		assertEquals(201, pending.get(0).getSequence());
+	}
+
+	private static IngestedPunch punch(String employeeId) {
+		GpsAttendanceRequest request = new GpsAttendanceRequest();
+		request.setEmployeeId(employeeId);
+		request.setPunchType(GpsAttendanceLog.PunchType.CHECK_IN);
+		request.setLatitude(19.07);
+		request.setLongitude(72.87);
+		request.setClientPunchId(employeeId + "-checkin");
+
+		IngestedPunch punch = new IngestedPunch();
+		punch.setEmployeeRecordId(1L);
+		punch.setSiteId(10L);
+		punch.setPunchTime(LocalDateTime.of(2025, 1, 6, 9, 0));
+		punch.setAcceptedAt(LocalDateTime.of(2025, 1, 6, 3, 30));
+		punch.setRequest(request);
+		return punch;
+	}
+}
@@ -0,0 +1,123 @@
+package com.civiltech.civildesk_backend.service;
+
+import com.civiltech.civildesk_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PushMulticastServiceTest {
+
+	private final RecordingPushGateway pushGateway = new RecordingPushGateway();
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private PushMulticastService pushMulticastService;
+
+	@BeforeEach
+	void setUp() {
+		pushMulticastService = new PushMulticastService();
+		ReflectionTestUtils.setField(pushMulticastService, "pushGateway", pushGateway);
+		ReflectionTestUtils.setField(pushMulticastService, "userRepository", userRepository);
+		pushMulticastService.setTransactionManager(mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void tokensAreSentInBatchesOfAtMostMaxBatchSize() {
+		List<String> tokens = tokens(1201);
+		// Duplicates (two users on one device) are sent once
+		tokens.addAll(tokens.subList(0, 50));
+
+		PushMulticastService.MulticastResult result = pushMulticastService.send(tokens, Map.of("type", "BROADCAST"));
+
+		assertEquals(1201, result.getSentCount());
+		assertTrue(result.getRetryTokens().isEmpty());
+		assertEquals(List.of(500, 500, 201), pushGateway.batches.stream().map(List::size).toList());
+		assertEquals(tokens(1201), pushGateway.batches.stream().flatMap(List::stream).toList());
+		verify(userRepository, never()).clearFcmTokens(anyCollection(), any());
+	}
+
+	@Test
+	void deadTokensFromEveryBatchAreClearedInOneUpdate() {
+		pushGateway.deadTokens.addAll(Set.of("token-7", "token-650"));
+
+		PushMulticastService.MulticastResult result = pushMulticastService.send(tokens(700), Map.of("type", "BROADCAST"));
+
+		assertEquals(698, result.getSentCount());
+		// Dead tokens are never retried
+		assertTrue(result.getRetryTokens().isEmpty());
+		assertEquals(Set.of("token-7", "token-650"), Set.copyOf(result.getInvalidTokens()));
+		verify(userRepository, times(1)).clearFcmTokens(
+				argThat((Collection<String> cleared) -> Set.copyOf(cleared).equals(Set.of("token-7", "token-650"))),
+				any(LocalDateTime.class));
+	}
+
+	@Test
+	void failureOfEveryBatchReturnsEveryTokenForRetry() {
+		pushGateway.failing = true;
+
+		PushMulticastService.MulticastResult result = pushMulticastService.send(tokens(600), Map.of("type", "BROADCAST"));
+
+		assertEquals(0, result.getSentCount());
+		assertEquals(tokens(600), result.getRetryTokens());
+		assertNotNull(result.getLastError());
+		assertEquals(2, pushGateway.batches.size());
+		verify(userRepository, never()).clearFcmTokens(anyCollection(), any());
+	}
+
+	@Test
+	void onlyTokensOfFailedBatchesAndTransientFailuresAreReturnedForRetry() {
+		pushGateway.failingBatches.add(1);
+		pushGateway.failedTokens.add("token-3");
+		pushGateway.deadTokens.add("token-4");
+
+		PushMulticastService.MulticastResult result = pushMulticastService.send(tokens(1100), Map.of("type", "BROADCAST"));
+
+		List<String> expectedRetry = new ArrayList<>();
+		expectedRetry.add("token-3");
+		expectedRetry.addAll(tokens(1000).subList(500, 1000));
+		assertEquals(expectedRetry, result.getRetryTokens());
+		assertEquals(List.of("token-4"), result.getInvalidTokens());
+		assertEquals(598, result.getSentCount());
+	}
+
+	@Test
+	void beforeBatchIsAskedBeforeEveryBatchAndStopsTheSend() {
+		List<Integer> asked = new ArrayList<>();
+
+		PushMulticastService.MulticastResult result = pushMulticastService.send(tokens(1201), Map.of("type", "BROADCAST"),
+				() -> {
+					asked.add(pushGateway.batches.size());
+					return asked.size() < 3;
+				});
+
+		assertEquals(List.of(0, 1, 2), asked);
+		assertEquals(2, pushGateway.batches.size());
+		assertTrue(result.isStopped());
+		assertEquals(1000, result.getSentCount());
+	}
+
+	private static List<String> tokens(int count) {
+		List<String> tokens = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			tokens.add("token-" + i);
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,60 @@
+package com.civiltech.civildesk_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PushGateway test double: records every batch, reports the configured tokens as dead or
+ * transiently failed, and throws for the configured batches (or all of them)
+ */
+class RecordingPushGateway implements PushGateway {
+
+	final List<List<String>> batches = new ArrayList<>();
+	final Set<String> deadTokens = new HashSet<>();
+	final Set<String> failedTokens = new HashSet<>();
+	final Set<Integer> failingBatches = new HashSet<>();
+	boolean failing;
+
+	@Override
+	public boolean isAvailable() {
+		return true;
+	}
+
+	@Override
+	public BatchResult sendMulticast(List<String> tokens, Map<String, String> data) throws Exception {
+		return send(tokens);
+	}
+
+	@Override
+	public BatchResult sendEach(List<String> tokens, List<Map<String, String>> payloads) throws Exception {
+		return send(tokens);
+	}
+
+	private BatchResult send(List<String> tokens) throws Exception {
+		if (tokens.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("Batch of " + tokens.size() + " tokens");
+		}
+		batches.add(new ArrayList<>(tokens));
+		if (failing || failingBatches.contains(batches.size() - 1)) {
+			throw new Exception("FCM unavailable");
+		}
+		List<String> invalidTokens = new ArrayList<>();
+		List<Outcome> outcomes = new ArrayList<>();
+		int sent = 0;
+		for (String token : tokens) {
+			if (deadTokens.contains(token)) {
+				invalidTokens.add(token);
+				outcomes.add(Outcome.INVALID_TOKEN);
+			} else if (failedTokens.contains(token)) {
+				outcomes.add(Outcome.FAILED);
+			} else {
+				outcomes.add(Outcome.SENT);
+				sent++;
+			}
+		}
+		return new BatchResult(sent, tokens.size() - sent, invalidTokens, outcomes);
+	}
+}
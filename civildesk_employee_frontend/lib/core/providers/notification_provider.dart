@@ -73,6 +73,7 @@ class NotificationProvider extends ChangeNotifier {
       final response = await _notificationService.getNotifications(
         page: _currentPage,
         size: 20,
+        after: refresh || _notifications.isEmpty ? null : _notifications.last,
       );
 
       if (refresh) {
@@ -42,10 +42,11 @@ class NotificationService {
     }
   }
 
-  // Get paginated notifications
+  // Get paginated notifications; pass the last notification already loaded to get the next page
   Future<PageResponse<NotificationModel>> getNotifications({
     int page = 0,
     int size = 20,
+    NotificationModel? after,
   }) async {
     try {
       final response = await _apiService.get(
@@ -53,6 +54,10 @@ class NotificationService {
         queryParameters: {
           'page': page,
           'size': size,
+          if (after != null && after.id != null) ...{
+            'beforeCreatedAt': after.createdAt.toIso8601String(),
+            'beforeId': after.id,
+          },
         },
       );
 